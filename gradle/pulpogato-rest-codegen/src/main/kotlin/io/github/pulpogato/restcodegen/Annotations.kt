@@ -174,6 +174,12 @@ object Annotations {
         return builder.build()
     }
 
+    fun operationId(operationId: String): AnnotationSpec =
+        AnnotationSpec
+            .builder(ClassName.get("$COMMON_PACKAGE.annotations", "OperationId"))
+            .addMember("value", $$"$S", operationId)
+            .build()
+
     fun typeGenerated(): AnnotationSpec =
         AnnotationSpec
             .builder(ClassName.get("$COMMON_PACKAGE.annotations", "TypeGenerated"))
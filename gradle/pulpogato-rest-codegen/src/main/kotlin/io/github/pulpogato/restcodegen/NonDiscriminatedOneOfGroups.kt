@@ -35,6 +35,21 @@ object NonDiscriminatedOneOfGroups {
         val memberSchemaKeys: List<String>,
         /** JSON-pointer location of the `oneOf`, matching [Context.getSchemaStackRef]. */
         val locationRef: String,
+        /** One [Dispatch] per member, in [memberSchemaKeys] order. */
+        val dispatch: List<Dispatch> = emptyList(),
+    )
+
+    /**
+     * The dispatch-table row for one member: the property names its schema marks as required, and the
+     * ones no other member of the group declares. The runtime deserializer uses these to try the likely
+     * branch first instead of parsing every branch. [unique] is empty for every member when any member's
+     * properties can't be read off its schema directly, since a name that only looks unique could then
+     * be declared by the opaque member too.
+     */
+    data class Dispatch(
+        val schemaKey: String,
+        val required: Set<String>,
+        val unique: Set<String>,
     )
 
     private const val COMPONENTS_SCHEMAS_PREFIX = "#/components/schemas/"
@@ -113,7 +128,37 @@ object NonDiscriminatedOneOfGroups {
         // so try-order has no functional effect on correct payloads. The name comes from the location,
         // so it is already independent of branch order.
         val memberKeys = refKeys.sorted()
-        groups[ref] = Group(ClassName.get(schemasPackage, contextName(ref)), memberKeys, ref)
+        groups[ref] = Group(ClassName.get(schemasPackage, contextName(ref)), memberKeys, ref, dispatch(memberKeys, componentSchemas))
+    }
+
+    private fun dispatch(
+        memberKeys: List<String>,
+        componentSchemas: Map<String, Schema<*>>,
+    ): List<Dispatch> {
+        // Only plain `properties` are trusted; a member composed through allOf/anyOf/oneOf may declare
+        // more than is visible here.
+        val propertiesByKey =
+            memberKeys.associateWith { key ->
+                val schema = componentSchemas[key]
+                if (schema == null || schema.allOf != null || schema.anyOf != null || schema.oneOf != null) {
+                    null
+                } else {
+                    schema.properties?.keys?.toSortedSet()
+                }
+            }
+        val allKnown = propertiesByKey.values.all { it != null }
+        return memberKeys.map { key ->
+            val properties = propertiesByKey[key].orEmpty()
+            val required = componentSchemas[key]?.required.orEmpty().filterNotNull().toSortedSet()
+            val unique =
+                if (allKnown) {
+                    val others = propertiesByKey.filterKeys { it != key }.values.flatMap { it.orEmpty() }.toSet()
+                    (properties - others).toSortedSet()
+                } else {
+                    sortedSetOf()
+                }
+            Dispatch(key, required, unique)
+        }
     }
 
     /**
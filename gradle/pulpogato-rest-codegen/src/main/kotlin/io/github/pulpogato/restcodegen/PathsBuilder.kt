@@ -12,6 +12,7 @@ import com.palantir.javapoet.TypeSpec
 import com.palantir.javapoet.TypeVariableName
 import io.github.pulpogato.restcodegen.Annotations.generated
 import io.github.pulpogato.restcodegen.Annotations.nullable
+import io.github.pulpogato.restcodegen.Annotations.operationId
 import io.github.pulpogato.restcodegen.Annotations.suppressWarnings
 import io.github.pulpogato.restcodegen.Annotations.testExtension
 import io.github.pulpogato.restcodegen.ext.camelCase
@@ -430,11 +431,13 @@ class PathsBuilder {
                     $$"""
                     this.factory = $T.builderFor($T.create(this.$N))
                             .conversionService(this.conversionService)
+                            .httpRequestValuesProcessor(new $T())
                             .build()
                     """.trimIndent(),
                     ClassName.get("org.springframework.web.service.invoker", "HttpServiceProxyFactory"),
                     spec.adapterClassName,
                     fieldName,
+                    ClassName.get("io.github.pulpogato.common.client", "OperationIdProcessor"),
                 )
 
         apiFieldInitializers.forEach { (apiFieldName, typeRef, _) ->
@@ -739,6 +742,7 @@ class PathsBuilder {
                     .addMember("accept", $$"$S", contentType)
                     .build(),
             ).addAnnotation(generated(0, context))
+            .addAnnotation(operationId(atomicMethod.operationId))
             .addParameters(parameterSpecs)
             .returns(
                 if (reactiveReturnTypes) {
@@ -795,6 +799,7 @@ class PathsBuilder {
                     ).addMember("value", $$"$S", atomicMethod.path)
                     .build(),
             ).addAnnotation(generated(0, context))
+            .addAnnotation(operationId(atomicMethod.operationId))
             .addParameters(parameters.map { it.second })
             .returns(
                 if (reactiveReturnTypes) {
@@ -10,6 +10,7 @@ import com.palantir.javapoet.TypeName
 import com.palantir.javapoet.TypeSpec
 import io.github.pulpogato.restcodegen.Annotations.generated
 import io.github.pulpogato.restcodegen.ext.pascalCase
+import io.github.pulpogato.restcodegen.ext.propertyFieldSpecs
 import io.github.pulpogato.restcodegen.ext.referenceAndDefinition
 import java.io.File
 import javax.lang.model.element.Modifier
@@ -294,59 +295,89 @@ class SchemasBuilder {
 
     /**
      * Nested no-arg deserializer classes for both Jackson runtimes. Each extends the shared
-     * `JacksonNOneOfDeserializer` and passes the interface type plus the ordered list of candidate
-     * subtypes, since `@JsonDeserialize(using = ...)` requires a no-arg-constructable deserializer.
+     * `JacksonNOneOfDeserializer` and passes the interface type plus one `OneOfCandidate` per permitted
+     * subtype, in order, since `@JsonDeserialize(using = ...)` requires a no-arg-constructable
+     * deserializer. Each candidate carries the required and unique property names from
+     * [NonDiscriminatedOneOfGroups.Dispatch], so the runtime can pick a branch from the object's keys.
      */
     private fun nonDiscriminatedDeserializerTypes(
         packageName: String,
         group: NonDiscriminatedOneOfGroups.Group,
     ): List<TypeSpec> {
         val base = group.supertype.simpleName()
-        val memberClasses = group.memberSchemaKeys.map { ClassName.get(packageName, it.pascalCase()) }
+        val dispatchByKey = group.dispatch.associateBy { it.schemaKey }
+        val candidates =
+            group.memberSchemaKeys.map { key ->
+                val dispatch = dispatchByKey[key]
+                OneOfCandidateSpec(
+                    ClassName.get(packageName, key.pascalCase()),
+                    dispatch?.required.orEmpty(),
+                    dispatch?.unique.orEmpty(),
+                )
+            }
         return listOf(
             oneOfDeserializerType(
                 "${base}Jackson3Deserializer",
                 ClassName.get(PACKAGE_PULPOGATO_JACKSON, "Jackson3OneOfDeserializer"),
                 group.supertype,
-                memberClasses,
+                candidates,
             ),
             oneOfDeserializerType(
                 "${base}Jackson2Deserializer",
                 ClassName.get(PACKAGE_PULPOGATO_JACKSON, "Jackson2OneOfDeserializer"),
                 group.supertype,
-                memberClasses,
+                candidates,
             ),
         )
     }
 
+    private data class OneOfCandidateSpec(
+        val type: ClassName,
+        val required: Set<String>,
+        val unique: Set<String>,
+    )
+
     private fun oneOfDeserializerType(
         simpleName: String,
         baseClass: ClassName,
         supertype: ClassName,
-        memberClasses: List<ClassName>,
+        candidates: List<OneOfCandidateSpec>,
     ): TypeSpec {
-        val candidates = CodeBlock.builder().add($$"$T.of(", ClassName.get(List::class.java))
-        memberClasses.forEachIndexed { index, member ->
-            if (index > 0) candidates.add(", ")
-            candidates.add(TYPE_CLASS_FORMAT, member)
-        }
-        candidates.add(")")
-
+        val oneOfCandidate = ClassName.get(PACKAGE_PULPOGATO_JACKSON, "OneOfCandidate")
         val constructor =
             MethodSpec
                 .constructorBuilder()
                 .addModifiers(Modifier.PUBLIC)
-                .addStatement($$"super($T.class, $L)", supertype, candidates.build())
-                .build()
+                .addCode($$"super($T.class", supertype)
+        candidates.forEach { candidate ->
+            constructor.addCode(
+                $$",\n$>$>new $T<>($T.class, $L, $L)$<$<",
+                oneOfCandidate,
+                candidate.type,
+                stringSet(candidate.required),
+                stringSet(candidate.unique),
+            )
+        }
+        constructor.addCode(");\n")
 
         return TypeSpec
             .classBuilder(simpleName)
             .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
             .superclass(ParameterizedTypeName.get(baseClass, supertype))
-            .addMethod(constructor)
+            .addMethod(constructor.build())
             .build()
     }
 
+    /** A `Set.of(...)` literal; the names are distinct, so `Set.of` can't reject them. */
+    private fun stringSet(names: Set<String>): CodeBlock {
+        val block = CodeBlock.builder().add($$"$T.of(", ClassName.get(Set::class.java))
+        names.forEachIndexed { index, name ->
+            if (index > 0) block.add(", ")
+            block.add($$"$S", name)
+        }
+        return block.add(")").build()
+    }
+
     /**
      * Builds the `@JsonTypeInfo` / `@JsonSubTypes` pair that lets Jackson deserialize a sealed
      * supertype to the correct member from a discriminator property in the payload.
@@ -444,7 +475,7 @@ class SchemasBuilder {
 
     private fun instanceFields(typeSpec: TypeSpec): Map<String, TypeName> =
         typeSpec
-            .fieldSpecs()
+            .propertyFieldSpecs()
             .filter { Modifier.STATIC !in it.modifiers() }
             .associate { it.name() to it.type() }
 
@@ -458,7 +489,7 @@ class SchemasBuilder {
         if (!isComposite) return emptyList()
 
         val nestedByName = typeSpec.typeSpecs().associateBy { it.name() }
-        val fields = typeSpec.fieldSpecs().filter { Modifier.STATIC !in it.modifiers() }
+        val fields = typeSpec.propertyFieldSpecs().filter { Modifier.STATIC !in it.modifiers() }
         if (fields.isEmpty()) return emptyList()
         return fields.map { field ->
             val branchName = (field.type().withoutAnnotations() as? ClassName)?.simpleName()
@@ -1,5 +1,6 @@
 package io.github.pulpogato.restcodegen.ext
 
+import com.palantir.javapoet.ArrayTypeName
 import com.palantir.javapoet.ClassName
 import com.palantir.javapoet.CodeBlock
 import com.palantir.javapoet.FieldSpec
@@ -34,11 +35,17 @@ import io.swagger.v3.oas.models.media.Schema
 import javax.lang.model.element.Modifier
 
 private const val PACKAGE_PULPOGATO_COMMON = "io.github.pulpogato.common"
-private const val PACKAGE_COMMONS_LANG3_BUILDER = "org.apache.commons.lang3.builder"
 private const val COMPONENTS_SCHEMAS_PREFIX = "#/components/schemas/"
+private const val HASH_CODE_CACHE = "\$hashCodeCache"
 
 fun Map.Entry<String, Schema<*>>.className(): String = key.pascalCase()
 
+/**
+ * The fields of a generated class that back JSON properties. This leaves out the transient hash code
+ * cache that [generateHashCode] may add, which has no getter, setter, builder slot or `toCode` entry.
+ */
+fun TypeSpec.propertyFieldSpecs(): List<FieldSpec> = fieldSpecs().filter { Modifier.TRANSIENT !in it.modifiers() }
+
 /**
  * Checks if the given TypeName represents a simple type (primitive, string, or date/time)
  * that should NOT be wrapped in NullableOptional.
@@ -494,18 +501,27 @@ private fun addStandardMethodsAndBuilderLogic(
     context: Context,
     superType: ClassName? = null,
 ) {
+    // Only a class whose state is entirely its own value-typed fields can cache its hash code: a setter
+    // here can reset the cache, but nothing can when an inherited field or a nested object changes.
+    val cacheHashCode = superType == null && fieldSpecs.isNotEmpty() && fieldSpecs.all { isImmutableValueType(it.type()) }
+    if (cacheHashCode) {
+        builder.addField(
+            FieldSpec.builder(TypeName.INT, HASH_CODE_CACHE, Modifier.PRIVATE, Modifier.TRANSIENT).build(),
+        )
+    }
+
     // Generate all methods
     fieldSpecs.forEach { field ->
         val javadoc = extractJavadoc(field)
         builder
             .addMethod(generateGetter(field, javadoc))
-            .addMethod(generateSetter(field, javadoc))
+            .addMethod(generateSetter(field, javadoc, cacheHashCode))
     }
 
     builder
-        .addMethod(generateEquals())
-        .addMethod(generateHashCode())
-        .addMethod(generateToString())
+        .addMethod(generateEquals(classRef, fieldSpecs, callSuper = superType != null))
+        .addMethod(generateHashCode(fieldSpecs, callSuper = superType != null, cacheHashCode))
+        .addMethod(generateToString(classRef.simpleName(), fieldSpecs, callSuper = superType != null))
         .addMethod(generateNoArgsConstructor())
 
     // A subclass always needs an all-args constructor so its SuperBuilder can wire up the
@@ -560,7 +576,7 @@ private fun buildFancyObject(
 
     // Get built type to access actual field specs for method generation
     val builtType = theType.build()
-    val fieldSpecs = builtType.fieldSpecs()
+    val fieldSpecs = builtType.propertyFieldSpecs()
 
     addStandardMethodsAndBuilderLogic(theType, fieldSpecs, classRef, context)
 
@@ -647,6 +663,7 @@ private fun copyTypeSpecToBuilderWithFilteredTypes(
     original: TypeSpec,
     typeSpecFilter: (TypeSpec) -> Boolean = { true },
     methodFilter: (MethodSpec) -> Boolean = { true },
+    fieldFilter: (FieldSpec) -> Boolean = { true },
 ): TypeSpec.Builder {
     val builder =
         if (original.kind() == TypeSpec.Kind.ENUM) {
@@ -664,7 +681,7 @@ private fun copyTypeSpecToBuilderWithFilteredTypes(
         original.superclass()?.takeIf { it != Types.OBJECT }?.let { builder.superclass(it) }
     }
     original.superinterfaces().forEach { builder.addSuperinterface(it) }
-    original.fieldSpecs().forEach { builder.addField(it) }
+    original.fieldSpecs().filter(fieldFilter).forEach { builder.addField(it) }
     original.typeSpecs().filter(typeSpecFilter).forEach { builder.addType(it) }
     original.methodSpecs().filter(methodFilter).forEach { builder.addMethod(it) }
     if (!original.javadoc().isEmpty) {
@@ -695,7 +712,7 @@ private fun handleToCodeMethods(
     theType: TypeSpec.Builder,
 ) {
     val hasToCodeMethod = original.methodSpecs().any { it.name() == "toCode" }
-    val hasNewFields = builtWithAllProperties.fieldSpecs().size > original.fieldSpecs().size
+    val hasNewFields = builtWithAllProperties.propertyFieldSpecs().size > original.propertyFieldSpecs().size
 
     when {
         hasToCodeMethod && hasNewFields -> {
@@ -732,6 +749,8 @@ private fun rebuildWithUpdatedMethods(
         copyTypeSpecToBuilderWithFilteredTypes(
             builtWithAllProperties,
             typeSpecFilter = { !it.name().endsWith("Builder") && !it.name().endsWith("BuilderImpl") },
+            // The hash code cache belongs to the hashCode() being regenerated, which re-adds it if it still applies
+            fieldFilter = { Modifier.TRANSIENT !in it.modifiers() },
             methodFilter = { method ->
                 // Keep only methods that are NOT auto-generated (like enum methods, custom logic)
                 // Exclude: constructors, getters, setters, equals, hashCode, toString, toCode, builder methods, canEqual
@@ -743,7 +762,7 @@ private fun rebuildWithUpdatedMethods(
         }
 
     // Now regenerate all methods with the complete field list
-    val allFields = builtWithAllProperties.fieldSpecs()
+    val allFields = builtWithAllProperties.propertyFieldSpecs()
 
     addStandardMethodsAndBuilderLogic(builderWithoutOldBuilder, allFields, className, context)
 
@@ -759,7 +778,7 @@ private fun addMethodsToNewType(
     theType: TypeSpec.Builder,
 ) {
     val builder = builtWithAllProperties.toBuilder()
-    addToCodeMethod(builtWithAllProperties.fieldSpecs(), builder, className)
+    addToCodeMethod(builtWithAllProperties.propertyFieldSpecs(), builder, className)
     theType.addType(builder.build())
 }
 
@@ -994,7 +1013,7 @@ private fun buildAllOfObject(
         }
     }
 
-    val fieldSpecs = builder.build().fieldSpecs()
+    val fieldSpecs = builder.build().propertyFieldSpecs()
 
     addStandardMethodsAndBuilderLogic(builder, fieldSpecs, nameRef, context, superType)
     addToCodeMethod(fieldSpecs, builder, nameRef, baseProperties)
@@ -1027,7 +1046,7 @@ private fun buildSimpleObject(
 
     // Get built class to access fields for method generation
     val builtClass = builder.build()
-    val fields = builtClass.fieldSpecs()
+    val fields = builtClass.propertyFieldSpecs()
 
     addStandardMethodsAndBuilderLogic(builder, fields, nameRef, context)
 
@@ -1118,6 +1137,7 @@ private fun generateGetter(
 private fun generateSetter(
     field: FieldSpec,
     javadoc: String = "",
+    resetsHashCode: Boolean = false,
 ): MethodSpec {
     val fieldName = field.name()
     val methodName = "set${fieldName.pascalCase()}"
@@ -1134,6 +1154,10 @@ private fun generateSetter(
                     .build(),
             ).addStatement($$"this.$N = $N", fieldName, fieldName)
 
+    if (resetsHashCode) {
+        builder.addStatement($$"this.$N = 0", HASH_CODE_CACHE)
+    }
+
     // Add Javadoc if present
     if (javadoc.isNotBlank()) {
         builder.addJavadoc(javadoc)
@@ -1188,39 +1212,168 @@ private fun generateAllArgsConstructor(
 }
 
 /**
- * Generates toString() method with Lombok-style formatting.
+ * Generates toString() method with Lombok-style formatting: `Name(super=..., a=1, b=[x, y])`.
  */
-private fun generateToString(): MethodSpec =
-    MethodSpec
+private fun generateToString(
+    simpleName: String,
+    fields: List<FieldSpec>,
+    callSuper: Boolean,
+): MethodSpec {
+    val code = CodeBlock.builder().add("return ")
+    val parts = mutableListOf<CodeBlock>()
+    if (callSuper) {
+        parts.add(CodeBlock.of("super.toString()"))
+    }
+    fields.forEach { field ->
+        val type = field.type().withoutAnnotations()
+        parts.add(
+            if (type is ArrayTypeName) {
+                CodeBlock.of($$"$T.toString(this.$N)", ClassName.get(java.util.Arrays::class.java), field.name())
+            } else {
+                CodeBlock.of($$"this.$N", field.name())
+            },
+        )
+    }
+    val labels = (if (callSuper) listOf("super") else emptyList()) + fields.map { it.name() }
+    if (parts.isEmpty()) {
+        code.add($$"$S", "$simpleName()")
+    } else {
+        parts.forEachIndexed { index, part ->
+            if (index == 0) {
+                code.add($$"$S + $L", "$simpleName(${labels[index]}=", part)
+            } else {
+                code.add($$" + $S + $L", ", ${labels[index]}=", part)
+            }
+        }
+        code.add($$" + $S", ")")
+    }
+
+    return MethodSpec
         .methodBuilder("toString")
+        .addAnnotation(Types.OVERRIDE)
         .addModifiers(Modifier.PUBLIC)
         .returns(String::class.java)
-        .addStatement($$"return $T.reflectionToString(this)", ClassName.get(PACKAGE_COMMONS_LANG3_BUILDER, "ToStringBuilder"))
+        .addStatement(code.build())
         .build()
+}
 
 /**
- * Generates equals() method with proper null and type checking (Lombok style).
+ * Generates equals() method comparing fields one by one (Lombok style). Classes only equal instances of
+ * exactly the same class; a subclass compares the inherited fields through `super.equals`.
  */
-private fun generateEquals(): MethodSpec =
-    MethodSpec
-        .methodBuilder("equals")
-        .addModifiers(Modifier.PUBLIC)
-        .returns(TypeName.BOOLEAN)
-        .addParameter(ParameterSpec.builder(Types.OBJECT, "o").build())
-        .addStatement($$"return $T.reflectionEquals(this, o, false)", ClassName.get(PACKAGE_COMMONS_LANG3_BUILDER, "EqualsBuilder"))
+private fun generateEquals(
+    classRef: ClassName,
+    fields: List<FieldSpec>,
+    callSuper: Boolean,
+): MethodSpec {
+    val builder =
+        MethodSpec
+            .methodBuilder("equals")
+            .addAnnotation(Types.OVERRIDE)
+            .addModifiers(Modifier.PUBLIC)
+            .returns(TypeName.BOOLEAN)
+            .addParameter(ParameterSpec.builder(Types.OBJECT, "o").build())
+            .addStatement("if (o == this) return true")
+            .addStatement("if (o == null || getClass() != o.getClass()) return false")
+    if (callSuper) {
+        builder.addStatement("if (!super.equals(o)) return false")
+    }
+    if (fields.isEmpty()) {
+        return builder.addStatement("return true").build()
+    }
+    builder.addStatement($$"$T other = ($T) o", classRef, classRef)
+    val comparisons =
+        fields.map { field ->
+            val type = field.type().withoutAnnotations()
+            when {
+                type is ArrayTypeName -> {
+                    CodeBlock.of($$"$T.equals(this.$N, other.$N)", ClassName.get(java.util.Arrays::class.java), field.name(), field.name())
+                }
+
+                type == TypeName.FLOAT || type == TypeName.DOUBLE -> {
+                    CodeBlock.of($$"$T.compare(this.$N, other.$N) == 0", type.box(), field.name(), field.name())
+                }
+
+                type.isPrimitive -> {
+                    CodeBlock.of($$"this.$N == other.$N", field.name(), field.name())
+                }
+
+                else -> {
+                    CodeBlock.of($$"$T.equals(this.$N, other.$N)", ClassName.get(java.util.Objects::class.java), field.name(), field.name())
+                }
+            }
+        }
+    return builder
+        .addStatement($$"return $L", CodeBlock.join(comparisons, "\n&& "))
         .build()
+}
 
 /**
- * Generates hashCode() method using PRIME and result pattern (Lombok style).
+ * Generates hashCode() method using the prime and result pattern (Lombok style). With [cached], the
+ * result is kept in a transient field that the setters reset, like Lombok's `cacheStrategy = LAZY`.
+ * Racing threads may both compute it, but they store the same value.
  */
-private fun generateHashCode(): MethodSpec =
-    MethodSpec
-        .methodBuilder("hashCode")
-        .addModifiers(Modifier.PUBLIC)
-        .returns(
-            TypeName.INT,
-        ).addStatement($$"return $T.reflectionHashCode(this, false)", ClassName.get(PACKAGE_COMMONS_LANG3_BUILDER, "HashCodeBuilder"))
-        .build()
+private fun generateHashCode(
+    fields: List<FieldSpec>,
+    callSuper: Boolean,
+    cached: Boolean,
+): MethodSpec {
+    val builder =
+        MethodSpec
+            .methodBuilder("hashCode")
+            .addAnnotation(Types.OVERRIDE)
+            .addModifiers(Modifier.PUBLIC)
+            .returns(TypeName.INT)
+    if (cached) {
+        builder
+            .addStatement($$"int result = this.$N", HASH_CODE_CACHE)
+            .beginControlFlow("if (result != 0)")
+            .addStatement("return result")
+            .endControlFlow()
+            .addStatement("result = 1")
+    } else {
+        builder.addStatement(if (callSuper) "int result = super.hashCode()" else "int result = 1")
+    }
+    fields.forEach { field ->
+        val type = field.type().withoutAnnotations()
+        val hash =
+            when {
+                type is ArrayTypeName -> CodeBlock.of($$"$T.hashCode(this.$N)", ClassName.get(java.util.Arrays::class.java), field.name())
+                type.isPrimitive -> CodeBlock.of($$"$T.hashCode(this.$N)", type.box(), field.name())
+                else -> CodeBlock.of($$"$T.hashCode(this.$N)", ClassName.get(java.util.Objects::class.java), field.name())
+            }
+        builder.addStatement($$"result = result * 59 + $L", hash)
+    }
+    if (cached) {
+        builder.addStatement($$"this.$N = result", HASH_CODE_CACHE)
+    }
+    return builder.addStatement("return result").build()
+}
+
+/**
+ * Whether a field's value can't change behind its owner's back, so a hash code computed from it stays
+ * valid until the owner's own setter replaces it.
+ */
+private fun isImmutableValueType(typeName: TypeName): Boolean {
+    val type = typeName.withoutAnnotations()
+    return type.isPrimitive || type in IMMUTABLE_VALUE_TYPES
+}
+
+private val IMMUTABLE_VALUE_TYPES: Set<TypeName> =
+    setOf(
+        Types.BOOLEAN,
+        Types.INTEGER,
+        Types.LONG,
+        Types.FLOAT,
+        Types.DOUBLE,
+        Types.STRING,
+        Types.BIG_DECIMAL,
+        Types.URI,
+        Types.UUID,
+        ClassName.get(java.math.BigInteger::class.java),
+        ClassName.get(java.time.OffsetDateTime::class.java),
+        ClassName.get(java.time.LocalDate::class.java),
+    )
 
 /**
  * Generates $fillValuesFrom method for SuperBuilder pattern.
@@ -1470,7 +1623,7 @@ private fun generateBuilderClass(
     )
 
     // Add toString() method
-    builder.addMethod(generateToString())
+    builder.addMethod(generateToString("${className.simpleName()}.$builderName", fields, callSuper = superType != null))
 
     return builder.build()
 }
@@ -1616,7 +1769,7 @@ private fun addNestedTypeWithMethods(
 ) {
     if (nestedType.methodSpecs().none { it.name() == "toCode" } && typeName is ClassName) {
         val builder = nestedType.toBuilder()
-        addToCodeMethod(nestedType.fieldSpecs(), builder, typeName)
+        addToCodeMethod(nestedType.propertyFieldSpecs(), builder, typeName)
         classBuilder.addType(builder.addModifiers(Modifier.STATIC).build())
     } else {
         classBuilder.addType(nestedType.toBuilder().addModifiers(Modifier.STATIC).build())
@@ -107,6 +107,14 @@ class AnnotationsTest {
         assertThat(result.members()["value"].toString()).contains("JsonInclude.Include.NON_NULL")
     }
 
+    @Test
+    fun `operationId creates annotation with the operation id`() {
+        val result = Annotations.operationId("repos/list-for-org")
+
+        assertThat(result.type().toString()).isEqualTo("io.github.pulpogato.common.annotations.OperationId")
+        assertThat(result.members()["value"].toString()).contains("\"repos/list-for-org\"")
+    }
+
     @Test
     fun `typeGenerated creates annotation with correct codeRef`() {
         val result = Annotations.typeGenerated()
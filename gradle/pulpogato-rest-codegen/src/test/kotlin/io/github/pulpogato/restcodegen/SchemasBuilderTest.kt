@@ -143,6 +143,94 @@ class SchemasBuilderTest {
             .contains("FancySerializer")
     }
 
+    @Test
+    fun `non-discriminated oneOf deserializers carry a dispatch table`() {
+        val openAPI = oneOfSampleOpenAPI()
+        val groups = NonDiscriminatedOneOfGroups.compute(openAPI, packageName)
+
+        assertThat(groups.single().dispatch)
+            .containsExactly(
+                NonDiscriminatedOneOfGroups.Dispatch("enterprise", setOf("slug"), setOf("slug")),
+                NonDiscriminatedOneOfGroups.Dispatch("simple-user", setOf("id", "login"), setOf("login")),
+            )
+
+        val context = Context(openAPI, "test", emptyList(), emptyMap(), nonDiscriminatedOneOfGroups = groups)
+        SchemasBuilder().buildSchemas(context, tempDir.toFile(), packageName, mutableSetOf())
+
+        assertThat(readGenerated("IntegrationOwner"))
+            .contains("OneOfCandidate<>(Enterprise.class, Set.of(\"slug\"), Set.of(\"slug\"))")
+            .contains("OneOfCandidate<>(SimpleUser.class, Set.of(\"id\", \"login\"), Set.of(\"login\"))")
+            .doesNotContain("List.of(")
+    }
+
+    @Test
+    fun `value classes get field-wise equals and a cached hashCode`() {
+        generate(oneOfSampleOpenAPI())
+
+        assertThat(readGenerated("SimpleUser"))
+            .contains("Objects.equals(this.login, other.login)")
+            .contains("private transient int \$hashCodeCache;")
+            .contains("this.\$hashCodeCache = 0;")
+            .contains("return \"SimpleUser(login=\" + this.login")
+            .doesNotContain("reflectionEquals")
+            .doesNotContain("reflectionHashCode")
+    }
+
+    @Test
+    fun `subclasses fold in the base class and do not cache their hashCode`() {
+        generate(allOfSampleOpenAPI())
+
+        assertThat(readGenerated("ReleaseEvent"))
+            .contains("if (!super.equals(o))")
+            .contains("int result = super.hashCode();")
+            .contains("\"Release(super=\" + super.toString()")
+    }
+
+    /**
+     * An `integration.owner` oneOf of two plain objects that share `id` and differ in one property.
+     */
+    private fun oneOfSampleOpenAPI(): OpenAPI {
+        val stringSchema = { Schema<Any>().apply { types = mutableSetOf("string") } }
+        val integerSchema = { Schema<Any>().apply { types = mutableSetOf("integer") } }
+        val refSchema = { ref: String -> Schema<Any>().apply { `$ref` = ref } }
+
+        val openAPI = OpenAPI()
+        openAPI.schema(
+            "simple-user",
+            Schema<Any>().apply {
+                types = mutableSetOf("object")
+                properties = linkedMapOf("login" to stringSchema(), "id" to integerSchema())
+                required = listOf("login", "id")
+            },
+        )
+        openAPI.schema(
+            "enterprise",
+            Schema<Any>().apply {
+                types = mutableSetOf("object")
+                properties = linkedMapOf("slug" to stringSchema(), "id" to integerSchema())
+                required = listOf("slug")
+            },
+        )
+        openAPI.schema(
+            "integration",
+            Schema<Any>().apply {
+                types = mutableSetOf("object")
+                properties =
+                    linkedMapOf(
+                        "owner" to
+                            Schema<Any>().apply {
+                                oneOf =
+                                    listOf(
+                                        refSchema("#/components/schemas/simple-user"),
+                                        refSchema("#/components/schemas/enterprise"),
+                                    )
+                            },
+                    )
+            },
+        )
+        return openAPI
+    }
+
     /**
      * A spec exercising each allOf shape as a property: a single-ref alias, a ref + inline extension,
      * a flatten of inline-only members, and a multi-ref merge.
@@ -4,6 +4,7 @@ import net.ltgt.gradle.nullaway.nullaway
 
 plugins {
     alias(libs.plugins.javaLibrary)
+    alias(libs.plugins.jmh)
     alias(libs.plugins.waenaPublished)
     alias(libs.plugins.testLogger)
     alias(libs.plugins.pitest)
@@ -81,6 +82,14 @@ tasks.named<JavaCompile>("compileTestJava") {
     options.errorprone.enabled = false
 }
 
+tasks.named<JavaCompile>("compileJmhJava") {
+    options.errorprone.enabled = false
+}
+
+jmh {
+    jmhVersion = libs.versions.jmh
+}
+
 testlogger {
     theme = if (System.getProperty("idea.active") == "true") ThemeType.PLAIN_PARALLEL else ThemeType.MOCHA_PARALLEL
     slowThreshold = 5000
@@ -0,0 +1,77 @@
+package io.github.pulpogato.common.cache;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of keying a request: looking up the JWT subject of its Authorization header, then hashing
+ * the key. {@code tokens} is how many distinct headers are in use; 16 fit the subject cache, 1024
+ * don't.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CacheKeyHasherBenchmark {
+
+    @Param({"16", "1024"})
+    private int tokens;
+
+    private String[] headers;
+
+    @Setup
+    public void setUp() {
+        var issuedAt = Instant.parse("2026-01-01T00:00:00Z");
+        headers = new String[tokens];
+        for (int i = 0; i < tokens; i++) {
+            headers[i] = "Bearer "
+                    + JWT.create()
+                            .withSubject("installation-" + (i % 8))
+                            .withIssuedAt(issuedAt.plusSeconds(i))
+                            .withExpiresAt(issuedAt.plusSeconds(i + 3600L))
+                            .sign(Algorithm.HMAC256("secret"));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        String header(String[] headers) {
+            next = (next + 1) % headers.length;
+            return headers[next];
+        }
+    }
+
+    @Benchmark
+    public String extractJwtSubject(Cursor cursor) {
+        return CacheKeyHasher.extractJwtSubject(cursor.header(headers));
+    }
+
+    @Benchmark
+    public String key(Cursor cursor) {
+        return CacheKeyHasher.hash(CacheKeyData.builder()
+                .method("GET")
+                .host("api.github.com")
+                .path("/repos/pulpogato/pulpogato/pulls")
+                .query("state=open&per_page=100")
+                .accept("application/vnd.github+json")
+                .jwtSubject(CacheKeyHasher.extractJwtSubject(cursor.header(headers)))
+                .build());
+    }
+}
@@ -0,0 +1,71 @@
+package io.github.pulpogato.common;
+
+import java.util.List;
+import org.jspecify.annotations.Nullable;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * One page of a listing fetched through {@code Paginate.fromLinkHeaderCached}, with where its data
+ * came from according to the caching filter's {@code X-Pulpogato-Cache} response header.
+ *
+ * @param page   The page number, 1-based
+ * @param items  The items on the page
+ * @param source Where the page's data came from
+ * @param <T>    The type of items on the page
+ */
+public record CachedPage<T>(long page, List<T> items, Source source) {
+
+    /**
+     * Where a page's data came from.
+     */
+    public enum Source {
+        /**
+         * Fetched from the server: there was no usable cached copy, or the server sent a changed one.
+         */
+        NEW,
+        /**
+         * A cached copy the server confirmed with a 304 Not Modified.
+         */
+        REVALIDATED,
+        /**
+         * A cached copy served without asking the server.
+         */
+        CACHED;
+
+        /**
+         * Reads the {@code X-Pulpogato-Cache} value set by
+         * {@code io.github.pulpogato.common.cache.CachingExchangeFilterFunction} and
+         * {@code io.github.pulpogato.common.cache.CachingClientHttpRequestInterceptor}.
+         *
+         * @param cacheStatus The header value, or null when the response didn't pass through a caching filter
+         * @return The source; {@link #NEW} for anything but a cache hit or revalidation
+         */
+        public static Source fromCacheStatus(@Nullable String cacheStatus) {
+            if (cacheStatus == null) {
+                return NEW;
+            }
+            return switch (cacheStatus) {
+                case "HIT", "STALE" -> CACHED;
+                case "REVALIDATED" -> REVALIDATED;
+                default -> NEW;
+            };
+        }
+    }
+
+    /**
+     * Whether the page's data is what the cache already held.
+     *
+     * @return true unless the page is {@link Source#NEW}
+     */
+    public boolean unchanged() {
+        return source != Source.NEW;
+    }
+
+    static <T> CachedPage<T> of(long page, ResponseEntity<List<T>> response) {
+        var body = response.getBody();
+        return new CachedPage<>(
+                page,
+                body == null ? List.of() : body,
+                Source.fromCacheStatus(response.getHeaders().getFirst("X-Pulpogato-Cache")));
+    }
+}
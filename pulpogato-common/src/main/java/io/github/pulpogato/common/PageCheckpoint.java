@@ -0,0 +1,21 @@
+package io.github.pulpogato.common;
+
+import org.jspecify.annotations.Nullable;
+
+/**
+ * How far a listing fetched through one of the {@code Paginate.*Resumable} methods has got. It is plain
+ * data, meant to be persisted after each page so a listing that dies part way can be resumed from it
+ * instead of from page 1.
+ *
+ * @param page     The number of the last page fetched, 1-based; 0 before the first page
+ * @param cursor   The cursor for the page after it, for cursor-based listings; null for page-number ones
+ * @param etag     The {@code ETag} of the last page fetched, or null if the server sent none
+ * @param complete Whether the last page fetched was the last page of the listing
+ */
+public record PageCheckpoint(long page, @Nullable String cursor, @Nullable String etag, boolean complete) {
+
+    /**
+     * The checkpoint of a listing that hasn't fetched anything yet.
+     */
+    public static final PageCheckpoint START = new PageCheckpoint(0, null, null, false);
+}
@@ -0,0 +1,90 @@
+package io.github.pulpogato.common;
+
+import java.time.Duration;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import org.jspecify.annotations.Nullable;
+import reactor.util.retry.Retry;
+import reactor.util.retry.RetryBackoffSpec;
+
+/**
+ * How the {@code Paginate.*Resumable} methods retry a page that failed to fetch, so that a transient
+ * error such as a 502 doesn't end the whole listing. The delay before each retry doubles, starting at
+ * {@code initialBackoff} and capped at {@code maxBackoff}.
+ *
+ * <p>Example usage, retrying server errors from a {@code RestClient}:
+ * <pre>{@code
+ * var retry = PageRetry.backoff(
+ *         4, Duration.ofSeconds(1), e -> e instanceof HttpServerErrorException);
+ * }</pre>
+ *
+ * @param maxAttempts    The maximum number of attempts per page, including the first
+ * @param initialBackoff The delay before the first retry
+ * @param maxBackoff     The longest delay between attempts
+ * @param retryable      Which failures are worth retrying; any other is rethrown straight away
+ */
+public record PageRetry(
+        int maxAttempts, Duration initialBackoff, Duration maxBackoff, Predicate<Throwable> retryable) {
+
+    /**
+     * Doesn't retry at all.
+     *
+     * @return a policy with a single attempt
+     */
+    public static PageRetry none() {
+        return new PageRetry(1, Duration.ZERO, Duration.ZERO, e -> false);
+    }
+
+    /**
+     * Retries with exponential backoff, capped at a minute between attempts.
+     *
+     * @param maxAttempts    The maximum number of attempts per page, including the first
+     * @param initialBackoff The delay before the first retry
+     * @param retryable      Which failures are worth retrying
+     * @return the policy
+     */
+    public static PageRetry backoff(int maxAttempts, Duration initialBackoff, Predicate<Throwable> retryable) {
+        return new PageRetry(maxAttempts, initialBackoff, Duration.ofMinutes(1), retryable);
+    }
+
+    /**
+     * Fetches a page, sleeping and trying again on retryable failures.
+     */
+    <V> @Nullable V call(Supplier<@Nullable V> fetch) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return fetch.get();
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts || !retryable.test(e)) {
+                    throw e;
+                }
+                try {
+                    Thread.sleep(delay(attempt));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    e.addSuppressed(interrupted);
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * The delay before retrying after the given failed attempt.
+     */
+    Duration delay(int attempt) {
+        var factor = 1L << Math.min(attempt - 1, 30);
+        var delay = initialBackoff.multipliedBy(factor);
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    /**
+     * The same policy for {@code Mono.retryWhen}. Reactor adds jitter to the delays.
+     */
+    RetryBackoffSpec toRetry() {
+        return Retry.backoff(Math.max(0, maxAttempts - 1), initialBackoff)
+                .maxBackoff(maxBackoff)
+                .filter(retryable)
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+}
@@ -1,20 +1,45 @@
 package io.github.pulpogato.common;
 
+import java.net.SocketTimeoutException;
+import java.net.URLDecoder;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
 import java.util.function.BiPredicate;
 import java.util.function.Function;
 import java.util.function.LongFunction;
+import java.util.function.Predicate;
 import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 import java.util.regex.Pattern;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 import lombok.RequiredArgsConstructor;
 import org.jspecify.annotations.Nullable;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -116,6 +141,87 @@ public class Paginate {
         return from(maxPages, fetchPage, List::stream, hasNextPage);
     }
 
+    /**
+     * The largest {@code per_page} GitHub's REST list endpoints accept.
+     */
+    public static final int MAX_PER_PAGE = 100;
+
+    /**
+     * Creates a stream of items from a list endpoint that takes {@code page} and {@code per_page},
+     * choosing {@code per_page} itself. Pages are requested at {@link #MAX_PER_PAGE}, so a listing takes
+     * as few requests as it can, and fetching stops at the first short page, without the extra request
+     * {@link #from(long, LongFunction)} needs to confirm the end.
+     *
+     * <p>Pages that are expensive to render, such as large commit listings, can make GitHub answer a
+     * page of 100 with a 502 or a timeout. When that happens the same items are requested again at a
+     * smaller {@code per_page}, and the rest of the listing continues at that size. Each smaller size
+     * divides the one before it, so the items already emitted stay on page boundaries and nothing is
+     * skipped or repeated. A 502 Bad Gateway or 504 Gateway Timeout from {@code RestClient} or
+     * {@code WebClient}, or a timeout anywhere in the failure's cause chain, counts as too heavy.
+     *
+     * @param <T>       the type of items on each page
+     * @param maxPages  the maximum number of pages to fetch (prevents infinite pagination)
+     * @param fetchPage function that takes a page number (1-based) and a page size and returns the list of
+     *                  items on that page
+     * @return a stream containing all items from the fetched pages
+     */
+    public <T> Stream<T> fromAdaptive(
+            final long maxPages, final BiFunction<Long, Integer, @Nullable List<T>> fetchPage) {
+        return fromAdaptive(maxPages, fetchPage, MAX_PER_PAGE, Paginate::isOverloaded);
+    }
+
+    /**
+     * Form of {@link #fromAdaptive(long, BiFunction)} with a chosen starting page size and a chosen
+     * test for failures that mean the page was too heavy.
+     *
+     * @param <T>       the type of items on each page
+     * @param maxPages  the maximum number of pages to fetch (prevents infinite pagination)
+     * @param fetchPage function that takes a page number (1-based) and a page size and returns the list of
+     *                  items on that page
+     * @param perPage   the page size to start at
+     * @param tooHeavy  predicate that returns {@code true} for failures worth retrying at a smaller page size
+     * @return a stream containing all items from the fetched pages
+     */
+    public <T> Stream<T> fromAdaptive(
+            final long maxPages,
+            final BiFunction<Long, Integer, @Nullable List<T>> fetchPage,
+            final int perPage,
+            final Predicate<Throwable> tooHeavy) {
+        var pages = new AdaptivePages(maxPages, perPage, tooHeavy);
+        Iterator<List<T>> iterator = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !pages.isDone();
+            }
+
+            @Override
+            public List<T> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                while (true) {
+                    List<T> items;
+                    try {
+                        items = fetchPage.apply(pages.page(), pages.perPage());
+                    } catch (RuntimeException e) {
+                        if (pages.shrink(e)) {
+                            continue;
+                        }
+                        throw e;
+                    }
+                    if (items == null) {
+                        pages.finish();
+                        throw new NoSuchElementException();
+                    }
+                    pages.record(items.size());
+                    return items;
+                }
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                .flatMap(List::stream);
+    }
+
     /**
      * Convenience form of {@link #from(long, LongFunction, Function, BiPredicate)} for GitHub-style
      * list endpoints that report pagination via a {@code Link} response header (RFC 8288) instead of
@@ -142,6 +248,338 @@ public class Paginate {
                 (page, response) -> hasNextPage(response));
     }
 
+    /**
+     * Creates a stream of items from an API that paginates by cursor rather than page number, such as
+     * the {@code since} parameter of the user and repository listings, the {@code after} parameter of
+     * the audit log, or a GraphQL connection's {@code pageInfo.endCursor}. Page 1 is fetched with a
+     * {@code null} cursor, and each later page with the cursor {@code nextCursor} read from the page
+     * before it. Fetching stops when {@code nextCursor} returns {@code null}, when {@code fetchPage}
+     * returns {@code null}, or when {@code maxPages} is reached. Pages are fetched lazily, one at a time,
+     * as the stream is consumed.
+     *
+     * @param <T>          the type of items to be extracted from each page
+     * @param <R>          the type of the API response containing the paginated data
+     * @param <C>          the type of the cursor
+     * @param maxPages     the maximum number of pages to fetch (prevents infinite pagination)
+     * @param fetchPage    function that takes a cursor ({@code null} for the first page) and returns the API
+     *                     response for the page it points to
+     * @param extractItems function that takes an API response and returns a stream of items from that page
+     * @param nextCursor   function that takes an API response and returns the cursor for the page after it,
+     *                     or {@code null} if it is the last page
+     * @return a stream containing all items from the fetched pages
+     */
+    public <T, R, C> Stream<T> fromCursor(
+            final long maxPages,
+            final Function<@Nullable C, @Nullable R> fetchPage,
+            final Function<R, Stream<T>> extractItems,
+            final Function<R, @Nullable C> nextCursor) {
+        Iterator<R> iterator = new CursorStreamIterator<>(maxPages, fetchPage, nextCursor);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                .flatMap(extractItems);
+    }
+
+    /**
+     * Convenience form of {@link #fromCursor(long, Function, Function, Function)} for listings that take
+     * a {@code since} parameter, the id of the last item already seen, such as the listings of all users,
+     * organizations or public repositories. Page 1 is fetched with {@code since} 0, each later page with
+     * the id of the last item on the page before it, and fetching stops at the first empty page.
+     *
+     * @param <T>       the type of items to be extracted from each page
+     * @param maxPages  the maximum number of pages to fetch (prevents infinite pagination)
+     * @param fetchPage function that takes a {@code since} value and returns the list of items after it
+     * @param id        function that takes an item and returns its id
+     * @return a stream containing all items from the fetched pages
+     */
+    public <T> Stream<T> fromSince(
+            final long maxPages, final LongFunction<@Nullable List<T>> fetchPage, final ToLongFunction<T> id) {
+        return fromCursor(
+                maxPages,
+                (@Nullable Long since) -> fetchPage.apply(since == null ? 0 : since),
+                List::stream,
+                items -> items.isEmpty() ? null : id.applyAsLong(items.getLast()));
+    }
+
+    /**
+     * Convenience form of {@link #fromCursor(long, Function, Function, Function)} for listings whose
+     * {@code Link} header carries an opaque cursor instead of a page number, such as the {@code after}
+     * parameter of the audit log. The cursor for each later
+     * page is the {@code cursorParameter} query parameter of the page's {@code rel="next"} link, and
+     * fetching stops when there is no such link. A {@code null} response body is treated as an empty page.
+     *
+     * @param <T>             the type of items to be extracted from each page
+     * @param maxPages        the maximum number of pages to fetch (prevents infinite pagination)
+     * @param fetchPage       function that takes a cursor ({@code null} for the first page) and returns the
+     *                        response for the page it points to
+     * @param cursorParameter the name of the query parameter holding the cursor, such as {@code after}
+     * @return a stream containing all items from the fetched pages
+     */
+    public <T> Stream<T> fromLinkHeaderCursor(
+            final long maxPages,
+            final Function<@Nullable String, @Nullable ResponseEntity<List<T>>> fetchPage,
+            final String cursorParameter) {
+        return fromCursor(
+                maxPages,
+                fetchPage,
+                response -> {
+                    List<T> body = response.getBody();
+                    return body == null ? Stream.empty() : body.stream();
+                },
+                response -> nextLinkParameter(response, cursorParameter));
+    }
+
+    /**
+     * Resumable form of {@link #fromLinkHeader(long, LongFunction)}, for listings long enough that a
+     * failure part way shouldn't mean starting again. Each page comes with the {@link PageCheckpoint}
+     * after it, which the caller can persist and later pass back as {@code resumeFrom} to continue
+     * with the next page. A page that fails to fetch is retried as {@code retry} says, without
+     * restarting the stream. {@code maxPages} counts the pages fetched by this call, not since
+     * {@link PageCheckpoint#START}.
+     *
+     * @param <T>        the type of items to be extracted from each page
+     * @param maxPages   the maximum number of pages to fetch (prevents infinite pagination)
+     * @param fetchPage  function that takes a page number (1-based) and returns the response for that page
+     * @param resumeFrom the checkpoint to continue from, or {@link PageCheckpoint#START}
+     * @param retry      how to retry a page that failed to fetch
+     * @return a stream of the fetched pages with their checkpoints
+     */
+    public <T> Stream<ResumablePage<T>> fromLinkHeaderResumable(
+            final long maxPages,
+            final LongFunction<@Nullable ResponseEntity<List<T>>> fetchPage,
+            final PageCheckpoint resumeFrom,
+            final PageRetry retry) {
+        if (resumeFrom.complete()) {
+            return Stream.empty();
+        }
+        var pages = new ResumablePages<T>(resumeFrom, null);
+        return from(
+                maxPages,
+                page -> {
+                    var response = retry.call(() -> fetchPage.apply(pages.nextPage()));
+                    return response == null ? null : pages.record(response);
+                },
+                result -> Stream.of(result.page()),
+                (page, result) -> result.hasNextPage());
+    }
+
+    /**
+     * Resumable form of {@link #fromLinkHeaderCursor(long, Function, String)}, with checkpoints and
+     * retries as for {@link #fromLinkHeaderResumable(long, LongFunction, PageCheckpoint, PageRetry)}.
+     *
+     * @param <T>             the type of items to be extracted from each page
+     * @param maxPages        the maximum number of pages to fetch (prevents infinite pagination)
+     * @param fetchPage       function that takes a cursor ({@code null} for the first page) and returns the
+     *                        response for the page it points to
+     * @param cursorParameter the name of the query parameter holding the cursor, such as {@code after}
+     * @param resumeFrom      the checkpoint to continue from, or {@link PageCheckpoint#START}
+     * @param retry           how to retry a page that failed to fetch
+     * @return a stream of the fetched pages with their checkpoints
+     */
+    public <T> Stream<ResumablePage<T>> fromLinkHeaderCursorResumable(
+            final long maxPages,
+            final Function<@Nullable String, @Nullable ResponseEntity<List<T>>> fetchPage,
+            final String cursorParameter,
+            final PageCheckpoint resumeFrom,
+            final PageRetry retry) {
+        if (resumeFrom.complete()) {
+            return Stream.empty();
+        }
+        var pages = new ResumablePages<T>(resumeFrom, cursorParameter);
+        return from(
+                maxPages,
+                page -> {
+                    var response = retry.call(() -> fetchPage.apply(pages.nextCursor()));
+                    return response == null ? null : pages.record(response);
+                },
+                result -> Stream.of(result.page()),
+                (page, result) -> result.hasNextPage());
+    }
+
+    /**
+     * Parallel form of {@link #from(long, LongFunction, Function, ToIntFunction)}. Page 1 is fetched first;
+     * once it reports the total page count, the remaining pages are fetched on virtual threads, at most
+     * {@code concurrency} at a time. With {@code ordered}, items come out in page order, as they would
+     * sequentially; otherwise each page's items come out as soon as that page arrives.
+     *
+     * <p>When page 1 is a {@link ResponseEntity} whose {@code X-RateLimit-Remaining} is lower than the
+     * number of pages still to fetch, the rest are fetched one at a time instead, so the client's own
+     * rate-limit handling sees them in sequence. Closing the stream cancels pages still in flight.
+     *
+     * <p>The fetching threads are released when the last page has been read, when a page fails, or when the
+     * stream is closed. A caller that stops early, as with {@code limit} or {@code findFirst}, leaves up to
+     * {@code concurrency} pages in flight and must close the stream, for example with try-with-resources:
+     * <pre>{@code
+     * try (var repos = paginate.fromParallel(100, fetch, extract, total, 4, true)) {
+     *     return repos.limit(10).toList();
+     * }
+     * }</pre>
+     *
+     * @param <T>          the type of items to be extracted from each page
+     * @param <R>          the type of the API response containing the paginated data
+     * @param maxPages     the maximum number of pages to fetch (prevents infinite pagination)
+     * @param fetchPage    function that takes a page number (1-based) and returns the API response for that page;
+     *                     it is called from several threads at once
+     * @param extractItems function that takes an API response and returns a stream of items from that page
+     * @param totalPages   function that takes an API response and returns the total number of pages available
+     * @param concurrency  the maximum number of pages fetched at once
+     * @param ordered      whether to emit items in page order
+     * @return a stream containing all items from the fetched pages
+     */
+    public <T, R> Stream<T> fromParallel(
+            final long maxPages,
+            final LongFunction<@Nullable R> fetchPage,
+            final Function<R, Stream<T>> extractItems,
+            final ToIntFunction<R> totalPages,
+            final int concurrency,
+            final boolean ordered) {
+        return fetchParallel(
+                maxPages,
+                fetchPage,
+                extractItems,
+                totalPages::applyAsInt,
+                (page, response) -> false,
+                concurrency,
+                ordered);
+    }
+
+    /**
+     * Parallel form of {@link #fromLinkHeader(long, LongFunction)}. Page 1 is fetched first; its
+     * {@code rel="last"} link gives the page count, and the remaining pages are fetched as in
+     * {@link #fromParallel(long, LongFunction, Function, ToIntFunction, int, boolean)}. A listing whose
+     * first page has a {@code rel="next"} but no {@code rel="last"} link is continued one page at a time.
+     * As there, a stream that is not read to the end must be closed.
+     *
+     * @param <T>         the type of items to be extracted from each page
+     * @param maxPages    the maximum number of pages to fetch (prevents infinite pagination)
+     * @param fetchPage   function that takes a page number (1-based) and returns the response for that page;
+     *                    it is called from several threads at once
+     * @param concurrency the maximum number of pages fetched at once
+     * @param ordered     whether to emit items in page order
+     * @return a stream containing all items from the fetched pages
+     */
+    public <T> Stream<T> fromLinkHeaderParallel(
+            final long maxPages,
+            final LongFunction<@Nullable ResponseEntity<List<T>>> fetchPage,
+            final int concurrency,
+            final boolean ordered) {
+        return fetchParallel(
+                maxPages,
+                fetchPage,
+                response -> {
+                    List<T> body = response.getBody();
+                    return body == null ? Stream.empty() : body.stream();
+                },
+                Paginate::lastPage,
+                (page, response) -> hasNextPage(response),
+                concurrency,
+                ordered);
+    }
+
+    private <T, R> Stream<T> fetchParallel(
+            final long maxPages,
+            final LongFunction<@Nullable R> fetchPage,
+            final Function<R, Stream<T>> extractItems,
+            final ToLongFunction<R> pageCount,
+            final BiPredicate<Long, R> hasNextPage,
+            final int concurrency,
+            final boolean ordered) {
+        var iterator = new PrefetchIterator<>(maxPages, fetchPage, pageCount, hasNextPage, concurrency, ordered);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                .onClose(iterator::close)
+                .flatMap(extractItems);
+    }
+
+    /**
+     * Cache-aware form of {@link #fromLinkHeader(long, LongFunction)}, for syncs that re-list mostly
+     * unchanged data through a client with {@code io.github.pulpogato.common.cache.CachingExchangeFilterFunction}
+     * or {@code io.github.pulpogato.common.cache.CachingClientHttpRequestInterceptor}. Those already send
+     * {@code If-None-Match} from each page's cached entry, and a 304 costs nothing against the rate limit;
+     * this reports, per page, whether the data was {@linkplain CachedPage.Source#NEW new},
+     * {@linkplain CachedPage.Source#REVALIDATED revalidated} or {@linkplain CachedPage.Source#CACHED served
+     * from the cache}.
+     *
+     * <p>With {@code stopWhenUnchanged}, a first page that is unchanged ends the listing there, for callers
+     * that only need to know whether anything changed. A 304 on page 1 covers its {@code Link} header too,
+     * so the page count is as it was.
+     *
+     * @param <T>               the type of items on each page
+     * @param maxPages          the maximum number of pages to fetch (prevents infinite pagination)
+     * @param fetchPage         function that takes a page number (1-based) and returns the response for that page
+     * @param stopWhenUnchanged whether to stop after page 1 when it is unchanged
+     * @return a stream of the fetched pages
+     */
+    public <T> Stream<CachedPage<T>> fromLinkHeaderCached(
+            final long maxPages,
+            final LongFunction<@Nullable ResponseEntity<List<T>>> fetchPage,
+            final boolean stopWhenUnchanged) {
+        return fromLinkHeaderCached(maxPages, fetchPage, stopWhenUnchanged ? null : fetchPage);
+    }
+
+    /**
+     * Like {@link #fromLinkHeaderCached(long, LongFunction, boolean)}, but when page 1 is unchanged the
+     * remaining pages are fetched with {@code replayPage} instead, typically a client over the same cache
+     * built with {@code onlyIfCached}, so they are replayed from the cache without any network calls.
+     *
+     * @param <T>        the type of items on each page
+     * @param maxPages   the maximum number of pages to fetch (prevents infinite pagination)
+     * @param fetchPage  function that takes a page number (1-based) and returns the response for that page
+     * @param replayPage function used instead of {@code fetchPage} for pages after an unchanged page 1
+     * @return a stream of the fetched pages
+     */
+    public <T> Stream<CachedPage<T>> fromLinkHeaderCached(
+            final long maxPages,
+            final LongFunction<@Nullable ResponseEntity<List<T>>> fetchPage,
+            final @Nullable LongFunction<@Nullable ResponseEntity<List<T>>> replayPage) {
+        var pages = new CachedPages<T>(replayPage != null);
+        return from(
+                maxPages,
+                page -> {
+                    var response = (pages.replays(page) && replayPage != null ? replayPage : fetchPage).apply(page);
+                    return response == null ? null : pages.record(page, response);
+                },
+                result -> Stream.of(result.page()),
+                pages::hasNextPage);
+    }
+
+    /**
+     * Reactive counterpart to {@link #fromLinkHeaderCached(long, LongFunction, boolean)}.
+     *
+     * @param <T>               the type of items on each page
+     * @param maxPages          the maximum number of pages to fetch (prevents infinite pagination)
+     * @param fetchPage         function that takes a page number (1-based) and returns the response for that page
+     * @param stopWhenUnchanged whether to stop after page 1 when it is unchanged
+     * @return a flux of the fetched pages
+     */
+    public <T> Flux<CachedPage<T>> fromLinkHeaderCachedReactive(
+            final long maxPages,
+            final LongFunction<@Nullable Mono<ResponseEntity<List<T>>>> fetchPage,
+            final boolean stopWhenUnchanged) {
+        return fromLinkHeaderCachedReactive(maxPages, fetchPage, stopWhenUnchanged ? null : fetchPage);
+    }
+
+    /**
+     * Reactive counterpart to {@link #fromLinkHeaderCached(long, LongFunction, LongFunction)}.
+     *
+     * @param <T>        the type of items on each page
+     * @param maxPages   the maximum number of pages to fetch (prevents infinite pagination)
+     * @param fetchPage  function that takes a page number (1-based) and returns the response for that page
+     * @param replayPage function used instead of {@code fetchPage} for pages after an unchanged page 1
+     * @return a flux of the fetched pages
+     */
+    public <T> Flux<CachedPage<T>> fromLinkHeaderCachedReactive(
+            final long maxPages,
+            final LongFunction<@Nullable Mono<ResponseEntity<List<T>>>> fetchPage,
+            final @Nullable LongFunction<@Nullable Mono<ResponseEntity<List<T>>>> replayPage) {
+        var pages = new CachedPages<T>(replayPage != null);
+        return fetchReactive(
+                maxPages,
+                page -> {
+                    var response = (pages.replays(page) && replayPage != null ? replayPage : fetchPage).apply(page);
+                    return response == null ? null : response.map(r -> pages.record(page, r));
+                },
+                result -> Flux.just(result.page()),
+                pages::hasNextPage);
+    }
+
     /**
      * Matches a {@code rel} link-param naming {@code next}, per RFC 8288: either the quoted form
      * ({@code rel="next"}, optionally alongside other space-separated relation types) or the
@@ -154,6 +592,81 @@ public class Paginate {
         return link != null && REL_NEXT.matcher(link).find();
     }
 
+    /**
+     * Matches the target of a link whose {@code rel} names {@code next}, in the same forms as {@link #REL_NEXT}.
+     */
+    private static final Pattern REL_NEXT_TARGET =
+            Pattern.compile("(?i)<([^>]*)>\\s*;[^<]*?rel\\s*=\\s*(\"[^\"]*\\bnext\\b[^\"]*\"|next\\b)");
+
+    /**
+     * Matches the target of a link whose {@code rel} names {@code last}, in the same forms as {@link #REL_NEXT}.
+     */
+    private static final Pattern REL_LAST_TARGET =
+            Pattern.compile("(?i)<([^>]*)>\\s*;[^<]*?rel\\s*=\\s*(\"[^\"]*\\blast\\b[^\"]*\"|last\\b)");
+
+    /**
+     * Reads a query parameter of the target of a response's link matching {@code relTarget}.
+     *
+     * @return the decoded parameter value, or null if there's no such link or it has no such parameter
+     */
+    private static @Nullable String linkParameter(
+            final ResponseEntity<?> response, final Pattern relTarget, final String name) {
+        String link = response.getHeaders().getFirst("Link");
+        if (link == null) {
+            return null;
+        }
+        var target = relTarget.matcher(link);
+        if (!target.find()) {
+            return null;
+        }
+        var value = UriComponentsBuilder.fromUriString(target.group(1))
+                .build()
+                .getQueryParams()
+                .getFirst(name);
+        return value == null ? null : URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+
+    private static @Nullable String nextLinkParameter(final ResponseEntity<?> response, final String name) {
+        return linkParameter(response, REL_NEXT_TARGET, name);
+    }
+
+    /**
+     * Reads the page count from a response's {@code rel="last"} link.
+     *
+     * @return the page count; 1 if there's no next page; or -1 if there is one but no last link to count by
+     */
+    private static long lastPage(final ResponseEntity<?> response) {
+        var page = linkParameter(response, REL_LAST_TARGET, "page");
+        if (page != null) {
+            try {
+                return Long.parseLong(page);
+            } catch (NumberFormatException e) {
+                // Not a page number; count as if there were no last link
+            }
+        }
+        return hasNextPage(response) ? -1 : 1;
+    }
+
+    /**
+     * How many pages to fetch at once: {@code concurrency}, unless page 1 says the rate limit can't
+     * cover the {@code remainingPages}, in which case they go one at a time.
+     */
+    private static int prefetchWindow(final Object firstPage, final long remainingPages, final int concurrency) {
+        if (firstPage instanceof ResponseEntity<?> response) {
+            String remaining = response.getHeaders().getFirst("X-RateLimit-Remaining");
+            if (remaining != null) {
+                try {
+                    if (Long.parseLong(remaining.trim()) < remainingPages) {
+                        return 1;
+                    }
+                } catch (NumberFormatException e) {
+                    // Not a number; ignore it
+                }
+            }
+        }
+        return Math.max(1, concurrency);
+    }
+
     /**
      * Reactive counterpart to {@link #from(long, LongFunction, Function, ToIntFunction)}, for use with
      * reactive API clients (such as {@code io.github.pulpogato.rest.api.reactive.SearchApi}) whose methods
@@ -235,6 +748,65 @@ public class Paginate {
         return fetchReactive(maxPages, fetchPage, Flux::fromIterable, hasNextPage);
     }
 
+    /**
+     * Reactive counterpart to {@link #fromAdaptive(long, BiFunction)}.
+     *
+     * @param <T>       the type of items on each page
+     * @param maxPages  the maximum number of pages to fetch (prevents infinite pagination)
+     * @param fetchPage function that takes a page number (1-based) and a page size and returns the list of
+     *                  items on that page
+     * @return a flux containing all items from the fetched pages
+     */
+    public <T> Flux<T> fromAdaptiveReactive(
+            final long maxPages, final BiFunction<Long, Integer, @Nullable Mono<List<T>>> fetchPage) {
+        return fromAdaptiveReactive(maxPages, fetchPage, MAX_PER_PAGE, Paginate::isOverloaded);
+    }
+
+    /**
+     * Reactive counterpart to {@link #fromAdaptive(long, BiFunction, int, Predicate)}.
+     *
+     * @param <T>       the type of items on each page
+     * @param maxPages  the maximum number of pages to fetch (prevents infinite pagination)
+     * @param fetchPage function that takes a page number (1-based) and a page size and returns the list of
+     *                  items on that page
+     * @param perPage   the page size to start at
+     * @param tooHeavy  predicate that returns {@code true} for failures worth retrying at a smaller page size
+     * @return a flux containing all items from the fetched pages
+     */
+    public <T> Flux<T> fromAdaptiveReactive(
+            final long maxPages,
+            final BiFunction<Long, Integer, @Nullable Mono<List<T>>> fetchPage,
+            final int perPage,
+            final Predicate<Throwable> tooHeavy) {
+        return Flux.defer(() -> {
+                    var pages = new AdaptivePages(maxPages, perPage, tooHeavy);
+                    if (pages.isDone()) {
+                        return Flux.<List<T>>empty();
+                    }
+                    return fetchAdaptive(fetchPage, pages)
+                            .expand(items -> pages.isDone() ? Mono.empty() : fetchAdaptive(fetchPage, pages));
+                })
+                .concatMapIterable(items -> items);
+    }
+
+    private static <T> Mono<List<T>> fetchAdaptive(
+            final BiFunction<Long, Integer, @Nullable Mono<List<T>>> fetchPage, final AdaptivePages pages) {
+        return fetchShrinking(fetchPage, pages).doOnNext(items -> pages.record(items.size()));
+    }
+
+    /**
+     * Fetches the current page, again at a smaller size for as long as it's too heavy. Kept apart from
+     * {@link #fetchAdaptive} so that a retried page is only recorded once.
+     */
+    private static <T> Mono<List<T>> fetchShrinking(
+            final BiFunction<Long, Integer, @Nullable Mono<List<T>>> fetchPage, final AdaptivePages pages) {
+        return Mono.defer(() -> {
+                    Mono<List<T>> items = fetchPage.apply(pages.page(), pages.perPage());
+                    return items == null ? Mono.<List<T>>empty() : items;
+                })
+                .onErrorResume(pages::shrink, e -> fetchShrinking(fetchPage, pages));
+    }
+
     /**
      * Reactive counterpart to {@link #fromLinkHeader(long, LongFunction)}, for use with reactive API
      * clients (such as {@code io.github.pulpogato.rest.api.reactive.ReposApi}) whose methods return a
@@ -260,6 +832,247 @@ public class Paginate {
                 (page, response) -> hasNextPage(response));
     }
 
+    /**
+     * Reactive counterpart to {@link #fromCursor(long, Function, Function, Function)}. Pages are unfolded
+     * sequentially via {@link Mono#expand}, so each is fetched after the page before it, as demand allows.
+     *
+     * @param <T>          the type of items to be extracted from each page
+     * @param <R>          the type of the API response containing the paginated data
+     * @param <C>          the type of the cursor
+     * @param maxPages     the maximum number of pages to fetch (prevents infinite pagination)
+     * @param fetchPage    function that takes a cursor ({@code null} for the first page) and returns the API
+     *                     response for the page it points to
+     * @param extractItems function that takes an API response and returns a flux of items from that page
+     * @param nextCursor   function that takes an API response and returns the cursor for the page after it,
+     *                     or {@code null} if it is the last page
+     * @return a flux containing all items from the fetched pages
+     */
+    public <T, R, C> Flux<T> fromCursorReactive(
+            final long maxPages,
+            final Function<@Nullable C, @Nullable Mono<R>> fetchPage,
+            final Function<R, Flux<T>> extractItems,
+            final Function<R, @Nullable C> nextCursor) {
+        if (maxPages < 1) {
+            return Flux.empty();
+        }
+        return fetchCursorPage(fetchPage, nextCursor, 1L, null)
+                .expand(current -> {
+                    var cursor = current.nextCursor();
+                    if (current.page() >= maxPages || cursor == null) {
+                        return Mono.empty();
+                    }
+                    return fetchCursorPage(fetchPage, nextCursor, current.page() + 1, cursor);
+                })
+                .concatMap(result -> extractItems.apply(result.response()));
+    }
+
+    /**
+     * Reactive counterpart to {@link #fromSince(long, LongFunction, ToLongFunction)}.
+     *
+     * @param <T>       the type of items to be extracted from each page
+     * @param maxPages  the maximum number of pages to fetch (prevents infinite pagination)
+     * @param fetchPage function that takes a {@code since} value and returns the list of items after it
+     * @param id        function that takes an item and returns its id
+     * @return a flux containing all items from the fetched pages
+     */
+    public <T> Flux<T> fromSinceReactive(
+            final long maxPages, final LongFunction<@Nullable Mono<List<T>>> fetchPage, final ToLongFunction<T> id) {
+        return fromCursorReactive(
+                maxPages,
+                (@Nullable Long since) -> fetchPage.apply(since == null ? 0 : since),
+                Flux::fromIterable,
+                items -> items.isEmpty() ? null : id.applyAsLong(items.getLast()));
+    }
+
+    /**
+     * Reactive counterpart to {@link #fromLinkHeaderCursor(long, Function, String)}.
+     *
+     * @param <T>             the type of items to be extracted from each page
+     * @param maxPages        the maximum number of pages to fetch (prevents infinite pagination)
+     * @param fetchPage       function that takes a cursor ({@code null} for the first page) and returns the
+     *                        response for the page it points to
+     * @param cursorParameter the name of the query parameter holding the cursor, such as {@code after}
+     * @return a flux containing all items from the fetched pages
+     */
+    public <T> Flux<T> fromLinkHeaderCursorReactive(
+            final long maxPages,
+            final Function<@Nullable String, @Nullable Mono<ResponseEntity<List<T>>>> fetchPage,
+            final String cursorParameter) {
+        return fromCursorReactive(
+                maxPages,
+                fetchPage,
+                response -> {
+                    List<T> body = response.getBody();
+                    return body == null ? Flux.empty() : Flux.fromIterable(body);
+                },
+                response -> nextLinkParameter(response, cursorParameter));
+    }
+
+    private static <R, C> Mono<CursorResult<R, C>> fetchCursorPage(
+            final Function<@Nullable C, @Nullable Mono<R>> fetchPage,
+            final Function<R, @Nullable C> nextCursor,
+            final long page,
+            final @Nullable C cursor) {
+        Mono<R> pageContent = fetchPage.apply(cursor);
+        return pageContent == null
+                ? Mono.empty()
+                : pageContent.map(response -> new CursorResult<>(page, response, nextCursor.apply(response)));
+    }
+
+    /**
+     * Reactive counterpart to {@link #fromLinkHeaderResumable(long, LongFunction, PageCheckpoint, PageRetry)}.
+     * A failed page is retried by re-subscribing to the {@link Mono} {@code fetchPage} returns for it.
+     *
+     * @param <T>        the type of items to be extracted from each page
+     * @param maxPages   the maximum number of pages to fetch (prevents infinite pagination)
+     * @param fetchPage  function that takes a page number (1-based) and returns the response for that page
+     * @param resumeFrom the checkpoint to continue from, or {@link PageCheckpoint#START}
+     * @param retry      how to retry a page that failed to fetch
+     * @return a flux of the fetched pages with their checkpoints
+     */
+    public <T> Flux<ResumablePage<T>> fromLinkHeaderResumableReactive(
+            final long maxPages,
+            final LongFunction<@Nullable Mono<ResponseEntity<List<T>>>> fetchPage,
+            final PageCheckpoint resumeFrom,
+            final PageRetry retry) {
+        if (resumeFrom.complete()) {
+            return Flux.empty();
+        }
+        return Flux.defer(() -> {
+            var pages = new ResumablePages<T>(resumeFrom, null);
+            return fetchReactive(
+                    maxPages,
+                    page -> Mono.defer(() -> fetchPageOrEmpty(fetchPage, pages.nextPage()))
+                            .retryWhen(retry.toRetry())
+                            .map(pages::record),
+                    result -> Flux.just(result.page()),
+                    (page, result) -> result.hasNextPage());
+        });
+    }
+
+    /**
+     * Reactive counterpart to
+     * {@link #fromLinkHeaderCursorResumable(long, Function, String, PageCheckpoint, PageRetry)}.
+     *
+     * @param <T>             the type of items to be extracted from each page
+     * @param maxPages        the maximum number of pages to fetch (prevents infinite pagination)
+     * @param fetchPage       function that takes a cursor ({@code null} for the first page) and returns the
+     *                        response for the page it points to
+     * @param cursorParameter the name of the query parameter holding the cursor, such as {@code after}
+     * @param resumeFrom      the checkpoint to continue from, or {@link PageCheckpoint#START}
+     * @param retry           how to retry a page that failed to fetch
+     * @return a flux of the fetched pages with their checkpoints
+     */
+    public <T> Flux<ResumablePage<T>> fromLinkHeaderCursorResumableReactive(
+            final long maxPages,
+            final Function<@Nullable String, @Nullable Mono<ResponseEntity<List<T>>>> fetchPage,
+            final String cursorParameter,
+            final PageCheckpoint resumeFrom,
+            final PageRetry retry) {
+        if (resumeFrom.complete()) {
+            return Flux.empty();
+        }
+        return Flux.defer(() -> {
+            var pages = new ResumablePages<T>(resumeFrom, cursorParameter);
+            return fetchReactive(
+                    maxPages,
+                    page -> Mono.defer(() -> {
+                                Mono<ResponseEntity<List<T>>> response = fetchPage.apply(pages.nextCursor());
+                                return response == null ? Mono.<ResponseEntity<List<T>>>empty() : response;
+                            })
+                            .retryWhen(retry.toRetry())
+                            .map(pages::record),
+                    result -> Flux.just(result.page()),
+                    (page, result) -> result.hasNextPage());
+        });
+    }
+
+    /**
+     * Reactive counterpart to {@link #fromParallel(long, LongFunction, Function, ToIntFunction, int, boolean)}.
+     * Once page 1 reports the total page count, the remaining pages are fetched with up to
+     * {@code concurrency} in flight, via {@link Flux#flatMapSequential} when {@code ordered} and
+     * {@link Flux#flatMap} otherwise.
+     *
+     * @param <T>          the type of items to be extracted from each page
+     * @param <R>          the type of the API response containing the paginated data
+     * @param maxPages     the maximum number of pages to fetch (prevents infinite pagination)
+     * @param fetchPage    function that takes a page number (1-based) and returns the API response for that page
+     * @param extractItems function that takes an API response and returns a flux of items from that page
+     * @param totalPages   function that takes an API response and returns the total number of pages available
+     * @param concurrency  the maximum number of pages fetched at once
+     * @param ordered      whether to emit items in page order
+     * @return a flux containing all items from the fetched pages
+     */
+    public <T, R> Flux<T> fromReactiveParallel(
+            final long maxPages,
+            final LongFunction<@Nullable Mono<R>> fetchPage,
+            final Function<R, Flux<T>> extractItems,
+            final ToIntFunction<R> totalPages,
+            final int concurrency,
+            final boolean ordered) {
+        return fetchReactiveParallel(
+                maxPages,
+                fetchPage,
+                extractItems,
+                totalPages::applyAsInt,
+                (page, response) -> false,
+                concurrency,
+                ordered);
+    }
+
+    /**
+     * Reactive counterpart to {@link #fromLinkHeaderParallel(long, LongFunction, int, boolean)}.
+     *
+     * @param <T>         the type of items to be extracted from each page
+     * @param maxPages    the maximum number of pages to fetch (prevents infinite pagination)
+     * @param fetchPage   function that takes a page number (1-based) and returns the response for that page
+     * @param concurrency the maximum number of pages fetched at once
+     * @param ordered     whether to emit items in page order
+     * @return a flux containing all items from the fetched pages
+     */
+    public <T> Flux<T> fromLinkHeaderReactiveParallel(
+            final long maxPages,
+            final LongFunction<@Nullable Mono<ResponseEntity<List<T>>>> fetchPage,
+            final int concurrency,
+            final boolean ordered) {
+        return fetchReactiveParallel(
+                maxPages,
+                fetchPage,
+                response -> {
+                    List<T> body = response.getBody();
+                    return body == null ? Flux.empty() : Flux.fromIterable(body);
+                },
+                Paginate::lastPage,
+                (page, response) -> hasNextPage(response),
+                concurrency,
+                ordered);
+    }
+
+    private <T, R> Flux<T> fetchReactiveParallel(
+            final long maxPages,
+            final LongFunction<@Nullable Mono<R>> fetchPage,
+            final Function<R, Flux<T>> extractItems,
+            final ToLongFunction<R> pageCount,
+            final BiPredicate<Long, R> hasNextPage,
+            final int concurrency,
+            final boolean ordered) {
+        return fetchPageOrEmpty(fetchPage, 1L)
+                .flatMapMany(first -> {
+                    var count = pageCount.applyAsLong(first);
+                    if (count < 0) {
+                        return expandPages(Mono.just(first), maxPages, fetchPage, hasNextPage);
+                    }
+                    var lastPage = Math.min(maxPages, count);
+                    var window = prefetchWindow(first, lastPage - 1, concurrency);
+                    var rest = Flux.fromStream(() -> LongStream.rangeClosed(2, lastPage).boxed());
+                    Flux<R> pages = ordered
+                            ? rest.flatMapSequential(page -> fetchPageOrEmpty(fetchPage, page), window)
+                            : rest.flatMap(page -> fetchPageOrEmpty(fetchPage, page), window);
+                    return Flux.concat(Mono.just(first), pages);
+                })
+                .concatMap(extractItems);
+    }
+
     /**
      * Shared implementation for reactive pagination. Fetches pages sequentially starting at page 1,
      * emitting items from each page before requesting the next. Fetching stops when {@code maxPages}
@@ -284,8 +1097,20 @@ public class Paginate {
             final LongFunction<@Nullable Mono<R>> fetchPage,
             final Function<R, Flux<T>> extractItems,
             final BiPredicate<Long, R> hasMorePages) {
-        return fetchPageOrEmpty(fetchPage, 1L)
-                .map(response -> new PageResult<>(1L, response))
+        return expandPages(fetchPageOrEmpty(fetchPage, 1L), maxPages, fetchPage, hasMorePages)
+                .concatMap(extractItems);
+    }
+
+    /**
+     * Unfolds the pages that follow {@code first} (page 1) one at a time, as described on
+     * {@link #fetchReactive}.
+     */
+    private static <R> Flux<R> expandPages(
+            final Mono<R> first,
+            final long maxPages,
+            final LongFunction<@Nullable Mono<R>> fetchPage,
+            final BiPredicate<Long, R> hasMorePages) {
+        return first.map(response -> new PageResult<>(1L, response))
                 .expand(current -> {
                     if (current.page() >= maxPages || !hasMorePages.test(current.page(), current.response())) {
                         return Mono.empty();
@@ -293,7 +1118,7 @@ public class Paginate {
                     var nextPage = current.page() + 1;
                     return fetchPageOrEmpty(fetchPage, nextPage).map(response -> new PageResult<>(nextPage, response));
                 })
-                .concatMap(result -> extractItems.apply(result.response()));
+                .map(PageResult::response);
     }
 
     private static <R> Mono<R> fetchPageOrEmpty(final LongFunction<@Nullable Mono<R>> fetchPage, final long page) {
@@ -301,8 +1126,176 @@ public class Paginate {
         return pageContent == null ? Mono.empty() : pageContent;
     }
 
+    /**
+     * Whether a failure looks like GitHub gave up rendering a page: a 502 Bad Gateway or 504 Gateway
+     * Timeout from {@code RestClient} or {@code WebClient}, or a timeout anywhere in its cause chain.
+     */
+    static boolean isOverloaded(final Throwable failure) {
+        for (@Nullable Throwable e = failure; e != null; e = e.getCause()) {
+            if (e instanceof SocketTimeoutException
+                    || e instanceof HttpTimeoutException
+                    || e instanceof TimeoutException) {
+                return true;
+            }
+            if (e instanceof RestClientResponseException response) {
+                return isOverloaded(response.getStatusCode());
+            }
+            if (WEBCLIENT_PRESENT && WebClientErrors.isOverloaded(e)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isOverloaded(final HttpStatusCode status) {
+        return status.value() == 502 || status.value() == 504;
+    }
+
+    private static final boolean WEBCLIENT_PRESENT = ClassUtils.isPresent(
+            "org.springframework.web.reactive.function.client.WebClientResponseException",
+            Paginate.class.getClassLoader());
+
+    /**
+     * Kept apart so that {@code WebClientResponseException} is only loaded when WebFlux is on the classpath.
+     */
+    private static final class WebClientErrors {
+        static boolean isOverloaded(final Throwable e) {
+            return e instanceof WebClientResponseException response && Paginate.isOverloaded(response.getStatusCode());
+        }
+    }
+
+    /**
+     * The state of one adaptive listing. Pages are addressed by the number of items already emitted,
+     * which stays a multiple of the page size because every page but the last is full, and because
+     * a page size is only ever shrunk to one of its divisors.
+     */
+    private static class AdaptivePages {
+        private final long maxPages;
+        private final Predicate<Throwable> tooHeavy;
+        private int perPage;
+        private long offset;
+        private long fetched;
+        private boolean done;
+
+        AdaptivePages(final long maxPages, final int perPage, final Predicate<Throwable> tooHeavy) {
+            this.maxPages = maxPages;
+            this.perPage = Math.max(1, perPage);
+            this.tooHeavy = tooHeavy;
+            this.done = maxPages < 1;
+        }
+
+        long page() {
+            return offset / perPage + 1;
+        }
+
+        int perPage() {
+            return perPage;
+        }
+
+        boolean isDone() {
+            return done;
+        }
+
+        void finish() {
+            done = true;
+        }
+
+        void record(final int items) {
+            offset += items;
+            fetched++;
+            if (items < perPage || fetched >= maxPages) {
+                done = true;
+            }
+        }
+
+        /**
+         * Drops to the largest page size below the current one that divides it, if {@code failure} says
+         * the page was too heavy and there is a smaller size left to try.
+         *
+         * @return whether the page should be fetched again
+         */
+        boolean shrink(final Throwable failure) {
+            if (perPage == 1 || !tooHeavy.test(failure)) {
+                return false;
+            }
+            var factor = 2;
+            while (perPage % factor != 0) {
+                factor++;
+            }
+            perPage /= factor;
+            return true;
+        }
+    }
+
     private record PageResult<R>(long page, R response) {}
 
+    private record CursorResult<R, C>(long page, R response, @Nullable C nextCursor) {}
+
+    private record CachedPageResult<T>(CachedPage<T> page, boolean hasNextPage) {}
+
+    private record ResumablePageResult<T>(ResumablePage<T> page, boolean hasNextPage) {}
+
+    /**
+     * The state of one resumable listing: the checkpoint after the last page fetched, from which the
+     * next page to fetch follows.
+     */
+    private static class ResumablePages<T> {
+        private final @Nullable String cursorParameter;
+        private PageCheckpoint checkpoint;
+
+        ResumablePages(final PageCheckpoint resumeFrom, final @Nullable String cursorParameter) {
+            this.checkpoint = resumeFrom;
+            this.cursorParameter = cursorParameter;
+        }
+
+        long nextPage() {
+            return checkpoint.page() + 1;
+        }
+
+        @Nullable String nextCursor() {
+            return checkpoint.cursor();
+        }
+
+        ResumablePageResult<T> record(final ResponseEntity<List<T>> response) {
+            var body = response.getBody();
+            var cursor = cursorParameter == null ? null : nextLinkParameter(response, cursorParameter);
+            var hasNextPage = cursorParameter == null ? Paginate.hasNextPage(response) : cursor != null;
+            checkpoint = new PageCheckpoint(
+                    checkpoint.page() + 1, cursor, response.getHeaders().getETag(), !hasNextPage);
+            return new ResumablePageResult<>(
+                    new ResumablePage<>(body == null ? List.of() : body, checkpoint), hasNextPage);
+        }
+    }
+
+    /**
+     * The state of one cache-aware listing: whether page 1 was unchanged decides how later pages are
+     * fetched, and whether there are any.
+     */
+    @RequiredArgsConstructor
+    private static class CachedPages<T> {
+        private final boolean hasReplay;
+        private boolean firstPageUnchanged;
+
+        boolean replays(final long page) {
+            return page > 1 && firstPageUnchanged && hasReplay;
+        }
+
+        CachedPageResult<T> record(final long page, final ResponseEntity<List<T>> response) {
+            var cachedPage = CachedPage.of(page, response);
+            if (page == 1) {
+                firstPageUnchanged = cachedPage.unchanged();
+            }
+            return new CachedPageResult<>(cachedPage, Paginate.hasNextPage(response));
+        }
+
+        boolean hasNextPage(final long page, final CachedPageResult<T> result) {
+            if (page == 1 && firstPageUnchanged && !hasReplay) {
+                return false;
+            }
+            return result.hasNextPage();
+        }
+    }
+
     @RequiredArgsConstructor
     private static class PageStreamIterator<R> implements Iterator<R> {
         private final long maxPages;
@@ -332,4 +1325,162 @@ public class Paginate {
             return response;
         }
     }
+
+    @RequiredArgsConstructor
+    private static class CursorStreamIterator<R, C> implements Iterator<R> {
+        private final long maxPages;
+        private final Function<@Nullable C, @Nullable R> fetchPage;
+        private final Function<R, @Nullable C> nextCursor;
+        private long page = 1;
+        private @Nullable C cursor = null;
+        private boolean done = false;
+
+        @Override
+        public boolean hasNext() {
+            return !done && page <= maxPages;
+        }
+
+        @Override
+        public R next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            page++;
+            var response = fetchPage.apply(cursor);
+            if (response == null) {
+                done = true;
+                throw new NoSuchElementException();
+            }
+            cursor = nextCursor.apply(response);
+            if (cursor == null) {
+                done = true;
+            }
+            return response;
+        }
+    }
+
+    /**
+     * Fetches page 1, then the rest of the pages from its page count, keeping up to a window of them
+     * in flight on virtual threads. A negative page count means it isn't known, and pages are then
+     * fetched one at a time for as long as {@code hasNextPage} says so.
+     */
+    private static class PrefetchIterator<R> implements Iterator<R>, AutoCloseable {
+        private final long maxPages;
+        private final LongFunction<@Nullable R> fetchPage;
+        private final ToLongFunction<R> pageCount;
+        private final BiPredicate<Long, R> hasNextPage;
+        private final int concurrency;
+        private final boolean ordered;
+        private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        private final CompletionService<Optional<R>> completed = new ExecutorCompletionService<>(executor);
+        private final Deque<Future<Optional<R>>> inFlight = new ArrayDeque<>();
+        private boolean started;
+        private boolean countKnown;
+        private long nextPage = 2;
+        private long lastPage = 1;
+        private int window = 1;
+        private @Nullable R ready;
+
+        PrefetchIterator(
+                final long maxPages,
+                final LongFunction<@Nullable R> fetchPage,
+                final ToLongFunction<R> pageCount,
+                final BiPredicate<Long, R> hasNextPage,
+                final int concurrency,
+                final boolean ordered) {
+            this.maxPages = maxPages;
+            this.fetchPage = fetchPage;
+            this.pageCount = pageCount;
+            this.hasNextPage = hasNextPage;
+            this.concurrency = concurrency;
+            this.ordered = ordered;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (ready != null) {
+                return true;
+            }
+            try {
+                if (!started) {
+                    started = true;
+                    return maxPages >= 1 && accept(1, fetchPage.apply(1));
+                }
+                while (true) {
+                    topUp();
+                    if (inFlight.isEmpty()) {
+                        close();
+                        return false;
+                    }
+                    var future = ordered ? inFlight.removeFirst() : completed.take();
+                    if (!ordered) {
+                        inFlight.remove(future);
+                    }
+                    var response = future.get();
+                    if (response.isPresent()) {
+                        var page = response.get();
+                        if (!countKnown && hasNextPage.test(lastPage, page)) {
+                            lastPage = Math.min(maxPages, lastPage + 1);
+                        }
+                        ready = page;
+                        return true;
+                    }
+                }
+            } catch (InterruptedException e) {
+                close();
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while fetching pages", e);
+            } catch (ExecutionException e) {
+                close();
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw new IllegalStateException("Failed to fetch a page", e.getCause());
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+
+        @Override
+        public R next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            var response = ready;
+            ready = null;
+            return Objects.requireNonNull(response);
+        }
+
+        @Override
+        public void close() {
+            executor.shutdownNow();
+        }
+
+        private boolean accept(final long page, final @Nullable R response) {
+            if (response == null) {
+                close();
+                return false;
+            }
+            var count = pageCount.applyAsLong(response);
+            countKnown = count >= 0;
+            if (countKnown) {
+                lastPage = Math.min(maxPages, count);
+                window = prefetchWindow(response, lastPage - page, concurrency);
+            } else if (hasNextPage.test(page, response)) {
+                lastPage = Math.min(maxPages, page + 1);
+            }
+            ready = response;
+            return true;
+        }
+
+        private void topUp() {
+            while (inFlight.size() < window && nextPage <= lastPage) {
+                var page = nextPage++;
+                Callable<Optional<R>> fetch = () -> Optional.ofNullable(fetchPage.apply(page));
+                // In order, futures are taken from inFlight; the completion queue would only pile up pages
+                inFlight.addLast(ordered ? executor.submit(fetch) : completed.submit(fetch));
+            }
+        }
+    }
 }
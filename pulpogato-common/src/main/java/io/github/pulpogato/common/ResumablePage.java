@@ -0,0 +1,12 @@
+package io.github.pulpogato.common;
+
+import java.util.List;
+
+/**
+ * One page of a listing fetched through one of the {@code Paginate.*Resumable} methods.
+ *
+ * @param items      The items on the page
+ * @param checkpoint The checkpoint to resume from to continue after this page
+ * @param <T>        The type of items on the page
+ */
+public record ResumablePage<T>(List<T> items, PageCheckpoint checkpoint) {}
@@ -0,0 +1,22 @@
+package io.github.pulpogato.common.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The OpenAPI operation id of a generated API method, such as {@code repos/list-for-org}.
+ *
+ * <p>{@code io.github.pulpogato.common.client.OperationIdProcessor} copies it into each request's
+ * attributes, so filters can tell which operation a request is for without parsing its URI.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface OperationId {
+    /**
+     * The operation id
+     * @return The operation id, as it appears in the GitHub API Spec
+     */
+    String value();
+}
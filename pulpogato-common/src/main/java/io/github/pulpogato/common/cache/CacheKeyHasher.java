@@ -3,9 +3,15 @@ package io.github.pulpogato.common.cache;
 import com.auth0.jwt.JWT;
 import com.auth0.jwt.exceptions.JWTDecodeException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.security.DigestException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.jspecify.annotations.Nullable;
 
 /**
@@ -13,21 +19,69 @@ import org.jspecify.annotations.Nullable;
  * {@link DefaultHttpRequestCacheKeyMapper}: serializes a {@link CacheKeyData} to JSON and hashes
  * it with SHA-256. This avoids hand-rolling a delimited string, which gets awkward once header
  * values (which may themselves contain the delimiters) join the key.
+ *
+ * <p>The JSON is written straight into a per-thread digest rather than through Jackson, byte for
+ * byte what {@link ObjectMapper#writeValueAsBytes} produces, so keys already stored in a shared
+ * cache stay valid. Values Jackson would escape beyond {@code "} and {@code \} (control characters,
+ * lone surrogates) are rare enough to simply take the Jackson path.
  */
 class CacheKeyHasher {
 
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private static final int MAX_SUBJECTS = 256;
+
+    /**
+     * SHA-256 of the Authorization header to JWT subject, so live tokens aren't kept on the heap.
+     * Past {@link #MAX_SUBJECTS} the least recently used quarter goes in one pass, which keeps the
+     * tokens in use while rotated ones age out. Hits only stamp their entry, so they don't contend on
+     * a lock.
+     */
+    private static final Map<String, Subject> SUBJECTS = new ConcurrentHashMap<>();
+
     private CacheKeyHasher() {}
 
     static String hash(CacheKeyData data) {
-        return sha256Hex(toJson(data));
+        final var scratch = SCRATCH.get();
+        if (!scratch.writeJson(data)) {
+            return sha256Hex(toJson(data));
+        }
+        return scratch.sha256Hex();
     }
 
     static @Nullable String extractJwtSubject(@Nullable String authorizationHeader) {
         if (authorizationHeader == null) {
             return null;
         }
+        final var digest = SCRATCH.get().sha256Hex(authorizationHeader);
+        final var cached = SUBJECTS.get(digest);
+        if (cached != null) {
+            cached.lastUsed = System.nanoTime();
+            return cached.name;
+        }
+        final var subject = decodeSubject(authorizationHeader);
+        SUBJECTS.put(digest, new Subject(subject));
+        if (SUBJECTS.size() > MAX_SUBJECTS) {
+            evictLeastRecentlyUsed();
+        }
+        return subject;
+    }
+
+    private static synchronized void evictLeastRecentlyUsed() {
+        if (SUBJECTS.size() <= MAX_SUBJECTS) {
+            // Another thread got here first
+            return;
+        }
+        SUBJECTS.entrySet().stream()
+                .sorted(Comparator.comparingLong(entry -> entry.getValue().lastUsed))
+                .limit(SUBJECTS.size() - MAX_SUBJECTS * 3L / 4)
+                .toList()
+                .forEach(entry -> SUBJECTS.remove(entry.getKey(), entry.getValue()));
+    }
+
+    private static @Nullable String decodeSubject(String authorizationHeader) {
         final var token = authorizationHeader.startsWith("Bearer ")
                 ? authorizationHeader.substring("Bearer ".length())
                 : authorizationHeader;
@@ -47,11 +101,132 @@ class CacheKeyHasher {
     }
 
     private static String sha256Hex(byte[] bytes) {
+        return HexFormat.of().formatHex(newDigest().digest(bytes));
+    }
+
+    private static MessageDigest newDigest() {
         try {
-            final var digest = MessageDigest.getInstance("SHA-256").digest(bytes);
-            return HexFormat.of().formatHex(digest);
+            return MessageDigest.getInstance("SHA-256");
         } catch (NoSuchAlgorithmException e) {
             throw new IllegalStateException("SHA-256 algorithm not available", e);
         }
     }
+
+    /**
+     * A cached JWT subject, or null for a header that isn't a JWT, with when it was last looked up.
+     * The stamp is only a hint for eviction, so it isn't volatile.
+     */
+    private static final class Subject {
+        private final @Nullable String name;
+        private long lastUsed = System.nanoTime();
+
+        Subject(@Nullable String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * A thread's digest and JSON buffer, reused across keys.
+     */
+    private static final class Scratch {
+        private final MessageDigest digest = newDigest();
+        private final byte[] hash = new byte[32];
+        private byte[] buffer = new byte[256];
+        private int length;
+
+        /**
+         * Writes the JSON for {@code data} into the buffer, in {@link CacheKeyData}'s field order.
+         *
+         * @return false if a value needs escaping this writer doesn't do
+         */
+        boolean writeJson(CacheKeyData data) {
+            length = 0;
+            return field('{', "method", data.getMethod())
+                    && field(',', "host", data.getHost())
+                    && field(',', "port", data.getPort())
+                    && field(',', "path", data.getPath())
+                    && field(',', "query", data.getQuery())
+                    && field(',', "accept", data.getAccept())
+                    && field(',', "contentType", data.getContentType())
+                    && field(',', "jwtSubject", data.getJwtSubject())
+                    && ascii("}");
+        }
+
+        String sha256Hex() {
+            digest.update(buffer, 0, length);
+            return finish();
+        }
+
+        String sha256Hex(String value) {
+            digest.update(value.getBytes(StandardCharsets.UTF_8));
+            return finish();
+        }
+
+        private String finish() {
+            try {
+                digest.digest(hash, 0, hash.length);
+            } catch (DigestException e) {
+                throw new IllegalStateException("SHA-256 digest failed", e);
+            }
+            return HexFormat.of().formatHex(hash);
+        }
+
+        private boolean field(char separator, String name, @Nullable Integer value) {
+            writeName(separator, name);
+            return ascii(value == null ? "null" : Integer.toString(value));
+        }
+
+        private boolean field(char separator, String name, @Nullable String value) {
+            writeName(separator, name);
+            if (value == null) {
+                return ascii("null");
+            }
+            return string(value);
+        }
+
+        private void writeName(char separator, String name) {
+            put((byte) separator);
+            string(name);
+            put((byte) ':');
+        }
+
+        private boolean ascii(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                put((byte) value.charAt(i));
+            }
+            return true;
+        }
+
+        private boolean string(String value) {
+            put((byte) '"');
+            for (int i = 0; i < value.length(); i++) {
+                final char c = value.charAt(i);
+                if (c < 0x20 || Character.isSurrogate(c)) {
+                    return false;
+                }
+                if (c == '"' || c == '\\') {
+                    put((byte) '\\');
+                    put((byte) c);
+                } else if (c < 0x80) {
+                    put((byte) c);
+                } else if (c < 0x800) {
+                    put((byte) (0xC0 | (c >> 6)));
+                    put((byte) (0x80 | (c & 0x3F)));
+                } else {
+                    put((byte) (0xE0 | (c >> 12)));
+                    put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                    put((byte) (0x80 | (c & 0x3F)));
+                }
+            }
+            put((byte) '"');
+            return true;
+        }
+
+        private void put(byte b) {
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            buffer[length++] = b;
+        }
+    }
 }
@@ -0,0 +1,345 @@
+package io.github.pulpogato.common.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import lombok.Builder;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Compact binary form of a {@link CachedResponse}, for caches that hold values as bytes (Redis,
+ * off-heap stores) or that would otherwise fall back to Java serialization.
+ *
+ * <p>The layout is length-prefixed and versioned:
+ *
+ * <pre>
+ * magic "PC", version, flags
+ * cachedAtMillis (long), maxAgeSeconds (long)
+ * etag, lastModified        (string or null)
+ * header count (int), then per header: name, value count (int), values
+ * body length (int), stored length (int), stored bytes
+ * </pre>
+ *
+ * <p>Strings are an int byte length ({@code -1} for null) followed by UTF-8. The body is Deflate
+ * compressed when {@link #compress} is on, it is at least {@link #minCompressSize} bytes, and it
+ * actually shrinks; GitHub's JSON typically does by 5-10x. Headers can be limited to
+ * {@link #headerAllowlist}, since most of what GitHub sends ({@code X-GitHub-Request-Id}, rate-limit
+ * counters, {@code Date}) is meaningless once cached.
+ *
+ * <p>Use {@link EncodingCache} to apply it to any Spring {@link org.springframework.cache.Cache}, or
+ * call {@link #encode}/{@link #decode} from a store-specific serializer.
+ */
+@Builder
+public class CachedResponseCodec {
+
+    /**
+     * The headers worth keeping for GitHub responses: what clients read from a cached response, plus
+     * the validators and freshness information.
+     */
+    public static final Set<String> GITHUB_HEADERS = Set.of(
+            "Content-Type", "Cache-Control", "ETag", "Last-Modified", "Link", "Vary", "X-GitHub-Media-Type");
+
+    private static final byte MAGIC_0 = 'P';
+    private static final byte MAGIC_1 = 'C';
+    private static final byte VERSION = 1;
+    private static final byte FLAG_DEFLATED = 1;
+
+    /**
+     * Deflate can't shrink data by more than about this factor, which bounds a believable body length.
+     */
+    private static final int MAX_INFLATION_RATIO = 1_032;
+
+    /**
+     * Whether to Deflate-compress bodies.
+     */
+    @Builder.Default
+    private final boolean compress = true;
+
+    /**
+     * The {@link Deflater} compression level.
+     */
+    @Builder.Default
+    private final int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+    /**
+     * Bodies smaller than this are stored as-is; compressing them gains little.
+     */
+    @Builder.Default
+    private final int minCompressSize = 256;
+
+    /**
+     * The header names to keep, case-insensitively. {@code null} keeps every header.
+     */
+    @Builder.Default
+    private final @Nullable Set<String> headerAllowlist = null;
+
+    /**
+     * Encodes a cached response.
+     *
+     * @param response the response
+     * @return its binary form
+     */
+    public byte[] encode(CachedResponse response) {
+        var raw = response.getBody();
+        var deflated = compress && raw.length >= minCompressSize ? deflate(raw) : null;
+        var headers = keptHeaders(response.getHeaders());
+
+        var bytes = new ByteArrayOutputStream(128 + (deflated != null ? deflated.length : raw.length));
+        try (var out = new DataOutputStream(bytes)) {
+            out.writeByte(MAGIC_0);
+            out.writeByte(MAGIC_1);
+            out.writeByte(VERSION);
+            out.writeByte(deflated != null ? FLAG_DEFLATED : 0);
+            out.writeLong(response.getCachedAtMillis());
+            out.writeLong(response.getMaxAgeSeconds());
+            writeString(out, response.getEtag());
+            writeString(out, response.getLastModified());
+            out.writeInt(headers.size());
+            for (var header : headers.entrySet()) {
+                writeString(out, header.getKey());
+                out.writeInt(header.getValue().size());
+                for (var value : header.getValue()) {
+                    writeString(out, value);
+                }
+            }
+            out.writeInt(raw.length);
+            var stored = deflated != null ? deflated : raw;
+            out.writeInt(stored.length);
+            out.write(stored);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a cached response written by {@link #encode}.
+     *
+     * @param bytes the binary form
+     * @return the cached response
+     * @throws IllegalArgumentException if the bytes are not in this format
+     */
+    public CachedResponse decode(byte[] bytes) {
+        if (!isEncoded(bytes)) {
+            throw new IllegalArgumentException("Not an encoded CachedResponse");
+        }
+        return decode(new DataInputStream(new ByteArrayInputStream(bytes, 3, bytes.length - 3)));
+    }
+
+    /**
+     * Decodes a cached response written by {@link #encode} from a buffer's remaining bytes, without
+     * copying them to an array first. The buffer's position is left unchanged.
+     *
+     * @param buffer the binary form, e.g. a slice of a memory-mapped file
+     * @return the cached response
+     * @throws IllegalArgumentException if the bytes are not in this format
+     */
+    public CachedResponse decode(ByteBuffer buffer) {
+        var position = buffer.position();
+        if (buffer.remaining() < 4
+                || buffer.get(position) != MAGIC_0
+                || buffer.get(position + 1) != MAGIC_1
+                || buffer.get(position + 2) != VERSION) {
+            throw new IllegalArgumentException("Not an encoded CachedResponse");
+        }
+        var rest = buffer.slice(position + 3, buffer.remaining() - 3);
+        return decode(new DataInputStream(new ByteBufferInputStream(rest)));
+    }
+
+    private CachedResponse decode(DataInputStream input) {
+        try (var in = input) {
+            var flags = in.readByte();
+            var cachedAtMillis = in.readLong();
+            var maxAgeSeconds = in.readLong();
+            var etag = readString(in);
+            var lastModified = readString(in);
+            // A header is at least a name length and a value count
+            var headerCount = readCount(in, 8);
+            var headers = LinkedHashMap.<String, List<String>>newLinkedHashMap(headerCount);
+            for (int i = 0; i < headerCount; i++) {
+                var name = requireString(in);
+                var valueCount = readCount(in, 4);
+                var values = new ArrayList<String>(valueCount);
+                for (int j = 0; j < valueCount; j++) {
+                    values.add(requireString(in));
+                }
+                headers.put(name, values);
+            }
+            var rawLength = in.readInt();
+            var stored = new byte[readCount(in, 1)];
+            in.readFully(stored);
+            var deflated = (flags & FLAG_DEFLATED) != 0;
+            if (rawLength < 0 || rawLength > (deflated ? (long) stored.length * MAX_INFLATION_RATIO : stored.length)) {
+                throw new IOException("Body length " + rawLength + " doesn't fit " + stored.length + " stored bytes");
+            }
+            var body = deflated ? inflate(stored, rawLength) : stored;
+            return new CachedResponse(body, headers, etag, lastModified, maxAgeSeconds, cachedAtMillis);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Truncated or corrupt encoded CachedResponse", e);
+        }
+    }
+
+    /**
+     * Checks whether some bytes start like the output of {@link #encode}.
+     *
+     * @param bytes the bytes
+     * @return true if they carry this format's header
+     */
+    public static boolean isEncoded(byte[] bytes) {
+        return bytes.length >= 4 && bytes[0] == MAGIC_0 && bytes[1] == MAGIC_1 && bytes[2] == VERSION;
+    }
+
+    /**
+     * Reads a buffer in place; {@link DataInputStream#readFully} then copies straight out of it.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            var n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+    }
+
+    private Map<String, List<String>> keptHeaders(Map<String, List<String>> headers) {
+        var allowlist = headerAllowlist;
+        if (allowlist == null) {
+            return headers;
+        }
+        var kept = new LinkedHashMap<String, List<String>>();
+        headers.forEach((name, values) -> {
+            for (var allowed : allowlist) {
+                if (allowed.equalsIgnoreCase(name)) {
+                    kept.put(name, values);
+                    return;
+                }
+            }
+        });
+        return kept;
+    }
+
+    private byte @Nullable [] deflate(byte[] raw) {
+        var deflater = new Deflater(compressionLevel);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            // Anything at least as long as the input isn't worth storing compressed
+            var buffer = new byte[raw.length];
+            var length = 0;
+            while (!deflater.finished()) {
+                if (length == buffer.length) {
+                    return null;
+                }
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+            return length < raw.length ? Arrays.copyOf(buffer, length) : null;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] stored, int rawLength) throws IOException {
+        var inflater = new Inflater();
+        try {
+            inflater.setInput(stored);
+            var body = new byte[rawLength];
+            var length = 0;
+            while (length < rawLength && !inflater.finished()) {
+                var inflated = inflater.inflate(body, length, rawLength - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += inflated;
+            }
+            if (length != rawLength) {
+                throw new IOException("Body inflated to " + length + " bytes, expected " + rawLength);
+            }
+            return body;
+        } catch (DataFormatException e) {
+            throw new IOException(e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void writeString(DataOutputStream out, @Nullable String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static @Nullable String readString(DataInputStream in) throws IOException {
+        var length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.available()) {
+            throw new IOException("String length " + length + " exceeds the " + in.available() + " bytes left");
+        }
+        var bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a count or length, checking it against the bytes left before anything is allocated for it.
+     *
+     * @param unitSize the fewest bytes each counted item takes up
+     */
+    private static int readCount(DataInputStream in, int unitSize) throws IOException {
+        var count = in.readInt();
+        if (count < 0 || (long) count * unitSize > in.available()) {
+            throw new IOException("Count " + count + " doesn't fit the " + in.available() + " bytes left");
+        }
+        return count;
+    }
+
+    private static String requireString(DataInputStream in) throws IOException {
+        var value = readString(in);
+        if (value == null) {
+            throw new IOException("Unexpected null string");
+        }
+        return value;
+    }
+}
@@ -3,16 +3,27 @@ package io.github.pulpogato.common.cache;
 import io.micrometer.observation.Observation;
 import io.micrometer.observation.ObservationRegistry;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.SequenceInputStream;
 import java.time.Clock;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.jspecify.annotations.Nullable;
 import org.springframework.cache.Cache;
 import org.springframework.cache.support.NoOpCache;
@@ -21,8 +32,10 @@ import org.springframework.http.HttpRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 
 /**
  * HTTP caching interceptor that implements conditional request handling.
@@ -43,8 +56,17 @@ import org.springframework.http.client.ClientHttpResponse;
  * serve fresh hits again instead of revalidating on every subsequent request. If the server instead
  * returns a fresh 200 for a stale entry, the stored value is invalidated and replaced.
  *
- * <p>Responses larger than {@link #maxCacheableSize} are not cached but are still returned
- * successfully. This prevents memory issues with very large responses.
+ * <p>Cacheable misses are streamed to the caller rather than buffered first. A copy is kept as the
+ * body is read and stored once the declared {@code Content-Length} or the end of the body is reached,
+ * or when the response is closed, which reads whatever the caller left unread. Responses larger than
+ * {@link #maxCacheableSize} are not cached but are still returned successfully. A declared length over
+ * the limit is marked {@code SKIP}; a body of unknown length is only found to be too large after its
+ * headers have gone out marked {@code MISS}, at which point its copy is dropped.
+ *
+ * <p>With {@link #staleWhileRevalidate}, stale entries are served without waiting for the network and
+ * refreshed on {@link #revalidationExecutor}, using requests of their own from
+ * {@link #revalidationRequestFactory}; the caller's request is left as it was. With
+ * {@link #staleIfError}, a stale entry is served when revalidation fails with a 5xx or an I/O error.
  *
  * <p>Example usage:
  * <pre>{@code
@@ -57,6 +79,7 @@ import org.springframework.http.client.ClientHttpResponse;
  * <p>This is the {@link org.springframework.web.client.RestClient} equivalent of {@link CachingExchangeFilterFunction}.
  */
 @Builder
+@Slf4j
 public class CachingClientHttpRequestInterceptor implements ClientHttpRequestInterceptor {
 
     /**
@@ -104,13 +127,70 @@ public class CachingClientHttpRequestInterceptor implements ClientHttpRequestInt
     @Builder.Default
     private final ObservationRegistry observationRegistry = ObservationRegistry.NOOP;
 
+    /**
+     * When true, a stale entry is returned immediately (tagged {@code STALE}) and revalidated in the
+     * background, with at most one revalidation in flight per cache key.
+     */
+    @Builder.Default
+    private final boolean staleWhileRevalidate = false;
+
+    /**
+     * When true, a stale entry is returned (tagged {@code STALE}) if revalidating it fails with a 5xx
+     * or an I/O error, instead of surfacing the failure.
+     */
+    @Builder.Default
+    private final boolean staleIfError = false;
+
+    /**
+     * When true, concurrent requests with the same cache key share one network exchange: the first
+     * makes it and the rest get its buffered response. Each request that waits is recorded as a
+     * {@code pulpogato.cache.coalesce} observation. A response larger than {@link #maxCacheableSize}
+     * is not buffered to be shared; the requests that waited on it make their own.
+     */
+    @Builder.Default
+    private final boolean coalesceRequests = false;
+
+    /**
+     * When true, the server is never contacted: a stored entry is returned even if stale (tagged
+     * {@code STALE}), and a request with no stored entry gets a 504 Gateway Timeout, as for the
+     * {@code only-if-cached} request directive of
+     * <a href="https://www.rfc-editor.org/rfc/rfc9111#section-5.2.1.7">RFC 9111 section 5.2.1.7</a>,
+     * which is honoured per request either way. Useful for a second client over the same cache that
+     * replays pages a paginated sync already knows are unchanged.
+     */
+    @Builder.Default
+    private final boolean onlyIfCached = false;
+
+    /**
+     * Runs background revalidations for {@link #staleWhileRevalidate}. Defaults to a virtual thread
+     * per revalidation.
+     */
+    @Builder.Default
+    private final Executor revalidationExecutor =
+            task -> Thread.ofVirtual().name("pulpogato-revalidate").start(task);
+
+    /**
+     * Creates the requests for background revalidations. These don't go back through the caller's
+     * interceptor chain: each is a new request with a copy of the headers as this interceptor saw them,
+     * so interceptors that add headers such as {@code Authorization} should be registered before this
+     * one. Defaults to a {@link JdkClientHttpRequestFactory}.
+     */
+    private final @Nullable ClientHttpRequestFactory revalidationRequestFactory;
+
     @Getter(lazy = true)
     private final HttpCacheEngine engine = engine();
 
+    @Getter(lazy = true)
+    private final ClientHttpRequestFactory backgroundRequestFactory = backgroundRequestFactory();
+
     private HttpCacheEngine engine() {
         return new HttpCacheEngine(cache, clock, observationRegistry, maxCacheableSize, alwaysRevalidate);
     }
 
+    private ClientHttpRequestFactory backgroundRequestFactory() {
+        return revalidationRequestFactory != null ? revalidationRequestFactory : new JdkClientHttpRequestFactory();
+    }
+
     @Override
     public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
             throws IOException {
@@ -129,12 +209,165 @@ public class CachingClientHttpRequestInterceptor implements ClientHttpRequestInt
 
         // If we have a fresh cached response and not forcing revalidation, return it
         if (cached != null && !cached.isExpired(clock.millis()) && !alwaysRevalidate) {
-            return new BufferedClientHttpResponse(
-                    HttpStatus.OK,
-                    headersWith(cached.getHeaders(), HttpCacheEngine.CACHE_HEADER_NAME, HttpCacheEngine.CACHE_HIT),
-                    cached.getBody());
+            return fromCache(cached, HttpCacheEngine.CACHE_HIT);
+        }
+
+        if (onlyIfCached || HttpCacheEngine.isOnlyIfCached(request.getHeaders().getFirst(HttpHeaders.CACHE_CONTROL))) {
+            return cached != null
+                    ? fromCache(cached, HttpCacheEngine.CACHE_STALE)
+                    : new BufferedClientHttpResponse(HttpStatus.GATEWAY_TIMEOUT, new HttpHeaders(), new byte[0]);
         }
 
+        // Serve the stale entry now and let at most one background request per key refresh it
+        if (cached != null && staleWhileRevalidate) {
+            if (getEngine().startRevalidation(cacheKey)) {
+                revalidateInBackground(request, body, cacheKey, uri, cached, parent);
+            }
+            return fromCache(cached, HttpCacheEngine.CACHE_STALE);
+        }
+
+        if (coalesceRequests) {
+            return coalesce(request, body, execution, cacheKey, uri, cached, parent);
+        }
+        return revalidate(request, body, execution, cacheKey, uri, cached, parent);
+    }
+
+    private ClientHttpResponse coalesce(
+            HttpRequest request,
+            byte[] body,
+            ClientHttpRequestExecution execution,
+            String cacheKey,
+            String uri,
+            @Nullable CachedResponse cached,
+            @Nullable Observation parent)
+            throws IOException {
+        var mine = new CompletableFuture<SharedResponse>();
+        var leader = getEngine().joinInFlight(cacheKey, mine);
+        if (leader != null) {
+            var shared = awaitLeader(leader, cacheKey, uri, parent);
+            if (shared == SharedResponse.NOT_SHAREABLE) {
+                // Too large to have been buffered for us; make our own request
+                return revalidate(request, body, execution, cacheKey, uri, cached, parent);
+            }
+            return toClientHttpResponse(shared);
+        }
+        try {
+            return share(revalidate(request, body, execution, cacheKey, uri, cached, parent), mine);
+        } catch (IOException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            getEngine().leaveInFlight(cacheKey, mine);
+        }
+    }
+
+    private SharedResponse awaitLeader(
+            CompletableFuture<SharedResponse> leader, String cacheKey, String uri, @Nullable Observation parent)
+            throws IOException {
+        var observation = getEngine().startCoalesced(cacheKey, uri, parent);
+        try {
+            return leader.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            observation.error(e);
+            throw new InterruptedIOException("Interrupted while waiting for a coalesced request to " + uri);
+        } catch (ExecutionException e) {
+            // The leading request's failure is this request's failure too
+            observation.error(e);
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            observation.stop();
+        }
+    }
+
+    /**
+     * Buffers {@code response} and completes {@code mine} with it, for the requests waiting on it, if it
+     * fits in {@link #maxCacheableSize}. A larger body completes {@code mine} with
+     * {@link SharedResponse#NOT_SHAREABLE} and still streams to this caller, with only what was read
+     * to find that out held in memory.
+     */
+    private ClientHttpResponse share(ClientHttpResponse response, CompletableFuture<SharedResponse> mine)
+            throws IOException {
+        if (getEngine().exceedsMaxCacheableSize(response.getHeaders().getContentLength())) {
+            mine.complete(SharedResponse.NOT_SHAREABLE);
+            return response;
+        }
+        InputStream body;
+        byte[] prefix;
+        try {
+            body = response.getBody();
+            prefix = body.readNBytes((int) Math.min(maxCacheableSize + 1L, Integer.MAX_VALUE));
+        } catch (IOException | RuntimeException e) {
+            response.close();
+            throw e;
+        }
+        if (getEngine().exceedsMaxCacheableSize(prefix.length)) {
+            mine.complete(SharedResponse.NOT_SHAREABLE);
+            return new PrefixedClientHttpResponse(response, response.getHeaders(), prefix, body);
+        }
+        var shared = new SharedResponse(response.getStatusCode().value(), toMap(response.getHeaders()), prefix);
+        response.close();
+        mine.complete(shared);
+        return toClientHttpResponse(shared);
+    }
+
+    private static ClientHttpResponse toClientHttpResponse(SharedResponse shared) {
+        var headers = new HttpHeaders();
+        shared.getHeaders().forEach(headers::addAll);
+        return new BufferedClientHttpResponse(HttpStatusCode.valueOf(shared.getStatus()), headers, shared.getBody());
+    }
+
+    private void revalidateInBackground(
+            HttpRequest request,
+            byte[] body,
+            String cacheKey,
+            String uri,
+            CachedResponse cached,
+            @Nullable Observation parent) {
+        // The caller goes on using its request, so take what's needed from it now
+        var method = request.getMethod();
+        var target = request.getURI();
+        var headers = HttpHeaders.copyOf(request.getHeaders());
+        var content = body.clone();
+        try {
+            revalidationExecutor.execute(() -> {
+                try {
+                    var detached = getBackgroundRequestFactory().createRequest(target, method);
+                    detached.getHeaders().putAll(headers);
+                    ClientHttpRequestExecution execution = (ignored, ignoredBody) -> {
+                        if (content.length > 0) {
+                            detached.getBody().write(content);
+                        }
+                        return detached.execute();
+                    };
+                    // The refreshed entry is stored as a side effect; nobody reads this response.
+                    revalidate(detached, content, execution, cacheKey, uri, cached, parent).close();
+                } catch (IOException | RuntimeException e) {
+                    log.debug("Background revalidation of {} failed", uri, e);
+                } finally {
+                    getEngine().finishRevalidation(cacheKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            getEngine().finishRevalidation(cacheKey);
+        }
+    }
+
+    private ClientHttpResponse revalidate(
+            HttpRequest request,
+            byte[] body,
+            ClientHttpRequestExecution execution,
+            String cacheKey,
+            String uri,
+            @Nullable CachedResponse cached,
+            @Nullable Observation parent)
+            throws IOException {
         // Add conditional headers if we have a cache entry (stale or forcing revalidation)
         if (cached != null && cached.canRevalidate()) {
             if (cached.getEtag() != null) {
@@ -145,7 +378,16 @@ public class CachingClientHttpRequestInterceptor implements ClientHttpRequestInt
             }
         }
 
-        var response = execution.execute(request, body);
+        ClientHttpResponse response;
+        try {
+            response = execution.execute(request, body);
+        } catch (IOException e) {
+            // GitHub can't be reached; a stale entry beats no answer
+            if (cached != null && staleIfError) {
+                return fromCache(cached, HttpCacheEngine.CACHE_STALE);
+            }
+            throw e;
+        }
 
         // On 304 the stored representation is still valid: refresh its freshness and merge the
         // updated header fields (RFC 9111 4.3.4), then serve the cached body.
@@ -153,13 +395,13 @@ public class CachingClientHttpRequestInterceptor implements ClientHttpRequestInt
             var refreshed =
                     getEngine().refreshFromNotModified(cacheKey, uri, cached, toMap(response.getHeaders()), parent);
             response.close();
-            return new BufferedClientHttpResponse(
-                    HttpStatus.OK,
-                    headersWith(
-                            refreshed.getHeaders(),
-                            HttpCacheEngine.CACHE_HEADER_NAME,
-                            HttpCacheEngine.CACHE_REVALIDATED),
-                    refreshed.getBody());
+            return fromCache(refreshed, HttpCacheEngine.CACHE_REVALIDATED);
+        }
+
+        // A server error is no reason to drop a representation we still have
+        if (response.getStatusCode().is5xxServerError() && cached != null && staleIfError) {
+            response.close();
+            return fromCache(cached, HttpCacheEngine.CACHE_STALE);
         }
 
         // Cache the response if it has caching headers
@@ -189,31 +431,33 @@ public class CachingClientHttpRequestInterceptor implements ClientHttpRequestInt
         var headerMap = HashMap.<String, List<String>>newHashMap(headers.size());
         headers.forEach((key, values) -> headerMap.put(key, new ArrayList<>(values)));
 
-        var statusCode = response.getStatusCode();
-        byte[] responseBody;
-        try (response;
-                InputStream is = response.getBody()) {
-            responseBody = is.readAllBytes();
-        }
-
-        // If the response is too large, skip caching but still return the data
-        if (getEngine().exceedsMaxCacheableSize(responseBody.length)) {
-            getEngine().recordPut(cacheKey, uri, HttpCacheEngine.CACHE_SKIP, null, parent);
-            return new BufferedClientHttpResponse(
-                    statusCode,
-                    headersWith(headerMap, HttpCacheEngine.CACHE_HEADER_NAME, HttpCacheEngine.CACHE_SKIP),
-                    responseBody);
-        }
-
-        // Cache and return. A prior cached entry that reached here (rather than the 304 branch) means
-        // the live API returned a fresh 200 for a stale lookup, i.e. it invalidated the stored value.
-        var cachedResponse = new CachedResponse(responseBody, headerMap, etag, lastModified, maxAge, clock.millis());
+        // A prior cached entry that reached here (rather than the 304 branch) means the live API returned
+        // a fresh 200 for a stale lookup, i.e. it invalidated the stored value.
         var putStatus = wasCached ? HttpCacheEngine.CACHE_INVALIDATED : HttpCacheEngine.CACHE_STORED;
         var headerStatus = wasCached ? HttpCacheEngine.CACHE_INVALIDATED : HttpCacheEngine.CACHE_MISS;
-        getEngine().recordPut(cacheKey, uri, putStatus, () -> cache.put(cacheKey, cachedResponse), parent);
+        var contentLength = headers.getContentLength();
+
+        // Stream the body to the caller while keeping a copy to store. Without a declared length, a body
+        // too large to store is only found out once these headers have gone out saying MISS; it's still
+        // recorded as a SKIP put.
+        return new TeeClientHttpResponse(
+                response,
+                headersWith(headerMap, HttpCacheEngine.CACHE_HEADER_NAME, headerStatus),
+                maxCacheableSize,
+                (int) contentLength,
+                responseBody -> {
+                    var cachedResponse =
+                            new CachedResponse(responseBody, headerMap, etag, lastModified, maxAge, clock.millis());
+                    getEngine().recordPut(cacheKey, uri, putStatus, () -> cache.put(cacheKey, cachedResponse), parent);
+                },
+                () -> getEngine().recordPut(cacheKey, uri, HttpCacheEngine.CACHE_SKIP, null, parent));
+    }
 
+    private static ClientHttpResponse fromCache(CachedResponse cached, String status) {
         return new BufferedClientHttpResponse(
-                statusCode, headersWith(headerMap, HttpCacheEngine.CACHE_HEADER_NAME, headerStatus), responseBody);
+                HttpStatus.OK,
+                headersWith(cached.getHeaders(), HttpCacheEngine.CACHE_HEADER_NAME, status),
+                cached.getBody());
     }
 
     private static Map<String, List<String>> toMap(HttpHeaders headers) {
@@ -229,6 +473,231 @@ public class CachingClientHttpRequestInterceptor implements ClientHttpRequestInt
         return headers;
     }
 
+    /**
+     * Passes a response through while copying its body into a buffer of at most {@code limit} bytes.
+     * Reaching {@code expectedLength} (-1 when unknown) or the end of the body hands the copy to
+     * {@code onComplete}; outgrowing the limit drops it and calls {@code onOverflow} instead. Readers such
+     * as Jackson stop after the root value without reading to the end, so closing reads the rest through
+     * the copy first, up to the limit.
+     */
+    private static final class TeeClientHttpResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse delegate;
+        private final HttpHeaders headers;
+        private final int limit;
+        private final int expectedLength;
+        private final Consumer<byte[]> onComplete;
+        private final Runnable onOverflow;
+        private @Nullable TeeInputStream body;
+
+        TeeClientHttpResponse(
+                ClientHttpResponse delegate,
+                HttpHeaders headers,
+                int limit,
+                int expectedLength,
+                Consumer<byte[]> onComplete,
+                Runnable onOverflow) {
+            this.delegate = delegate;
+            this.headers = headers;
+            this.limit = limit;
+            this.expectedLength = expectedLength;
+            this.onComplete = onComplete;
+            this.onOverflow = onOverflow;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return tee();
+        }
+
+        @Override
+        public void close() {
+            try {
+                tee().drain();
+            } catch (IOException e) {
+                log.debug("Could not read the rest of a response body; it will not be cached", e);
+            } finally {
+                delegate.close();
+            }
+        }
+
+        private TeeInputStream tee() throws IOException {
+            var current = body;
+            if (current == null) {
+                current = new TeeInputStream(delegate.getBody());
+                body = current;
+            }
+            return current;
+        }
+
+        private final class TeeInputStream extends FilterInputStream {
+
+            private @Nullable ByteArrayOutputStream copy =
+                    new ByteArrayOutputStream(Math.min(expectedLength < 0 ? 8192 : expectedLength, limit));
+            private boolean ended;
+
+            TeeInputStream(InputStream in) {
+                super(in);
+            }
+
+            @Override
+            public int read() throws IOException {
+                var b = super.read();
+                if (b < 0) {
+                    end();
+                } else if (fits(1)) {
+                    requireCopy().write(b);
+                    endIfComplete();
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                var n = super.read(b, off, len);
+                if (n < 0) {
+                    end();
+                } else if (n > 0 && fits(n)) {
+                    requireCopy().write(b, off, n);
+                    endIfComplete();
+                }
+                return n;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                // Skipped bytes still belong in the copy, so read them instead
+                var scratch = new byte[(int) Math.min(n, 8192)];
+                var skipped = 0L;
+                while (skipped < n) {
+                    var read = read(scratch, 0, (int) Math.min(scratch.length, n - skipped));
+                    if (read < 0) {
+                        break;
+                    }
+                    skipped += read;
+                }
+                return skipped;
+            }
+
+            @Override
+            public boolean markSupported() {
+                return false;
+            }
+
+            @Override
+            public synchronized void mark(int readlimit) {
+                // Not supported; see markSupported
+            }
+
+            @Override
+            public synchronized void reset() throws IOException {
+                throw new IOException("mark/reset not supported");
+            }
+
+            /**
+             * Reads what the caller left unread, stopping as soon as the copy is stored or dropped.
+             */
+            void drain() throws IOException {
+                endIfComplete();
+                var scratch = new byte[8192];
+                while (copy != null && read(scratch, 0, scratch.length) >= 0) {
+                    // read() keeps the copy
+                }
+            }
+
+            private boolean fits(int n) {
+                var current = copy;
+                if (current == null) {
+                    return false;
+                }
+                if (current.size() + (long) n > limit) {
+                    copy = null;
+                    onOverflow.run();
+                    return false;
+                }
+                return true;
+            }
+
+            private ByteArrayOutputStream requireCopy() {
+                return Objects.requireNonNull(copy);
+            }
+
+            private void endIfComplete() {
+                var current = copy;
+                if (current != null && current.size() == expectedLength) {
+                    end();
+                }
+            }
+
+            private void end() {
+                if (ended) {
+                    return;
+                }
+                ended = true;
+                var current = copy;
+                if (current != null) {
+                    copy = null;
+                    onComplete.accept(current.toByteArray());
+                }
+            }
+        }
+    }
+
+    /**
+     * A response whose first bytes have already been read from {@code rest} into {@code prefix}. The body
+     * is the one stream of both, however often it's asked for.
+     */
+    private static final class PrefixedClientHttpResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse delegate;
+
+        @Getter
+        private final HttpHeaders headers;
+
+        private final InputStream body;
+
+        PrefixedClientHttpResponse(ClientHttpResponse delegate, HttpHeaders headers, byte[] prefix, InputStream rest) {
+            this.delegate = delegate;
+            this.headers = headers;
+            this.body = new SequenceInputStream(new ByteArrayInputStream(prefix), rest);
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public InputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+
     @RequiredArgsConstructor
     @Getter
     private static final class BufferedClientHttpResponse implements ClientHttpResponse {
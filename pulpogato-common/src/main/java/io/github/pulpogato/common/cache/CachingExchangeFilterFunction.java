@@ -3,28 +3,41 @@ package io.github.pulpogato.common.cache;
 import io.micrometer.observation.Observation;
 import io.micrometer.observation.ObservationRegistry;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.time.Clock;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import lombok.Builder;
 import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
 import org.jspecify.annotations.Nullable;
 import org.springframework.cache.Cache;
 import org.springframework.cache.support.NoOpCache;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.web.reactive.function.BodyExtractors;
 import org.springframework.web.reactive.function.client.ClientRequest;
 import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.ExchangeFunction;
 import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
 /**
  * HTTP caching filter that implements conditional request handling.
@@ -48,6 +61,16 @@ import reactor.core.publisher.Mono;
  * <p>Responses larger than {@link #maxCacheableSize} are not cached but are still returned
  * successfully. This prevents memory issues with very large responses.
  *
+ * <p>With {@link #staleWhileRevalidate}, stale entries are served without waiting for the network and
+ * refreshed in the background. With {@link #staleIfError}, a stale entry is served when revalidation
+ * fails with a 5xx, or with a {@link WebClientRequestException} or I/O error. Both are in the spirit of
+ * <a href="https://www.rfc-editor.org/rfc/rfc5861">RFC 5861</a>, but opted into here rather than by
+ * the server, since GitHub doesn't send those directives.
+ *
+ * <p>Nothing here blocks the event loop on the cache: lookups use {@link Cache#retrieve(Object)} when
+ * the backend supports it and otherwise run on {@link #scheduler}, and writes are handed to
+ * {@link #scheduler} without waiting for them.
+ *
  * <p>Example usage:
  * <pre>{@code
  * HttpCache cache = new InMemoryHttpCache();
@@ -57,6 +80,7 @@ import reactor.core.publisher.Mono;
  * }</pre>
  */
 @Builder
+@Slf4j
 public class CachingExchangeFilterFunction implements ExchangeFilterFunction {
 
     /**
@@ -113,6 +137,48 @@ public class CachingExchangeFilterFunction implements ExchangeFilterFunction {
     @Builder.Default
     private final ObservationRegistry observationRegistry = ObservationRegistry.NOOP;
 
+    /**
+     * Scheduler for cache lookups the backend can't do asynchronously, and for all cache writes.
+     * Defaults to {@link Schedulers#boundedElastic()}.
+     */
+    @Builder.Default
+    private final Scheduler scheduler = Schedulers.boundedElastic();
+
+    /**
+     * When true, a stale entry is returned immediately (tagged {@code STALE}) and revalidated in the
+     * background, with at most one revalidation in flight per cache key.
+     */
+    @Builder.Default
+    private final boolean staleWhileRevalidate = false;
+
+    /**
+     * When true, a stale entry is returned (tagged {@code STALE}) if revalidating it fails with a 5xx
+     * or because the server can't be reached, instead of surfacing the failure. Other failures, such as
+     * one in handling the response, still surface.
+     */
+    @Builder.Default
+    private final boolean staleIfError = false;
+
+    /**
+     * When true, concurrent requests with the same cache key share one network exchange: the first
+     * makes it and the rest get its buffered response. Each request that waits is recorded as a
+     * {@code pulpogato.cache.coalesce} observation. A response larger than {@link #maxCacheableSize}
+     * is not buffered to be shared; the requests that waited on it make their own.
+     */
+    @Builder.Default
+    private final boolean coalesceRequests = false;
+
+    /**
+     * When true, the server is never contacted: a stored entry is returned even if stale (tagged
+     * {@code STALE}), and a request with no stored entry gets a 504 Gateway Timeout, as for the
+     * {@code only-if-cached} request directive of
+     * <a href="https://www.rfc-editor.org/rfc/rfc9111#section-5.2.1.7">RFC 9111 section 5.2.1.7</a>,
+     * which is honoured per request either way. Useful for a second client over the same cache that
+     * replays pages a paginated sync already knows are unchanged.
+     */
+    @Builder.Default
+    private final boolean onlyIfCached = false;
+
     @Getter(lazy = true)
     private final HttpCacheEngine engine = engine();
 
@@ -138,17 +204,141 @@ public class CachingExchangeFilterFunction implements ExchangeFilterFunction {
 
     private Mono<ClientResponse> doFilter(ClientRequest request, ExchangeFunction next, @Nullable Observation parent) {
         var cacheKey = cacheKeyMapper.apply(request);
-        var cached = getEngine().lookup(cacheKey, request.url().toString(), parent);
+        return Mono.fromFuture(() -> getEngine().lookupAsync(cacheKey, request.url().toString(), parent, this::execute))
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(cached -> exchange(request, next, cacheKey, cached.orElse(null), parent));
+    }
 
+    private Mono<ClientResponse> exchange(
+            ClientRequest request,
+            ExchangeFunction next,
+            String cacheKey,
+            @Nullable CachedResponse cached,
+            @Nullable Observation parent) {
         // If we have a fresh cached response and not forcing revalidation, return it
         if (cached != null && !cached.isExpired(clock.millis()) && !alwaysRevalidate) {
-            return Mono.just(ClientResponse.create(HttpStatus.OK, LARGE_BUFFER_STRATEGIES)
-                    .headers(h -> h.putAll(cached.getHeaders()))
-                    .header(HttpCacheEngine.CACHE_HEADER_NAME, HttpCacheEngine.CACHE_HIT)
-                    .body(Flux.just(bufferFactory.wrap(cached.getBody())))
-                    .build());
+            return Mono.just(fromCache(cached, HttpCacheEngine.CACHE_HIT));
+        }
+
+        if (onlyIfCached || HttpCacheEngine.isOnlyIfCached(request.headers().getFirst(HttpHeaders.CACHE_CONTROL))) {
+            return Mono.just(
+                    cached != null
+                            ? fromCache(cached, HttpCacheEngine.CACHE_STALE)
+                            : ClientResponse.create(HttpStatus.GATEWAY_TIMEOUT, LARGE_BUFFER_STRATEGIES)
+                                    .build());
+        }
+
+        // Serve the stale entry now and let at most one background request per key refresh it
+        if (cached != null && staleWhileRevalidate) {
+            if (getEngine().startRevalidation(cacheKey)) {
+                Mono.defer(() -> revalidate(request, next, cacheKey, cached, parent))
+                        .flatMap(ClientResponse::releaseBody)
+                        .doFinally(signal -> getEngine().finishRevalidation(cacheKey))
+                        .subscribeOn(scheduler)
+                        .subscribe(
+                                ignored -> {},
+                                error -> log.debug("Background revalidation of {} failed", request.url(), error));
+            }
+            return Mono.just(fromCache(cached, HttpCacheEngine.CACHE_STALE));
+        }
+
+        if (coalesceRequests) {
+            return coalesce(
+                    cacheKey,
+                    request.url().toString(),
+                    parent,
+                    () -> revalidate(request, next, cacheKey, cached, parent));
+        }
+        return revalidate(request, next, cacheKey, cached, parent);
+    }
+
+    private Mono<ClientResponse> coalesce(
+            String cacheKey, String uri, @Nullable Observation parent, Supplier<Mono<ClientResponse>> exchange) {
+        return Mono.defer(() -> {
+            var mine = new CompletableFuture<SharedResponse>();
+            var leader = getEngine().joinInFlight(cacheKey, mine);
+            if (leader != null) {
+                var observation = getEngine().startCoalesced(cacheKey, uri, parent);
+                return Mono.fromFuture(leader, true)
+                        .doOnError(observation::error)
+                        .doFinally(signal -> observation.stop())
+                        // Too large to have been buffered for us; make our own request
+                        .flatMap(shared -> shared == SharedResponse.NOT_SHAREABLE
+                                ? exchange.get()
+                                : Mono.just(toClientResponse(shared)))
+                        // The leading request was cancelled before it had an answer; make our own
+                        .onErrorResume(CancellationException.class, e -> exchange.get());
+            }
+            return exchange.get()
+                    .flatMap(response -> share(response, mine))
+                    .doOnError(mine::completeExceptionally)
+                    .doFinally(signal -> {
+                        getEngine().leaveInFlight(cacheKey, mine);
+                        // No-op unless the exchange was cancelled or completed empty
+                        mine.completeExceptionally(new CancellationException());
+                    });
+        });
+    }
+
+    /**
+     * Buffers {@code response} and completes {@code mine} with it, for the requests waiting on it, if it
+     * fits in {@link #maxCacheableSize}. A larger body completes {@code mine} with
+     * {@link SharedResponse#NOT_SHAREABLE} and still streams to this caller, with only what was read
+     * to find that out held in memory.
+     */
+    private Mono<ClientResponse> share(ClientResponse response, CompletableFuture<SharedResponse> mine) {
+        var headers = response.headers().asHttpHeaders();
+        if (getEngine().exceedsMaxCacheableSize(headers.getContentLength())) {
+            mine.complete(SharedResponse.NOT_SHAREABLE);
+            return Mono.just(response);
         }
+        var size = new AtomicLong();
+        // One chunk of the whole body if it fits; otherwise a chunk up to the first buffer past the limit,
+        // then a chunk per buffer
+        return response.body(BodyExtractors.toDataBuffers())
+                .bufferUntil(buffer -> getEngine().exceedsMaxCacheableSize(size.addAndGet(buffer.readableByteCount())))
+                .switchOnFirst(
+                        (first, chunks) -> {
+                            if (first.hasValue() && getEngine().exceedsMaxCacheableSize(size.get())) {
+                                mine.complete(SharedResponse.NOT_SHAREABLE);
+                                return Mono.just(response.mutate()
+                                        .body(chunks.concatMapIterable(Function.identity()))
+                                        .build());
+                            }
+                            var body = first.hasValue() ? toBytes(first.get()) : new byte[0];
+                            var shared = new SharedResponse(response.statusCode().value(), toMap(headers), body);
+                            mine.complete(shared);
+                            return Mono.just(toClientResponse(shared));
+                        },
+                        false)
+                .single();
+    }
+
+    private static byte[] toBytes(List<DataBuffer> buffers) {
+        var out = new ByteArrayOutputStream();
+        for (var buffer : buffers) {
+            var bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            DataBufferUtils.release(buffer);
+            out.writeBytes(bytes);
+        }
+        return out.toByteArray();
+    }
 
+    private ClientResponse toClientResponse(SharedResponse shared) {
+        return ClientResponse.create(HttpStatusCode.valueOf(shared.getStatus()), LARGE_BUFFER_STRATEGIES)
+                .headers(h -> h.putAll(shared.getHeaders()))
+                .body(Flux.just(bufferFactory.wrap(shared.getBody())))
+                .build();
+    }
+
+    private Mono<ClientResponse> revalidate(
+            ClientRequest request,
+            ExchangeFunction next,
+            String cacheKey,
+            @Nullable CachedResponse cached,
+            @Nullable Observation parent) {
         // Build request with conditional headers if we have a cache entry (stale or forcing revalidation)
         var requestBuilder = ClientRequest.from(request);
         if (cached != null && cached.canRevalidate()) {
@@ -162,7 +352,7 @@ public class CachingExchangeFilterFunction implements ExchangeFilterFunction {
 
         var conditionalRequest = requestBuilder.build();
 
-        return next.exchange(conditionalRequest).flatMap(response -> {
+        var exchange = next.exchange(conditionalRequest).flatMap(response -> {
             // On 304 the stored representation is still valid: refresh its freshness and merge the
             // updated header fields (RFC 9111 4.3.4), then serve the cached body.
             if (response.statusCode().value() == 304 && cached != null) {
@@ -172,13 +362,15 @@ public class CachingExchangeFilterFunction implements ExchangeFilterFunction {
                                 request.url().toString(),
                                 cached,
                                 toMap(response.headers().asHttpHeaders()),
-                                parent);
+                                parent,
+                                this::execute);
                 return response.releaseBody()
-                        .then(Mono.just(ClientResponse.create(HttpStatus.OK, LARGE_BUFFER_STRATEGIES)
-                                .headers(h -> h.putAll(refreshed.getHeaders()))
-                                .header(HttpCacheEngine.CACHE_HEADER_NAME, HttpCacheEngine.CACHE_REVALIDATED)
-                                .body(Flux.just(bufferFactory.wrap(refreshed.getBody())))
-                                .build()));
+                        .then(Mono.just(fromCache(refreshed, HttpCacheEngine.CACHE_REVALIDATED)));
+            }
+
+            // A server error is no reason to drop a representation we still have
+            if (response.statusCode().is5xxServerError() && cached != null && staleIfError) {
+                return response.releaseBody().then(Mono.just(fromCache(cached, HttpCacheEngine.CACHE_STALE)));
             }
 
             // Cache the response if it has caching headers
@@ -188,6 +380,35 @@ public class CachingExchangeFilterFunction implements ExchangeFilterFunction {
 
             return Mono.just(response);
         });
+
+        // Likewise when GitHub can't be reached at all
+        if (cached != null && staleIfError) {
+            return exchange.onErrorResume(
+                    CachingExchangeFilterFunction::isUnreachable,
+                    error -> Mono.just(fromCache(cached, HttpCacheEngine.CACHE_STALE)));
+        }
+        return exchange;
+    }
+
+    /**
+     * Whether {@code error} means the server couldn't be reached or stopped answering, as opposed to a
+     * failure in handling what it sent, which a stale entry shouldn't hide.
+     */
+    private static boolean isUnreachable(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof WebClientRequestException || cause instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ClientResponse fromCache(CachedResponse cached, String status) {
+        return ClientResponse.create(HttpStatus.OK, LARGE_BUFFER_STRATEGIES)
+                .headers(h -> h.putAll(cached.getHeaders()))
+                .header(HttpCacheEngine.CACHE_HEADER_NAME, status)
+                .body(Flux.just(bufferFactory.wrap(cached.getBody())))
+                .build();
     }
 
     private Mono<ClientResponse> cacheResponse(
@@ -242,7 +463,8 @@ public class CachingExchangeFilterFunction implements ExchangeFilterFunction {
                             new CachedResponse(body, headerMap, etag, lastModified, maxAge, clock.millis());
                     var putStatus = wasCached ? HttpCacheEngine.CACHE_INVALIDATED : HttpCacheEngine.CACHE_STORED;
                     var headerStatus = wasCached ? HttpCacheEngine.CACHE_INVALIDATED : HttpCacheEngine.CACHE_MISS;
-                    getEngine().recordPut(cacheKey, uri, putStatus, () -> cache.put(cacheKey, cachedResponse), parent);
+                    execute(() -> getEngine()
+                            .recordPut(cacheKey, uri, putStatus, () -> cache.put(cacheKey, cachedResponse), parent));
 
                     return ClientResponse.create(response.statusCode(), LARGE_BUFFER_STRATEGIES)
                             .headers(h -> h.putAll(headerMap))
@@ -252,6 +474,13 @@ public class CachingExchangeFilterFunction implements ExchangeFilterFunction {
                 });
     }
 
+    /**
+     * Runs cache I/O on {@link #scheduler}, fire-and-forget.
+     */
+    private void execute(Runnable task) {
+        scheduler.schedule(task);
+    }
+
     private static Map<String, List<String>> toMap(HttpHeaders headers) {
         var map = HashMap.<String, List<String>>newHashMap(headers.size());
         headers.forEach((name, values) -> map.put(name, new ArrayList<>(values)));
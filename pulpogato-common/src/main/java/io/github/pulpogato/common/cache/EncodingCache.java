@@ -0,0 +1,113 @@
+package io.github.pulpogato.common.cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import lombok.RequiredArgsConstructor;
+import org.jspecify.annotations.Nullable;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+/**
+ * A {@link Cache} decorator that stores {@link CachedResponse} values in the binary form of a
+ * {@link CachedResponseCodec}, so the underlying cache only ever sees a {@code byte[]}.
+ *
+ * <p>Other values pass through unchanged, and stored bytes that aren't in the codec's format are
+ * returned as-is, so the decorator can front a cache that already holds entries.
+ *
+ * <p>Example usage:
+ * <pre>{@code
+ * var codec = CachedResponseCodec.builder().headerAllowlist(CachedResponseCodec.GITHUB_HEADERS).build();
+ * var filter = CachingExchangeFilterFunction.builder()
+ *     .cache(new EncodingCache(redisCache, codec))
+ *     .build();
+ * }</pre>
+ */
+@RequiredArgsConstructor
+public class EncodingCache implements Cache {
+
+    private final Cache delegate;
+    private final CachedResponseCodec codec;
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public @Nullable ValueWrapper get(Object key) {
+        var stored = delegate.get(key);
+        return stored != null ? new SimpleValueWrapper(decode(stored.get())) : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> @Nullable T get(Object key, @Nullable Class<T> type) {
+        var stored = delegate.get(key);
+        var value = stored != null ? decode(stored.get()) : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                    "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> @Nullable T get(Object key, Callable<T> valueLoader) {
+        return (T) decode(delegate.get(key, () -> encode(valueLoader.call())));
+    }
+
+    @Override
+    public @Nullable CompletableFuture<?> retrieve(Object key) {
+        var stored = delegate.retrieve(key);
+        return stored != null ? stored.thenApply(value -> decode(unwrap(value))) : null;
+    }
+
+    @Override
+    public void put(Object key, @Nullable Object value) {
+        delegate.put(key, encode(value));
+    }
+
+    @Override
+    public @Nullable ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+        var existing = delegate.putIfAbsent(key, encode(value));
+        return existing != null ? new SimpleValueWrapper(decode(existing.get())) : null;
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return delegate.invalidate();
+    }
+
+    private @Nullable Object encode(@Nullable Object value) {
+        return value instanceof CachedResponse response ? codec.encode(response) : value;
+    }
+
+    private @Nullable Object decode(@Nullable Object stored) {
+        return stored instanceof byte[] bytes && CachedResponseCodec.isEncoded(bytes) ? codec.decode(bytes) : stored;
+    }
+
+    private static @Nullable Object unwrap(@Nullable Object value) {
+        return value instanceof ValueWrapper wrapper ? wrapper.get() : value;
+    }
+}
@@ -6,7 +6,11 @@ import java.time.Clock;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.regex.Pattern;
 import lombok.RequiredArgsConstructor;
 import org.jspecify.annotations.Nullable;
@@ -34,10 +38,16 @@ class HttpCacheEngine {
     static final String CACHE_STORED = "STORED";
     static final String CACHE_INVALIDATED = "INVALIDATED";
     static final String CACHE_SKIP = "SKIP";
+    static final String CACHE_TIER = "cache.tier";
+    static final String TIER_L1 = "L1";
+    static final String TIER_L2 = "L2";
+    static final String TIER_NONE = "NONE";
 
     private static final Pattern MAX_AGE_PATTERN = Pattern.compile("max-age=(\\d+)");
+    private static final Pattern ONLY_IF_CACHED_PATTERN = Pattern.compile("(?i)(^|[,\\s])only-if-cached($|[,\\s])");
     private static final String OBSERVATION_CACHE_GET = "pulpogato.cache.get";
     private static final String OBSERVATION_CACHE_PUT = "pulpogato.cache.put";
+    private static final String OBSERVATION_CACHE_COALESCE = "pulpogato.cache.coalesce";
     private static final String URI = "uri";
     private static final String CACHE_KEY = "cache.key";
     private static final String CONTENT_LENGTH = "Content-Length";
@@ -51,10 +61,21 @@ class HttpCacheEngine {
     private final int maxCacheableSize;
     private final boolean alwaysRevalidate;
 
+    /**
+     * Cleared the first time the cache rejects {@link Cache#retrieve(Object)}, so a backend without
+     * async support costs one exception rather than one per lookup.
+     */
+    private volatile boolean asyncRetrieve = true;
+
+    private final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, CompletableFuture<SharedResponse>> inFlight = new ConcurrentHashMap<>();
+
     /**
      * Reads the cache entry inside a {@code pulpogato.cache.get} span, tagging the outcome
      * ({@link #CACHE_HIT}/{@link #CACHE_STALE}/{@link #CACHE_MISS}). The span wraps only the read,
-     * so it captures the cache backend's lookup latency without enclosing the network exchange.
+     * so it captures the cache backend's lookup latency without enclosing the network exchange. A
+     * {@link TieredCache} read is also tagged with the tier that answered ({@link #CACHE_TIER}).
      */
     @Nullable
     CachedResponse lookup(String cacheKey, String uri, @Nullable Observation parent) {
@@ -63,12 +84,77 @@ class HttpCacheEngine {
                 .highCardinalityKeyValue(URI, uri)
                 .highCardinalityKeyValue(CACHE_KEY, cacheKey);
         return observation.observe(() -> {
+            if (cache instanceof TieredCache tieredCache) {
+                return tagged(observation, tieredCache.lookup(cacheKey));
+            }
             var cached = cache.get(cacheKey, CachedResponse.class);
             observation.lowCardinalityKeyValue(CACHE_STATUS, computeStatus(cached));
             return cached;
         });
     }
 
+    /**
+     * Non-blocking counterpart of {@link #lookup}. Uses {@link Cache#retrieve(Object)} when the backend
+     * supports it, where a {@code null} future is an immediate miss; otherwise the blocking
+     * {@link Cache#get(Object, Class)} runs on {@code blockingExecutor}. The
+     * {@code pulpogato.cache.get} span stays open until the read completes.
+     */
+    CompletableFuture<@Nullable CachedResponse> lookupAsync(
+            String cacheKey, String uri, @Nullable Observation parent, Executor blockingExecutor) {
+        var observation = Observation.createNotStarted(OBSERVATION_CACHE_GET, observationRegistry)
+                .parentObservation(parent)
+                .highCardinalityKeyValue(URI, uri)
+                .highCardinalityKeyValue(CACHE_KEY, cacheKey)
+                .start();
+        CompletableFuture<@Nullable CachedResponse> read;
+        if (cache instanceof TieredCache tieredCache) {
+            read = tieredCache.lookupAsync(cacheKey, blockingExecutor).thenApply(lookup -> tagged(observation, lookup));
+        } else {
+            read = retrieve(cacheKey, blockingExecutor).thenApply(cached -> {
+                observation.lowCardinalityKeyValue(CACHE_STATUS, computeStatus(cached));
+                return cached;
+            });
+        }
+        return read.whenComplete((cached, error) -> {
+            if (error != null) {
+                observation.error(error);
+            }
+            observation.stop();
+        });
+    }
+
+    private CompletableFuture<@Nullable CachedResponse> retrieve(String cacheKey, Executor blockingExecutor) {
+        if (asyncRetrieve) {
+            try {
+                var future = cache.retrieve(cacheKey);
+                // A null future is the backend saying there is nothing to wait for: a miss
+                return future != null
+                        ? future.thenApply(HttpCacheEngine::unwrap)
+                        : CompletableFuture.completedFuture(null);
+            } catch (UnsupportedOperationException | IllegalStateException e) {
+                // Spring's default, and e.g. a Caffeine cache not in async mode.
+                asyncRetrieve = false;
+            }
+        }
+        return CompletableFuture.supplyAsync(() -> cache.get(cacheKey, CachedResponse.class), blockingExecutor);
+    }
+
+    private static @Nullable CachedResponse unwrap(@Nullable Object value) {
+        var unwrapped = value instanceof Cache.ValueWrapper wrapper ? wrapper.get() : value;
+        return unwrapped instanceof CachedResponse cachedResponse ? cachedResponse : null;
+    }
+
+    /**
+     * Tags a {@code pulpogato.cache.get} span with the outcome of a {@link TieredCache} read, including
+     * the tier that answered it.
+     */
+    private @Nullable CachedResponse tagged(Observation observation, TieredCache.Lookup lookup) {
+        var cached = unwrap(lookup.value());
+        observation.lowCardinalityKeyValue(CACHE_STATUS, computeStatus(cached));
+        observation.lowCardinalityKeyValue(CACHE_TIER, cached != null ? lookup.tier() : TIER_NONE);
+        return cached;
+    }
+
     private String computeStatus(@Nullable CachedResponse cached) {
         if (cached == null) {
             return CACHE_MISS;
@@ -93,6 +179,20 @@ class HttpCacheEngine {
             CachedResponse cached,
             Map<String, List<String>> notModifiedHeaders,
             @Nullable Observation parent) {
+        return refreshFromNotModified(cacheKey, uri, cached, notModifiedHeaders, parent, Runnable::run);
+    }
+
+    /**
+     * Like {@link #refreshFromNotModified(String, String, CachedResponse, Map, Observation)}, but hands
+     * the write-back (and its span) to {@code writer} instead of running it on the calling thread.
+     */
+    CachedResponse refreshFromNotModified(
+            String cacheKey,
+            String uri,
+            CachedResponse cached,
+            Map<String, List<String>> notModifiedHeaders,
+            @Nullable Observation parent,
+            Executor writer) {
         var merged = mergeHeaders(cached.getHeaders(), notModifiedHeaders);
 
         // Recompute caching metadata from the merged headers so any refreshed ETag, Last-Modified, or
@@ -109,7 +209,7 @@ class HttpCacheEngine {
         var maxAge = parsedMaxAge >= 0 ? parsedMaxAge : cached.getMaxAgeSeconds();
 
         var refreshed = new CachedResponse(cached.getBody(), merged, etag, lastModified, maxAge, clock.millis());
-        recordPut(cacheKey, uri, CACHE_REVALIDATED, () -> cache.put(cacheKey, refreshed), parent);
+        writer.execute(() -> recordPut(cacheKey, uri, CACHE_REVALIDATED, () -> cache.put(cacheKey, refreshed), parent));
         return refreshed;
     }
 
@@ -130,6 +230,53 @@ class HttpCacheEngine {
         observation.observe(store != null ? store : () -> {});
     }
 
+    /**
+     * Claims the background revalidation of a key, for stale-while-revalidate.
+     *
+     * @return false if a revalidation of the key is already in flight
+     */
+    boolean startRevalidation(String cacheKey) {
+        return revalidating.add(cacheKey);
+    }
+
+    /**
+     * Releases a claim taken with {@link #startRevalidation(String)}, however the revalidation ended.
+     */
+    void finishRevalidation(String cacheKey) {
+        revalidating.remove(cacheKey);
+    }
+
+    /**
+     * Registers {@code exchange} as the in-flight network exchange for a key, unless another one is
+     * already registered.
+     *
+     * @return the exchange already in flight, to wait for; or null if the caller now owns the key and
+     *     must complete {@code exchange} and then call {@link #leaveInFlight}
+     */
+    @Nullable
+    CompletableFuture<SharedResponse> joinInFlight(String cacheKey, CompletableFuture<SharedResponse> exchange) {
+        return inFlight.putIfAbsent(cacheKey, exchange);
+    }
+
+    /**
+     * Unregisters an exchange registered with {@link #joinInFlight}.
+     */
+    void leaveInFlight(String cacheKey, CompletableFuture<SharedResponse> exchange) {
+        inFlight.remove(cacheKey, exchange);
+    }
+
+    /**
+     * Starts a {@code pulpogato.cache.coalesce} span for a request that waits on another request's
+     * exchange instead of making its own. Counting these spans counts the coalesced requests.
+     */
+    Observation startCoalesced(String cacheKey, String uri, @Nullable Observation parent) {
+        return Observation.createNotStarted(OBSERVATION_CACHE_COALESCE, observationRegistry)
+                .parentObservation(parent)
+                .highCardinalityKeyValue(URI, uri)
+                .highCardinalityKeyValue(CACHE_KEY, cacheKey)
+                .start();
+    }
+
     /**
      * Whether a response with the given caching headers and content length is eligible to be
      * cached: it must carry at least one of ETag, Last-Modified, or a max-age directive, and its
@@ -168,6 +315,13 @@ class HttpCacheEngine {
         return values != null && !values.isEmpty() ? values.getFirst() : null;
     }
 
+    /**
+     * Whether a request's {@code Cache-Control} carries the {@code only-if-cached} directive.
+     */
+    static boolean isOnlyIfCached(@Nullable String cacheControl) {
+        return cacheControl != null && ONLY_IF_CACHED_PATTERN.matcher(cacheControl).find();
+    }
+
     static long parseMaxAge(@Nullable String cacheControl) {
         if (cacheControl != null) {
             var matcher = MAX_AGE_PATTERN.matcher(cacheControl);
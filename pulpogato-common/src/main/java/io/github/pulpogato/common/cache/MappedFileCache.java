@@ -0,0 +1,519 @@
+package io.github.pulpogato.common.cache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import org.jspecify.annotations.Nullable;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+/**
+ * A {@link Cache} that keeps {@link CachedResponse} entries in memory-mapped files, so they outlive
+ * the process. Meant for CLI batch jobs and single-node deployments: a restarted job still has its
+ * ETags, and revalidating with them gets 304s, which GitHub doesn't count against the rate limit.
+ *
+ * <p>Entries are appended, in {@link CachedResponseCodec} form, to fixed-size segment files in
+ * {@link #directory}. An in-memory index from key (for the caching filters, the
+ * {@link DefaultCacheKeyMapper} hash) to record location is rebuilt by scanning the segments on
+ * first use. Overwrites and removals append too, so once less than {@link #compactionThreshold} of the
+ * full segments is live, the oldest ones are rewritten, moving their live records to the newest segment.
+ * Live entries are bounded by
+ * {@link #maximumBytes}, evicting the least recently used first. Reads decode straight from the
+ * mapped segment.
+ *
+ * <p>Only {@link CachedResponse} values can be stored. Every operation takes one lock, except that
+ * {@link #get(Object, Callable)} runs its loader outside it, once per key at a time. One
+ * directory must be used by one instance at a time. Call {@link #close()} on shutdown to flush the
+ * segments.
+ *
+ * <p>Example usage:
+ * <pre>{@code
+ * var cache = MappedFileCache.builder().directory(Path.of(".pulpogato-cache")).build();
+ * var filter = CachingExchangeFilterFunction.builder().cache(cache).build();
+ * }</pre>
+ */
+@Builder
+public class MappedFileCache implements Cache, Closeable {
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d{8})\\.pc");
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    // length, crc, type, key length
+    private static final int HEADER_SIZE = 4 + 4 + 1 + 4;
+
+    /**
+     * The directory holding the segment files. Created if missing.
+     */
+    private final Path directory;
+
+    /**
+     * The name reported by {@link #getName()}.
+     */
+    @Builder.Default
+    private final String name = "pulpogato-mapped-file-cache";
+
+    /**
+     * Maximum total size of live records, in bytes. Disk use can reach about twice this, plus a
+     * segment, before compaction catches up.
+     */
+    @Builder.Default
+    private final long maximumBytes = 256L * 1024 * 1024;
+
+    /**
+     * Size of each segment file, in bytes. Entries that don't fit in one segment are not stored.
+     */
+    @Builder.Default
+    private final int segmentSize = 16 * 1024 * 1024;
+
+    /**
+     * The oldest segments are compacted once less than this fraction of the full segments is live.
+     */
+    @Builder.Default
+    private final double compactionThreshold = 0.5;
+
+    /**
+     * The codec used for stored records.
+     */
+    @Builder.Default
+    private final CachedResponseCodec codec = CachedResponseCodec.builder().build();
+
+    @Getter(value = AccessLevel.PRIVATE, lazy = true)
+    private final Store store = new Store();
+
+    /**
+     * Loads in progress in {@link #get(Object, Callable)}, by key, so concurrent callers share one.
+     */
+    private final ConcurrentHashMap<String, CompletableFuture<@Nullable Object>> loads = new ConcurrentHashMap<>();
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return directory;
+    }
+
+    @Override
+    public @Nullable ValueWrapper get(Object key) {
+        var value = getStore().get(key.toString());
+        return value != null ? new SimpleValueWrapper(value) : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> @Nullable T get(Object key, @Nullable Class<T> type) {
+        var value = getStore().get(key.toString());
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                    "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> @Nullable T get(Object key, Callable<T> valueLoader) {
+        var id = key.toString();
+        var value = getStore().get(id);
+        if (value != null) {
+            return (T) value;
+        }
+        var loading = new CompletableFuture<@Nullable Object>();
+        var inFlight = loads.putIfAbsent(id, loading);
+        if (inFlight != null) {
+            try {
+                return (T) inFlight.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause
+                        ? cause
+                        : new ValueRetrievalException(key, valueLoader, e.getCause());
+            }
+        }
+        try {
+            // A load may have finished between the first check and claiming the key
+            var loaded = (T) getStore().get(id);
+            if (loaded == null) {
+                try {
+                    loaded = valueLoader.call();
+                } catch (Exception e) {
+                    throw new ValueRetrievalException(key, valueLoader, e);
+                }
+                var existing = putIfAbsent(key, loaded);
+                if (existing != null) {
+                    loaded = (T) existing.get();
+                }
+            }
+            loading.complete(loaded);
+            return loaded;
+        } catch (Throwable e) {
+            loading.completeExceptionally(e);
+            throw e;
+        } finally {
+            loads.remove(id, loading);
+        }
+    }
+
+    @Override
+    public void put(Object key, @Nullable Object value) {
+        if (value == null) {
+            evict(key);
+        } else if (value instanceof CachedResponse response) {
+            getStore().put(key.toString(), codec.encode(response));
+        } else {
+            throw new IllegalArgumentException(
+                    "MappedFileCache only stores CachedResponse values, not " + value.getClass().getName());
+        }
+    }
+
+    @Override
+    public @Nullable ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+        synchronized (getStore()) {
+            var existing = get(key);
+            if (existing == null) {
+                put(key, value);
+            }
+            return existing;
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        getStore().remove(key.toString());
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return getStore().remove(key.toString());
+    }
+
+    @Override
+    public void clear() {
+        getStore().clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return getStore().clear();
+    }
+
+    /**
+     * Flushes the segments to disk and releases them. The cache can't be used afterwards.
+     */
+    @Override
+    public void close() {
+        getStore().close();
+    }
+
+    private record Location(Segment segment, int offset, int length, int payloadOffset) {}
+
+    /**
+     * One segment file, mapped whole. Records start at offset 0 and end at the first zero length.
+     */
+    private static final class Segment {
+        private final int id;
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int writePosition;
+        private long liveBytes;
+
+        Segment(int id, Path path, int size) throws IOException {
+            this.id = id;
+            this.path = path;
+            this.channel = FileChannel.open(
+                    path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+
+        void close() throws IOException {
+            buffer.force();
+            channel.close();
+        }
+    }
+
+    /**
+     * The segments and the index over them. Every method runs under the store's monitor.
+     */
+    private final class Store {
+        private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+        private final LinkedHashMap<String, Location> index = new LinkedHashMap<>(64, 0.75f, true);
+        private final CRC32 crc = new CRC32();
+        private long liveBytes;
+        private boolean compacting;
+        private boolean closed;
+
+        Store() {
+            try {
+                Files.createDirectories(directory);
+                var ids = new ArrayList<Integer>();
+                try (var files = Files.list(directory)) {
+                    files.forEach(file -> {
+                        var matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                        if (matcher.matches()) {
+                            ids.add(Integer.parseInt(matcher.group(1)));
+                        }
+                    });
+                }
+                ids.sort(null);
+                for (var id : ids) {
+                    load(open(id));
+                }
+                if (segments.isEmpty()) {
+                    open(1);
+                }
+                evictOverflow();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to open cache directory " + directory, e);
+            }
+        }
+
+        synchronized @Nullable CachedResponse get(String key) {
+            checkOpen();
+            var location = index.get(key);
+            if (location == null) {
+                return null;
+            }
+            var payloadLength = location.offset() + location.length() - location.payloadOffset();
+            return codec.decode(location.segment().buffer.slice(location.payloadOffset(), payloadLength));
+        }
+
+        synchronized void put(String key, byte[] payload) {
+            checkOpen();
+            var location = append(PUT, key, payload);
+            if (location == null) {
+                // Too large for a segment; make sure an older value isn't served instead
+                remove(key);
+                return;
+            }
+            unlink(index.put(key, location));
+            location.segment().liveBytes += location.length();
+            liveBytes += location.length();
+            evictOverflow();
+        }
+
+        synchronized boolean remove(String key) {
+            checkOpen();
+            var removed = index.remove(key);
+            if (removed == null) {
+                return false;
+            }
+            unlink(removed);
+            append(REMOVE, key, new byte[0]);
+            return true;
+        }
+
+        synchronized boolean clear() {
+            checkOpen();
+            var hadEntries = !index.isEmpty();
+            try {
+                for (var segment : segments.values()) {
+                    segment.close();
+                    Files.deleteIfExists(segment.path);
+                }
+                segments.clear();
+                index.clear();
+                liveBytes = 0;
+                open(1);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return hadEntries;
+        }
+
+        synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                for (var segment : segments.values()) {
+                    segment.close();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void checkOpen() {
+            if (closed) {
+                throw new IllegalStateException("MappedFileCache is closed");
+            }
+        }
+
+        private Segment open(int id) throws IOException {
+            var segment = new Segment(id, directory.resolve(String.format("segment-%08d.pc", id)), segmentSize);
+            segments.put(id, segment);
+            return segment;
+        }
+
+        /**
+         * Replays a segment into the index, stopping at its end or at the first torn or corrupt record.
+         */
+        private void load(Segment segment) {
+            var buffer = segment.buffer;
+            var position = 0;
+            while (position + HEADER_SIZE <= segmentSize) {
+                var length = buffer.getInt(position);
+                if (length < HEADER_SIZE - 4 || position + 4 + length > segmentSize) {
+                    break;
+                }
+                var keyLength = buffer.getInt(position + 9);
+                if (keyLength < 0 || HEADER_SIZE + keyLength > 4 + length
+                        || checksum(buffer.slice(position + 8, length - 4)) != buffer.getInt(position + 4)) {
+                    break;
+                }
+                var keyBytes = new byte[keyLength];
+                buffer.get(position + HEADER_SIZE, keyBytes);
+                var key = new String(keyBytes, StandardCharsets.UTF_8);
+                if (buffer.get(position + 8) == PUT) {
+                    var location = new Location(segment, position, 4 + length, position + HEADER_SIZE + keyLength);
+                    unlink(index.put(key, location));
+                    segment.liveBytes += location.length();
+                    liveBytes += location.length();
+                } else {
+                    unlink(index.remove(key));
+                }
+                position += 4 + length;
+            }
+            segment.writePosition = position;
+            // Anything after a torn record must not be mistaken for data once appends resume here
+            for (var i = position; i < Math.min(position + HEADER_SIZE, segmentSize); i++) {
+                buffer.put(i, (byte) 0);
+            }
+        }
+
+        /**
+         * Appends a record to the newest segment, starting a new one if it doesn't fit.
+         *
+         * @return where it was written, or null if it is larger than a segment
+         */
+        private @Nullable Location append(byte type, String key, byte[] payload) {
+            var keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            var recordLength = HEADER_SIZE + keyBytes.length + payload.length;
+            if (recordLength > segmentSize) {
+                return null;
+            }
+            var segment = segments.lastEntry().getValue();
+            if (segment.writePosition + recordLength > segmentSize) {
+                segment = roll();
+            }
+            var buffer = segment.buffer;
+            var position = segment.writePosition;
+            buffer.put(position + 8, type);
+            buffer.putInt(position + 9, keyBytes.length);
+            buffer.put(position + HEADER_SIZE, keyBytes);
+            buffer.put(position + HEADER_SIZE + keyBytes.length, payload);
+            if (position + recordLength + 4 <= segmentSize) {
+                buffer.putInt(position + recordLength, 0);
+            }
+            buffer.putInt(position + 4, checksum(buffer.slice(position + 8, recordLength - 8)));
+            // The length goes last: until it is written, a reader of the file sees the end of the segment
+            buffer.putInt(position, recordLength - 4);
+            segment.writePosition += recordLength;
+            return new Location(segment, position, recordLength, position + HEADER_SIZE + keyBytes.length);
+        }
+
+        private Segment roll() {
+            try {
+                open(segments.lastKey() + 1);
+                if (!compacting) {
+                    compact();
+                }
+                return segments.lastEntry().getValue();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Rewrites the oldest segments while the full ones are mostly dead. The oldest is rewritten even
+         * when it is mostly live itself, so a few hot entries in it can't keep dead newer segments on
+         * disk. Only the oldest is ever compacted, so its removal records can be dropped: there is
+         * nothing older left for them to hide.
+         */
+        private void compact() throws IOException {
+            compacting = true;
+            try {
+                // Moved records can fill the newest segment too; only those full when the pass began are rewritten
+                for (var remaining = segments.size() - 1; remaining > 0 && isMostlyDead(); remaining--) {
+                    var oldest = segments.firstEntry().getValue();
+                    List<Map.Entry<String, Location>> live = new ArrayList<>();
+                    for (var entry : index.entrySet()) {
+                        if (entry.getValue().segment() == oldest) {
+                            live.add(entry);
+                        }
+                    }
+                    for (var entry : live) {
+                        var old = entry.getValue();
+                        var payloadLength = old.offset() + old.length() - old.payloadOffset();
+                        var payload = new byte[payloadLength];
+                        oldest.buffer.get(old.payloadOffset(), payload);
+                        var moved = append(PUT, entry.getKey(), payload);
+                        if (moved != null) {
+                            // setValue keeps the entry's place in the LRU order
+                            entry.setValue(moved);
+                            moved.segment().liveBytes += moved.length();
+                        }
+                    }
+                    segments.remove(oldest.id);
+                    oldest.close();
+                    Files.deleteIfExists(oldest.path);
+                }
+            } finally {
+                compacting = false;
+            }
+        }
+
+        private boolean isMostlyDead() {
+            var written = 0L;
+            var live = 0L;
+            for (var segment : segments.headMap(segments.lastKey()).values()) {
+                written += segment.writePosition;
+                live += segment.liveBytes;
+            }
+            return live < written * compactionThreshold;
+        }
+
+        private void evictOverflow() {
+            while (liveBytes > maximumBytes && !index.isEmpty()) {
+                remove(index.keySet().iterator().next());
+            }
+        }
+
+        private void unlink(@Nullable Location location) {
+            if (location != null) {
+                location.segment().liveBytes -= location.length();
+                liveBytes -= location.length();
+            }
+        }
+
+        private int checksum(ByteBuffer bytes) {
+            crc.reset();
+            crc.update(bytes);
+            return (int) crc.getValue();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package io.github.pulpogato.common.cache;
+
+import java.util.List;
+import java.util.Map;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * A fully buffered response that one coalesced exchange hands to every request waiting on it.
+ * Framework-agnostic, like {@link CachedResponse}, so {@link HttpCacheEngine} can track it.
+ */
+@RequiredArgsConstructor
+@Getter
+final class SharedResponse {
+    /**
+     * What a coalesced exchange completes with when its body is larger than {@code maxCacheableSize}.
+     * Such a body is not buffered to be shared; the requests that waited on it make their own instead.
+     */
+    static final SharedResponse NOT_SHAREABLE = new SharedResponse(0, Map.of(), new byte[0]);
+
+    /**
+     * The HTTP status code.
+     */
+    private final int status;
+    /**
+     * The response headers.
+     */
+    private final Map<String, List<String>> headers;
+    /**
+     * The response body. Shared by all waiters, so it must not be modified.
+     */
+    private final byte[] body;
+}
@@ -0,0 +1,399 @@
+package io.github.pulpogato.common.cache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import org.jspecify.annotations.Nullable;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+/**
+ * A {@link Cache} that fronts a shared cache (the L2, e.g. Redis) with a small in-process one (the L1),
+ * so a pod re-reading an entry it saw moments ago doesn't pay a network round trip.
+ *
+ * <p>Reads go to the L1 first and fill it from the L2 on a miss. Writes and evictions go to the L2 and
+ * then the L1. The L1 is bounded both by entry count and by weight, where a {@link CachedResponse}
+ * weighs its body length, and evicts approximately the least recently used entries first. Reads from
+ * the L1 take no lock.
+ *
+ * <p>Other pods write only to the L2, so an L1 entry is re-checked against the L2 once it is older
+ * than {@link #timeToLive}, or as soon as the {@link CachedResponse} it holds has expired (another pod
+ * may have revalidated it already). A newer L2 entry replaces it, and one that is gone from the L2 is
+ * dropped from the L1 too.
+ *
+ * <p>When used with {@link CachingExchangeFilterFunction} or {@link CachingClientHttpRequestInterceptor},
+ * the {@code pulpogato.cache.get} observation is tagged with {@code cache.tier} ({@code L1}, {@code L2}
+ * or {@code NONE}) to tell which tier answered.
+ *
+ * <p>Example usage:
+ * <pre>{@code
+ * var filter = CachingExchangeFilterFunction.builder()
+ *     .cache(TieredCache.builder().l2(redisCache).maximumWeight(32 * 1024 * 1024).build())
+ *     .build();
+ * }</pre>
+ */
+@Builder
+public class TieredCache implements Cache {
+
+    /**
+     * The shared cache. It is the source of truth; the L1 only ever holds copies of its entries.
+     */
+    private final Cache l2;
+
+    /**
+     * Maximum number of entries held in the L1.
+     */
+    @Builder.Default
+    private final int maximumSize = 1_000;
+
+    /**
+     * Maximum total weight of the L1, in bytes of {@link CachedResponse} body. An entry heavier than
+     * this on its own is not held in the L1 at all.
+     */
+    @Builder.Default
+    private final long maximumWeight = 16L * 1024 * 1024;
+
+    /**
+     * How long an L1 entry is served before it is re-checked against the L2.
+     */
+    @Builder.Default
+    private final Duration timeToLive = Duration.ofSeconds(30);
+
+    /**
+     * Clock instance for time-based operations.
+     */
+    @Builder.Default
+    private final Clock clock = Clock.systemUTC();
+
+    @Getter(value = AccessLevel.PRIVATE, lazy = true)
+    private final Tier1 tier1 = new Tier1(maximumSize, maximumWeight);
+
+    /**
+     * Cleared the first time the L2 rejects {@link Cache#retrieve(Object)}.
+     */
+    private final AtomicBoolean asyncRetrieve = new AtomicBoolean(true);
+
+    /**
+     * A read, with the tier that answered it.
+     *
+     * @param value The value, or null if neither tier has one
+     * @param tier  {@link HttpCacheEngine#TIER_L1}, {@link HttpCacheEngine#TIER_L2} or
+     *              {@link HttpCacheEngine#TIER_NONE}
+     */
+    record Lookup(@Nullable Object value, String tier) {}
+
+    @Override
+    public String getName() {
+        return l2.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return l2.getNativeCache();
+    }
+
+    @Override
+    public @Nullable ValueWrapper get(Object key) {
+        var lookup = lookup(key);
+        return lookup.value() != null ? new SimpleValueWrapper(lookup.value()) : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> @Nullable T get(Object key, @Nullable Class<T> type) {
+        var value = lookup(key).value();
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                    "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> @Nullable T get(Object key, Callable<T> valueLoader) {
+        var cached = lookup(key).value();
+        if (cached != null) {
+            return (T) cached;
+        }
+        var value = l2.get(key, valueLoader);
+        if (value != null) {
+            fill(key, value);
+        }
+        return value;
+    }
+
+    @Override
+    public @Nullable CompletableFuture<?> retrieve(Object key) {
+        var hit = l1Hit(key);
+        if (hit != null) {
+            return CompletableFuture.completedFuture(hit);
+        }
+        var stored = l2.retrieve(key);
+        if (stored == null) {
+            fromL2(key, null);
+            return null;
+        }
+        return stored.thenApply(value -> fromL2(key, unwrap(value)).value());
+    }
+
+    @Override
+    public void put(Object key, @Nullable Object value) {
+        l2.put(key, value);
+        if (value != null) {
+            getTier1().put(key, entry(value), true);
+        } else {
+            getTier1().remove(key);
+        }
+    }
+
+    @Override
+    public @Nullable ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+        var existing = l2.putIfAbsent(key, value);
+        var current = existing != null ? existing.get() : value;
+        if (current != null) {
+            fill(key, current);
+        } else {
+            getTier1().remove(key);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        l2.evict(key);
+        getTier1().remove(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        var evicted = l2.evictIfPresent(key);
+        getTier1().remove(key);
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        l2.clear();
+        getTier1().clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        var invalidated = l2.invalidate();
+        getTier1().clear();
+        return invalidated;
+    }
+
+    /**
+     * Reads a key, reporting which tier answered.
+     */
+    Lookup lookup(Object key) {
+        var hit = l1Hit(key);
+        if (hit != null) {
+            return new Lookup(hit, HttpCacheEngine.TIER_L1);
+        }
+        var stored = l2.get(key);
+        return fromL2(key, stored != null ? stored.get() : null);
+    }
+
+    /**
+     * Non-blocking counterpart of {@link #lookup(Object)}. An L1 hit completes immediately; otherwise
+     * the L2 is read with {@link Cache#retrieve(Object)} if it supports it, where a {@code null} future
+     * is an immediate miss, or on {@code blockingExecutor} if it doesn't.
+     */
+    CompletableFuture<Lookup> lookupAsync(Object key, Executor blockingExecutor) {
+        var hit = l1Hit(key);
+        if (hit != null) {
+            return CompletableFuture.completedFuture(new Lookup(hit, HttpCacheEngine.TIER_L1));
+        }
+        if (asyncRetrieve.get()) {
+            try {
+                var stored = l2.retrieve(key);
+                return stored != null
+                        ? stored.thenApply(value -> fromL2(key, unwrap(value)))
+                        : CompletableFuture.completedFuture(fromL2(key, null));
+            } catch (UnsupportedOperationException | IllegalStateException e) {
+                asyncRetrieve.set(false);
+            }
+        }
+        return CompletableFuture.supplyAsync(() -> lookup(key), blockingExecutor);
+    }
+
+    private @Nullable Object l1Hit(Object key) {
+        var entry = getTier1().get(key);
+        if (entry == null) {
+            return null;
+        }
+        var now = clock.millis();
+        if (now >= entry.checkAtMillis()
+                || entry.value() instanceof CachedResponse cachedResponse && cachedResponse.isExpired(now)) {
+            return null;
+        }
+        return entry.value();
+    }
+
+    private Lookup fromL2(Object key, @Nullable Object value) {
+        if (value == null) {
+            getTier1().remove(key);
+            return new Lookup(null, HttpCacheEngine.TIER_NONE);
+        }
+        return new Lookup(fill(key, value), HttpCacheEngine.TIER_L2);
+    }
+
+    /**
+     * Copies an L2 value into the L1, unless a concurrent local write already put a newer one there.
+     *
+     * @return the value the L1 now holds for the key
+     */
+    private Object fill(Object key, Object value) {
+        return getTier1().put(key, entry(value), false);
+    }
+
+    private Entry entry(Object value) {
+        var weight = value instanceof CachedResponse cachedResponse ? cachedResponse.getBody().length : 0;
+        return new Entry(value, Math.max(weight, 1), clock.millis() + timeToLive.toMillis());
+    }
+
+    private static @Nullable Object unwrap(@Nullable Object value) {
+        return value instanceof ValueWrapper wrapper ? wrapper.get() : value;
+    }
+
+    private record Entry(Object value, long weight, long checkAtMillis) {
+
+        /**
+         * Whether this entry was written to the L2 after {@code other}. Only {@link CachedResponse}s carry
+         * a write time, so anything else is never considered newer.
+         */
+        boolean isNewerThan(Entry other) {
+            return value instanceof CachedResponse mine
+                    && other.value() instanceof CachedResponse theirs
+                    && mine.getCachedAtMillis() > theirs.getCachedAtMillis();
+        }
+    }
+
+    /**
+     * The in-process tier: a concurrent map, so reads take no lock and only stamp the entry with the time
+     * it was read. Past either bound, a writer evicts the least recently read of a small sample of
+     * entries, taken in turn by a cursor that cycles through the map, which approximates least recently
+     * used eviction without ordering every read.
+     */
+    private static final class Tier1 {
+        private static final int SAMPLE_SIZE = 8;
+
+        private final int maximumSize;
+        private final long maximumWeight;
+        private final ConcurrentHashMap<Object, Node> entries = new ConcurrentHashMap<>();
+        private final AtomicLong weight = new AtomicLong();
+        // Guarded by this; only writers past a bound use it
+        private Iterator<Map.Entry<Object, Node>> cursor = Collections.emptyIterator();
+
+        Tier1(int maximumSize, long maximumWeight) {
+            this.maximumSize = maximumSize;
+            this.maximumWeight = maximumWeight;
+        }
+
+        @Nullable Entry get(Object key) {
+            var node = entries.get(key);
+            if (node == null) {
+                return null;
+            }
+            node.lastRead = System.nanoTime();
+            return node.entry;
+        }
+
+        /**
+         * Stores an entry. With {@code overwrite} false, an existing entry that is newer than
+         * {@code entry} is kept instead.
+         *
+         * @return the value now held for the key, which is {@code entry}'s unless it was rejected
+         */
+        Object put(Object key, Entry entry, boolean overwrite) {
+            var held = entries.compute(key, (k, existing) -> {
+                if (existing != null && !overwrite && existing.entry.isNewerThan(entry)) {
+                    return existing;
+                }
+                if (existing != null) {
+                    weight.addAndGet(-existing.entry.weight());
+                }
+                if (entry.weight() > maximumWeight) {
+                    return null;
+                }
+                weight.addAndGet(entry.weight());
+                return new Node(entry);
+            });
+            if (held == null) {
+                return entry.value();
+            }
+            evictOverflow();
+            return held.entry.value();
+        }
+
+        void remove(Object key) {
+            var removed = entries.remove(key);
+            if (removed != null) {
+                weight.addAndGet(-removed.entry.weight());
+            }
+        }
+
+        void clear() {
+            entries.keySet().forEach(this::remove);
+        }
+
+        private boolean isOverflowing() {
+            return entries.size() > maximumSize || weight.get() > maximumWeight;
+        }
+
+        private synchronized void evictOverflow() {
+            while (isOverflowing()) {
+                var victim = sample();
+                if (victim == null) {
+                    return;
+                }
+                if (entries.remove(victim.getKey(), victim.getValue())) {
+                    weight.addAndGet(-victim.getValue().entry.weight());
+                }
+            }
+        }
+
+        /**
+         * Picks the least recently read of the next {@link #SAMPLE_SIZE} entries under the cursor.
+         */
+        private Map.@Nullable Entry<Object, Node> sample() {
+            Map.Entry<Object, Node> oldest = null;
+            for (var i = 0; i < SAMPLE_SIZE; i++) {
+                if (!cursor.hasNext()) {
+                    cursor = entries.entrySet().iterator();
+                    if (!cursor.hasNext()) {
+                        break;
+                    }
+                }
+                var candidate = cursor.next();
+                if (oldest == null || candidate.getValue().lastRead - oldest.getValue().lastRead < 0) {
+                    oldest = candidate;
+                }
+            }
+            return oldest;
+        }
+    }
+
+    private static final class Node {
+        private final Entry entry;
+        private volatile long lastRead = System.nanoTime();
+
+        Node(Entry entry) {
+            this.entry = entry;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package io.github.pulpogato.common.client;
+
+/**
+ * The credentials of one GitHub App, as held by a {@link JwtCredentialRegistry}.
+ *
+ * @param appId         The GitHub App ID, used as the JWT issuer
+ * @param privateKeyPem The app's RSA private key in PEM format (PKCS#1 or PKCS#8)
+ */
+public record GitHubAppCredentials(long appId, String privateKeyPem) {
+
+    @Override
+    public String toString() {
+        return "GitHubAppCredentials[appId=" + appId + ", privateKeyPem=...]";
+    }
+}
@@ -0,0 +1,18 @@
+package io.github.pulpogato.common.client;
+
+import java.time.Instant;
+
+/**
+ * An installation access token for a GitHub App, as returned by
+ * {@code POST /app/installations/{installation_id}/access_tokens}.
+ *
+ * @param token     The token, sent as a Bearer token
+ * @param expiresAt When GitHub stops accepting the token, an hour after it was created
+ */
+public record InstallationToken(String token, Instant expiresAt) {
+
+    @Override
+    public String toString() {
+        return "InstallationToken[token=..., expiresAt=" + expiresAt + "]";
+    }
+}
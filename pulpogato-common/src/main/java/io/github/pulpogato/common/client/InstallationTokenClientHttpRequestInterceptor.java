@@ -0,0 +1,72 @@
+package io.github.pulpogato.common.client;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import lombok.Builder;
+import org.jspecify.annotations.Nullable;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * A {@link ClientHttpRequestInterceptor} that authenticates requests as a GitHub App installation.
+ *
+ * <p>This interceptor gets installation access tokens from an {@link InstallationTokenManager} and adds
+ * them to every outgoing request as a Bearer token in the Authorization header. The installation is the
+ * configured {@link #installationId}, or if there is none, the app's installation on the repository in
+ * the request's {@code /repos/{owner}/{repo}} path.</p>
+ *
+ * <p>Tokens are cached and refreshed in the background by the manager, so the interceptor only waits
+ * for one the first time a scope is used.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * var installationInterceptor = InstallationTokenClientHttpRequestInterceptor.builder()
+ *     .manager(manager)
+ *     .installationId(12345L)
+ *     .build();
+ *
+ * RestClient restClient = RestClient.builder()
+ *     .baseUrl("https://api.github.com")
+ *     .requestInterceptor(installationInterceptor)
+ *     .build();
+ * }</pre>
+ *
+ * <p>This is the {@link org.springframework.web.client.RestClient} equivalent of
+ * {@link InstallationTokenFilter}.</p>
+ *
+ * @see InstallationTokenManager
+ */
+@Builder
+public class InstallationTokenClientHttpRequestInterceptor implements ClientHttpRequestInterceptor {
+
+    private final InstallationTokenManager manager;
+
+    /**
+     * The installation to authenticate as, or null to find it from each request's repository.
+     */
+    private final @Nullable Long installationId;
+
+    /**
+     * The repository names to limit tokens to, or empty for all the installation can access.
+     */
+    @Builder.Default
+    private final Set<String> repositories = Set.of();
+
+    /**
+     * The permissions to limit tokens to, or empty for all the installation has.
+     */
+    @Builder.Default
+    private final Map<String, String> permissions = Map.of();
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        var token = InstallationTokenManager.join(
+                manager.getTokenAsync(request.getURI(), installationId, repositories, permissions));
+        request.getHeaders().set("Authorization", "Bearer " + token);
+        return execution.execute(request, body);
+    }
+}
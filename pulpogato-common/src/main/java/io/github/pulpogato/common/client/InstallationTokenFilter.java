@@ -0,0 +1,68 @@
+package io.github.pulpogato.common.client;
+
+import java.util.Map;
+import java.util.Set;
+import lombok.Builder;
+import org.jspecify.annotations.Nullable;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+/**
+ * An {@link ExchangeFilterFunction} that authenticates requests as a GitHub App installation.
+ *
+ * <p>This filter gets installation access tokens from an {@link InstallationTokenManager} and adds them
+ * to every outgoing request as a Bearer token in the Authorization header. The installation is the
+ * configured {@link #installationId}, or if there is none, the app's installation on the repository in
+ * the request's {@code /repos/{owner}/{repo}} path.</p>
+ *
+ * <p>Tokens are cached and refreshed in the background by the manager, so the filter only waits for
+ * one the first time a scope is used.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * var installationFilter = InstallationTokenFilter.builder()
+ *     .manager(manager)
+ *     .permissions(Map.of("contents", "read"))
+ *     .build();
+ *
+ * WebClient webClient = WebClient.builder()
+ *     .baseUrl("https://api.github.com")
+ *     .filter(installationFilter)
+ *     .build();
+ * }</pre>
+ *
+ * @see InstallationTokenManager
+ */
+@Builder
+public class InstallationTokenFilter implements ExchangeFilterFunction {
+
+    private final InstallationTokenManager manager;
+
+    /**
+     * The installation to authenticate as, or null to find it from each request's repository.
+     */
+    private final @Nullable Long installationId;
+
+    /**
+     * The repository names to limit tokens to, or empty for all the installation can access.
+     */
+    @Builder.Default
+    private final Set<String> repositories = Set.of();
+
+    /**
+     * The permissions to limit tokens to, or empty for all the installation has.
+     */
+    @Builder.Default
+    private final Map<String, String> permissions = Map.of();
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return Mono.fromFuture(() -> manager.getTokenAsync(request.url(), installationId, repositories, permissions))
+                .flatMap(token -> next.exchange(ClientRequest.from(request)
+                        .header("Authorization", "Bearer " + token)
+                        .build()));
+    }
+}
@@ -0,0 +1,283 @@
+package io.github.pulpogato.common.client;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.jspecify.annotations.Nullable;
+import org.springframework.web.client.RestClientResponseException;
+
+/**
+ * Mints and caches installation access tokens for a GitHub App, shared by {@link InstallationTokenFilter}
+ * and {@link InstallationTokenClientHttpRequestInterceptor}.
+ *
+ * <p>Tokens are cached per {@link InstallationTokenScope}. A token is refreshed in the background
+ * {@link #refreshBefore} ahead of its expiry, so once a scope has its first token, requests are never
+ * held up minting another. However many requests ask for a scope at once, only one mint is in flight
+ * for it. A scope that hasn't been asked for in {@link #idleTimeout} is not refreshed again, and is
+ * dropped from the cache.
+ *
+ * <p>Installation ids looked up by repository are cached until minting a token for that installation
+ * fails with a 404 or 401, as it does once the app has been uninstalled, so the next request looks the
+ * repository up again. A scope whose first mint fails is not kept either.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * var manager = InstallationTokenManager.builder()
+ *     .source(InstallationTokenSource.of(appClient))
+ *     .build();
+ *
+ * WebClient webClient = WebClient.builder()
+ *     .baseUrl("https://api.github.com")
+ *     .filter(InstallationTokenFilter.builder().manager(manager).build())
+ *     .build();
+ * }</pre>
+ *
+ * @see <a href="https://docs.github.com/en/apps/creating-github-apps/authenticating-with-a-github-app/generating-an-installation-access-token-for-a-github-app">GitHub Installation Access Token Documentation</a>
+ */
+@Slf4j
+@Builder
+public class InstallationTokenManager implements AutoCloseable {
+
+    /**
+     * How long before its expiry a cached token stops being handed out, in case the background
+     * refresh hasn't replaced it.
+     */
+    private static final Duration EXPIRY_MARGIN = Duration.ofMinutes(1);
+
+    private static final Pattern REPOSITORY_PATH = Pattern.compile("/repos/([^/]+)/([^/]+)");
+
+    /**
+     * Where tokens and installation ids come from.
+     */
+    private final InstallationTokenSource source;
+
+    /**
+     * How long before a token expires to replace it. Tokens last an hour.
+     */
+    @Builder.Default
+    private final Duration refreshBefore = Duration.ofMinutes(10);
+
+    /**
+     * How long a scope can go unused before its token is no longer refreshed.
+     */
+    @Builder.Default
+    private final Duration idleTimeout = Duration.ofHours(1);
+
+    /**
+     * Clock instance for time-based operations.
+     */
+    @Builder.Default
+    private final Clock clock = Clock.systemUTC();
+
+    /**
+     * Runs the calls to {@link #source}.
+     */
+    @Builder.Default
+    private final Executor executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Times the background refreshes. It is shut down by {@link #close()}.
+     */
+    @Builder.Default
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("pulpogato-installation-tokens").daemon().factory());
+
+    private final ConcurrentHashMap<InstallationTokenScope, Slot> tokens = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, CompletableFuture<Long>> installations = new ConcurrentHashMap<>();
+
+    /**
+     * Gets a token for a scope, minting one if there is no usable cached token.
+     *
+     * @param scope What the token is for
+     * @return the token
+     */
+    public String getToken(InstallationTokenScope scope) {
+        return join(getTokenAsync(scope));
+    }
+
+    /**
+     * Non-blocking form of {@link #getToken(InstallationTokenScope)}. The future is already complete
+     * whenever a usable token is cached.
+     *
+     * @param scope What the token is for
+     * @return the token, once there is one
+     */
+    public CompletableFuture<String> getTokenAsync(InstallationTokenScope scope) {
+        var slot = tokens.computeIfAbsent(scope, Slot::new);
+        var now = clock.millis();
+        slot.lastUsedMillis = now;
+        var current = slot.current;
+        if (current != null && now < current.expiresAt().minus(EXPIRY_MARGIN).toEpochMilli()) {
+            if (now >= current.expiresAt().minus(refreshBefore).toEpochMilli()) {
+                // The scheduled refresh failed or hasn't run yet
+                slot.refresh();
+            }
+            return CompletableFuture.completedFuture(current.token());
+        }
+        return slot.refresh().thenApply(InstallationToken::token);
+    }
+
+    /**
+     * Finds the app's installation on a repository.
+     *
+     * @param owner The repository owner
+     * @param repo  The repository name
+     * @return the installation's id
+     */
+    public long getInstallationId(String owner, String repo) {
+        return join(getInstallationIdAsync(owner, repo));
+    }
+
+    /**
+     * Non-blocking form of {@link #getInstallationId(String, String)}. The future is already complete
+     * whenever the id is cached.
+     *
+     * @param owner The repository owner
+     * @param repo  The repository name
+     * @return the installation's id, once it is known
+     */
+    public CompletableFuture<Long> getInstallationIdAsync(String owner, String repo) {
+        var key = (owner + "/" + repo).toLowerCase(Locale.ROOT);
+        var lookup = installations.computeIfAbsent(
+                key, k -> CompletableFuture.supplyAsync(() -> source.findInstallationId(owner, repo), executor));
+        // Don't cache failures; the next request tries again
+        lookup.whenComplete((id, e) -> {
+            if (e != null) {
+                installations.remove(key, lookup);
+            }
+        });
+        return lookup;
+    }
+
+    /**
+     * Gets the token for a request: for {@code installationId} if given, or else for the installation
+     * on the repository in the request's {@code /repos/{owner}/{repo}} path.
+     */
+    CompletableFuture<String> getTokenAsync(
+            URI uri, @Nullable Long installationId, Set<String> repositories, Map<String, String> permissions) {
+        if (installationId != null) {
+            return getTokenAsync(new InstallationTokenScope(installationId, repositories, permissions));
+        }
+        var path = REPOSITORY_PATH.matcher(uri.getRawPath());
+        if (!path.find()) {
+            return CompletableFuture.failedFuture(new IllegalStateException(
+                    "No installation id configured, and no repository in request path " + uri.getRawPath()));
+        }
+        return getInstallationIdAsync(path.group(1), path.group(2))
+                .thenCompose(id -> getTokenAsync(new InstallationTokenScope(id, repositories, permissions)));
+    }
+
+    /**
+     * Stops the background refreshes.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Forgets the repositories looked up to an installation that GitHub no longer recognizes.
+     */
+    private void forgetInstallation(long installationId) {
+        installations
+                .values()
+                .removeIf(lookup -> lookup.state() == Future.State.SUCCESS && lookup.resultNow() == installationId);
+    }
+
+    private static boolean isUnknownInstallation(Throwable e) {
+        var cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return cause instanceof RestClientResponseException response
+                && (response.getStatusCode().value() == 404 || response.getStatusCode().value() == 401);
+    }
+
+    static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * The cached token for one scope, and the mint in flight for it, if any.
+     */
+    private final class Slot {
+        private final InstallationTokenScope scope;
+        private volatile @Nullable InstallationToken current;
+        private volatile long lastUsedMillis;
+        private @Nullable CompletableFuture<InstallationToken> refreshing;
+
+        Slot(InstallationTokenScope scope) {
+            this.scope = scope;
+        }
+
+        /**
+         * Starts a mint unless one is already in flight.
+         *
+         * @return the mint in flight
+         */
+        synchronized CompletableFuture<InstallationToken> refresh() {
+            var inFlight = refreshing;
+            if (inFlight != null && !inFlight.isDone()) {
+                return inFlight;
+            }
+            var mint = CompletableFuture.supplyAsync(() -> source.createToken(scope), executor);
+            refreshing = mint;
+            mint.whenComplete((token, e) -> {
+                if (token != null) {
+                    current = token;
+                    schedule(token);
+                } else {
+                    log.warn("Failed to mint installation token for installation {}", scope.installationId(), e);
+                    if (current == null) {
+                        // Nothing to serve until a mint works; don't hold the scope forever
+                        tokens.remove(scope, this);
+                    }
+                    if (isUnknownInstallation(e)) {
+                        forgetInstallation(scope.installationId());
+                    }
+                }
+            });
+            return mint;
+        }
+
+        private void schedule(InstallationToken token) {
+            var delay = token.expiresAt().minus(refreshBefore).toEpochMilli() - clock.millis();
+            try {
+                scheduler.schedule(() -> refreshIfUsed(token), Math.max(0, delay), TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                log.debug("Not scheduling a refresh for installation {}: closed", scope.installationId());
+            }
+        }
+
+        private void refreshIfUsed(InstallationToken token) {
+            if (current != token) {
+                return;
+            }
+            if (clock.millis() - lastUsedMillis > idleTimeout.toMillis()) {
+                tokens.remove(scope, this);
+                return;
+            }
+            refresh();
+        }
+    }
+}
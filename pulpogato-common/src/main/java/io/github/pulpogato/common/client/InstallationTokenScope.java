@@ -0,0 +1,36 @@
+package io.github.pulpogato.common.client;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * What an installation access token is for: the installation, and optionally the repositories and
+ * permissions it is narrowed down to. Tokens are cached per scope, so two scopes that differ only in
+ * their permissions get separate tokens.
+ *
+ * @param installationId The installation's id
+ * @param repositories   The names of the repositories the token is limited to, or empty for all the
+ *                       installation can access
+ * @param permissions    The permissions the token is limited to, such as {@code contents -> read}, or empty
+ *                       for all the installation has
+ */
+public record InstallationTokenScope(long installationId, Set<String> repositories, Map<String, String> permissions) {
+
+    /**
+     * Copies the repositories and permissions, so the scope is safe to use as a cache key.
+     */
+    public InstallationTokenScope {
+        repositories = Set.copyOf(repositories);
+        permissions = Map.copyOf(permissions);
+    }
+
+    /**
+     * A scope covering everything the installation can access.
+     *
+     * @param installationId The installation's id
+     * @return the scope
+     */
+    public static InstallationTokenScope of(long installationId) {
+        return new InstallationTokenScope(installationId, Set.of(), Map.of());
+    }
+}
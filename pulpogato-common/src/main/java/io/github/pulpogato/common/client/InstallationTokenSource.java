@@ -0,0 +1,47 @@
+package io.github.pulpogato.common.client;
+
+import org.springframework.web.client.RestClient;
+
+/**
+ * The GitHub calls behind {@link InstallationTokenManager}. Both are authenticated as the app itself, with
+ * a JWT.
+ */
+public interface InstallationTokenSource {
+
+    /**
+     * Creates an installation access token.
+     *
+     * @param scope What the token is for
+     * @return the new token
+     */
+    InstallationToken createToken(InstallationTokenScope scope);
+
+    /**
+     * Finds the installation of the app on a repository.
+     *
+     * @param owner The repository owner
+     * @param repo  The repository name
+     * @return the installation's id
+     */
+    long findInstallationId(String owner, String repo);
+
+    /**
+     * A source that calls GitHub through a {@link RestClient}, which must already have the API base URL
+     * and a {@link JwtClientHttpRequestInterceptor}.
+     *
+     * <p>Example usage:</p>
+     * <pre>{@code
+     * var appClient = RestClient.builder()
+     *     .baseUrl("https://api.github.com")
+     *     .requestInterceptor(JwtClientHttpRequestInterceptor.builder().jwtFactory(jwtFactory).build())
+     *     .build();
+     * var source = InstallationTokenSource.of(appClient);
+     * }</pre>
+     *
+     * @param appClient The client to call GitHub with
+     * @return the source
+     */
+    static InstallationTokenSource of(RestClient appClient) {
+        return new RestClientInstallationTokenSource(appClient);
+    }
+}
@@ -0,0 +1,181 @@
+package io.github.pulpogato.common.client;
+
+import java.time.Clock;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Credentials for many GitHub Apps, keyed by tenant, so that one {@code WebClient} or {@code RestClient}
+ * can act as whichever app each request belongs to. Used by {@link TenantJwtFilter} and
+ * {@link TenantJwtClientHttpRequestInterceptor}, which read the tenant from the request attribute
+ * {@link #TENANT_ATTRIBUTE}.
+ *
+ * <p>A tenant's credentials are loaded, and its private key parsed, the first time it is used. Each
+ * tenant then has its own JWT cache, with the same lifetime and background signing as {@link JwtFilter}.
+ * At most {@link #maximumTenants} are held at once; past that, the least recently used tenant is dropped,
+ * and is loaded again if it comes back. A tenant is only held once it has loaded, so requests for unknown
+ * tenants can't push out known ones.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * var registry = JwtCredentialRegistry.builder()
+ *     .credentialsLoader(tenant -> vault.gitHubAppFor(tenant))
+ *     .build();
+ *
+ * WebClient webClient = WebClient.builder()
+ *     .filter(TenantJwtFilter.builder().registry(registry).build())
+ *     .build();
+ *
+ * webClient.get()
+ *     .uri("https://ghes.example.com/api/v3/app")
+ *     .attribute(JwtCredentialRegistry.TENANT_ATTRIBUTE, "example")
+ *     .retrieve();
+ * }</pre>
+ */
+@Builder
+public class JwtCredentialRegistry {
+
+    /**
+     * The request attribute naming the tenant a request belongs to.
+     */
+    public static final String TENANT_ATTRIBUTE = JwtCredentialRegistry.class.getName() + ".tenant";
+
+    /**
+     * Looks up a tenant's app credentials, returning null for an unknown tenant.
+     */
+    private final Function<String, @Nullable GitHubAppCredentials> credentialsLoader;
+
+    /**
+     * Maximum number of tenants held at once.
+     */
+    @Builder.Default
+    private final int maximumTenants = 1_000;
+
+    /**
+     * Clock instance for time-based operations.
+     */
+    @Builder.Default
+    private final Clock clock = Clock.systemUTC();
+
+    @Getter(value = AccessLevel.PRIVATE, lazy = true)
+    private final Tenants tenants = new Tenants(maximumTenants);
+
+    /**
+     * Tenants whose credentials are being loaded, not yet held.
+     */
+    private final ConcurrentHashMap<String, Tenant> loading = new ConcurrentHashMap<>();
+
+    /**
+     * Gets a JWT for a tenant's app, loading the tenant if it isn't held.
+     *
+     * @param tenant The tenant
+     * @return the JWT
+     * @throws IllegalArgumentException if the tenant is unknown or its private key can't be parsed
+     */
+    public String getOrGenerateJwt(String tenant) {
+        var tokenCache = getTenants().get(tenant);
+        if (tokenCache == null) {
+            tokenCache = load(tenant);
+        }
+        return tokenCache.getOrGenerateJwt();
+    }
+
+    /**
+     * Whether a tenant is held, so that getting its JWT won't load its credentials or parse its key.
+     */
+    boolean isLoaded(String tenant) {
+        return getTenants().get(tenant) != null;
+    }
+
+    /**
+     * Drops a tenant, for example after its credentials have been rotated. Its credentials are loaded
+     * again the next time it is used.
+     *
+     * @param tenant The tenant
+     */
+    public void evict(String tenant) {
+        loading.remove(tenant);
+        getTenants().remove(tenant);
+    }
+
+    /**
+     * Loads a tenant and holds it. Concurrent first requests for a tenant share one load, and a load that
+     * fails leaves nothing behind.
+     */
+    private JwtTokenCache load(String name) {
+        var tenant = loading.computeIfAbsent(name, Tenant::new);
+        try {
+            var tokenCache = tenant.tokenCache();
+            getTenants().put(name, tokenCache);
+            return tokenCache;
+        } finally {
+            loading.remove(name, tenant);
+        }
+    }
+
+    /**
+     * A tenant being loaded. Its token cache is created outside the registry's lock, so parsing one
+     * tenant's key doesn't hold up requests for the others.
+     */
+    private final class Tenant {
+        private final String name;
+        private volatile @Nullable JwtTokenCache tokenCache;
+
+        Tenant(String name) {
+            this.name = name;
+        }
+
+        JwtTokenCache tokenCache() {
+            var cache = tokenCache;
+            if (cache != null) {
+                return cache;
+            }
+            synchronized (this) {
+                cache = tokenCache;
+                if (cache == null) {
+                    var credentials = credentialsLoader.apply(name);
+                    if (credentials == null) {
+                        throw new IllegalArgumentException("Unknown tenant: " + name);
+                    }
+                    cache = new JwtTokenCache(new JwtFactory(credentials.privateKeyPem(), credentials.appId()), clock);
+                    tokenCache = cache;
+                }
+                return cache;
+            }
+        }
+    }
+
+    /**
+     * The held tenants' token caches: an access-ordered map trimmed from its least recently used end.
+     */
+    private static final class Tenants {
+        private final LinkedHashMap<String, JwtTokenCache> entries;
+
+        Tenants(int maximumTenants) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, JwtTokenCache> eldest) {
+                    return size() > maximumTenants;
+                }
+            };
+        }
+
+        synchronized @Nullable JwtTokenCache get(String name) {
+            return entries.get(name);
+        }
+
+        synchronized void put(String name, JwtTokenCache tokenCache) {
+            entries.put(name, tokenCache);
+        }
+
+        synchronized void remove(String name) {
+            entries.remove(name);
+        }
+    }
+}
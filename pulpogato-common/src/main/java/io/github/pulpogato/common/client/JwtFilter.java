@@ -16,7 +16,8 @@ import reactor.core.publisher.Mono;
  * outgoing request as a Bearer token in the Authorization header.</p>
  *
  * <p>The generated JWT is cached and reused until it's within 30 seconds of expiry,
- * at which point a new token is generated. Tokens are valid for approximately 9 minutes.</p>
+ * at which point a new token is used. Tokens are valid for approximately 9 minutes, and the
+ * next one is signed in the background beforehand, so requests don't wait on signing.</p>
  *
  * <p>Example usage:</p>
  * <pre>{@code
@@ -1,18 +1,31 @@
 package io.github.pulpogato.common.client;
 
+import java.lang.ref.WeakReference;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
-import java.util.Objects;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import lombok.extern.slf4j.Slf4j;
 import org.jspecify.annotations.Nullable;
 
 /**
  * Framework-agnostic JWT caching shared by {@link JwtFilter} and
  * {@link JwtClientHttpRequestInterceptor}: generates a JSON Web Token via a {@link JwtFactory} and
- * reuses it until it's within {@link #REFRESH_BUFFER} of expiry, at which point a new token is
- * generated. Tokens are valid for approximately 9 minutes.
+ * reuses it until it's within {@link #REFRESH_BUFFER} of expiry. Tokens are valid for approximately
+ * 9 minutes.
+ *
+ * <p>The next token is signed on a background scheduler {@link #PRESIGN_LEAD} before the current one
+ * enters its refresh buffer, so request threads only read an immutable holder and never pay for RSA
+ * signing. A token is only pre-signed if the current one has been used, so an idle cache stops
+ * scheduling work; its next caller signs one in line, as does the first. Callers arriving while that
+ * happens wait for the same signature rather than each signing their own.
  */
 @Slf4j
 class JwtTokenCache {
@@ -20,53 +33,143 @@ class JwtTokenCache {
     private static final Duration CLOCK_DRIFT = Duration.ofSeconds(60);
     private static final Duration REFRESH_BUFFER = Duration.ofSeconds(30);
     private static final Duration TOKEN_VALIDITY = Duration.ofSeconds(540);
+    private static final Duration PRESIGN_LEAD = Duration.ofSeconds(60);
+
+    /**
+     * Shared by every cache; signing takes about a millisecond, so one thread serves many app identities.
+     */
+    private static final ScheduledExecutorService PRESIGNER = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("pulpogato-jwt-presigner").daemon().factory());
+
+    private record Token(String jwt, Instant expiresAt) {}
 
     private final JwtFactory jwtFactory;
     private final Clock clock;
+    private final ScheduledExecutorService presigner;
 
-    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicReference<@Nullable Token> current = new AtomicReference<>();
 
-    @Nullable
-    private volatile String cachedToken;
+    private final AtomicReference<@Nullable CompletableFuture<Token>> signing = new AtomicReference<>();
 
-    @Nullable
-    private volatile Instant tokenExpiresAt;
+    /**
+     * Whether the current token has been handed out since it was signed.
+     */
+    private final AtomicBoolean used = new AtomicBoolean();
 
     JwtTokenCache(JwtFactory jwtFactory, Clock clock) {
+        this(jwtFactory, clock, PRESIGNER);
+    }
+
+    JwtTokenCache(JwtFactory jwtFactory, Clock clock, ScheduledExecutorService presigner) {
         this.jwtFactory = jwtFactory;
         this.clock = clock;
+        this.presigner = presigner;
     }
 
     String getOrGenerateJwt() {
-        var checkTime = clock.instant();
-        if (isCachedTokenValid(checkTime)) {
-            return Objects.requireNonNull(cachedToken);
+        var token = current.get();
+        if (token != null && isValid(token, clock.instant())) {
+            // Read first, so steady-state callers don't all write the same cache line
+            if (!used.get()) {
+                used.set(true);
+            }
+            return token.jwt();
         }
+        var signed = signInLine();
+        used.set(true);
+        return signed.jwt();
+    }
 
-        lock.lock();
+    /**
+     * Signs a token on the calling thread, unless another caller already is, in which case its
+     * token is used.
+     */
+    private Token signInLine() {
+        var pending = new CompletableFuture<Token>();
+        var inFlight = signing.compareAndExchange(null, pending);
+        if (inFlight != null) {
+            try {
+                return inFlight.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
         try {
-            // Double-check after acquiring lock
-            var generateTime = clock.instant();
-            if (isCachedTokenValid(generateTime)) {
-                return Objects.requireNonNull(cachedToken);
+            var token = current.get();
+            if (token == null || !isValid(token, clock.instant())) {
+                token = sign();
             }
-
-            tokenExpiresAt = generateTime.plus(TOKEN_VALIDITY);
-            cachedToken = jwtFactory.create(generateTime.minus(CLOCK_DRIFT), Objects.requireNonNull(tokenExpiresAt));
-            String validToken = Objects.requireNonNull(cachedToken);
-            String maskedToken = validToken.substring(Math.max(0, validToken.length() - 8));
-            log.debug("Generated new JWT token that expires at {}: '...{}'", tokenExpiresAt, maskedToken);
-            return validToken;
+            pending.complete(token);
+            return token;
+        } catch (RuntimeException e) {
+            pending.completeExceptionally(e);
+            throw e;
         } finally {
-            lock.unlock();
+            signing.set(null);
+        }
+    }
+
+    private Token sign() {
+        var issuedAt = clock.instant();
+        var expiresAt = issuedAt.plus(TOKEN_VALIDITY);
+        var token = new Token(jwtFactory.create(issuedAt.minus(CLOCK_DRIFT), expiresAt), expiresAt);
+        install(token);
+        String maskedToken = token.jwt().substring(Math.max(0, token.jwt().length() - 8));
+        log.debug("Generated new JWT token that expires at {}: '...{}'", token.expiresAt(), maskedToken);
+        return token;
+    }
+
+    /**
+     * Makes a token current unless a later-expiring one already is, and schedules its successor.
+     */
+    private void install(Token token) {
+        var installed = current.accumulateAndGet(token, (existing, candidate) -> isLater(existing, candidate)
+                ? existing
+                : candidate);
+        if (installed == token) {
+            used.set(false);
+            schedulePresign(token);
+        }
+    }
+
+    private void schedulePresign(Token token) {
+        var presignAt = token.expiresAt().minus(REFRESH_BUFFER).minus(PRESIGN_LEAD);
+        var delay = Math.max(0, presignAt.toEpochMilli() - clock.millis());
+        var self = new WeakReference<>(this);
+        try {
+            presigner.schedule(
+                    () -> {
+                        var cache = self.get();
+                        if (cache != null) {
+                            cache.presign(token);
+                        }
+                    },
+                    delay,
+                    TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.debug("Not pre-signing the next JWT token: scheduler is shut down");
         }
     }
 
-    private boolean isCachedTokenValid(Instant checkTime) {
-        if (cachedToken == null || tokenExpiresAt == null) {
-            return false;
+    private void presign(Token previous) {
+        if (current.get() != previous || !used.get()) {
+            return;
         }
-        var expiry = Objects.requireNonNull(tokenExpiresAt);
-        return checkTime.isBefore(expiry.minus(REFRESH_BUFFER));
+        try {
+            sign();
+        } catch (RuntimeException e) {
+            log.warn("Failed to pre-sign JWT token; the next request will sign one", e);
+        }
+    }
+
+    private static boolean isLater(@Nullable Token token, Token other) {
+        return token != null && token.expiresAt().isAfter(other.expiresAt());
+    }
+
+    private static boolean isValid(Token token, Instant checkTime) {
+        return checkTime.isBefore(token.expiresAt().minus(REFRESH_BUFFER));
     }
 }
@@ -0,0 +1,241 @@
+package io.github.pulpogato.common.client;
+
+import io.github.pulpogato.common.jackson.NullableFunction;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.Builder;
+import org.springframework.http.HttpMethod;
+
+/**
+ * Limits how many mutating requests each identity has in flight, and spaces them out, to stay clear of
+ * GitHub's secondary rate limits on content creation. Shared by {@link MutationLimiterFilter} and
+ * {@link MutationLimiterClientHttpRequestInterceptor}.
+ *
+ * <p>{@code POST}, {@code PATCH}, {@code PUT} and {@code DELETE} requests are limited; others pass
+ * straight through. Each identity, told apart as {@link RateLimitGovernor} does, by the request attribute
+ * {@link RateLimitGovernor#IDENTITY_ATTRIBUTE} or else the {@code Authorization} header, may have
+ * {@link #maxConcurrent} of them in flight, and starts them at least an interval apart. The interval
+ * starts at {@link #minInterval}, doubles, up to {@link #maxInterval}, on every secondary rate limit
+ * response, and shrinks by {@link #decreaseStep} on every other response, so throughput settles just
+ * below what GitHub allows.
+ *
+ * <p>Waiting requests queue in order, without holding a thread.
+ *
+ * @see <a href="https://docs.github.com/en/rest/using-the-rest-api/best-practices-for-using-the-rest-api#avoid-concurrent-requests">GitHub REST API Best Practices</a>
+ */
+@Builder
+public class MutationLimiter {
+
+    private static final Set<HttpMethod> MUTATING_METHODS =
+            Set.of(HttpMethod.POST, HttpMethod.PATCH, HttpMethod.PUT, HttpMethod.DELETE);
+
+    /**
+     * The shortest interval after a secondary rate limit, however small {@link #minInterval} is.
+     */
+    private static final long MIN_BACKOFF_MILLIS = 1_000;
+
+    /**
+     * How many identities to hold before dropping idle ones.
+     */
+    private static final int SWEEP_THRESHOLD = 1_000;
+
+    /**
+     * The most mutating requests in flight per identity. GitHub asks for one.
+     */
+    @Builder.Default
+    private final int maxConcurrent = 1;
+
+    /**
+     * The shortest interval between the starts of an identity's mutating requests.
+     */
+    @Builder.Default
+    private final Duration minInterval = Duration.ofSeconds(1);
+
+    /**
+     * The longest interval between the starts of an identity's mutating requests.
+     */
+    @Builder.Default
+    private final Duration maxInterval = Duration.ofMinutes(1);
+
+    /**
+     * How much the interval shrinks after each response that wasn't rate limited.
+     */
+    @Builder.Default
+    private final Duration decreaseStep = Duration.ofMillis(100);
+
+    /**
+     * Clock instance for time-based operations.
+     */
+    @Builder.Default
+    private final Clock clock = Clock.systemUTC();
+
+    private final ConcurrentHashMap<String, Lane> lanes = new ConcurrentHashMap<>();
+
+    /**
+     * Whether requests with a method are limited.
+     *
+     * @param method The request method
+     * @return true for mutating methods
+     */
+    static boolean limits(HttpMethod method) {
+        return MUTATING_METHODS.contains(method);
+    }
+
+    /**
+     * Whether a response means a secondary rate limit was hit.
+     *
+     * @param status       The response status
+     * @param headerLookup Reads a response header
+     * @return true for a 429, or a 403 with {@code Retry-After}
+     */
+    static boolean isSecondaryLimit(int status, NullableFunction<String, String> headerLookup) {
+        return status == 429 || (status == 403 && headerLookup.apply("Retry-After") != null);
+    }
+
+    /**
+     * Queues for a permit to send one of an identity's mutating requests.
+     *
+     * @param identity The identity, from {@link RateLimitGovernor#identityOf(java.util.Map, String)}
+     * @return the permit, once it's the request's turn. Cancelling the future gives up its place.
+     */
+    CompletableFuture<Permit> acquire(String identity) {
+        var waiter = new CompletableFuture<Permit>();
+        while (true) {
+            var lane = lanes.get(identity);
+            if (lane == null) {
+                sweep();
+                lane = lanes.computeIfAbsent(identity, k -> new Lane());
+            }
+            Permit granted;
+            synchronized (lane) {
+                if (lane.retired) {
+                    continue;
+                }
+                if (lane.inFlight >= maxConcurrent) {
+                    lane.waiting.add(waiter);
+                    return waiter;
+                }
+                granted = lane.grant(clock.millis());
+            }
+            waiter.complete(granted);
+            return waiter;
+        }
+    }
+
+    /**
+     * Gives up a queued permit, closing it if it was already granted.
+     *
+     * @param pending The future from {@link #acquire(String)}
+     */
+    static void abandon(CompletableFuture<Permit> pending) {
+        pending.cancel(false);
+        pending.thenAccept(Permit::close);
+    }
+
+    private void sweep() {
+        if (lanes.size() >= SWEEP_THRESHOLD) {
+            var now = clock.millis();
+            lanes.values().removeIf(lane -> lane.retireIfIdle(now));
+        }
+    }
+
+    /**
+     * One identity's queue.
+     */
+    private final class Lane {
+        private final ArrayDeque<CompletableFuture<Permit>> waiting = new ArrayDeque<>();
+        private int inFlight;
+        private long intervalMillis = minInterval.toMillis();
+        private long nextSlotMillis;
+        private boolean retired;
+
+        /**
+         * Takes a place in flight, and the next start time. Must hold the lane's lock.
+         */
+        private Permit grant(long now) {
+            inFlight++;
+            var slot = Math.max(now, nextSlotMillis);
+            nextSlotMillis = slot + intervalMillis;
+            return new Permit(this, slot - now);
+        }
+
+        private void release() {
+            while (true) {
+                CompletableFuture<Permit> next;
+                Permit granted;
+                synchronized (this) {
+                    inFlight--;
+                    next = waiting.poll();
+                    if (next == null) {
+                        return;
+                    }
+                    granted = grant(clock.millis());
+                }
+                if (next.complete(granted)) {
+                    return;
+                }
+                // The waiter gave up; release its place again for the one behind it
+                granted.closed.set(true);
+            }
+        }
+
+        private synchronized void record(boolean limited) {
+            if (limited) {
+                intervalMillis = Math.min(maxInterval.toMillis(), Math.max(intervalMillis * 2, MIN_BACKOFF_MILLIS));
+                nextSlotMillis = Math.max(nextSlotMillis, clock.millis() + intervalMillis);
+            } else {
+                intervalMillis = Math.max(minInterval.toMillis(), intervalMillis - decreaseStep.toMillis());
+            }
+        }
+
+        private synchronized boolean retireIfIdle(long now) {
+            retired = inFlight == 0 && waiting.isEmpty() && nextSlotMillis <= now - maxInterval.toMillis();
+            return retired;
+        }
+    }
+
+    /**
+     * A place in flight for one mutating request. Closing it more than once has no further effect.
+     */
+    static final class Permit implements AutoCloseable {
+        private final Lane lane;
+        private final long delayMillis;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Permit(Lane lane, long delayMillis) {
+            this.lane = lane;
+            this.delayMillis = delayMillis;
+        }
+
+        /**
+         * How long to wait before sending the request, to keep it an interval after the last one.
+         *
+         * @return the wait in milliseconds
+         */
+        long delayMillis() {
+            return delayMillis;
+        }
+
+        /**
+         * Adjusts the identity's interval from the request's response.
+         *
+         * @param status       The response status
+         * @param headerLookup Reads a response header
+         */
+        void record(int status, NullableFunction<String, String> headerLookup) {
+            lane.record(isSecondaryLimit(status, headerLookup));
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                lane.release();
+            }
+        }
+    }
+}
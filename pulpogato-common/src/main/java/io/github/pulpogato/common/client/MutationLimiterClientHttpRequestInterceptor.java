@@ -0,0 +1,64 @@
+package io.github.pulpogato.common.client;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import lombok.Builder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * A {@link ClientHttpRequestInterceptor} that queues and spaces out mutating requests using a
+ * {@link MutationLimiter}. Other requests pass straight through.
+ *
+ * <p>Queued requests wait on the calling thread, which on a virtual thread parks it without holding a
+ * carrier thread. The interceptor must be added after the interceptor that authenticates requests, so
+ * that it can tell identities apart.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * RestClient restClient = RestClient.builder()
+ *     .baseUrl("https://api.github.com")
+ *     .requestInterceptor(jwtInterceptor)
+ *     .requestInterceptor(MutationLimiterClientHttpRequestInterceptor.builder().limiter(limiter).build())
+ *     .build();
+ * }</pre>
+ *
+ * <p>This is the {@link org.springframework.web.client.RestClient} equivalent of {@link MutationLimiterFilter}.</p>
+ *
+ * @see MutationLimiter
+ */
+@Builder
+public class MutationLimiterClientHttpRequestInterceptor implements ClientHttpRequestInterceptor {
+
+    private final MutationLimiter limiter;
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        if (!MutationLimiter.limits(request.getMethod())) {
+            return execution.execute(request, body);
+        }
+        var identity = RateLimitGovernor.identityOf(
+                request.getAttributes(), request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+        var pending = limiter.acquire(identity);
+        try (var permit = pending.get()) {
+            if (permit.delayMillis() > 0) {
+                Thread.sleep(Duration.ofMillis(permit.delayMillis()));
+            }
+            var response = execution.execute(request, body);
+            permit.record(response.getStatusCode().value(), response.getHeaders()::getFirst);
+            return response;
+        } catch (InterruptedException e) {
+            MutationLimiter.abandon(pending);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to send a mutating request");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to queue a mutating request", e.getCause());
+        }
+    }
+}
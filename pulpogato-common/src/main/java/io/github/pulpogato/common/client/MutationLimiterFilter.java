@@ -0,0 +1,59 @@
+package io.github.pulpogato.common.client;
+
+import java.time.Duration;
+import lombok.Builder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+/**
+ * An {@link ExchangeFilterFunction} that queues and spaces out mutating requests using a
+ * {@link MutationLimiter}. Other requests pass straight through.
+ *
+ * <p>Queued requests wait on their permit and on a Reactor timer, so no thread is held while they do.
+ * The filter must be added after the filter that authenticates requests, so that it can tell identities
+ * apart.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * WebClient webClient = WebClient.builder()
+ *     .baseUrl("https://api.github.com")
+ *     .filter(jwtFilter)
+ *     .filter(MutationLimiterFilter.builder().limiter(limiter).build())
+ *     .build();
+ * }</pre>
+ *
+ * @see MutationLimiter
+ */
+@Builder
+public class MutationLimiterFilter implements ExchangeFilterFunction {
+
+    private final MutationLimiter limiter;
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        if (!MutationLimiter.limits(request.method())) {
+            return next.exchange(request);
+        }
+        var identity = RateLimitGovernor.identityOf(
+                request.attributes(), request.headers().getFirst(HttpHeaders.AUTHORIZATION));
+        return Mono.usingWhen(
+                Mono.defer(() -> {
+                    var pending = limiter.acquire(identity);
+                    return Mono.fromFuture(pending).doOnCancel(() -> MutationLimiter.abandon(pending));
+                }),
+                permit -> {
+                    var exchange = Mono.defer(() -> next.exchange(request))
+                            .doOnNext(response -> permit.record(
+                                    response.statusCode().value(),
+                                    name -> response.headers().asHttpHeaders().getFirst(name)));
+                    return permit.delayMillis() == 0
+                            ? exchange
+                            : Mono.delay(Duration.ofMillis(permit.delayMillis())).then(exchange);
+                },
+                permit -> Mono.fromRunnable(permit::close));
+    }
+}
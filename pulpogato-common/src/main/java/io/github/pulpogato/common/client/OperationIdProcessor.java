@@ -0,0 +1,35 @@
+package io.github.pulpogato.common.client;
+
+import io.github.pulpogato.common.annotations.OperationId;
+import java.lang.reflect.Method;
+import org.jspecify.annotations.Nullable;
+import org.springframework.core.MethodParameter;
+import org.springframework.web.service.invoker.HttpRequestValues;
+
+/**
+ * An {@link HttpRequestValues.Processor} that copies the {@link OperationId} of the API method being
+ * called into the request attribute {@link #OPERATION_ID_ATTRIBUTE}. The generated {@code RestClients}
+ * register it, so every request they make carries its operation id.
+ *
+ * @see OperationMetricsExchangeFunction
+ * @see OperationMetricsClientHttpRequestInterceptor
+ */
+public class OperationIdProcessor implements HttpRequestValues.Processor {
+
+    /**
+     * The request attribute holding the OpenAPI operation id, such as {@code repos/list-for-org}.
+     */
+    public static final String OPERATION_ID_ATTRIBUTE = OperationIdProcessor.class.getName() + ".operationId";
+
+    @Override
+    public void process(
+            Method method,
+            MethodParameter[] parameters,
+            @Nullable Object[] arguments,
+            HttpRequestValues.Builder builder) {
+        var operationId = method.getAnnotation(OperationId.class);
+        if (operationId != null) {
+            builder.addAttribute(OPERATION_ID_ATTRIBUTE, operationId.value());
+        }
+    }
+}
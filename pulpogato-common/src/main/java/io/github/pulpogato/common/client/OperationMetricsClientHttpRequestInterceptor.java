@@ -0,0 +1,79 @@
+package io.github.pulpogato.common.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import java.io.IOException;
+import java.util.List;
+import lombok.Builder;
+import lombok.Getter;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * A {@link ClientHttpRequestInterceptor} that records latency and response size for each GitHub API
+ * operation to a {@link MeterRegistry}.
+ *
+ * <h2>Functionality</h2>
+ * Each request is tagged with its OpenAPI operation id, such as {@code repos/list-for-org}, which
+ * {@link OperationIdProcessor} puts in the request's attributes for requests made through the generated
+ * {@code RestClients}. Other requests are tagged {@code unknown}. The following meters are recorded:
+ * <ul>
+ *   <li> {@code github.api.requests}: A timer of the time until the response's headers arrive.
+ *   <li> {@code github.api.responseSize}: A distribution summary of the response's {@code Content-Length},
+ *        for responses that declare one.
+ * </ul>
+ * Both are also tagged with the request {@code method} and the response {@code status} class, such as
+ * {@code 2xx}, or {@code ERROR} for requests that failed without a response.
+ *
+ * <p>This is the {@link org.springframework.web.client.RestClient} equivalent of
+ * {@link OperationMetricsExchangeFunction}.</p>
+ */
+@Builder
+public class OperationMetricsClientHttpRequestInterceptor implements ClientHttpRequestInterceptor {
+
+    private final MeterRegistry registry;
+
+    @Builder.Default
+    private final String prefix = "github.api";
+
+    @Builder.Default
+    private final List<Tag> defaultTags = List.of();
+
+    @Builder.Default
+    private final double[] percentiles = new double[] {0.5, 0.95, 0.99};
+
+    @Getter(lazy = true)
+    private final OperationMetricsRecorder recorder =
+            new OperationMetricsRecorder(registry, prefix, defaultTags, percentiles);
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        var start = System.nanoTime();
+        var operationId = request.getAttributes().get(OperationIdProcessor.OPERATION_ID_ATTRIBUTE);
+        var method = request.getMethod().name();
+        ClientHttpResponse response;
+        try {
+            response = execution.execute(request, body);
+        } catch (IOException | RuntimeException e) {
+            getRecorder()
+                    .record(
+                            operationId,
+                            method,
+                            OperationMetricsRecorder.STATUS_CLASS_ERROR,
+                            System.nanoTime() - start,
+                            -1);
+            throw e;
+        }
+        getRecorder()
+                .record(
+                        operationId,
+                        method,
+                        OperationMetricsRecorder.statusClass(response.getStatusCode().value()),
+                        System.nanoTime() - start,
+                        response.getHeaders().getContentLength());
+        return response;
+    }
+}
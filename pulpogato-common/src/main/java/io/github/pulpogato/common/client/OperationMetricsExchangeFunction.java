@@ -0,0 +1,80 @@
+package io.github.pulpogato.common.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import java.util.List;
+import lombok.Builder;
+import lombok.Getter;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+/**
+ * An {@link ExchangeFilterFunction} that records latency and response size for each GitHub API
+ * operation to a {@link MeterRegistry}.
+ *
+ * <h2>Functionality</h2>
+ * Each request is tagged with its OpenAPI operation id, such as {@code repos/list-for-org}, which
+ * {@link OperationIdProcessor} puts in the request's attributes for requests made through the generated
+ * {@code RestClients}. Other requests are tagged {@code unknown}. The following meters are recorded:
+ * <ul>
+ *   <li> {@code github.api.requests}: A timer of the time until the response's headers arrive.
+ *   <li> {@code github.api.responseSize}: A distribution summary of the response's {@code Content-Length},
+ *        for responses that declare one.
+ * </ul>
+ * Both are also tagged with the request {@code method} and the response {@code status} class, such as
+ * {@code 2xx}, or {@code ERROR} for requests that failed without a response.
+ */
+@Builder
+public class OperationMetricsExchangeFunction implements ExchangeFilterFunction {
+
+    /**
+     * A registry instance used to record the metrics.
+     */
+    private final MeterRegistry registry;
+    /**
+     * The base prefix used for naming the metrics.
+     */
+    @Builder.Default
+    private final String prefix = "github.api";
+    /**
+     * A list of default tags applied to all metrics recorded by the {@code OperationMetricsExchangeFunction}.
+     */
+    @Builder.Default
+    private final List<Tag> defaultTags = List.of();
+    /**
+     * The percentiles to publish for both meters.
+     */
+    @Builder.Default
+    private final double[] percentiles = new double[] {0.5, 0.95, 0.99};
+
+    @Getter(lazy = true)
+    private final OperationMetricsRecorder recorder =
+            new OperationMetricsRecorder(registry, prefix, defaultTags, percentiles);
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return Mono.defer(() -> {
+            var start = System.nanoTime();
+            var operationId = request.attributes().get(OperationIdProcessor.OPERATION_ID_ATTRIBUTE);
+            var method = request.method().name();
+            return next.exchange(request)
+                    .doOnNext(response -> getRecorder()
+                            .record(
+                                    operationId,
+                                    method,
+                                    OperationMetricsRecorder.statusClass(response.statusCode().value()),
+                                    System.nanoTime() - start,
+                                    response.headers().contentLength().orElse(-1)))
+                    .doOnError(e -> getRecorder()
+                            .record(
+                                    operationId,
+                                    method,
+                                    OperationMetricsRecorder.STATUS_CLASS_ERROR,
+                                    System.nanoTime() - start,
+                                    -1));
+        });
+    }
+}
@@ -0,0 +1,99 @@
+package io.github.pulpogato.common.client;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Framework-agnostic per-operation request metrics shared by {@link OperationMetricsExchangeFunction} and
+ * {@link OperationMetricsClientHttpRequestInterceptor}: records each request's latency, and its response
+ * size when the response declares one, tagged by OpenAPI operation id, method and status class.
+ */
+class OperationMetricsRecorder {
+
+    /**
+     * The status class of requests that failed without a response.
+     */
+    static final String STATUS_CLASS_ERROR = "ERROR";
+
+    private static final String UNKNOWN_OPERATION = "unknown";
+
+    private record Key(String operation, String method, String statusClass) {}
+
+    private record Meters(Timer latency, DistributionSummary responseSize) {}
+
+    private final MeterRegistry registry;
+    private final String prefix;
+    private final List<Tag> defaultTags;
+    private final double[] percentiles;
+
+    private final ConcurrentHashMap<Key, Meters> meters = new ConcurrentHashMap<>();
+
+    OperationMetricsRecorder(MeterRegistry registry, String prefix, List<Tag> defaultTags, double[] percentiles) {
+        this.registry = registry;
+        this.prefix = prefix;
+        this.defaultTags = defaultTags;
+        this.percentiles = percentiles.clone();
+    }
+
+    /**
+     * Records one request.
+     *
+     * @param operationId   The request's operation id, or null if it has none
+     * @param method        The request method
+     * @param statusClass   The response status class, such as {@code 2xx}, or {@link #STATUS_CLASS_ERROR}
+     * @param durationNanos How long the request took
+     * @param responseBytes The response's {@code Content-Length}, or -1 if unknown
+     */
+    void record(
+            @Nullable Object operationId, String method, String statusClass, long durationNanos, long responseBytes) {
+        var key = new Key(operationId != null ? operationId.toString() : UNKNOWN_OPERATION, method, statusClass);
+        var recorded = meters.get(key);
+        if (recorded == null) {
+            recorded = meters.computeIfAbsent(key, this::register);
+        }
+        recorded.latency().record(durationNanos, TimeUnit.NANOSECONDS);
+        if (responseBytes >= 0) {
+            recorded.responseSize().record(responseBytes);
+        }
+    }
+
+    /**
+     * The status class of a status code, such as {@code 2xx}.
+     */
+    static String statusClass(int status) {
+        return switch (status / 100) {
+            case 1 -> "1xx";
+            case 2 -> "2xx";
+            case 3 -> "3xx";
+            case 4 -> "4xx";
+            case 5 -> "5xx";
+            default -> "UNKNOWN";
+        };
+    }
+
+    private Meters register(Key key) {
+        var tags = Tags.of(defaultTags)
+                .and("operation", key.operation())
+                .and("method", key.method())
+                .and("status", key.statusClass());
+        var latency = Timer.builder(prefix + ".requests")
+                .description("Latency of GitHub API requests, per operation")
+                .tags(tags)
+                .publishPercentiles(percentiles)
+                .register(registry);
+        var responseSize = DistributionSummary.builder(prefix + ".responseSize")
+                .description("Declared size of GitHub API responses, per operation")
+                .baseUnit("bytes")
+                .tags(tags)
+                .publishPercentiles(percentiles)
+                .register(registry);
+        return new Meters(latency, responseSize);
+    }
+}
@@ -0,0 +1,241 @@
+package io.github.pulpogato.common.client;
+
+import static io.github.pulpogato.common.client.RateLimitMetricsRecorder.RATE_LIMIT_LIMIT;
+import static io.github.pulpogato.common.client.RateLimitMetricsRecorder.RATE_LIMIT_REMAINING;
+import static io.github.pulpogato.common.client.RateLimitMetricsRecorder.RATE_LIMIT_RESET;
+import static io.github.pulpogato.common.client.RateLimitMetricsRecorder.RATE_LIMIT_RESOURCE;
+import static io.github.pulpogato.common.client.RateLimitMetricsRecorder.parse;
+
+import io.github.pulpogato.common.jackson.NullableFunction;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.Builder;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Keeps track of the GitHub rate limit budget for each identity and resource, and paces requests so
+ * that a budget lasts until it resets, rather than running out and leaving callers idle until then.
+ * Shared by {@link RateLimitGovernorFilter} and {@link RateLimitGovernorClientHttpRequestInterceptor}.
+ *
+ * <p>Budgets are read from the {@code x-ratelimit-limit}, {@code x-ratelimit-remaining},
+ * {@code x-ratelimit-reset} and {@code x-ratelimit-resource} response headers. Until a budget is known,
+ * and while more than {@link #paceBelow} of it remains, requests go out immediately. Past that, requests
+ * are spaced evenly over the time left until the reset. Once a budget is spent, requests wait for the
+ * reset.
+ *
+ * <p>Identities are named by the request attribute {@link #IDENTITY_ATTRIBUTE}, such as a tenant or an
+ * installation id, so that a budget outlives the token it was read with. Requests without it are told
+ * apart by a digest of their {@code Authorization} header, so the filter must run after whichever
+ * filter adds it. Resources are guessed from the request path ({@code core},
+ * {@code search}, {@code code_search} or {@code graphql}) and corrected by {@code x-ratelimit-resource}:
+ * once a response names another resource, later requests with the same guess draw on that one's budget.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * var governor = RateLimitGovernor.builder().build();
+ *
+ * WebClient webClient = WebClient.builder()
+ *     .baseUrl("https://api.github.com")
+ *     .filter(jwtFilter)
+ *     .filter(RateLimitGovernorFilter.builder().governor(governor).build())
+ *     .build();
+ * }</pre>
+ *
+ * @see <a href="https://docs.github.com/en/rest/using-the-rest-api/rate-limits-for-the-rest-api">GitHub Rate Limit Documentation</a>
+ */
+@Builder
+public class RateLimitGovernor {
+
+    /**
+     * The request attribute naming the identity a request is made as. Requests with the same value share
+     * budgets, however their tokens rotate.
+     */
+    public static final String IDENTITY_ATTRIBUTE = RateLimitGovernor.class.getName() + ".identity";
+
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 algorithm not available", e);
+        }
+    });
+
+    /**
+     * Added to waits for a reset, since the reset time only has second precision.
+     */
+    private static final long RESET_SLACK_MILLIS = 1_000;
+
+    /**
+     * How many budgets to hold before dropping those whose window is over.
+     */
+    private static final int SWEEP_THRESHOLD = 1_000;
+
+    /**
+     * The fraction of a budget below which requests are paced.
+     */
+    @Builder.Default
+    private final double paceBelow = 0.5;
+
+    /**
+     * Clock instance for time-based operations.
+     */
+    @Builder.Default
+    private final Clock clock = Clock.systemUTC();
+
+    private final ConcurrentHashMap<String, Budget> budgets = new ConcurrentHashMap<>();
+
+    /**
+     * Budget keys for guessed resources that responses said were another, by the guessed key.
+     */
+    private final ConcurrentHashMap<String, String> corrections = new ConcurrentHashMap<>();
+
+    /**
+     * Takes a request from a budget.
+     *
+     * @param identity The identity, from {@link #identityOf(Map, String)}
+     * @param resource The resource, from {@link #resourceOf(String)}
+     * @return how long to hold the request before sending it
+     */
+    Duration acquire(String identity, String resource) {
+        var key = identity + "/" + resource;
+        var budget = budgets.get(corrections.getOrDefault(key, key));
+        if (budget == null) {
+            return Duration.ZERO;
+        }
+        return Duration.ofMillis(budget.acquire(clock.millis()));
+    }
+
+    /**
+     * Updates a budget from a response's headers.
+     *
+     * @param identity     The identity, from {@link #identityOf(Map, String)}
+     * @param resource     The resource the request was expected to count against
+     * @param headerLookup Reads a response header
+     */
+    void update(String identity, String resource, NullableFunction<String, String> headerLookup) {
+        var remaining = parse(headerLookup.apply(RATE_LIMIT_REMAINING));
+        var reset = parse(headerLookup.apply(RATE_LIMIT_RESET));
+        if (remaining < 0 || reset < 0) {
+            return;
+        }
+        var limit = Math.max(remaining, parse(headerLookup.apply(RATE_LIMIT_LIMIT)));
+        var guessed = identity + "/" + resource;
+        var actualResource = headerLookup.apply(RATE_LIMIT_RESOURCE);
+        var key = actualResource != null ? identity + "/" + actualResource : guessed;
+        if (actualResource != null) {
+            // Remember where this guess actually counts, so acquire draws on the same budget
+            if (key.equals(guessed)) {
+                corrections.remove(guessed);
+            } else {
+                corrections.put(guessed, key);
+            }
+        }
+        var budget = budgets.get(key);
+        if (budget == null) {
+            sweep();
+            budget = budgets.computeIfAbsent(key, k -> new Budget());
+        }
+        budget.update(limit, remaining, reset * 1_000);
+    }
+
+    /**
+     * Finds the identity a request is made as.
+     *
+     * @param attributes    The request's attributes
+     * @param authorization The request's {@code Authorization} header
+     * @return a key for the identity, which doesn't contain the credentials
+     */
+    static String identityOf(Map<String, Object> attributes, @Nullable String authorization) {
+        var identity = attributes.get(IDENTITY_ATTRIBUTE);
+        if (identity != null) {
+            return "attribute:" + identity;
+        }
+        if (authorization == null) {
+            return "anonymous";
+        }
+        var digest = DIGEST.get().digest(authorization.getBytes(StandardCharsets.UTF_8));
+        return "authorization:" + HexFormat.of().formatHex(digest);
+    }
+
+    /**
+     * Guesses which rate limit a request counts against.
+     *
+     * @param path The request path
+     * @return the resource
+     */
+    static String resourceOf(String path) {
+        if (path.contains("/search/code")) {
+            return "code_search";
+        }
+        if (path.contains("/search/")) {
+            return "search";
+        }
+        if (path.endsWith("/graphql")) {
+            return "graphql";
+        }
+        return "core";
+    }
+
+    private void sweep() {
+        if (budgets.size() >= SWEEP_THRESHOLD) {
+            var now = clock.millis();
+            budgets.values().removeIf(budget -> budget.isOver(now));
+            corrections.values().removeIf(key -> !budgets.containsKey(key));
+        }
+    }
+
+    /**
+     * One identity's budget for one resource, in one rate limit window.
+     */
+    private final class Budget {
+        private long limit;
+        private long remaining;
+        private long resetAtMillis;
+        private long nextSlotMillis;
+
+        /**
+         * Takes a request from the budget.
+         *
+         * @return how long to hold it, in milliseconds
+         */
+        synchronized long acquire(long now) {
+            if (now >= resetAtMillis) {
+                // The window is over; the next response says what the new one holds
+                return 0;
+            }
+            if (remaining <= 0) {
+                return resetAtMillis - now + RESET_SLACK_MILLIS;
+            }
+            var available = remaining--;
+            if (available > limit * paceBelow) {
+                return 0;
+            }
+            var interval = (resetAtMillis - now) / available;
+            var slot = Math.max(now, nextSlotMillis);
+            nextSlotMillis = slot + interval;
+            return slot - now;
+        }
+
+        synchronized void update(long limit, long remaining, long resetAtMillis) {
+            if (resetAtMillis > this.resetAtMillis) {
+                this.limit = limit;
+                this.remaining = remaining;
+                this.resetAtMillis = resetAtMillis;
+                this.nextSlotMillis = 0;
+            } else if (resetAtMillis == this.resetAtMillis) {
+                // Responses can arrive out of order; requests already counted here may not be in theirs
+                this.remaining = Math.min(this.remaining, remaining);
+            }
+        }
+
+        synchronized boolean isOver(long now) {
+            return now >= resetAtMillis;
+        }
+    }
+}
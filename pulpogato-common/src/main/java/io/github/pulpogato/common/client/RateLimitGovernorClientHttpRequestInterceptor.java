@@ -0,0 +1,58 @@
+package io.github.pulpogato.common.client;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import lombok.Builder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * A {@link ClientHttpRequestInterceptor} that paces requests to stay within GitHub's rate limits, using
+ * a {@link RateLimitGovernor}.
+ *
+ * <p>Requests that need to wait sleep on the calling thread. On a virtual thread, that parks it without
+ * holding a carrier thread, so for batch jobs that may wait for a reset, run the client on virtual
+ * threads. The interceptor must be added after the interceptor that authenticates requests, so that it
+ * can tell identities apart.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * RestClient restClient = RestClient.builder()
+ *     .baseUrl("https://api.github.com")
+ *     .requestInterceptor(jwtInterceptor)
+ *     .requestInterceptor(RateLimitGovernorClientHttpRequestInterceptor.builder().governor(governor).build())
+ *     .build();
+ * }</pre>
+ *
+ * <p>This is the {@link org.springframework.web.client.RestClient} equivalent of {@link RateLimitGovernorFilter}.</p>
+ *
+ * @see RateLimitGovernor
+ */
+@Builder
+public class RateLimitGovernorClientHttpRequestInterceptor implements ClientHttpRequestInterceptor {
+
+    private final RateLimitGovernor governor;
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        var identity = RateLimitGovernor.identityOf(
+                request.getAttributes(), request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+        var resource = RateLimitGovernor.resourceOf(request.getURI().getRawPath());
+        var delay = governor.acquire(identity, resource);
+        if (!delay.isZero()) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the rate limit");
+            }
+        }
+        var response = execution.execute(request, body);
+        governor.update(identity, resource, name -> response.getHeaders().getFirst(name));
+        return response;
+    }
+}
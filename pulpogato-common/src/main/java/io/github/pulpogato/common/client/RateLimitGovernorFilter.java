@@ -0,0 +1,48 @@
+package io.github.pulpogato.common.client;
+
+import lombok.Builder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+/**
+ * An {@link ExchangeFilterFunction} that paces requests to stay within GitHub's rate limits, using
+ * a {@link RateLimitGovernor}.
+ *
+ * <p>Requests that need to wait are delayed on a Reactor timer, so no thread is held while they do.
+ * The filter must be added after the filter that authenticates requests, so that it can tell
+ * identities apart.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * WebClient webClient = WebClient.builder()
+ *     .baseUrl("https://api.github.com")
+ *     .filter(jwtFilter)
+ *     .filter(RateLimitGovernorFilter.builder().governor(governor).build())
+ *     .build();
+ * }</pre>
+ *
+ * @see RateLimitGovernor
+ */
+@Builder
+public class RateLimitGovernorFilter implements ExchangeFilterFunction {
+
+    private final RateLimitGovernor governor;
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return Mono.defer(() -> {
+            var identity = RateLimitGovernor.identityOf(
+                    request.attributes(), request.headers().getFirst(HttpHeaders.AUTHORIZATION));
+            var resource = RateLimitGovernor.resourceOf(request.url().getRawPath());
+            var delay = governor.acquire(identity, resource);
+            var exchange = Mono.defer(() -> next.exchange(request))
+                    .doOnNext(response -> governor.update(
+                            identity, resource, name -> response.headers().asHttpHeaders().getFirst(name)));
+            return delay.isZero() ? exchange : Mono.delay(delay).then(exchange);
+        });
+    }
+}
@@ -1,34 +1,47 @@
 package io.github.pulpogato.common.client;
 
 import io.github.pulpogato.common.jackson.NullableFunction;
+import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
 import java.time.Clock;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.function.LongConsumer;
+import java.util.function.ToDoubleFunction;
+import org.jspecify.annotations.Nullable;
 
 /**
  * Framework-agnostic rate-limit metrics recording shared by {@link MetricsExchangeFunction} and
  * {@link MetricsClientHttpRequestInterceptor}: reads the {@code x-ratelimit-*} response headers
  * via a caller-supplied lookup and reports them to a {@link MeterRegistry}.
+ *
+ * <p>Besides a gauge per header, it reports the fraction of the limit remaining and, at most once a
+ * second per resource, how many requests a second the limit is being used up at.
+ *
+ * <p>Meters are registered once per resource and then updated in place, so recording a response
+ * allocates nothing beyond what the header lookup does.
  */
 class RateLimitMetricsRecorder {
 
-    private static final String RATE_LIMIT_LIMIT = "x-ratelimit-limit";
-    private static final String RATE_LIMIT_REMAINING = "x-ratelimit-remaining";
-    private static final String RATE_LIMIT_USED = "x-ratelimit-used";
-    private static final String RATE_LIMIT_RESET = "x-ratelimit-reset";
-    private static final String RATE_LIMIT_RESOURCE = "x-ratelimit-resource";
+    static final String RATE_LIMIT_LIMIT = "x-ratelimit-limit";
+    static final String RATE_LIMIT_REMAINING = "x-ratelimit-remaining";
+    static final String RATE_LIMIT_USED = "x-ratelimit-used";
+    static final String RATE_LIMIT_RESET = "x-ratelimit-reset";
+    static final String RATE_LIMIT_RESOURCE = "x-ratelimit-resource";
+
+    /**
+     * The shortest time over which to measure the consumption rate.
+     */
+    private static final long RATE_SAMPLE_MILLIS = 1_000;
 
     private final MeterRegistry registry;
     private final Clock clock;
     private final String prefix;
     private final List<Tag> defaultTags;
 
-    private final ConcurrentHashMap<String, AtomicLong> gauges = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ResourceMeters> resources = new ConcurrentHashMap<>(8);
 
     RateLimitMetricsRecorder(MeterRegistry registry, Clock clock, String prefix, List<Tag> defaultTags) {
         this.registry = registry;
@@ -39,41 +52,155 @@ class RateLimitMetricsRecorder {
 
     void recordMetrics(NullableFunction<String, String> headerLookup) {
         var resource = headerLookup.apply(RATE_LIMIT_RESOURCE);
+        var key = resource != null ? resource : "unknown";
+        var meters = resources.get(key);
+        if (meters == null) {
+            meters = resources.computeIfAbsent(key, ResourceMeters::new);
+        }
+        meters.record(
+                parse(headerLookup.apply(RATE_LIMIT_LIMIT)),
+                parse(headerLookup.apply(RATE_LIMIT_REMAINING)),
+                parse(headerLookup.apply(RATE_LIMIT_USED)),
+                parse(headerLookup.apply(RATE_LIMIT_RESET)));
+    }
 
-        List<Tag> tags = new ArrayList<>(defaultTags);
-        tags.add(Tag.of("resource", resource != null ? resource : "unknown"));
-
-        withNumericHeader(headerLookup, RATE_LIMIT_LIMIT, v -> setGauge(prefix + ".limit", tags, v));
-        withNumericHeader(headerLookup, RATE_LIMIT_REMAINING, v -> setGauge(prefix + ".remaining", tags, v));
-        withNumericHeader(headerLookup, RATE_LIMIT_USED, v -> setGauge(prefix + ".used", tags, v));
-        withNumericHeader(
-                headerLookup,
-                RATE_LIMIT_RESET,
-                resetValue -> setGauge(
-                        prefix + ".secondsToReset",
-                        tags,
-                        Math.max(0, resetValue - clock.instant().getEpochSecond())));
+    /**
+     * Parses a non-negative decimal header value.
+     *
+     * @return the value, or -1 if it is missing or isn't a non-negative {@code long}
+     */
+    static long parse(@Nullable String value) {
+        if (value == null || value.isEmpty() || value.length() > 18) {
+            return -1;
+        }
+        long result = 0;
+        for (int i = 0; i < value.length(); i++) {
+            var digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
     }
 
-    private void withNumericHeader(
-            NullableFunction<String, String> headerLookup, String headerName, LongConsumer consumer) {
-        var value = headerLookup.apply(headerName);
-        if (value != null) {
-            try {
-                consumer.accept(Long.parseLong(value));
-            } catch (NumberFormatException ignore) {
-                // ignore this
+    /**
+     * The meters for one resource.
+     */
+    private final class ResourceMeters {
+        private final Tags tags;
+        private final LazyGauge limit;
+        private final LazyGauge remaining;
+        private final LazyGauge used;
+        private final LazyGauge secondsToReset;
+        private final LazyGauge remainingFraction;
+        private volatile @Nullable DistributionSummary consumptionRate;
+
+        private volatile long sampleMillis = -RATE_SAMPLE_MILLIS;
+        private long sampleRemaining = -1;
+        private long sampleReset = -1;
+
+        ResourceMeters(String resource) {
+            this.tags = Tags.of(defaultTags).and("resource", resource);
+            this.limit = new LazyGauge(prefix + ".limit", tags, AtomicLong::get);
+            this.remaining = new LazyGauge(prefix + ".remaining", tags, AtomicLong::get);
+            this.used = new LazyGauge(prefix + ".used", tags, AtomicLong::get);
+            this.secondsToReset = new LazyGauge(prefix + ".secondsToReset", tags, AtomicLong::get);
+            this.remainingFraction = new LazyGauge(
+                    prefix + ".remainingFraction", tags, value -> Double.longBitsToDouble(value.get()));
+        }
+
+        void record(long limitValue, long remainingValue, long usedValue, long resetValue) {
+            limit.set(limitValue);
+            remaining.set(remainingValue);
+            used.set(usedValue);
+            if (resetValue >= 0 || (limitValue > 0 && remainingValue >= 0)) {
+                var now = clock.millis();
+                if (resetValue >= 0) {
+                    secondsToReset.set(Math.max(0, resetValue - now / 1_000));
+                    if (remainingValue >= 0) {
+                        sampleRate(now, remainingValue, resetValue);
+                    }
+                }
+                if (limitValue > 0 && remainingValue >= 0) {
+                    remainingFraction.set(Double.doubleToRawLongBits((double) remainingValue / limitValue));
+                }
             }
         }
+
+        /**
+         * Records how fast the limit has been used up since the last sample, if that was long enough ago.
+         * Samples across a reset are dropped.
+         */
+        private void sampleRate(long now, long remainingValue, long resetValue) {
+            if (now - sampleMillis < RATE_SAMPLE_MILLIS) {
+                return;
+            }
+            double rate;
+            synchronized (this) {
+                var elapsed = now - sampleMillis;
+                if (elapsed < RATE_SAMPLE_MILLIS) {
+                    return;
+                }
+                var consumed = sampleRemaining - remainingValue;
+                var sameWindow = sampleReset == resetValue && consumed >= 0;
+                rate = sameWindow ? consumed * 1_000.0 / elapsed : -1;
+                sampleMillis = now;
+                sampleRemaining = remainingValue;
+                sampleReset = resetValue;
+            }
+            if (rate >= 0) {
+                consumptionRate().record(rate);
+            }
+        }
+
+        private DistributionSummary consumptionRate() {
+            var summary = consumptionRate;
+            if (summary == null) {
+                summary = DistributionSummary.builder(prefix + ".consumptionRate")
+                        .description("Requests per second counted against the rate limit")
+                        .tags(tags)
+                        .register(registry);
+                consumptionRate = summary;
+            }
+            return summary;
+        }
     }
 
-    private void setGauge(String name, List<Tag> tags, long value) {
-        var key = name + "/" + tags;
-        var ref = gauges.computeIfAbsent(key, k -> {
-            var atomicLong = new AtomicLong(value);
-            registry.gauge(name, tags, atomicLong, AtomicLong::get);
-            return atomicLong;
-        });
-        ref.set(value);
+    /**
+     * A gauge that is registered the first time it has a value.
+     */
+    private final class LazyGauge {
+        private final String name;
+        private final Tags tags;
+        private final ToDoubleFunction<AtomicLong> valueFunction;
+        private volatile @Nullable AtomicLong value;
+
+        LazyGauge(String name, Tags tags, ToDoubleFunction<AtomicLong> valueFunction) {
+            this.name = name;
+            this.tags = tags;
+            this.valueFunction = valueFunction;
+        }
+
+        void set(long newValue) {
+            if (newValue < 0) {
+                return;
+            }
+            var current = value;
+            if (current == null) {
+                current = register(newValue);
+            }
+            current.set(newValue);
+        }
+
+        private synchronized AtomicLong register(long initialValue) {
+            var current = value;
+            if (current == null) {
+                current = new AtomicLong(initialValue);
+                registry.gauge(name, tags, current, valueFunction);
+                value = current;
+            }
+            return current;
+        }
     }
 }
@@ -0,0 +1,73 @@
+package io.github.pulpogato.common.client;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import lombok.Builder;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * A {@link ClientHttpRequestInterceptor} that retries requests GitHub rejected for exceeding a primary
+ * or secondary rate limit, waiting as long as GitHub asks, according to a {@link RateLimitRetryPolicy}.
+ *
+ * <p>Waits sleep the calling thread, which on a virtual thread parks it without holding a carrier thread.
+ * If a request runs out of attempts, or the policy won't retry it, the rejected response is returned.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * RestClient restClient = RestClient.builder()
+ *     .baseUrl("https://api.github.com")
+ *     .requestInterceptor(RateLimitRetryClientHttpRequestInterceptor.builder().policy(policy).build())
+ *     .requestInterceptor(jwtInterceptor)
+ *     .build();
+ * }</pre>
+ *
+ * <p>This is the {@link org.springframework.web.client.RestClient} equivalent of {@link RateLimitRetryFilter}.</p>
+ *
+ * @see RateLimitRetryPolicy
+ */
+@Builder
+public class RateLimitRetryClientHttpRequestInterceptor implements ClientHttpRequestInterceptor {
+
+    @Builder.Default
+    private final RateLimitRetryPolicy policy = RateLimitRetryPolicy.builder().build();
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        var response = execution.execute(request, body);
+        if (!policy.retries(request.getMethod())) {
+            return response;
+        }
+        long previousDelay = 0;
+        for (int attempt = 1; ; attempt++) {
+            var rejected = response;
+            var delay = policy.delayMillis(
+                    attempt, rejected.getStatusCode().value(), rejected.getHeaders()::getFirst, previousDelay);
+            if (delay < 0) {
+                return rejected;
+            }
+            try (var permit = policy.tryAcquire()) {
+                if (permit == null) {
+                    return rejected;
+                }
+                rejected.close();
+                sleep(delay);
+                response = execution.execute(request, body);
+            }
+            previousDelay = delay;
+        }
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(Duration.ofMillis(millis));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry");
+        }
+    }
+}
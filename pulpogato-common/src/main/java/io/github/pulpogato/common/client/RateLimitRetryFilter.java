@@ -0,0 +1,75 @@
+package io.github.pulpogato.common.client;
+
+import java.time.Duration;
+import lombok.Builder;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+/**
+ * An {@link ExchangeFilterFunction} that retries requests GitHub rejected for exceeding a primary or
+ * secondary rate limit, waiting as long as GitHub asks, according to a {@link RateLimitRetryPolicy}.
+ *
+ * <p>Waits are on a Reactor timer, so no thread is held while a request waits to be retried. If a
+ * request runs out of attempts, or the policy won't retry it, the rejected response is returned.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * WebClient webClient = WebClient.builder()
+ *     .baseUrl("https://api.github.com")
+ *     .filter(RateLimitRetryFilter.builder().policy(policy).build())
+ *     .filter(jwtFilter)
+ *     .build();
+ * }</pre>
+ *
+ * @see RateLimitRetryPolicy
+ */
+@Builder
+public class RateLimitRetryFilter implements ExchangeFilterFunction {
+
+    @Builder.Default
+    private final RateLimitRetryPolicy policy = RateLimitRetryPolicy.builder().build();
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        if (!policy.retries(request.method())) {
+            return next.exchange(request);
+        }
+        return next.exchange(request).flatMap(response -> retry(request, next, response, 1, 0));
+    }
+
+    private Mono<ClientResponse> retry(
+            ClientRequest request, ExchangeFunction next, ClientResponse response, int attempt, long previousDelay) {
+        var delay = policy.delayMillis(
+                attempt,
+                response.statusCode().value(),
+                name -> response.headers().asHttpHeaders().getFirst(name),
+                previousDelay);
+        if (delay < 0) {
+            return Mono.just(response);
+        }
+        var permit = policy.tryAcquire();
+        if (permit == null) {
+            return Mono.just(response);
+        }
+        return resend(request, next, response, attempt, delay, permit);
+    }
+
+    private Mono<ClientResponse> resend(
+            ClientRequest request,
+            ExchangeFunction next,
+            ClientResponse response,
+            int attempt,
+            long delay,
+            RateLimitRetryPolicy.Permit permit) {
+        return response.releaseBody()
+                .then(Mono.delay(Duration.ofMillis(delay)))
+                .then(Mono.defer(() -> next.exchange(request)))
+                // Closed before deciding on the next retry, which needs a permit of its own
+                .doOnNext(retried -> permit.close())
+                .doFinally(signal -> permit.close())
+                .flatMap(retried -> retry(request, next, retried, attempt + 1, delay));
+    }
+}
@@ -0,0 +1,192 @@
+package io.github.pulpogato.common.client;
+
+import static io.github.pulpogato.common.client.RateLimitMetricsRecorder.RATE_LIMIT_REMAINING;
+import static io.github.pulpogato.common.client.RateLimitMetricsRecorder.RATE_LIMIT_RESET;
+
+import io.github.pulpogato.common.jackson.NullableFunction;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import org.jspecify.annotations.Nullable;
+import org.springframework.http.HttpMethod;
+
+/**
+ * When and how long to wait before retrying a request that GitHub rejected for exceeding a primary or
+ * secondary rate limit. Shared by {@link RateLimitRetryFilter} and
+ * {@link RateLimitRetryClientHttpRequestInterceptor}.
+ *
+ * <p>A response is retried if it is a 429, or a 403 with a {@code Retry-After} header or with
+ * {@code x-ratelimit-remaining: 0}; any other 403 is a permission error. The wait is:
+ * <ul>
+ *   <li>{@code Retry-After}, if present;
+ *   <li>otherwise, if the rate limit is spent, the time until {@code x-ratelimit-reset};
+ *   <li>otherwise, a decorrelated jitter backoff starting at {@link #baseDelay}, as GitHub asks for at
+ *       least a minute's wait in that case.
+ * </ul>
+ * Waits from headers are spread by up to a tenth, so that clients told the same time don't all come back
+ * at once. A request is not retried if it would have to wait longer than {@link #maxDelay}.
+ *
+ * <p>At most {@link #maxConcurrentRetries} retries are waiting or in flight at once across every client
+ * using the policy; past that, the rejected response is returned rather than retried, so a burst of
+ * failures can't turn into a storm of retries. Share one policy between clients to share the cap.
+ *
+ * <p>{@code POST} and {@code PATCH} requests are only retried if {@link #retryNonIdempotent} is set.
+ *
+ * @see <a href="https://docs.github.com/en/rest/using-the-rest-api/rate-limits-for-the-rest-api#handle-rate-limit-errors-appropriately">GitHub Rate Limit Documentation</a>
+ */
+@Builder
+public class RateLimitRetryPolicy {
+
+    private static final Set<HttpMethod> IDEMPOTENT_METHODS = Set.of(
+            HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS, HttpMethod.PUT, HttpMethod.DELETE, HttpMethod.TRACE);
+
+    /**
+     * Added to waits for a reset, since the reset time only has second precision.
+     */
+    private static final long RESET_SLACK_MILLIS = 1_000;
+
+    /**
+     * The most times to send a request, including the first.
+     */
+    @Builder.Default
+    private final int maxAttempts = 3;
+
+    /**
+     * The shortest backoff when GitHub doesn't say how long to wait.
+     */
+    @Builder.Default
+    private final Duration baseDelay = Duration.ofMinutes(1);
+
+    /**
+     * The longest wait before a retry. Requests that would have to wait longer aren't retried.
+     */
+    @Builder.Default
+    private final Duration maxDelay = Duration.ofMinutes(15);
+
+    /**
+     * The most retries waiting or in flight at once.
+     */
+    @Builder.Default
+    private final int maxConcurrentRetries = 8;
+
+    /**
+     * Whether to retry {@code POST} and {@code PATCH} requests.
+     */
+    @Builder.Default
+    private final boolean retryNonIdempotent = false;
+
+    /**
+     * Clock instance for time-based operations.
+     */
+    @Builder.Default
+    private final Clock clock = Clock.systemUTC();
+
+    @Getter(value = AccessLevel.PRIVATE, lazy = true)
+    private final Semaphore permits = new Semaphore(maxConcurrentRetries);
+
+    /**
+     * Whether requests with a method may be retried at all.
+     *
+     * @param method The request method
+     * @return true if the method is idempotent, or non-idempotent methods may be retried
+     */
+    boolean retries(HttpMethod method) {
+        return retryNonIdempotent || IDEMPOTENT_METHODS.contains(method);
+    }
+
+    /**
+     * Works out how long to wait before retrying a response.
+     *
+     * @param attempt             How many times the request has been sent
+     * @param status              The response status
+     * @param headerLookup        Reads a response header
+     * @param previousDelayMillis The previous wait, or 0 before the first retry
+     * @return the wait in milliseconds, or -1 not to retry
+     */
+    long delayMillis(int attempt, int status, NullableFunction<String, String> headerLookup, long previousDelayMillis) {
+        if (attempt >= maxAttempts || (status != 429 && status != 403)) {
+            return -1;
+        }
+        var retryAfter = headerLookup.apply("Retry-After");
+        var spent = "0".equals(headerLookup.apply(RATE_LIMIT_REMAINING));
+        if (status == 403 && retryAfter == null && !spent) {
+            return -1;
+        }
+        var random = ThreadLocalRandom.current();
+        long delay;
+        var told = retryAfter != null ? parseRetryAfter(retryAfter) : spent ? untilReset(headerLookup) : -1;
+        if (told >= 0) {
+            delay = told + random.nextLong(told / 10 + 1);
+        } else {
+            // Decorrelated jitter: each wait is random between the base and three times the last one
+            var base = baseDelay.toMillis();
+            var previous = Math.max(base, previousDelayMillis);
+            delay = Math.min(maxDelay.toMillis(), random.nextLong(base, Math.max(base, previous * 3) + 1));
+        }
+        return delay > maxDelay.toMillis() ? -1 : delay;
+    }
+
+    /**
+     * Takes one of the {@link #maxConcurrentRetries} permits.
+     *
+     * @return the permit, to be closed once the retry has its response, or null if there are none free
+     */
+    @Nullable
+    Permit tryAcquire() {
+        var semaphore = getPermits();
+        return semaphore.tryAcquire() ? new Permit(semaphore) : null;
+    }
+
+    private long parseRetryAfter(String value) {
+        try {
+            return Math.max(0, Long.parseLong(value.trim()) * 1_000);
+        } catch (NumberFormatException e) {
+            try {
+                var at = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                return Math.max(0, at.toInstant().toEpochMilli() - clock.millis());
+            } catch (DateTimeParseException ignored) {
+                return -1;
+            }
+        }
+    }
+
+    private long untilReset(NullableFunction<String, String> headerLookup) {
+        var reset = headerLookup.apply(RATE_LIMIT_RESET);
+        if (reset == null) {
+            return -1;
+        }
+        try {
+            return Math.max(0, Long.parseLong(reset.trim()) * 1_000 - clock.millis()) + RESET_SLACK_MILLIS;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * A permit for one retry. Closing it more than once has no further effect.
+     */
+    static final class Permit implements AutoCloseable {
+        private final Semaphore semaphore;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Permit(Semaphore semaphore) {
+            this.semaphore = semaphore;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                semaphore.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package io.github.pulpogato.common.client;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.jspecify.annotations.Nullable;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestClient;
+
+/**
+ * {@link InstallationTokenSource} over a {@link RestClient}. Responses are read as plain maps, since the
+ * generated response types live in the version-specific REST modules.
+ */
+@RequiredArgsConstructor
+class RestClientInstallationTokenSource implements InstallationTokenSource {
+
+    private static final ParameterizedTypeReference<Map<String, Object>> JSON_OBJECT =
+            new ParameterizedTypeReference<>() {};
+
+    private final RestClient appClient;
+
+    @Override
+    public InstallationToken createToken(InstallationTokenScope scope) {
+        var request = new LinkedHashMap<String, Object>();
+        if (!scope.repositories().isEmpty()) {
+            request.put("repositories", scope.repositories());
+        }
+        if (!scope.permissions().isEmpty()) {
+            request.put("permissions", scope.permissions());
+        }
+        var response = appClient
+                .post()
+                .uri("/app/installations/{installation_id}/access_tokens", scope.installationId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(request)
+                .retrieve()
+                .body(JSON_OBJECT);
+        var token = field(response, "token");
+        var expiresAt = field(response, "expires_at");
+        return new InstallationToken(token.toString(), Instant.parse(expiresAt.toString()));
+    }
+
+    @Override
+    public long findInstallationId(String owner, String repo) {
+        var response = appClient
+                .get()
+                .uri("/repos/{owner}/{repo}/installation", owner, repo)
+                .retrieve()
+                .body(JSON_OBJECT);
+        if (!(field(response, "id") instanceof Number id)) {
+            throw new IllegalStateException("Installation id is not a number");
+        }
+        return id.longValue();
+    }
+
+    private static Object field(@Nullable Map<String, Object> response, String name) {
+        var value = response == null ? null : response.get(name);
+        if (value == null) {
+            throw new IllegalStateException("GitHub response has no " + name);
+        }
+        return value;
+    }
+}
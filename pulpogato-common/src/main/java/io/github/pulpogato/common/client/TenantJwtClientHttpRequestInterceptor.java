@@ -0,0 +1,57 @@
+package io.github.pulpogato.common.client;
+
+import java.io.IOException;
+import lombok.Builder;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * A {@link ClientHttpRequestInterceptor} that adds a JWT for whichever GitHub App each request belongs to.
+ *
+ * <p>This interceptor reads the tenant from the request attribute {@link #attribute}, gets a JWT for it
+ * from a {@link JwtCredentialRegistry}, and adds it to the request as a Bearer token in the Authorization
+ * header. A request without the attribute fails with an {@link IllegalStateException}.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * RestClient restClient = RestClient.builder()
+ *     .baseUrl("https://api.github.com")
+ *     .requestInterceptor(TenantJwtClientHttpRequestInterceptor.builder().registry(registry).build())
+ *     .build();
+ *
+ * restClient.get()
+ *     .uri("/app")
+ *     .attribute(JwtCredentialRegistry.TENANT_ATTRIBUTE, "example")
+ *     .retrieve();
+ * }</pre>
+ *
+ * <p>This is the {@link org.springframework.web.client.RestClient} equivalent of {@link TenantJwtFilter}.</p>
+ *
+ * @see JwtCredentialRegistry
+ * @see JwtClientHttpRequestInterceptor
+ */
+@Builder
+public class TenantJwtClientHttpRequestInterceptor implements ClientHttpRequestInterceptor {
+
+    private final JwtCredentialRegistry registry;
+
+    /**
+     * The request attribute naming the tenant.
+     */
+    @Builder.Default
+    private final String attribute = JwtCredentialRegistry.TENANT_ATTRIBUTE;
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        var tenant = request.getAttributes().get(attribute);
+        if (tenant == null) {
+            throw new IllegalStateException("No tenant in request attribute " + attribute);
+        }
+        var jwt = registry.getOrGenerateJwt(tenant.toString());
+        request.getHeaders().set("Authorization", "Bearer " + jwt);
+        return execution.execute(request, body);
+    }
+}
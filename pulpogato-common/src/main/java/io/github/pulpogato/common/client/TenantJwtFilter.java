@@ -0,0 +1,63 @@
+package io.github.pulpogato.common.client;
+
+import lombok.Builder;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * An {@link ExchangeFilterFunction} that adds a JWT for whichever GitHub App each request belongs to.
+ *
+ * <p>This filter reads the tenant from the request attribute {@link #attribute}, gets a JWT for it from a
+ * {@link JwtCredentialRegistry}, and adds it to the request as a Bearer token in the Authorization header.
+ * A request without the attribute fails with an {@link IllegalStateException}. A tenant that isn't held yet is
+ * loaded, and its private key parsed, on {@link Schedulers#boundedElastic()}, and a tenant that can't be
+ * loaded fails the request with the registry's error.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * WebClient webClient = WebClient.builder()
+ *     .baseUrl("https://api.github.com")
+ *     .filter(TenantJwtFilter.builder().registry(registry).build())
+ *     .build();
+ *
+ * webClient.get()
+ *     .uri("/app")
+ *     .attribute(JwtCredentialRegistry.TENANT_ATTRIBUTE, "example")
+ *     .retrieve();
+ * }</pre>
+ *
+ * @see JwtCredentialRegistry
+ * @see JwtFilter
+ */
+@Builder
+public class TenantJwtFilter implements ExchangeFilterFunction {
+
+    private final JwtCredentialRegistry registry;
+
+    /**
+     * The request attribute naming the tenant.
+     */
+    @Builder.Default
+    private final String attribute = JwtCredentialRegistry.TENANT_ATTRIBUTE;
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        var tenant = request.attribute(attribute);
+        if (tenant.isEmpty()) {
+            return Mono.error(new IllegalStateException("No tenant in request attribute " + attribute));
+        }
+        var name = tenant.get().toString();
+        var jwt = Mono.fromCallable(() -> registry.getOrGenerateJwt(name));
+        if (!registry.isLoaded(name)) {
+            // The credentials loader may well block, and parsing the key takes a while
+            jwt = jwt.subscribeOn(Schedulers.boundedElastic());
+        }
+        return jwt.flatMap(token -> next.exchange(ClientRequest.from(request)
+                .header("Authorization", "Bearer " + token)
+                .build()));
+    }
+}
@@ -0,0 +1,225 @@
+package io.github.pulpogato.common.jackson;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import java.beans.Introspector;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * What a union candidate type can accept, derived once per type from its declared properties.
+ *
+ * <p>This is a conservative pre-filter, not a replacement for Jackson: a profile only rejects input
+ * that the strict mappers used by the fancy deserializers would reject anyway (wrong shape, or a
+ * property the type doesn't declare while {@code FAIL_ON_UNKNOWN_PROPERTIES} is on). Anything the
+ * profile can't reason about is {@link Kind#OPEN} and is left to Jackson.
+ *
+ * @param kind       how the type is matched
+ * @param knownNames the property names a {@link Kind#BEAN} declares
+ */
+record CandidateProfile(Kind kind, Set<String> knownNames) {
+
+    private static final Map<Class<?>, CandidateProfile> CACHE = new ConcurrentHashMap<>();
+
+    private static final CandidateProfile SCALAR = new CandidateProfile(Kind.SCALAR, Set.of());
+    private static final CandidateProfile COLLECTION = new CandidateProfile(Kind.COLLECTION, Set.of());
+    private static final CandidateProfile OPEN = new CandidateProfile(Kind.OPEN, Set.of());
+
+    /**
+     * How a candidate type is matched against a buffered value.
+     */
+    enum Kind {
+        /** Strings, numbers, booleans and enums. Never an object or array. */
+        SCALAR,
+        /** Collections and arrays. Only arrays. */
+        COLLECTION,
+        /** Plain generated beans. Only objects whose keys are all declared. */
+        BEAN,
+        /** Anything else. Always handed to Jackson. */
+        OPEN
+    }
+
+    /**
+     * Returns the (cached) profile for a type.
+     *
+     * @param type the candidate type
+     * @return the profile
+     */
+    static CandidateProfile of(Class<?> type) {
+        return CACHE.computeIfAbsent(type, CandidateProfile::compute);
+    }
+
+    /**
+     * Checks whether a buffered value could deserialize into this candidate.
+     *
+     * @param value the buffered value
+     * @return false only if the candidate certainly can't accept the value
+     */
+    boolean accepts(FancyDeserializerSupport.BufferedValue value) {
+        return switch (kind) {
+            case SCALAR -> false;
+            case COLLECTION -> value.shape() == FancyDeserializerSupport.ValueShape.ARRAY;
+            case OPEN -> true;
+            case BEAN ->
+                value.shape() == FancyDeserializerSupport.ValueShape.OBJECT
+                        && knownNames.containsAll(value.propertyNames());
+        };
+    }
+
+    private static CandidateProfile compute(Class<?> type) {
+        if (type.isPrimitive()
+                || type == String.class
+                || type == Boolean.class
+                || type == Character.class
+                || Number.class.isAssignableFrom(type)
+                || (type.isEnum() && !hasCreator(type))) {
+            return SCALAR;
+        }
+        if (type.isArray() || Collection.class.isAssignableFrom(type)) {
+            return COLLECTION;
+        }
+        if (type.isInterface()
+                || Modifier.isAbstract(type.getModifiers())
+                || type.getName().startsWith("java.")
+                || hasCustomDeserializer(type)) {
+            return OPEN;
+        }
+
+        var names = new HashSet<String>();
+        for (Class<?> c = type; c != null && !c.getName().startsWith("java."); c = c.getSuperclass()) {
+            if (isOpenByAnnotation(c)) {
+                return OPEN;
+            }
+            var ignored = c.getAnnotation(JsonIgnoreProperties.class);
+            if (ignored != null) {
+                names.addAll(Set.of(ignored.value()));
+            }
+            for (var field : c.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                if (isOpenByAnnotation(field)) {
+                    return OPEN;
+                }
+                names.add(field.getName());
+                addDeclaredNames(field, names);
+            }
+            for (var method : c.getDeclaredMethods()) {
+                if (isOpenByAnnotation(method)) {
+                    return OPEN;
+                }
+                if (Modifier.isStatic(method.getModifiers())) {
+                    continue;
+                }
+                addDeclaredNames(method, names);
+                addAccessorNames(method, names);
+            }
+            for (var constructor : c.getDeclaredConstructors()) {
+                if (constructor.isAnnotationPresent(JsonCreator.class)) {
+                    return OPEN;
+                }
+            }
+        }
+        return new CandidateProfile(Kind.BEAN, Set.copyOf(names));
+    }
+
+    private static boolean hasCreator(Class<?> type) {
+        for (var method : type.getDeclaredMethods()) {
+            if (method.isAnnotationPresent(JsonCreator.class)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isOpenByAnnotation(AnnotatedElement element) {
+        if (element.isAnnotationPresent(JsonAnySetter.class)
+                || element.isAnnotationPresent(JsonUnwrapped.class)
+                || element.isAnnotationPresent(JsonCreator.class)
+                || element.isAnnotationPresent(JsonTypeInfo.class)
+                || element.isAnnotationPresent(JsonFormat.class)) {
+            return true;
+        }
+        var ignored = element.getAnnotation(JsonIgnoreProperties.class);
+        return ignored != null && ignored.ignoreUnknown();
+    }
+
+    private static void addDeclaredNames(AnnotatedElement element, Set<String> names) {
+        var property = element.getAnnotation(JsonProperty.class);
+        if (property != null && !property.value().isEmpty()) {
+            names.add(property.value());
+        }
+        var alias = element.getAnnotation(JsonAlias.class);
+        if (alias != null) {
+            names.addAll(Set.of(alias.value()));
+        }
+    }
+
+    private static void addAccessorNames(Method method, Set<String> names) {
+        var name = method.getName();
+        String suffix;
+        if (method.getParameterCount() == 1 && name.length() > 3 && name.startsWith("set")) {
+            suffix = name.substring(3);
+        } else if (method.getParameterCount() == 0 && name.length() > 3 && name.startsWith("get")) {
+            // Getters count too: Jackson uses a Collection or Map getter as a setter by default.
+            suffix = name.substring(3);
+        } else if (method.getParameterCount() == 0 && name.length() > 2 && name.startsWith("is")) {
+            suffix = name.substring(2);
+        } else {
+            return;
+        }
+        // Jackson's default naming lower-cases the leading run of capitals ("URL" -> "url"), while
+        // the JavaBeans rule keeps it; accept either rather than guess which one the bean relies on.
+        names.add(Introspector.decapitalize(suffix));
+        names.add(Character.toLowerCase(suffix.charAt(0)) + suffix.substring(1));
+        names.add(suffix.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * A type with its own {@code @JsonDeserialize} doesn't deserialize through its bean properties, so
+     * nothing can be concluded from them. {@code using = None} on the type itself cancels an inherited
+     * one, which is how generated oneOf members opt back into bean deserialization.
+     */
+    private static boolean hasCustomDeserializer(Class<?> type) {
+        for (Class<?> c = type; c != null && !c.getName().startsWith("java."); c = c.getSuperclass()) {
+            var verdict = customDeserializerVerdict(c);
+            if (verdict != null) {
+                return verdict;
+            }
+        }
+        for (var iface : type.getInterfaces()) {
+            var verdict = customDeserializerVerdict(iface);
+            if (verdict != null) {
+                return verdict;
+            }
+        }
+        return false;
+    }
+
+    private static @Nullable Boolean customDeserializerVerdict(Class<?> c) {
+        var j3 = c.getAnnotation(tools.jackson.databind.annotation.JsonDeserialize.class);
+        if (j3 != null) {
+            return j3.using() != tools.jackson.databind.ValueDeserializer.None.class || j3.builder() != Void.class;
+        }
+        var j2 = c.getAnnotation(com.fasterxml.jackson.databind.annotation.JsonDeserialize.class);
+        if (j2 != null) {
+            return j2.using() != com.fasterxml.jackson.databind.JsonDeserializer.None.class
+                    || j2.builder() != Void.class;
+        }
+        return null;
+    }
+}
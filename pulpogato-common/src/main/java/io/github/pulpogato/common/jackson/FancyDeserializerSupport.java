@@ -91,6 +91,49 @@ public class FancyDeserializerSupport<T> {
         Object readValue(String json, Class<?> type) throws Exception;
     }
 
+    /**
+     * The root shape of a {@link BufferedValue}.
+     */
+    public enum ValueShape {
+        /** The value is a JSON object. */
+        OBJECT,
+        /** The value is a JSON array. */
+        ARRAY
+    }
+
+    /**
+     * A structured JSON value that has been copied off the parser exactly once, so every candidate
+     * can be read from the same tokens. This replaces reading the value as a {@link Map}, writing it
+     * back to a {@link String} and re-parsing that string once per candidate.
+     *
+     * <p>See {@link ContextReader} for why {@link #readValue} declares {@code throws Exception}.
+     */
+    @SuppressWarnings("java:S112")
+    public interface BufferedValue {
+        /**
+         * Returns the shape of the buffered value.
+         *
+         * @return the shape of the buffered value
+         */
+        ValueShape shape();
+
+        /**
+         * Returns the top-level property names, collected while the value was being buffered.
+         *
+         * @return the property names for an {@link ValueShape#OBJECT}, or an empty set otherwise
+         */
+        Set<String> propertyNames();
+
+        /**
+         * Replays the buffered tokens and deserializes them to the specified type.
+         *
+         * @param type the target type
+         * @return the deserialized value
+         * @throws Exception if deserialization fails
+         */
+        Object readValue(Class<?> type) throws Exception;
+    }
+
     /**
      * Tracks types currently being deserialized on this thread to prevent infinite recursion
      * from self-referential union types (e.g., Permissions containing a Permissions field).
@@ -202,6 +245,99 @@ public class FancyDeserializerSupport<T> {
         }
     }
 
+    /**
+     * Performs the deserialization of an object or array that the calling deserializer has already
+     * buffered. Candidates are chosen by the shape of the value and the property names their types
+     * declare (see {@link CandidateProfile}), so a candidate that can't possibly match is skipped
+     * instead of being parsed until it throws, and the winning candidate is parsed only once.
+     *
+     * <p>Scalars don't go through here: they are cheap to read, and their coercion order is
+     * handled by {@link #deserialize(ContextReader, TokenHint)}.
+     *
+     * @param value The buffered object or array
+     * @return The deserialized value
+     */
+    public T deserialize(BufferedValue value) {
+        final var returnValue = initializer.get();
+        var inProgress = IN_PROGRESS.get();
+        inProgress.add(type);
+
+        try {
+            if (mode == Mode.ONE_OF) {
+                setOneOfField(value, returnValue);
+            } else {
+                for (var field : fields) {
+                    if (CandidateProfile.of(field.type()).accepts(value)) {
+                        setBufferedField(field, value, returnValue);
+                    }
+                }
+            }
+            return returnValue;
+        } finally {
+            inProgress.remove(type);
+            if (inProgress.isEmpty()) {
+                IN_PROGRESS.remove();
+            }
+        }
+    }
+
+    /**
+     * Buffered counterpart to {@link #setOneOfField(String, Object)}: sets the first non-wildcard
+     * field that accepts the value, falling back to an {@link Object} field when none does.
+     *
+     * @param value       the buffered value
+     * @param returnValue the object being populated
+     */
+    private void setOneOfField(BufferedValue value, T returnValue) {
+        SettableField<T, ?> match = null;
+        SettableField<T, ?> objectFallback = null;
+        for (var pair : fields) {
+            if (pair.type() == Object.class) {
+                if (objectFallback == null) {
+                    objectFallback = pair;
+                }
+                continue;
+            }
+            if (!CandidateProfile.of(pair.type()).accepts(value)) {
+                continue;
+            }
+            if (match != null) {
+                log.debug(
+                        "Ambiguous oneOf for {}: both {} and {} accept the input; using first match",
+                        type.getSimpleName(),
+                        match.type().getSimpleName(),
+                        pair.type().getSimpleName());
+                break;
+            }
+            if (setBufferedField(pair, value, returnValue)) {
+                match = pair;
+            }
+        }
+        if (match == null && objectFallback != null) {
+            setBufferedField(objectFallback, value, returnValue);
+        }
+    }
+
+    private <X> boolean setBufferedField(SettableField<T, X> field, BufferedValue value, T retval) {
+        final var clazz = field.type();
+
+        if (IN_PROGRESS.get().contains(clazz)) {
+            return false;
+        }
+
+        try {
+            final var raw = value.readValue(clazz);
+            @SuppressWarnings("unchecked")
+            final var x = (X) coerceListValuesIfNeeded(clazz, raw);
+            field.setter().accept(retval, x);
+            return true;
+        } catch (Exception e) {
+            ensureParsingException(e);
+            log.debug("Failed to parse buffered {} as {}", value.shape(), clazz, e);
+            return false;
+        }
+    }
+
     private void deserializeScalar(ContextReader contextReader, @Nullable TokenHint hint, T returnValue) {
         switch (hint) {
             case TokenHint.BOOLEAN -> deserializeBoolThenNumberThenString(contextReader, returnValue);
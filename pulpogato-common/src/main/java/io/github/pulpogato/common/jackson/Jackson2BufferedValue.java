@@ -0,0 +1,76 @@
+package io.github.pulpogato.common.jackson;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Jackson 2 {@link FancyDeserializerSupport.BufferedValue}: the tokens of one object or array copied
+ * into a {@link TokenBuffer}, replayed through the strict mapper once per candidate.
+ *
+ * @param shape         the shape of the value
+ * @param propertyNames the top-level property names of an object
+ * @param buffer        the buffered tokens
+ * @param mapper        the mapper that reads the candidates
+ */
+record Jackson2BufferedValue(
+        FancyDeserializerSupport.ValueShape shape, Set<String> propertyNames, TokenBuffer buffer, ObjectMapper mapper)
+        implements FancyDeserializerSupport.BufferedValue {
+
+    /**
+     * Checks whether the parser is positioned on an object or array that {@link #read} can buffer.
+     *
+     * @param token the current token
+     * @return true for objects and arrays
+     */
+    static boolean isStructured(JsonToken token) {
+        return token == JsonToken.START_OBJECT
+                || token == JsonToken.FIELD_NAME
+                || token == JsonToken.END_OBJECT
+                || token == JsonToken.START_ARRAY;
+    }
+
+    /**
+     * Copies the current object or array off the parser, collecting top-level property names on the
+     * way so that no second pass is needed to inspect them.
+     *
+     * @param p      the parser, positioned on a token accepted by {@link #isStructured}
+     * @param ctxt   the deserialization context
+     * @param mapper the mapper that reads the candidates
+     * @return the buffered value
+     * @throws IOException if the parser fails
+     */
+    static Jackson2BufferedValue read(JsonParser p, DeserializationContext ctxt, ObjectMapper mapper)
+            throws IOException {
+        var token = p.currentToken();
+        if (token == JsonToken.START_ARRAY) {
+            return new Jackson2BufferedValue(
+                    FancyDeserializerSupport.ValueShape.ARRAY, Set.of(), ctxt.bufferAsCopyOfValue(p), mapper);
+        }
+        if (token == JsonToken.START_OBJECT) {
+            token = p.nextToken();
+        }
+        var names = new LinkedHashSet<String>();
+        var buffer = ctxt.bufferForInputBuffering(p);
+        buffer.writeStartObject();
+        while (token == JsonToken.FIELD_NAME) {
+            names.add(p.currentName());
+            buffer.copyCurrentStructure(p);
+            token = p.nextToken();
+        }
+        buffer.writeEndObject();
+        return new Jackson2BufferedValue(FancyDeserializerSupport.ValueShape.OBJECT, names, buffer, mapper);
+    }
+
+    @Override
+    public Object readValue(Class<?> type) throws IOException {
+        try (var parser = buffer.asParser(mapper)) {
+            return mapper.readValue(parser, type);
+        }
+    }
+}
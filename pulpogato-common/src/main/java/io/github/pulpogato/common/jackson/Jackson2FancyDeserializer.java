@@ -7,6 +7,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import io.github.pulpogato.common.Mode;
+import java.io.IOException;
 import java.util.List;
 import java.util.function.Supplier;
 
@@ -46,7 +47,12 @@ public class Jackson2FancyDeserializer<T> extends StdDeserializer<T> {
     }
 
     @Override
-    public T deserialize(JsonParser p, DeserializationContext ctxt) {
+    public T deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        // Objects and arrays are buffered once and replayed per candidate. Scalars stay on the
+        // reader path, which owns the String/Number/Boolean coercion order.
+        if (Jackson2BufferedValue.isStructured(p.currentToken())) {
+            return support.deserialize(Jackson2BufferedValue.read(p, ctxt, om));
+        }
         return support.deserialize(type -> ctxt.readValue(p, type));
     }
 }
@@ -1,21 +1,23 @@
 package io.github.pulpogato.common.jackson;
 
 import com.fasterxml.jackson.core.JsonGenerator;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.filter.FilteringGeneratorDelegate;
+import com.fasterxml.jackson.core.filter.TokenFilter;
+import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
 import com.fasterxml.jackson.databind.ser.std.StdSerializer;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.databind.util.NameTransformer;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import io.github.pulpogato.common.Mode;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.util.LinkedHashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import org.jspecify.annotations.Nullable;
 
 /**
@@ -34,8 +36,6 @@ public class Jackson2FancySerializer<T> extends StdSerializer<T> {
      */
     public record GettableField<T, X>(Class<X> type, NullableFunction<T, X> getter) {}
 
-    private static final ObjectMapper om = new ObjectMapper().registerModule(new JavaTimeModule());
-
     /**
      * Constructs a serializer
      *
@@ -102,20 +102,61 @@ public class Jackson2FancySerializer<T> extends StdSerializer<T> {
             return;
         }
 
-        var superMap = serialized.stream()
-                .map(x -> {
-                    try {
-                        final String string = om.writeValueAsString(x);
-                        return om.readValue(string, new TypeReference<Map<String, Object>>() {});
-                    } catch (JsonProcessingException ignored) {
-                        return null;
-                    }
-                })
-                .filter(Objects::nonNull)
-                .reduce(new LinkedHashMap<>(), (m1, m2) -> {
-                    m1.putAll(m2);
-                    return m1;
-                });
-        gen.writeObject(superMap);
+        serializeAllOf(value, serialized, gen, provider);
+    }
+
+    /**
+     * Writes the components of an {@code allOf} as one object, straight to the caller's generator and
+     * with the caller's configuration. Bean components are written through their unwrapping serializer,
+     * the same mechanism {@code @JsonUnwrapped} uses, so their properties land directly in the merged
+     * object. Anything else that serializes as an object (a map, another fancy type) is buffered and its
+     * properties copied across. Components that don't serialize as objects are skipped.
+     *
+     * <p>When components share a property, the first component that actually writes it wins. For data
+     * read from JSON the shared values are the same, since each component was read from the same object.
+     */
+    private void serializeAllOf(T value, List<?> components, JsonGenerator gen, SerializerProvider provider)
+            throws IOException {
+        gen.writeStartObject(value);
+        final var merged = new FilteringGeneratorDelegate(
+                gen, new FirstPropertyWins(), TokenFilter.Inclusion.INCLUDE_ALL_AND_PATH, true);
+        for (final var component : components) {
+            final var serializer = provider.findValueSerializer(component.getClass(), null);
+            final var unwrapping = serializer.unwrappingSerializer(NameTransformer.NOP);
+            if (unwrapping.isUnwrappingSerializer()) {
+                unwrapping.serialize(component, merged, provider);
+            } else {
+                copyProperties(component, serializer, merged, provider);
+            }
+        }
+        gen.writeEndObject();
+    }
+
+    private static void copyProperties(
+            Object component, JsonSerializer<Object> serializer, JsonGenerator merged, SerializerProvider provider)
+            throws IOException {
+        final var buffer = new TokenBuffer(merged.getCodec(), false);
+        serializer.serialize(component, buffer, provider);
+        try (var parser = buffer.asParser()) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                merged.copyCurrentStructure(parser);
+            }
+        }
+    }
+
+    /**
+     * Passes a top-level property through the first time its name is written and drops it, value and
+     * all, every time after that.
+     */
+    private static final class FirstPropertyWins extends TokenFilter {
+        private final Set<String> written = new HashSet<>();
+
+        @Override
+        public @Nullable TokenFilter includeProperty(String name) {
+            return written.add(name) ? TokenFilter.INCLUDE_ALL : null;
+        }
     }
 }
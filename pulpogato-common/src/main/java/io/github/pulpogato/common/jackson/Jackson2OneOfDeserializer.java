@@ -1,6 +1,7 @@
 package io.github.pulpogato.common.jackson;
 
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -15,10 +16,14 @@ import org.jspecify.annotations.Nullable;
 /**
  * A Jackson 2 deserializer for a non-discriminated {@code oneOf} modeled as a sealed interface.
  *
- * <p>With no discriminator property to route on, each candidate subtype is tried in declaration
- * order and the first that parses without unknown properties wins. This is the same disambiguation
- * the wrapper-based {@link Jackson2FancyDeserializer} performs in {@link io.github.pulpogato.common.Mode#ONE_OF},
- * but it yields the concrete subtype directly instead of a wrapper holding one field per branch.
+ * <p>With no discriminator property to route on, the object is buffered once and the first candidate
+ * subtype that parses without unknown properties wins. Candidates are tried in the order chosen by
+ * {@link OneOfCandidate}: a generated dispatch table lets the key that only one branch declares
+ * pick that branch, so a well-formed payload is parsed once rather than once per branch.
+ *
+ * <p>This is the same disambiguation the wrapper-based {@link Jackson2FancyDeserializer} performs in
+ * {@link io.github.pulpogato.common.Mode#ONE_OF}, but it yields the concrete subtype directly instead
+ * of a wrapper holding one field per branch.
  *
  * @param <T> The sealed interface type
  */
@@ -31,7 +36,7 @@ public class Jackson2OneOfDeserializer<T> extends StdDeserializer<T> {
             .registerModule(new JavaTimeModule())
             .enable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
 
-    private final transient List<Class<? extends T>> candidates;
+    private final transient List<OneOfCandidate<? extends T>> table;
 
     /**
      * Constructs a deserializer.
@@ -41,17 +46,37 @@ public class Jackson2OneOfDeserializer<T> extends StdDeserializer<T> {
      */
     public Jackson2OneOfDeserializer(Class<T> vc, List<Class<? extends T>> candidates) {
         super(vc);
-        this.candidates = candidates;
+        this.table = candidates.stream()
+                .<OneOfCandidate<? extends T>>map(OneOfCandidate::of)
+                .toList();
+    }
+
+    /**
+     * Constructs a deserializer from a dispatch table.
+     *
+     * @param vc    The sealed interface type
+     * @param table The permitted subtypes with their required and unique property names, in
+     *              declaration order
+     */
+    @SafeVarargs
+    public Jackson2OneOfDeserializer(Class<T> vc, OneOfCandidate<? extends T>... table) {
+        super(vc);
+        this.table = List.of(table);
     }
 
     @Override
     @Nullable
     public T deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
-        final var map = ctxt.readValue(p, Map.class);
-        final var json = om.writeValueAsString(map);
-        for (final var candidate : candidates) {
+        final var token = p.currentToken();
+        if (token != JsonToken.START_OBJECT && token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+            // Not an object: let Jackson report the mismatch exactly as it would for a Map.
+            ctxt.readValue(p, Map.class);
+            return null;
+        }
+        final var value = Jackson2BufferedValue.read(p, ctxt, om);
+        for (final var candidate : OneOfCandidate.order(table, value)) {
             try {
-                return om.readValue(json, candidate);
+                return candidate.cast(value.readValue(candidate));
             } catch (Exception e) {
                 log.debug("Candidate {} did not match, trying next", candidate.getSimpleName(), e);
             }
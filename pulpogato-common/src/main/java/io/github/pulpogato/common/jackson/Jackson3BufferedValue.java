@@ -0,0 +1,74 @@
+package io.github.pulpogato.common.jackson;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.ObjectReadContext;
+import tools.jackson.databind.DeserializationContext;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.util.TokenBuffer;
+
+/**
+ * Jackson 3 {@link FancyDeserializerSupport.BufferedValue}: the tokens of one object or array copied
+ * into a {@link TokenBuffer}, replayed through the strict mapper once per candidate.
+ *
+ * @param shape         the shape of the value
+ * @param propertyNames the top-level property names of an object
+ * @param buffer        the buffered tokens
+ * @param mapper        the mapper that reads the candidates
+ */
+record Jackson3BufferedValue(
+        FancyDeserializerSupport.ValueShape shape, Set<String> propertyNames, TokenBuffer buffer, ObjectMapper mapper)
+        implements FancyDeserializerSupport.BufferedValue {
+
+    /**
+     * Checks whether the parser is positioned on an object or array that {@link #read} can buffer.
+     *
+     * @param token the current token
+     * @return true for objects and arrays
+     */
+    static boolean isStructured(JsonToken token) {
+        return token == JsonToken.START_OBJECT
+                || token == JsonToken.PROPERTY_NAME
+                || token == JsonToken.END_OBJECT
+                || token == JsonToken.START_ARRAY;
+    }
+
+    /**
+     * Copies the current object or array off the parser, collecting top-level property names on the
+     * way so that no second pass is needed to inspect them.
+     *
+     * @param p      the parser, positioned on a token accepted by {@link #isStructured}
+     * @param ctxt   the deserialization context
+     * @param mapper the mapper that reads the candidates
+     * @return the buffered value
+     */
+    static Jackson3BufferedValue read(JsonParser p, DeserializationContext ctxt, ObjectMapper mapper) {
+        var token = p.currentToken();
+        if (token == JsonToken.START_ARRAY) {
+            return new Jackson3BufferedValue(
+                    FancyDeserializerSupport.ValueShape.ARRAY, Set.of(), ctxt.bufferAsCopyOfValue(p), mapper);
+        }
+        if (token == JsonToken.START_OBJECT) {
+            token = p.nextToken();
+        }
+        var names = new LinkedHashSet<String>();
+        var buffer = ctxt.bufferForInputBuffering(p);
+        buffer.writeStartObject();
+        while (token == JsonToken.PROPERTY_NAME) {
+            names.add(p.currentName());
+            buffer.copyCurrentStructure(p);
+            token = p.nextToken();
+        }
+        buffer.writeEndObject();
+        return new Jackson3BufferedValue(FancyDeserializerSupport.ValueShape.OBJECT, names, buffer, mapper);
+    }
+
+    @Override
+    public Object readValue(Class<?> type) {
+        try (var parser = buffer.asParser(ObjectReadContext.empty())) {
+            return mapper.readValue(parser, type);
+        }
+    }
+}
@@ -49,6 +49,11 @@ public class Jackson3FancyDeserializer<T> extends StdDeserializer<T> {
 
     @Override
     public T deserialize(JsonParser p, DeserializationContext ctxt) {
+        // Objects and arrays are buffered once and replayed per candidate. Scalars stay on the
+        // reader path, which owns the String/Number/Boolean coercion order.
+        if (Jackson3BufferedValue.isStructured(p.currentToken())) {
+            return support.deserialize(Jackson3BufferedValue.read(p, ctxt, om));
+        }
         return support.deserialize(type -> ctxt.readValue(p, type));
     }
 }
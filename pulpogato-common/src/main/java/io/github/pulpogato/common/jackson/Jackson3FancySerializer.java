@@ -3,17 +3,22 @@ package io.github.pulpogato.common.jackson;
 import io.github.pulpogato.common.Mode;
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.util.LinkedHashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import org.jspecify.annotations.Nullable;
 import tools.jackson.core.JsonGenerator;
-import tools.jackson.core.type.TypeReference;
-import tools.jackson.databind.ObjectMapper;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.ObjectReadContext;
+import tools.jackson.core.filter.FilteringGeneratorDelegate;
+import tools.jackson.core.filter.TokenFilter;
 import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.ValueSerializer;
 import tools.jackson.databind.jsontype.TypeSerializer;
 import tools.jackson.databind.ser.std.StdSerializer;
+import tools.jackson.databind.util.NameTransformer;
+import tools.jackson.databind.util.TokenBuffer;
 
 /**
  * A serializer that can handle <code>anyOf</code>, <code>allOf</code>, and <code>oneOf</code>.
@@ -31,8 +36,6 @@ public class Jackson3FancySerializer<T> extends StdSerializer<T> {
      */
     public record GettableField<T, X>(Class<X> type, NullableFunction<T, X> getter) {}
 
-    private static final ObjectMapper om = new ObjectMapper();
-
     /**
      * Constructs a serializer
      *
@@ -98,16 +101,59 @@ public class Jackson3FancySerializer<T> extends StdSerializer<T> {
             return;
         }
 
-        var superMap = serialized.stream()
-                .map(x -> {
-                    final String string = om.writeValueAsString(x);
-                    return om.readValue(string, new TypeReference<Map<String, Object>>() {});
-                })
-                .filter(Objects::nonNull)
-                .reduce(new LinkedHashMap<>(), (m1, m2) -> {
-                    m1.putAll(m2);
-                    return m1;
-                });
-        gen.writePOJO(superMap);
+        serializeAllOf(value, serialized, gen, provider);
+    }
+
+    /**
+     * Writes the components of an {@code allOf} as one object, straight to the caller's generator and
+     * with the caller's configuration. Bean components are written through their unwrapping serializer,
+     * the same mechanism {@code @JsonUnwrapped} uses, so their properties land directly in the merged
+     * object. Anything else that serializes as an object (a map, another fancy type) is buffered and its
+     * properties copied across. Components that don't serialize as objects are skipped.
+     *
+     * <p>When components share a property, the first component that actually writes it wins. For data
+     * read from JSON the shared values are the same, since each component was read from the same object.
+     */
+    private void serializeAllOf(T value, List<?> components, JsonGenerator gen, SerializationContext provider) {
+        gen.writeStartObject(value);
+        final var merged = new FilteringGeneratorDelegate(
+                gen, new FirstPropertyWins(), TokenFilter.Inclusion.INCLUDE_ALL_AND_PATH, true);
+        for (final var component : components) {
+            final var serializer = provider.findRootValueSerializer(component.getClass());
+            final var unwrapping = serializer.unwrappingSerializer(NameTransformer.NOP);
+            if (unwrapping.isUnwrappingSerializer()) {
+                unwrapping.serialize(component, merged, provider);
+            } else {
+                copyProperties(component, serializer, merged, provider);
+            }
+        }
+        gen.writeEndObject();
+    }
+
+    private static void copyProperties(
+            Object component, ValueSerializer<Object> serializer, JsonGenerator merged, SerializationContext provider) {
+        final var buffer = TokenBuffer.forGeneration();
+        serializer.serialize(component, buffer, provider);
+        try (var parser = buffer.asParser(ObjectReadContext.empty())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return;
+            }
+            while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+                merged.copyCurrentStructure(parser);
+            }
+        }
+    }
+
+    /**
+     * Passes a top-level property through the first time its name is written and drops it, value and
+     * all, every time after that.
+     */
+    private static final class FirstPropertyWins extends TokenFilter {
+        private final Set<String> written = new HashSet<>();
+
+        @Override
+        public @Nullable TokenFilter includeProperty(String name) {
+            return written.add(name) ? TokenFilter.INCLUDE_ALL : null;
+        }
     }
 }
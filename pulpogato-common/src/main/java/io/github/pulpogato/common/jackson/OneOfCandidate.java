@@ -0,0 +1,79 @@
+package io.github.pulpogato.common.jackson;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * One row of the dispatch table for a non-discriminated {@code oneOf}, generated from the member's
+ * schema so the deserializer can pick a branch from an object's keys instead of parsing every branch.
+ *
+ * @param type     The candidate subtype
+ * @param required The property names the candidate's schema marks as required
+ * @param unique   The property names no other candidate in the same {@code oneOf} declares. Empty when
+ *                 the codegen could not determine every member's properties.
+ * @param <T>      The candidate subtype
+ */
+public record OneOfCandidate<T>(Class<T> type, Set<String> required, Set<String> unique) {
+
+    /**
+     * Creates a candidate with no dispatch hints, used when only the candidate types are known.
+     *
+     * @param type The candidate subtype
+     * @param <T>  The candidate subtype
+     * @return A candidate that is ranked purely by declaration order
+     */
+    public static <T> OneOfCandidate<T> of(Class<T> type) {
+        return new OneOfCandidate<>(type, Set.of(), Set.of());
+    }
+
+    /**
+     * Orders the candidates for a buffered value, most likely first.
+     *
+     * <ol>
+     *   <li>Candidates that declare a key only they declare. For a valid payload there is one.</li>
+     *   <li>Candidates whose required properties are all present.</li>
+     *   <li>Everything else, so a schema that under-declares {@code required} still gets a chance.</li>
+     * </ol>
+     *
+     * <p>Within each tier declaration order is kept, and candidates whose declared properties can't
+     * cover the keys are dropped, since the strict mapper would reject them anyway. The result only
+     * decides the order of attempts; the first candidate that actually parses still wins.
+     *
+     * @param table The dispatch table
+     * @param value The buffered object
+     * @param <T>   The sealed interface type
+     * @return The candidate types to try, in order
+     */
+    static <T> List<Class<? extends T>> order(
+            List<OneOfCandidate<? extends T>> table, FancyDeserializerSupport.BufferedValue value) {
+        final var keys = value.propertyNames();
+        final var byUnique = new ArrayList<Class<? extends T>>(1);
+        final var byRequired = new ArrayList<Class<? extends T>>(table.size());
+        final var rest = new ArrayList<Class<? extends T>>(table.size());
+        for (final var candidate : table) {
+            if (!CandidateProfile.of(candidate.type()).accepts(value)) {
+                continue;
+            }
+            if (containsAny(keys, candidate.unique())) {
+                byUnique.add(candidate.type());
+            } else if (keys.containsAll(candidate.required())) {
+                byRequired.add(candidate.type());
+            } else {
+                rest.add(candidate.type());
+            }
+        }
+        byUnique.addAll(byRequired);
+        byUnique.addAll(rest);
+        return byUnique;
+    }
+
+    private static boolean containsAny(Set<String> keys, Set<String> names) {
+        for (final var name : names) {
+            if (keys.contains(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
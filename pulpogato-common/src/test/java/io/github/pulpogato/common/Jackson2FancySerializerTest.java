@@ -0,0 +1,130 @@
+package io.github.pulpogato.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import io.github.pulpogato.common.jackson.Jackson2FancySerializer;
+import io.github.pulpogato.common.jackson.Jackson2FancySerializer.GettableField;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class Jackson2FancySerializerTest {
+
+    @JsonPropertyOrder({"name", "shared"})
+    static class Named {
+        @JsonProperty("name")
+        public String name;
+
+        @JsonProperty("shared")
+        public String shared;
+
+        Named(String name, String shared) {
+            this.name = name;
+            this.shared = shared;
+        }
+    }
+
+    @JsonPropertyOrder({"size", "shared"})
+    static class Sized {
+        @JsonProperty("size")
+        public int size;
+
+        @JsonProperty("shared")
+        public String shared;
+
+        Sized(int size, String shared) {
+            this.size = size;
+            this.shared = shared;
+        }
+    }
+
+    @JsonSerialize(using = Combined.Serializer.class)
+    static class Combined {
+        Named named;
+        Sized sized;
+        Map<String, Object> extra;
+
+        static class Serializer extends Jackson2FancySerializer<Combined> {
+            public Serializer() {
+                super(
+                        Combined.class,
+                        Mode.ALL_OF,
+                        List.of(
+                                new GettableField<>(Named.class, c -> c.named),
+                                new GettableField<>(Sized.class, c -> c.sized),
+                                new GettableField<>(Map.class, c -> c.extra)));
+            }
+        }
+    }
+
+    private final ObjectMapper om = new ObjectMapper();
+
+    @Nested
+    class AllOf {
+        @Test
+        void mergesComponentPropertiesIntoOneObject() throws Exception {
+            var combined = new Combined();
+            combined.named = new Named("widget", "same");
+            combined.sized = new Sized(3, "same");
+
+            assertThat(om.writeValueAsString(combined))
+                    .isEqualTo("{\"name\":\"widget\",\"shared\":\"same\",\"size\":3}");
+        }
+
+        @Test
+        void writesSharedPropertiesOnce() throws Exception {
+            var combined = new Combined();
+            combined.named = new Named("widget", "first");
+            combined.sized = new Sized(3, "second");
+
+            assertThat(om.writeValueAsString(combined))
+                    .isEqualTo("{\"name\":\"widget\",\"shared\":\"first\",\"size\":3}");
+        }
+
+        @Test
+        void mergesMapComponents() throws Exception {
+            var combined = new Combined();
+            combined.sized = new Sized(3, null);
+            combined.extra = new LinkedHashMap<>(Map.of("size", 4));
+            combined.extra.put("color", "red");
+
+            assertThat(om.writeValueAsString(combined)).isEqualTo("{\"size\":3,\"shared\":null,\"color\":\"red\"}");
+        }
+
+        @Test
+        void usesTheCallersConfiguration() throws Exception {
+            // With nulls left out, the first component that actually writes "shared" provides it.
+            var nonNull = new ObjectMapper().setDefaultPropertyInclusion(JsonInclude.Include.NON_NULL);
+            var combined = new Combined();
+            combined.named = new Named("widget", null);
+            combined.sized = new Sized(3, "second");
+
+            assertThat(nonNull.writeValueAsString(combined))
+                    .isEqualTo("{\"name\":\"widget\",\"size\":3,\"shared\":\"second\"}");
+        }
+
+        @Test
+        void writesAnEmptyObjectWhenNoComponentIsSet() throws Exception {
+            assertThat(om.writeValueAsString(new Combined())).isEqualTo("{}");
+        }
+
+        @Test
+        void nestsInsideOtherObjects() throws Exception {
+            var combined = new Combined();
+            combined.sized = new Sized(1, "x");
+
+            var outer = new LinkedHashMap<String, Object>();
+            outer.put("value", combined);
+            outer.put("other", 1);
+
+            assertThat(om.writeValueAsString(outer)).isEqualTo("{\"value\":{\"size\":1,\"shared\":\"x\"},\"other\":1}");
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package io.github.pulpogato.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.github.pulpogato.common.jackson.FancyDeserializerSupport.SettableField;
+import io.github.pulpogato.common.jackson.Jackson3FancyDeserializer;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.annotation.JsonDeserialize;
+import tools.jackson.databind.json.JsonMapper;
+
+class Jackson3FancyDeserializerTest {
+
+    static class Circle {
+        @JsonProperty("radius")
+        public double radius;
+    }
+
+    static class Square {
+        @JsonProperty("side")
+        public double side;
+
+        @JsonProperty("rotation_degrees")
+        public double rotationDegrees;
+    }
+
+    @JsonDeserialize(using = OneOfShape.Deserializer.class)
+    static class OneOfShape {
+        Circle circle;
+        Square square;
+        List<Object> list;
+        Object other;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        static class Deserializer extends Jackson3FancyDeserializer<OneOfShape> {
+            public Deserializer() {
+                super(
+                        OneOfShape.class,
+                        OneOfShape::new,
+                        Mode.ONE_OF,
+                        List.of(
+                                new SettableField<>(Circle.class, (o, v) -> o.circle = v),
+                                new SettableField<>(Square.class, (o, v) -> o.square = v),
+                                new SettableField<>(List.class, (o, v) -> o.list = v),
+                                new SettableField<>(Object.class, (o, v) -> o.other = v)));
+            }
+        }
+    }
+
+    @JsonDeserialize(using = AnyOfShape.Deserializer.class)
+    static class AnyOfShape {
+        Circle circle;
+        Map<String, Object> map;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        static class Deserializer extends Jackson3FancyDeserializer<AnyOfShape> {
+            public Deserializer() {
+                super(
+                        AnyOfShape.class,
+                        AnyOfShape::new,
+                        Mode.ANY_OF,
+                        List.of(
+                                new SettableField<>(Circle.class, (o, v) -> o.circle = v),
+                                new SettableField<>(Map.class, (o, v) -> o.map = v)));
+            }
+        }
+    }
+
+    private final JsonMapper om = new JsonMapper();
+
+    @Nested
+    class OneOf {
+        @Test
+        void picksCandidateByPropertyNames() {
+            var result = om.readValue("{\"side\":2.0,\"rotation_degrees\":45}", OneOfShape.class);
+
+            assertThat(result.square).isNotNull();
+            assertThat(result.square.side).isEqualTo(2.0);
+            assertThat(result.square.rotationDegrees).isEqualTo(45.0);
+            assertThat(result.circle).isNull();
+            assertThat(result.other).isNull();
+        }
+
+        @Test
+        void firstCandidateWinsWhenBothCouldMatch() {
+            var result = om.readValue("{}", OneOfShape.class);
+
+            assertThat(result.circle).isNotNull();
+            assertThat(result.square).isNull();
+        }
+
+        @Test
+        void arraysGoToTheCollectionCandidate() {
+            var result = om.readValue("[1,{\"a\":true}]", OneOfShape.class);
+
+            assertThat(result.list).containsExactly(1, Map.of("a", true));
+            assertThat(result.circle).isNull();
+            assertThat(result.other).isNull();
+        }
+
+        @Test
+        void fallsBackToObjectWhenNoCandidateDeclaresTheProperties() {
+            var result = om.readValue("{\"radius\":1.0,\"side\":2.0}", OneOfShape.class);
+
+            assertThat(result.circle).isNull();
+            assertThat(result.square).isNull();
+            assertThat(result.other).isEqualTo(Map.of("radius", 1.0, "side", 2.0));
+        }
+
+        @Test
+        void leavesTheParserAfterTheValue() {
+            List<OneOfShape> result = om.readValue(
+                    "[{\"radius\":1.0},{\"side\":2.0}]",
+                    om.getTypeFactory().constructCollectionType(List.class, OneOfShape.class));
+
+            assertThat(result).hasSize(2);
+            assertThat(result.get(0).circle.radius).isEqualTo(1.0);
+            assertThat(result.get(1).square.side).isEqualTo(2.0);
+        }
+
+        @Test
+        void scalarsStillUseTheObjectFallback() {
+            var result = om.readValue("\"hello\"", OneOfShape.class);
+
+            assertThat(result.other).isEqualTo("hello");
+        }
+    }
+
+    @Nested
+    class AnyOf {
+        @Test
+        void setsEveryCandidateThatAccepts() {
+            var result = om.readValue("{\"radius\":3.0}", AnyOfShape.class);
+
+            assertThat(result.circle).isNotNull();
+            assertThat(result.circle.radius).isEqualTo(3.0);
+            assertThat(result.map).containsEntry("radius", 3.0);
+        }
+
+        @Test
+        void skipsCandidatesThatDoNotDeclareTheProperties() {
+            var result = om.readValue("{\"diameter\":3.0}", AnyOfShape.class);
+
+            assertThat(result.circle).isNull();
+            assertThat(result.map).containsEntry("diameter", 3.0);
+        }
+    }
+}
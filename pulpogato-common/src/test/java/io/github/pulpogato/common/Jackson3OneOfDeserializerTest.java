@@ -4,7 +4,9 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.github.pulpogato.common.jackson.Jackson3OneOfDeserializer;
+import io.github.pulpogato.common.jackson.OneOfCandidate;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -37,10 +39,26 @@ class Jackson3OneOfDeserializerTest {
         }
     }
 
+    static class TableShapeDeserializer extends Jackson3OneOfDeserializer<Shape> {
+        public TableShapeDeserializer() {
+            super(
+                    Shape.class,
+                    new OneOfCandidate<>(Circle.class, Set.of("radius"), Set.of("radius")),
+                    new OneOfCandidate<>(Square.class, Set.of(), Set.of("side")));
+        }
+    }
+
     static class Wrapper {
         public Shape shape;
     }
 
+    static class TableWrapper {
+        @JsonDeserialize(using = TableShapeDeserializer.class)
+        public Shape shape;
+
+        public String after;
+    }
+
     static Stream<Arguments> correctBranchParams() {
         return Stream.of(
                 Arguments.of("{\"shape\":{\"radius\":3.0}}", Circle.class, 3.0, 0.0),
@@ -76,4 +94,27 @@ class Jackson3OneOfDeserializerTest {
         var result = om.readValue("{\"shape\":{\"unknown_field\":true}}", Wrapper.class);
         assertThat(result.shape).isNull();
     }
+
+    @Test
+    void tableRanksCandidatesWhoseRequiredPropertiesArePresent() {
+        // Circle requires radius, so an empty object goes to Square even though Circle comes first.
+        var om = new ObjectMapper();
+        var result = om.readValue("{\"shape\":{}}", TableWrapper.class);
+        assertThat(result.shape).isInstanceOf(Square.class);
+    }
+
+    @Test
+    void tableRoutesByUniquePropertyAndLeavesParserAfterTheObject() {
+        var om = new ObjectMapper();
+        var result = om.readValue("{\"shape\":{\"side\":2.0},\"after\":\"x\"}", TableWrapper.class);
+        assertThat(result.shape).isEqualTo(new Square(2.0));
+        assertThat(result.after).isEqualTo("x");
+    }
+
+    @Test
+    void tableReturnsNullWhenNoCandidateDeclaresTheProperties() {
+        var om = new ObjectMapper();
+        var result = om.readValue("{\"shape\":{\"radius\":1.0,\"side\":2.0}}", TableWrapper.class);
+        assertThat(result.shape).isNull();
+    }
 }
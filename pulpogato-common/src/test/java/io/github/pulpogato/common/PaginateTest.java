@@ -6,9 +6,17 @@ import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiPredicate;
+import java.util.function.Function;
 import java.util.function.LongFunction;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -19,6 +27,10 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
@@ -44,6 +56,14 @@ class PaginateTest {
         return new ResponseEntity<>(items, headers, HttpStatus.OK);
     }
 
+    private static ResponseEntity<List<String>> withCacheStatus(List<String> items, String link, String status) {
+        var response = withLink(items, link);
+        var headers = new HttpHeaders();
+        headers.addAll(response.getHeaders());
+        headers.add("X-Pulpogato-Cache", status);
+        return new ResponseEntity<>(items, headers, HttpStatus.OK);
+    }
+
     @Nested
     @DisplayName("from(maxPages, fetchPage, extractItems, totalPages)")
     class TotalPagesBased {
@@ -359,6 +379,593 @@ class PaginateTest {
         }
     }
 
+    @Nested
+    @DisplayName("fromLinkHeaderCached(maxPages, fetchPage, ...)")
+    class LinkHeaderCached {
+
+        private static final String NEXT = "<url>; rel=\"next\"";
+
+        @Mock
+        private LongFunction<ResponseEntity<List<String>>> fetchPage;
+
+        @Mock
+        private LongFunction<ResponseEntity<List<String>>> replayPage;
+
+        @Test
+        @DisplayName("Should report where each page came from")
+        void reportsSources() {
+            var paginate = new Paginate();
+            when(fetchPage.apply(1L)).thenReturn(withCacheStatus(List.of("1"), NEXT, "MISS"));
+            when(fetchPage.apply(2L)).thenReturn(withCacheStatus(List.of("2"), NEXT, "REVALIDATED"));
+            when(fetchPage.apply(3L)).thenReturn(withCacheStatus(List.of("3"), null, "HIT"));
+
+            var result = paginate.fromLinkHeaderCached(10, fetchPage, true).toList();
+
+            assertThat(result)
+                    .containsExactly(
+                            new CachedPage<>(1, List.of("1"), CachedPage.Source.NEW),
+                            new CachedPage<>(2, List.of("2"), CachedPage.Source.REVALIDATED),
+                            new CachedPage<>(3, List.of("3"), CachedPage.Source.CACHED));
+        }
+
+        @Test
+        @DisplayName("Should stop after an unchanged first page when asked to")
+        void stopsWhenUnchanged() {
+            var paginate = new Paginate();
+            when(fetchPage.apply(1L)).thenReturn(withCacheStatus(List.of("1"), NEXT, "REVALIDATED"));
+
+            var result = paginate.fromLinkHeaderCached(10, fetchPage, true).toList();
+
+            assertThat(result).containsExactly(new CachedPage<>(1, List.of("1"), CachedPage.Source.REVALIDATED));
+            verify(fetchPage, never()).apply(2L);
+        }
+
+        @Test
+        @DisplayName("Should keep fetching after an unchanged first page otherwise")
+        void continuesWhenUnchanged() {
+            var paginate = new Paginate();
+            when(fetchPage.apply(1L)).thenReturn(withCacheStatus(List.of("1"), NEXT, "HIT"));
+            when(fetchPage.apply(2L)).thenReturn(withCacheStatus(List.of("2"), null, "MISS"));
+
+            var result = paginate.fromLinkHeaderCached(10, fetchPage, false).map(CachedPage::items);
+
+            assertThat(result).containsExactly(List.of("1"), List.of("2"));
+        }
+
+        @Test
+        @DisplayName("Should replay later pages only when the first page is unchanged")
+        void replaysWhenUnchanged() {
+            var paginate = new Paginate();
+            when(fetchPage.apply(1L)).thenReturn(withCacheStatus(List.of("1"), NEXT, "REVALIDATED"));
+            when(replayPage.apply(2L)).thenReturn(withCacheStatus(List.of("2"), null, "STALE"));
+
+            var result = paginate.fromLinkHeaderCached(10, fetchPage, replayPage).toList();
+
+            assertThat(result).extracting(CachedPage::source)
+                    .containsExactly(CachedPage.Source.REVALIDATED, CachedPage.Source.CACHED);
+            verify(fetchPage, never()).apply(2L);
+        }
+
+        @Test
+        @DisplayName("Should not replay after a changed first page")
+        void fetchesWhenChanged() {
+            var paginate = new Paginate();
+            when(fetchPage.apply(1L)).thenReturn(withCacheStatus(List.of("1"), NEXT, "INVALIDATED"));
+            when(fetchPage.apply(2L)).thenReturn(withLink(List.of("2"), null));
+
+            var result = paginate.fromLinkHeaderCached(10, fetchPage, replayPage).toList();
+
+            assertThat(result).extracting(CachedPage::source)
+                    .containsExactly(CachedPage.Source.NEW, CachedPage.Source.NEW);
+            verify(replayPage, never()).apply(2L);
+        }
+
+        @Test
+        @DisplayName("Should replay reactively when the first page is unchanged")
+        void replaysReactively() {
+            var paginate = new Paginate();
+            LongFunction<Mono<ResponseEntity<List<String>>>> fetch =
+                    page -> Mono.just(withCacheStatus(List.of(String.valueOf(page)), NEXT, "HIT"));
+            LongFunction<Mono<ResponseEntity<List<String>>>> replay =
+                    page -> Mono.just(withCacheStatus(List.of("r" + page), null, "STALE"));
+
+            var result = paginate.fromLinkHeaderCachedReactive(10, fetch, replay).map(CachedPage::items);
+
+            StepVerifier.create(result).expectNext(List.of("1"), List.of("r2")).verifyComplete();
+        }
+
+        @Test
+        @DisplayName("Should stop reactively after an unchanged first page when asked to")
+        void stopsReactively() {
+            var paginate = new Paginate();
+            LongFunction<Mono<ResponseEntity<List<String>>>> fetch =
+                    page -> Mono.just(withCacheStatus(List.of(String.valueOf(page)), NEXT, "REVALIDATED"));
+
+            var result = paginate.fromLinkHeaderCachedReactive(10, fetch, true).map(CachedPage::page);
+
+            StepVerifier.create(result).expectNext(1L).verifyComplete();
+        }
+    }
+
+    @Nested
+    @DisplayName("fromAdaptive(maxPages, fetchPage)")
+    class Adaptive {
+
+        private static final List<Integer> ITEMS = IntStream.range(0, 250).boxed().toList();
+
+        private final List<String> requests = new ArrayList<>();
+
+        /**
+         * Serves {@link #ITEMS}, failing with {@code heavy} for any page of more than 50 past the first 100 items.
+         */
+        private List<Integer> fetch(long page, int perPage, RuntimeException heavy) {
+            requests.add(page + "x" + perPage);
+            var from = (int) ((page - 1) * perPage);
+            if (perPage > 50 && from >= 100) {
+                throw heavy;
+            }
+            return ITEMS.subList(Math.min(from, ITEMS.size()), Math.min(from + perPage, ITEMS.size()));
+        }
+
+        @Test
+        @DisplayName("Should request full pages and stop on a short page without an extra request")
+        void stopsOnShortPage() {
+            var items = ITEMS.subList(0, 150);
+
+            var result = new Paginate().fromAdaptive(10, (page, perPage) -> {
+                requests.add(page + "x" + perPage);
+                var from = (int) ((page - 1) * perPage);
+                return items.subList(from, Math.min(from + perPage, items.size()));
+            });
+
+            assertThat(result).containsExactlyElementsOf(items);
+            assertThat(requests).containsExactly("1x100", "2x100");
+        }
+
+        @Test
+        @DisplayName("Should shrink the page size when a page is too heavy, without skipping or repeating items")
+        void shrinksOnBadGateway() {
+            var badGateway = HttpServerErrorException.create(
+                    HttpStatus.BAD_GATEWAY, "Bad Gateway", new HttpHeaders(), new byte[0], null);
+
+            var result = new Paginate().fromAdaptive(10, (page, perPage) -> fetch(page, perPage, badGateway));
+
+            assertThat(result).containsExactlyElementsOf(ITEMS);
+            assertThat(requests).containsExactly("1x100", "2x100", "3x50", "4x50", "5x50", "6x50");
+        }
+
+        @Test
+        @DisplayName("Should rethrow failures that aren't about page weight")
+        void rethrowsOtherFailures() {
+            var notFound = HttpClientErrorException.create(
+                    HttpStatus.NOT_FOUND, "Not Found", new HttpHeaders(), new byte[0], null);
+
+            var result = new Paginate().fromAdaptive(10, (page, perPage) -> fetch(page, perPage, notFound));
+
+            assertThatThrownBy(result::toList).isSameAs(notFound);
+            assertThat(requests).containsExactly("1x100", "2x100");
+        }
+
+        @Test
+        @DisplayName("Should treat gateway errors and timeouts as too heavy")
+        void overloaded() {
+            assertThat(Paginate.isOverloaded(
+                            new ResourceAccessException("I/O error", new SocketTimeoutException("Read timed out"))))
+                    .isTrue();
+            assertThat(Paginate.isOverloaded(new IllegalStateException(new TimeoutException())))
+                    .isTrue();
+            assertThat(Paginate.isOverloaded(WebClientResponseException.create(
+                            HttpStatus.GATEWAY_TIMEOUT, "Gateway Timeout", new HttpHeaders(), new byte[0], null, null)))
+                    .isTrue();
+            assertThat(Paginate.isOverloaded(HttpServerErrorException.create(
+                            HttpStatus.INTERNAL_SERVER_ERROR, "Error", new HttpHeaders(), new byte[0], null)))
+                    .isFalse();
+        }
+
+        @Test
+        @DisplayName("Should shrink the page size when a page is too heavy reactively")
+        void shrinksOnBadGatewayReactive() {
+            var badGateway = WebClientResponseException.create(
+                    HttpStatus.BAD_GATEWAY, "Bad Gateway", new HttpHeaders(), new byte[0], null, null);
+
+            StepVerifier.create(new Paginate()
+                            .fromAdaptiveReactive(
+                                    10, (page, perPage) -> Mono.fromCallable(() -> fetch(page, perPage, badGateway))))
+                    .expectNextSequence(ITEMS)
+                    .verifyComplete();
+            assertThat(requests).containsExactly("1x100", "2x100", "3x50", "4x50", "5x50", "6x50");
+        }
+    }
+
+    @Nested
+    @DisplayName("fromCursor / fromSince / fromLinkHeaderCursor")
+    class CursorBased {
+
+        record CursorResponse(List<String> items, String endCursor) {}
+
+        private static CursorResponse cursorPage(String cursor) {
+            return switch (cursor == null ? "" : cursor) {
+                case "" -> new CursorResponse(List.of("1", "2"), "c1");
+                case "c1" -> new CursorResponse(List.of("3", "4"), "c2");
+                case "c2" -> new CursorResponse(List.of("5"), null);
+                default -> throw new IllegalArgumentException(cursor);
+            };
+        }
+
+        @Test
+        @DisplayName("Should follow cursors until there is no next cursor")
+        void followsCursors() {
+            var result = new Paginate()
+                    .fromCursor(10, CursorBased::cursorPage, r -> r.items().stream(), CursorResponse::endCursor);
+            assertThat(result).containsExactly("1", "2", "3", "4", "5");
+        }
+
+        @Test
+        @DisplayName("Should respect max pages limit")
+        void limitPages() {
+            var result = new Paginate()
+                    .fromCursor(2, CursorBased::cursorPage, r -> r.items().stream(), CursorResponse::endCursor);
+            assertThat(result).containsExactly("1", "2", "3", "4");
+        }
+
+        @Test
+        @DisplayName("Should fetch pages lazily")
+        void lazy() {
+            var fetched = new ArrayList<String>();
+            Function<String, CursorResponse> fetchPage = cursor -> {
+                fetched.add(String.valueOf(cursor));
+                return cursorPage(cursor);
+            };
+
+            var result = new Paginate()
+                    .fromCursor(10, fetchPage, r -> r.items().stream(), CursorResponse::endCursor)
+                    .limit(3)
+                    .toList();
+            assertThat(result).containsExactly("1", "2", "3");
+            assertThat(fetched).containsExactly("null", "c1");
+        }
+
+        @Test
+        @DisplayName("Should pass the id of the last item seen as since")
+        void since() {
+            var seen = new ArrayList<Long>();
+            LongFunction<List<Long>> fetchPage = since -> {
+                seen.add(since);
+                return since < 6 ? List.of(since + 1, since + 3) : List.of();
+            };
+
+            var result = new Paginate().fromSince(10, fetchPage, Long::longValue);
+            assertThat(result).containsExactly(1L, 3L, 4L, 6L);
+            assertThat(seen).containsExactly(0L, 3L, 6L);
+        }
+
+        @Test
+        @DisplayName("Should read the cursor from the rel=\"next\" link")
+        void linkHeaderCursor() {
+            Function<String, ResponseEntity<List<String>>> fetchPage = cursor -> cursor == null
+                    ? withLink(
+                            List.of("1", "2"),
+                            "<https://api.github.com/orgs/o/audit-log?per_page=2&after=MS4yNQ%3D%3D>; rel=\"next\"")
+                    : withLink(List.of("after=" + cursor), null);
+
+            var result = new Paginate().fromLinkHeaderCursor(10, fetchPage, "after");
+            assertThat(result).containsExactly("1", "2", "after=MS4yNQ==");
+        }
+
+        @Test
+        @DisplayName("Should follow cursors reactively")
+        void followsCursorsReactive() {
+            Function<String, Mono<CursorResponse>> fetchPage = cursor -> Mono.just(cursorPage(cursor));
+
+            StepVerifier.create(new Paginate()
+                            .fromCursorReactive(
+                                    10, fetchPage, r -> Flux.fromIterable(r.items()), CursorResponse::endCursor))
+                    .expectNext("1", "2", "3", "4", "5")
+                    .verifyComplete();
+        }
+
+        @Test
+        @DisplayName("Should pass the id of the last item seen as since reactively")
+        void sinceReactive() {
+            LongFunction<Mono<List<Long>>> fetchPage =
+                    since -> Mono.just(since < 6 ? List.of(since + 1, since + 3) : List.of());
+
+            StepVerifier.create(new Paginate().fromSinceReactive(10, fetchPage, Long::longValue))
+                    .expectNext(1L, 3L, 4L, 6L)
+                    .verifyComplete();
+        }
+    }
+
+    @Nested
+    @DisplayName("fromLinkHeaderResumable / fromLinkHeaderCursorResumable")
+    class Resumable {
+
+        private static final PageRetry RETRY =
+                PageRetry.backoff(3, Duration.ZERO, IllegalStateException.class::isInstance);
+
+        private static ResponseEntity<List<String>> page(long page, long lastPage) {
+            var headers = new HttpHeaders();
+            headers.setETag("\"etag-" + page + "\"");
+            if (page < lastPage) {
+                headers.add("Link", "<https://api.github.com/orgs/o/repos?page=" + (page + 1) + ">; rel=\"next\"");
+            }
+            return new ResponseEntity<>(List.of(page + "a", page + "b"), headers, HttpStatus.OK);
+        }
+
+        @Test
+        @DisplayName("Should emit a checkpoint after each page and resume from it")
+        void resumes() {
+            var paginate = new Paginate();
+            LongFunction<ResponseEntity<List<String>>> fetchPage = page -> page(page, 4);
+
+            var first = paginate.fromLinkHeaderResumable(2, fetchPage, PageCheckpoint.START, PageRetry.none())
+                    .toList();
+            assertThat(first)
+                    .extracting(ResumablePage::checkpoint)
+                    .containsExactly(
+                            new PageCheckpoint(1, null, "\"etag-1\"", false),
+                            new PageCheckpoint(2, null, "\"etag-2\"", false));
+
+            var rest = paginate.fromLinkHeaderResumable(10, fetchPage, first.getLast().checkpoint(), PageRetry.none())
+                    .toList();
+            assertThat(rest).flatExtracting(ResumablePage::items).containsExactly("3a", "3b", "4a", "4b");
+            assertThat(rest.getLast().checkpoint()).isEqualTo(new PageCheckpoint(4, null, "\"etag-4\"", true));
+        }
+
+        @Test
+        @DisplayName("Should not fetch anything when resuming a complete listing")
+        void resumesComplete() {
+            var complete = new PageCheckpoint(4, null, "\"etag-4\"", true);
+            LongFunction<ResponseEntity<List<String>>> fetchPage = page -> {
+                throw new AssertionError("fetched page " + page);
+            };
+
+            assertThat(new Paginate().fromLinkHeaderResumable(10, fetchPage, complete, RETRY)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should retry a failed page without restarting")
+        void retries() {
+            var attempts = new AtomicInteger();
+            LongFunction<ResponseEntity<List<String>>> fetchPage = page -> {
+                if (page == 2 && attempts.incrementAndGet() < 3) {
+                    throw new IllegalStateException("502 Bad Gateway");
+                }
+                return page(page, 3);
+            };
+
+            var result = new Paginate().fromLinkHeaderResumable(10, fetchPage, PageCheckpoint.START, RETRY);
+            assertThat(result).flatExtracting(ResumablePage::items).containsExactly("1a", "1b", "2a", "2b", "3a", "3b");
+            assertThat(attempts).hasValue(3);
+        }
+
+        @Test
+        @DisplayName("Should rethrow once retries run out, or straight away when not retryable")
+        void givesUp() {
+            var paginate = new Paginate();
+            LongFunction<ResponseEntity<List<String>>> failing = page -> {
+                throw new IllegalStateException("502 Bad Gateway");
+            };
+            LongFunction<ResponseEntity<List<String>>> notFound = page -> {
+                throw new IllegalArgumentException("404 Not Found");
+            };
+
+            assertThatThrownBy(() -> paginate.fromLinkHeaderResumable(10, failing, PageCheckpoint.START, RETRY)
+                            .toList())
+                    .isInstanceOf(IllegalStateException.class);
+            assertThatThrownBy(() -> paginate.fromLinkHeaderResumable(10, notFound, PageCheckpoint.START, RETRY)
+                            .toList())
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        @DisplayName("Should double the delay between attempts up to the cap")
+        void backoff() {
+            var retry = new PageRetry(10, Duration.ofSeconds(1), Duration.ofSeconds(5), e -> true);
+
+            assertThat(retry.delay(1)).isEqualTo(Duration.ofSeconds(1));
+            assertThat(retry.delay(2)).isEqualTo(Duration.ofSeconds(2));
+            assertThat(retry.delay(3)).isEqualTo(Duration.ofSeconds(4));
+            assertThat(retry.delay(4)).isEqualTo(Duration.ofSeconds(5));
+        }
+
+        @Test
+        @DisplayName("Should checkpoint the cursor of a cursor-based listing")
+        void cursor() {
+            Function<String, ResponseEntity<List<String>>> fetchPage = cursor -> cursor == null
+                    ? withLink(List.of("1"), "<https://api.github.com/orgs/o/audit-log?after=abc>; rel=\"next\"")
+                    : withLink(List.of("after=" + cursor), null);
+
+            var first = new Paginate()
+                    .fromLinkHeaderCursorResumable(1, fetchPage, "after", PageCheckpoint.START, RETRY)
+                    .toList();
+            assertThat(first.getLast().checkpoint()).isEqualTo(new PageCheckpoint(1, "abc", null, false));
+
+            var rest = new Paginate()
+                    .fromLinkHeaderCursorResumable(10, fetchPage, "after", first.getLast().checkpoint(), RETRY);
+            assertThat(rest)
+                    .extracting(ResumablePage::checkpoint)
+                    .containsExactly(new PageCheckpoint(2, null, null, true));
+        }
+
+        @Test
+        @DisplayName("Should retry a failed page reactively")
+        void retriesReactive() {
+            var attempts = new AtomicInteger();
+            LongFunction<Mono<ResponseEntity<List<String>>>> fetchPage = page -> Mono.fromCallable(() -> {
+                if (page == 2 && attempts.incrementAndGet() < 3) {
+                    throw new IllegalStateException("502 Bad Gateway");
+                }
+                return page(page, 3);
+            });
+
+            var afterFirstPage = new PageCheckpoint(1, null, null, false);
+
+            StepVerifier.create(new Paginate()
+                            .fromLinkHeaderResumableReactive(10, fetchPage, afterFirstPage, RETRY)
+                            .flatMapIterable(ResumablePage::items))
+                    .expectNext("2a", "2b", "3a", "3b")
+                    .verifyComplete();
+            assertThat(attempts).hasValue(3);
+        }
+    }
+
+    @Nested
+    @DisplayName("fromParallel / fromLinkHeaderParallel")
+    class Parallel {
+
+        private static ResponseEntity<List<String>> page(long page, long lastPage, String remaining) {
+            var headers = new HttpHeaders();
+            if (page < lastPage) {
+                headers.add(
+                        "Link",
+                        "<https://api.github.com/repos/o/r/issues?per_page=2&page=" + (page + 1) + ">; rel=\"next\", "
+                                + "<https://api.github.com/repos/o/r/issues?per_page=2&page=" + lastPage
+                                + ">; rel=\"last\"");
+            }
+            if (remaining != null) {
+                headers.add("X-RateLimit-Remaining", remaining);
+            }
+            return new ResponseEntity<>(List.of(page + "a", page + "b"), headers, HttpStatus.OK);
+        }
+
+        /**
+         * Wraps a fetcher, recording the most pages it was ever asked for at once.
+         */
+        private static <R> LongFunction<R> tracking(LongFunction<R> fetchPage, AtomicInteger maxInFlight) {
+            var inFlight = new AtomicInteger();
+            return page -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(20);
+                    return fetchPage.apply(page);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            };
+        }
+
+        @Test
+        @DisplayName("Should fetch pages concurrently and emit them in page order")
+        void fetchesConcurrentlyInOrder() {
+            var maxInFlight = new AtomicInteger();
+            LongFunction<Response> fetchPage = tracking(
+                    page -> new Response(List.of(String.valueOf(page)), 6), maxInFlight);
+
+            var paginate = new Paginate();
+            try (var result = paginate.fromParallel(
+                    10, fetchPage, PaginateTest::getStream, Response::totalPages, 3, true)) {
+                assertThat(result).containsExactly("1", "2", "3", "4", "5", "6");
+            }
+            assertThat(maxInFlight).hasValueGreaterThan(1).hasValueLessThanOrEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("Should emit every page when unordered")
+        void unordered() {
+            LongFunction<Response> fetchPage = page -> new Response(List.of(String.valueOf(page)), 4);
+
+            var paginate = new Paginate();
+            try (var result = paginate.fromParallel(
+                    3, fetchPage, PaginateTest::getStream, Response::totalPages, 2, false)) {
+                assertThat(result).containsExactlyInAnyOrder("1", "2", "3");
+            }
+        }
+
+        @Test
+        @DisplayName("Should read the page count from the rel=\"last\" link")
+        void linkHeaderLastPage() {
+            var fetched = ConcurrentHashMap.<Long>newKeySet();
+            LongFunction<ResponseEntity<List<String>>> fetchPage = page -> {
+                fetched.add(page);
+                return page(page, 3, null);
+            };
+
+            try (var result = new Paginate().fromLinkHeaderParallel(10, fetchPage, 4, true)) {
+                assertThat(result).containsExactly("1a", "1b", "2a", "2b", "3a", "3b");
+            }
+            assertThat(fetched).containsExactlyInAnyOrder(1L, 2L, 3L);
+        }
+
+        @Test
+        @DisplayName("Should continue one page at a time without a rel=\"last\" link")
+        void linkHeaderWithoutLastPage() {
+            var maxInFlight = new AtomicInteger();
+            LongFunction<ResponseEntity<List<String>>> fetchPage = tracking(
+                    page -> withLink(List.of(String.valueOf(page)), page < 3 ? "<url>; rel=\"next\"" : null),
+                    maxInFlight);
+
+            try (var result = new Paginate().fromLinkHeaderParallel(10, fetchPage, 4, true)) {
+                assertThat(result).containsExactly("1", "2", "3");
+            }
+            assertThat(maxInFlight).hasValue(1);
+        }
+
+        @Test
+        @DisplayName("Should fetch one page at a time when the rate limit can't cover the rest")
+        void rateLimited() {
+            var maxInFlight = new AtomicInteger();
+            LongFunction<ResponseEntity<List<String>>> fetchPage = tracking(page -> page(page, 4, "2"), maxInFlight);
+
+            try (var result = new Paginate().fromLinkHeaderParallel(10, fetchPage, 4, true)) {
+                assertThat(result).hasSize(8);
+            }
+            assertThat(maxInFlight).hasValue(1);
+        }
+
+        @Test
+        @DisplayName("Should rethrow a page's exception")
+        void rethrows() {
+            LongFunction<Response> fetchPage = page -> {
+                if (page == 2) {
+                    throw new IllegalArgumentException("page 2");
+                }
+                return new Response(List.of(String.valueOf(page)), 3);
+            };
+
+            var paginate = new Paginate();
+            try (var result = paginate.fromParallel(
+                    10, fetchPage, PaginateTest::getStream, Response::totalPages, 2, true)) {
+                assertThatThrownBy(result::toList).isInstanceOf(IllegalArgumentException.class).hasMessage("page 2");
+            }
+        }
+
+        @Test
+        @DisplayName("Should fetch pages concurrently and emit them in page order reactively")
+        void reactiveInOrder() {
+            var inFlight = new AtomicInteger();
+            var maxInFlight = new AtomicInteger();
+            LongFunction<Mono<Response>> fetchPage = page -> Mono.fromCallable(() -> {
+                        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                        return new Response(List.of(String.valueOf(page)), 5);
+                    })
+                    .delayElement(Duration.ofMillis(50L - page * 10))
+                    .doOnTerminate(inFlight::decrementAndGet);
+
+            StepVerifier.create(new Paginate()
+                            .fromReactiveParallel(10, fetchPage, PaginateTest::getFlux, Response::totalPages, 2, true))
+                    .expectNext("1", "2", "3", "4", "5")
+                    .verifyComplete();
+            assertThat(maxInFlight).hasValue(2);
+        }
+
+        @Test
+        @DisplayName("Should read the page count from the rel=\"last\" link reactively")
+        void reactiveLinkHeader() {
+            LongFunction<Mono<ResponseEntity<List<String>>>> fetchPage = page -> Mono.just(page(page, 3, null));
+
+            StepVerifier.create(new Paginate().fromLinkHeaderReactiveParallel(10, fetchPage, 2, false))
+                    .recordWith(ArrayList::new)
+                    .expectNextCount(6)
+                    .consumeRecordedWith(items ->
+                            assertThat(items).containsExactlyInAnyOrder("1a", "1b", "2a", "2b", "3a", "3b"))
+                    .verifyComplete();
+        }
+    }
+
     @Nested
     @DisplayName("fromLinkHeaderReactive(maxPages, fetchPage)")
     class LinkHeaderBasedReactive {
@@ -4,6 +4,10 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import com.auth0.jwt.JWT;
 import com.auth0.jwt.algorithms.Algorithm;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
 import org.junit.jupiter.api.Test;
 
 class CacheKeyHasherTest {
@@ -35,6 +39,36 @@ class CacheKeyHasherTest {
                 .isNotEqualTo(CacheKeyHasher.hash(data("/repos/foo/baz")));
     }
 
+    @Test
+    void hashMatchesTheJacksonSerializedKeyFormat() throws Exception {
+        var full = CacheKeyData.builder()
+                .method("GET")
+                .host("api.github.com")
+                .path("/repos/foo/bar/contents/caf\u00e9 \u2603")
+                .query("q=\"quoted\"&path=a\\b")
+                .accept("application/vnd.github+json")
+                .contentType("application/json")
+                .jwtSubject("installation-123")
+                .build();
+
+        assertThat(CacheKeyHasher.hash(full)).isEqualTo(jacksonHash(full));
+        assertThat(CacheKeyHasher.hash(data("/repos/foo/bar"))).isEqualTo(jacksonHash(data("/repos/foo/bar")));
+    }
+
+    @Test
+    void hashFallsBackToJacksonForValuesNeedingFurtherEscapes() throws Exception {
+        var controlChars = data("/repos/foo/bar\n\t");
+        var supplementary = data("/repos/foo/\uD83D\uDE00");
+
+        assertThat(CacheKeyHasher.hash(controlChars)).isEqualTo(jacksonHash(controlChars));
+        assertThat(CacheKeyHasher.hash(supplementary)).isEqualTo(jacksonHash(supplementary));
+    }
+
+    private static String jacksonHash(CacheKeyData data) throws Exception {
+        var json = new ObjectMapper().writeValueAsBytes(data);
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+    }
+
     @Test
     void extractsJwtSubjectFromBearerToken() {
         var token = JWT.create().withSubject("installation-123").sign(Algorithm.HMAC256("secret"));
@@ -66,6 +100,35 @@ class CacheKeyHasherTest {
         assertThat(CacheKeyHasher.extractJwtSubject("token ghp_abc123")).isNull();
     }
 
+    @Test
+    void repeatedHeadersReturnTheSameSubject() {
+        var token = JWT.create().withSubject("installation-456").sign(Algorithm.HMAC256("secret"));
+
+        assertThat(CacheKeyHasher.extractJwtSubject("Bearer " + token)).isEqualTo("installation-456");
+        assertThat(CacheKeyHasher.extractJwtSubject("Bearer " + token)).isEqualTo("installation-456");
+        assertThat(CacheKeyHasher.extractJwtSubject("token ghp_abc123")).isNull();
+        assertThat(CacheKeyHasher.extractJwtSubject("token ghp_abc123")).isNull();
+    }
+
+    @Test
+    void subjectsStayCorrectPastTheCacheBound() {
+        var issuedAt = java.time.Instant.parse("2026-01-01T00:00:00Z");
+        var headers = new ArrayList<String>();
+        for (int i = 0; i < 600; i++) {
+            headers.add("Bearer "
+                    + JWT.create()
+                            .withSubject("installation-" + i)
+                            .withIssuedAt(issuedAt.plusSeconds(i))
+                            .sign(Algorithm.HMAC256("secret")));
+        }
+
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < headers.size(); i++) {
+                assertThat(CacheKeyHasher.extractJwtSubject(headers.get(i))).isEqualTo("installation-" + i);
+            }
+        }
+    }
+
     @Test
     void returnsNullForNullAuthorizationHeader() {
         assertThat(CacheKeyHasher.extractJwtSubject(null)).isNull();
@@ -0,0 +1,148 @@
+package io.github.pulpogato.common.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class CachedResponseCodecTest {
+
+    private static final byte[] JSON = ("["
+                    + "{\"id\":1296269,\"name\":\"Hello-World\",\"full_name\":\"octocat/Hello-World\"},".repeat(200)
+                    + "{}]")
+            .getBytes(StandardCharsets.UTF_8);
+
+    private static final Map<String, List<String>> HEADERS = Map.of(
+            "Content-Type", List.of("application/json; charset=utf-8"),
+            "Link", List.of("<https://api.github.com/repos?page=2>; rel=\"next\""),
+            "X-GitHub-Request-Id", List.of("CAFE:1234:5678"),
+            "X-RateLimit-Remaining", List.of("4999"));
+
+    private static CachedResponse response(byte[] body) {
+        return new CachedResponse(body, HEADERS, "\"abc123\"", "Wed, 21 Oct 2015 07:28:00 GMT", 60, 1_000_000L);
+    }
+
+    @Test
+    @DisplayName("round-trips every field")
+    void roundTrips() {
+        var codec = CachedResponseCodec.builder().build();
+        var original = response(JSON);
+
+        var decoded = codec.decode(codec.encode(original));
+
+        assertThat(decoded).isEqualTo(original);
+        assertThat(decoded.getBody()).isEqualTo(JSON);
+    }
+
+    @Test
+    @DisplayName("decodes from a slice of a larger buffer without moving it")
+    void decodesFromBuffer() {
+        var codec = CachedResponseCodec.builder().build();
+        var original = response(JSON);
+        var encoded = codec.encode(original);
+        var buffer = ByteBuffer.allocate(encoded.length + 8);
+        buffer.put(4, encoded);
+        var slice = buffer.slice(4, encoded.length);
+
+        var decoded = codec.decode(slice);
+
+        assertThat(decoded).isEqualTo(original);
+        assertThat(decoded.getBody()).isEqualTo(JSON);
+        assertThat(slice.position()).isZero();
+    }
+
+    @Test
+    @DisplayName("round-trips null validators and an empty body")
+    void roundTripsNullsAndEmptyBody() {
+        var codec = CachedResponseCodec.builder().build();
+        var original = new CachedResponse(new byte[0], Map.of(), null, null, -1, 0);
+
+        var decoded = codec.decode(codec.encode(original));
+
+        assertThat(decoded).isEqualTo(original);
+        assertThat(decoded.getBody()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("compresses repetitive JSON bodies")
+    void compressesBodies() {
+        var compressed = CachedResponseCodec.builder().build().encode(response(JSON));
+        var uncompressed = CachedResponseCodec.builder().compress(false).build().encode(response(JSON));
+
+        assertThat(uncompressed.length).isGreaterThan(JSON.length);
+        assertThat(compressed.length).isLessThan(JSON.length / 5);
+    }
+
+    @Test
+    @DisplayName("stores small bodies as-is")
+    void storesSmallBodiesUncompressed() {
+        var body = "{\"id\":1}".getBytes(StandardCharsets.UTF_8);
+        var codec = CachedResponseCodec.builder().build();
+
+        var encoded = codec.encode(response(body));
+
+        assertThat(Arrays.copyOfRange(encoded, encoded.length - body.length, encoded.length))
+                .isEqualTo(body);
+        assertThat(codec.decode(encoded).getBody()).isEqualTo(body);
+    }
+
+    @Test
+    @DisplayName("keeps only allowlisted headers, case-insensitively")
+    void appliesHeaderAllowlist() {
+        var codec = CachedResponseCodec.builder()
+                .headerAllowlist(Set.of("content-type", "LINK"))
+                .build();
+
+        var decoded = codec.decode(codec.encode(response(JSON)));
+
+        assertThat(decoded.getHeaders()).containsOnlyKeys("Content-Type", "Link");
+        assertThat(decoded.getEtag()).isEqualTo("\"abc123\"");
+    }
+
+    @Test
+    @DisplayName("rejects bytes in another format")
+    void rejectsForeignBytes() {
+        var codec = CachedResponseCodec.builder().build();
+        var foreign = "not a cached response".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(CachedResponseCodec.isEncoded(foreign)).isFalse();
+        assertThatThrownBy(() -> codec.decode(foreign)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("rejects truncated input")
+    void rejectsTruncatedInput() {
+        var codec = CachedResponseCodec.builder().build();
+        var encoded = codec.encode(response(JSON));
+
+        assertThatThrownBy(() -> codec.decode(Arrays.copyOf(encoded, encoded.length - 10)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {28, 37, 41, 46, 50})
+    @DisplayName("rejects corrupt counts and lengths without allocating for them")
+    void rejectsCorruptLengths(int offset) {
+        var codec = CachedResponseCodec.builder().build();
+        var encoded = codec.encode(new CachedResponse(
+                "{}".getBytes(StandardCharsets.UTF_8), Map.of("A", List.of("b")), null, null, 60, 1_000_000L));
+        // header count at 28, value count at 37, value length at 41, body length at 46, stored length at 50
+        assertThat(encoded).hasSize(56);
+
+        for (var corrupt : new int[] {-5, Integer.MAX_VALUE}) {
+            var bytes = encoded.clone();
+            ByteBuffer.wrap(bytes).putInt(offset, corrupt);
+
+            assertThatThrownBy(() -> codec.decode(bytes)).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+}
@@ -5,19 +5,32 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
 import io.micrometer.observation.tck.TestObservationRegistry;
 import io.micrometer.observation.tck.TestObservationRegistryAssert;
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.time.Clock;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.jspecify.annotations.NullMarked;
@@ -30,14 +43,19 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequest;
 import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
 
 @ExtendWith(MockitoExtension.class)
 class CachingClientHttpRequestInterceptorTest {
@@ -61,6 +79,12 @@ class CachingClientHttpRequestInterceptorTest {
     @Mock
     private ClientHttpRequestExecution execution;
 
+    @Mock
+    private ClientHttpRequestFactory requestFactory;
+
+    @Mock
+    private ClientHttpRequest backgroundRequest;
+
     private CachingClientHttpRequestInterceptor interceptor;
 
     @BeforeEach
@@ -103,6 +127,14 @@ class CachingClientHttpRequestInterceptorTest {
         return new TestClientHttpResponse(HttpStatus.NOT_MODIFIED, headers, new byte[0]);
     }
 
+    /**
+     * Reads the whole body, as a caller would, which is what lets a streamed miss reach the cache.
+     */
+    private static TestClientHttpResponse consume(ClientHttpResponse response) throws IOException {
+        return new TestClientHttpResponse(
+                response.getStatusCode(), response.getHeaders(), response.getBody().readAllBytes());
+    }
+
     @RequiredArgsConstructor
     @NullMarked
     @Getter
@@ -175,7 +207,7 @@ class CachingClientHttpRequestInterceptorTest {
             when(cache.get(CACHE_KEY, CachedResponse.class)).thenReturn(null);
             when(execution.execute(any(), any())).thenReturn(response);
 
-            var result = interceptor.intercept(request, new byte[0], execution);
+            var result = consume(interceptor.intercept(request, new byte[0], execution));
 
             assertThat(result).isNotNull();
             assertThat(result.getHeaders().get(HttpCacheEngine.CACHE_HEADER_NAME))
@@ -196,7 +228,7 @@ class CachingClientHttpRequestInterceptorTest {
             when(cache.get(CACHE_KEY, CachedResponse.class)).thenReturn(null);
             when(execution.execute(any(), any())).thenReturn(response);
 
-            var result = interceptor.intercept(request, new byte[0], execution);
+            var result = consume(interceptor.intercept(request, new byte[0], execution));
 
             assertThat(result).isNotNull();
             var captor = ArgumentCaptor.forClass(CachedResponse.class);
@@ -214,7 +246,7 @@ class CachingClientHttpRequestInterceptorTest {
             when(cache.get(CACHE_KEY, CachedResponse.class)).thenReturn(null);
             when(execution.execute(any(), any())).thenReturn(response);
 
-            var result = interceptor.intercept(request, new byte[0], execution);
+            var result = consume(interceptor.intercept(request, new byte[0], execution));
 
             assertThat(result).isNotNull();
             var captor = ArgumentCaptor.forClass(CachedResponse.class);
@@ -232,7 +264,7 @@ class CachingClientHttpRequestInterceptorTest {
             when(cache.get(CACHE_KEY, CachedResponse.class)).thenReturn(null);
             when(execution.execute(any(), any())).thenReturn(response);
 
-            var result = interceptor.intercept(request, new byte[0], execution);
+            var result = consume(interceptor.intercept(request, new byte[0], execution));
 
             assertThat(result).isNotNull();
             var captor = ArgumentCaptor.forClass(CachedResponse.class);
@@ -372,7 +404,7 @@ class CachingClientHttpRequestInterceptorTest {
             when(cache.get(CACHE_KEY, CachedResponse.class)).thenReturn(staleCache);
             when(execution.execute(any(), any())).thenReturn(newResponse);
 
-            var result = interceptor.intercept(request, new byte[0], execution);
+            var result = consume(interceptor.intercept(request, new byte[0], execution));
 
             assertThat(result).isNotNull();
             assertThat(result.getHeaders().get(HttpCacheEngine.CACHE_HEADER_NAME))
@@ -594,7 +626,7 @@ class CachingClientHttpRequestInterceptorTest {
             when(cache.get(CACHE_KEY, CachedResponse.class)).thenReturn(null);
             when(execution.execute(any(), any())).thenReturn(response);
 
-            var result = interceptor.intercept(request, new byte[0], execution);
+            var result = consume(interceptor.intercept(request, new byte[0], execution));
 
             assertThat(result).isNotNull();
             assertThat(result.getHeaders().get(HttpCacheEngine.CACHE_HEADER_NAME))
@@ -607,7 +639,7 @@ class CachingClientHttpRequestInterceptorTest {
         }
 
         @Test
-        @DisplayName("Response body exceeding max cacheable size returns SKIP and is not cached")
+        @DisplayName("Response body exceeding max cacheable size is streamed through and not cached")
         void bodyExceedingLimitReturnsSkip() throws Exception {
             var smallLimitInterceptor = CachingClientHttpRequestInterceptor.builder()
                     .cache(cache)
@@ -628,11 +660,12 @@ class CachingClientHttpRequestInterceptorTest {
             when(cache.get(CACHE_KEY, CachedResponse.class)).thenReturn(null);
             when(execution.execute(any(), any())).thenReturn(response);
 
-            var result = smallLimitInterceptor.intercept(request, new byte[0], execution);
+            var result = consume(smallLimitInterceptor.intercept(request, new byte[0], execution));
 
+            // Without a Content-Length the size is only known once the body is read, after the headers went out
             assertThat(result).isNotNull();
             assertThat(result.getHeaders().get(HttpCacheEngine.CACHE_HEADER_NAME))
-                    .containsExactly("SKIP");
+                    .containsExactly("MISS");
             assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
 
             var bodyContent = result.getBody().readAllBytes();
@@ -641,6 +674,71 @@ class CachingClientHttpRequestInterceptorTest {
             verify(cache, never()).put(any(), any());
         }
 
+        @Test
+        @DisplayName("Miss with Content-Length is streamed and stored once the declared bytes are read")
+        void declaredLengthMissIsStoredWithoutReadingToEnd() throws Exception {
+            when(clock.millis()).thenReturn(CURRENT_TIME);
+            when(cacheKeyMapper.apply(any(HttpRequest.class))).thenReturn(CACHE_KEY);
+            var response = createResponse("\"abc123\"", null, null);
+            response.getHeaders().setContentLength(RESPONSE_BODY.length);
+            when(cache.get(CACHE_KEY, CachedResponse.class)).thenReturn(null);
+            when(execution.execute(any(), any())).thenReturn(response);
+
+            var result = interceptor.intercept(createGetRequest(), new byte[0], execution);
+            var body = result.getBody();
+            var first = body.readNBytes(4);
+
+            verify(cache, never()).put(any(), any());
+
+            var rest = body.readNBytes(RESPONSE_BODY.length - first.length);
+
+            assertThat(first.length + rest.length).isEqualTo(RESPONSE_BODY.length);
+            var captor = ArgumentCaptor.forClass(CachedResponse.class);
+            verify(cache).put(eq(CACHE_KEY), captor.capture());
+            assertThat(captor.getValue().getBody()).isEqualTo(RESPONSE_BODY);
+        }
+
+        @Test
+        @DisplayName("Miss with Content-Length closed part way through reads the rest and is stored")
+        void partiallyReadMissIsStoredOnClose() throws Exception {
+            when(clock.millis()).thenReturn(CURRENT_TIME);
+            when(cacheKeyMapper.apply(any(HttpRequest.class))).thenReturn(CACHE_KEY);
+            var response = createResponse("\"abc123\"", null, null);
+            response.getHeaders().setContentLength(RESPONSE_BODY.length);
+            when(cache.get(CACHE_KEY, CachedResponse.class)).thenReturn(null);
+            when(execution.execute(any(), any())).thenReturn(response);
+
+            var result = interceptor.intercept(createGetRequest(), new byte[0], execution);
+            result.getBody().readNBytes(4);
+            result.close();
+
+            var captor = ArgumentCaptor.forClass(CachedResponse.class);
+            verify(cache).put(eq(CACHE_KEY), captor.capture());
+            assertThat(captor.getValue().getBody()).isEqualTo(RESPONSE_BODY);
+        }
+
+        @Test
+        @DisplayName("Miss without Content-Length is streamed and stored once read to the end")
+        void unknownLengthMissIsStoredOnceFullyRead() throws Exception {
+            when(clock.millis()).thenReturn(CURRENT_TIME);
+            when(cacheKeyMapper.apply(any(HttpRequest.class))).thenReturn(CACHE_KEY);
+            when(cache.get(CACHE_KEY, CachedResponse.class)).thenReturn(null);
+            when(execution.execute(any(), any())).thenReturn(createResponse("\"abc123\"", null, null));
+
+            var result = interceptor.intercept(createGetRequest(), new byte[0], execution);
+            var body = result.getBody();
+            var first = body.readNBytes(4);
+
+            verify(cache, never()).put(any(), any());
+
+            var rest = body.readAllBytes();
+
+            assertThat(first.length + rest.length).isEqualTo(RESPONSE_BODY.length);
+            var captor = ArgumentCaptor.forClass(CachedResponse.class);
+            verify(cache).put(eq(CACHE_KEY), captor.capture());
+            assertThat(captor.getValue().getBody()).isEqualTo(RESPONSE_BODY);
+        }
+
         @Test
         @DisplayName("Response with Content-Length exceeding limit skips caching immediately")
         void contentLengthExceedingLimitSkipsEarly() throws Exception {
@@ -691,7 +789,7 @@ class CachingClientHttpRequestInterceptorTest {
             when(cache.get(CACHE_KEY, CachedResponse.class)).thenReturn(null);
             when(execution.execute(any(), any())).thenReturn(response1);
 
-            var result1 = customInterceptor.intercept(request1, new byte[0], execution);
+            var result1 = consume(customInterceptor.intercept(request1, new byte[0], execution));
             assertThat(result1).isNotNull();
             assertThat(result1.getHeaders().get(HttpCacheEngine.CACHE_HEADER_NAME))
                     .containsExactly("MISS");
@@ -706,14 +804,328 @@ class CachingClientHttpRequestInterceptorTest {
             when(cache.get(CACHE_KEY, CachedResponse.class)).thenReturn(null);
             when(execution.execute(any(), any())).thenReturn(response2);
 
-            var result2 = customInterceptor.intercept(request2, new byte[0], execution);
+            var result2 = consume(customInterceptor.intercept(request2, new byte[0], execution));
             assertThat(result2).isNotNull();
             assertThat(result2.getHeaders().get(HttpCacheEngine.CACHE_HEADER_NAME))
-                    .containsExactly("SKIP");
+                    .containsExactly("MISS");
             verify(cache, never()).put(any(), any());
         }
     }
 
+    @Nested
+    @DisplayName("Stale serving")
+    class StaleServing {
+
+        private final List<Runnable> background = new ArrayList<>();
+
+        private CachingClientHttpRequestInterceptor staleInterceptor(boolean whileRevalidate, boolean ifError) {
+            return CachingClientHttpRequestInterceptor.builder()
+                    .cache(cache)
+                    .cacheKeyMapper(cacheKeyMapper)
+                    .clock(clock)
+                    .staleWhileRevalidate(whileRevalidate)
+                    .staleIfError(ifError)
+                    .revalidationExecutor(background::add)
+                    .revalidationRequestFactory(requestFactory)
+                    .build();
+        }
+
+        private CachedResponse staleEntry() {
+            return new CachedResponse(RESPONSE_BODY, DEFAULT_HEADERS, "\"abc123\"", null, 1, CURRENT_TIME - 10000);
+        }
+
+        @Test
+        @DisplayName("Stale entry is served at once and revalidated once in the background")
+        void staleWhileRevalidateServesStaleAndRevalidatesOnce() throws Exception {
+            var staleInterceptor = staleInterceptor(true, false);
+            when(clock.millis()).thenReturn(CURRENT_TIME);
+            when(cacheKeyMapper.apply(any(HttpRequest.class))).thenReturn(CACHE_KEY);
+            when(cache.get(CACHE_KEY, CachedResponse.class)).thenReturn(staleEntry());
+
+            var first = staleInterceptor.intercept(createGetRequest(), new byte[0], execution);
+            var second = staleInterceptor.intercept(createGetRequest(), new byte[0], execution);
+
+            assertThat(first.getHeaders().getFirst(HttpCacheEngine.CACHE_HEADER_NAME))
+                    .isEqualTo(HttpCacheEngine.CACHE_STALE);
+            assertThat(first.getBody().readAllBytes()).isEqualTo(RESPONSE_BODY);
+            assertThat(second.getHeaders().getFirst(HttpCacheEngine.CACHE_HEADER_NAME))
+                    .isEqualTo(HttpCacheEngine.CACHE_STALE);
+            assertThat(background).hasSize(1);
+            verify(execution, never()).execute(any(), any());
+
+            var sentHeaders = new HttpHeaders();
+            when(requestFactory.createRequest(URI.create(TEST_URL), HttpMethod.GET))
+                    .thenReturn(backgroundRequest);
+            when(backgroundRequest.getHeaders()).thenReturn(sentHeaders);
+            when(backgroundRequest.execute()).thenReturn(create304Response());
+            background.getFirst().run();
+
+            verify(backgroundRequest, times(1)).execute();
+            verify(execution, never()).execute(any(), any());
+            assertThat(sentHeaders.getFirst("If-None-Match")).isEqualTo("\"abc123\"");
+            verify(cache).put(eq(CACHE_KEY), any(CachedResponse.class));
+        }
+
+        @Test
+        @DisplayName("Background revalidation leaves the caller's request as it was")
+        void backgroundRevalidationDoesNotTouchCallerRequest() throws Exception {
+            var staleInterceptor = staleInterceptor(true, false);
+            when(clock.millis()).thenReturn(CURRENT_TIME);
+            when(cacheKeyMapper.apply(any(HttpRequest.class))).thenReturn(CACHE_KEY);
+            when(cache.get(CACHE_KEY, CachedResponse.class)).thenReturn(staleEntry());
+            var request = createGetRequest();
+            request.getHeaders().set("Authorization", "Bearer token");
+
+            staleInterceptor.intercept(request, new byte[0], execution);
+            request.getHeaders().set("X-After", "changed by the caller");
+
+            var sentHeaders = new HttpHeaders();
+            when(requestFactory.createRequest(any(), any())).thenReturn(backgroundRequest);
+            when(backgroundRequest.getHeaders()).thenReturn(sentHeaders);
+            when(backgroundRequest.execute()).thenReturn(create304Response());
+            background.getFirst().run();
+
+            assertThat(request.getHeaders().headerNames()).containsExactlyInAnyOrder("Authorization", "X-After");
+            assertThat(sentHeaders.getFirst("Authorization")).isEqualTo("Bearer token");
+            assertThat(sentHeaders.containsHeader("X-After")).isFalse();
+            verify(execution, never()).execute(any(), any());
+        }
+
+        @Test
+        @DisplayName("A finished background revalidation lets the next stale hit revalidate again")
+        void revalidationClaimIsReleased() throws Exception {
+            var staleInterceptor = staleInterceptor(true, false);
+            when(clock.millis()).thenReturn(CURRENT_TIME);
+            when(cacheKeyMapper.apply(any(HttpRequest.class))).thenReturn(CACHE_KEY);
+            when(cache.get(CACHE_KEY, CachedResponse.class)).thenReturn(staleEntry());
+            when(requestFactory.createRequest(any(), any())).thenThrow(new IOException("connection refused"));
+
+            staleInterceptor.intercept(createGetRequest(), new byte[0], execution);
+            background.getFirst().run();
+            staleInterceptor.intercept(createGetRequest(), new byte[0], execution);
+
+            assertThat(background).hasSize(2);
+        }
+
+        @Test
+        @DisplayName("Stale entry is served when revalidation gets a 5xx")
+        void staleIfErrorServesStaleOnServerError() throws Exception {
+            when(clock.millis()).thenReturn(CURRENT_TIME);
+            when(cacheKeyMapper.apply(any(HttpRequest.class))).thenReturn(CACHE_KEY);
+            when(cache.get(CACHE_KEY, CachedResponse.class)).thenReturn(staleEntry());
+            when(execution.execute(any(), any()))
+                    .thenReturn(new TestClientHttpResponse(HttpStatus.BAD_GATEWAY, new HttpHeaders(), new byte[0]));
+
+            var result = staleInterceptor(false, true).intercept(createGetRequest(), new byte[0], execution);
+
+            assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(result.getHeaders().getFirst(HttpCacheEngine.CACHE_HEADER_NAME))
+                    .isEqualTo(HttpCacheEngine.CACHE_STALE);
+            assertThat(result.getBody().readAllBytes()).isEqualTo(RESPONSE_BODY);
+        }
+
+        @Test
+        @DisplayName("Stale entry is served when the connection fails")
+        void staleIfErrorServesStaleOnIoError() throws Exception {
+            when(clock.millis()).thenReturn(CURRENT_TIME);
+            when(cacheKeyMapper.apply(any(HttpRequest.class))).thenReturn(CACHE_KEY);
+            when(cache.get(CACHE_KEY, CachedResponse.class)).thenReturn(staleEntry());
+            when(execution.execute(any(), any())).thenThrow(new IOException("connection refused"));
+
+            var result = staleInterceptor(false, true).intercept(createGetRequest(), new byte[0], execution);
+
+            assertThat(result.getHeaders().getFirst(HttpCacheEngine.CACHE_HEADER_NAME))
+                    .isEqualTo(HttpCacheEngine.CACHE_STALE);
+        }
+
+        @Test
+        @DisplayName("Without stale-if-error a 5xx is passed through")
+        void serverErrorPassesThroughByDefault() throws Exception {
+            when(clock.millis()).thenReturn(CURRENT_TIME);
+            when(cacheKeyMapper.apply(any(HttpRequest.class))).thenReturn(CACHE_KEY);
+            when(cache.get(CACHE_KEY, CachedResponse.class)).thenReturn(staleEntry());
+            when(execution.execute(any(), any()))
+                    .thenReturn(new TestClientHttpResponse(HttpStatus.BAD_GATEWAY, new HttpHeaders(), new byte[0]));
+
+            var result = interceptor.intercept(createGetRequest(), new byte[0], execution);
+
+            assertThat(result.getStatusCode()).isEqualTo(HttpStatus.BAD_GATEWAY);
+        }
+    }
+
+    @Nested
+    @DisplayName("Only if cached")
+    class OnlyIfCached {
+
+        private CachingClientHttpRequestInterceptor offlineInterceptor() {
+            return CachingClientHttpRequestInterceptor.builder()
+                    .cache(cache)
+                    .cacheKeyMapper(cacheKeyMapper)
+                    .clock(clock)
+                    .onlyIfCached(true)
+                    .build();
+        }
+
+        @Test
+        @DisplayName("A stale entry is served without contacting the server")
+        void servesStaleEntry() throws Exception {
+            when(clock.millis()).thenReturn(CURRENT_TIME);
+            when(cacheKeyMapper.apply(any(HttpRequest.class))).thenReturn(CACHE_KEY);
+            when(cache.get(CACHE_KEY, CachedResponse.class))
+                    .thenReturn(new CachedResponse(
+                            RESPONSE_BODY, DEFAULT_HEADERS, "\"abc123\"", null, 1, CURRENT_TIME - 10000));
+
+            var result = offlineInterceptor().intercept(createGetRequest(), new byte[0], execution);
+
+            assertThat(result.getHeaders().getFirst(HttpCacheEngine.CACHE_HEADER_NAME))
+                    .isEqualTo(HttpCacheEngine.CACHE_STALE);
+            assertThat(result.getBody().readAllBytes()).isEqualTo(RESPONSE_BODY);
+            verify(execution, never()).execute(any(), any());
+        }
+
+        @Test
+        @DisplayName("A missing entry is a 504 without contacting the server")
+        void missingEntryIsGatewayTimeout() throws Exception {
+            when(cacheKeyMapper.apply(any(HttpRequest.class))).thenReturn(CACHE_KEY);
+
+            var result = offlineInterceptor().intercept(createGetRequest(), new byte[0], execution);
+
+            assertThat(result.getStatusCode()).isEqualTo(HttpStatus.GATEWAY_TIMEOUT);
+            verify(execution, never()).execute(any(), any());
+        }
+
+        @Test
+        @DisplayName("The only-if-cached request directive is honoured per request")
+        void honoursRequestDirective() throws Exception {
+            when(cacheKeyMapper.apply(any(HttpRequest.class))).thenReturn(CACHE_KEY);
+            var request = createGetRequest();
+            request.getHeaders().set(HttpHeaders.CACHE_CONTROL, "max-stale, only-if-cached");
+
+            var result = interceptor.intercept(request, new byte[0], execution);
+
+            assertThat(result.getStatusCode()).isEqualTo(HttpStatus.GATEWAY_TIMEOUT);
+            verify(execution, never()).execute(any(), any());
+        }
+    }
+
+    @Nested
+    @DisplayName("Request coalescing")
+    class RequestCoalescing {
+
+        private final CountDownLatch followerWaiting = new CountDownLatch(1);
+        private final AtomicInteger coalesced = new AtomicInteger();
+
+        private CachingClientHttpRequestInterceptor coalescingInterceptor() {
+            return coalescingInterceptor(CachingClientHttpRequestInterceptor.DEFAULT_MAX_CACHEABLE_SIZE);
+        }
+
+        private CachingClientHttpRequestInterceptor coalescingInterceptor(int maxCacheableSize) {
+            var registry = ObservationRegistry.create();
+            registry.observationConfig().observationHandler(new ObservationHandler<Observation.Context>() {
+                @Override
+                public boolean supportsContext(Observation.Context context) {
+                    return true;
+                }
+
+                @Override
+                public void onStart(Observation.Context context) {
+                    if ("pulpogato.cache.coalesce".equals(context.getName())) {
+                        coalesced.incrementAndGet();
+                        followerWaiting.countDown();
+                    }
+                }
+            });
+            return CachingClientHttpRequestInterceptor.builder()
+                    .cache(cache)
+                    .cacheKeyMapper(cacheKeyMapper)
+                    .clock(clock)
+                    .coalesceRequests(true)
+                    .maxCacheableSize(maxCacheableSize)
+                    .observationRegistry(registry)
+                    .build();
+        }
+
+        @Test
+        @DisplayName("Concurrent identical requests share one exchange and its body")
+        void concurrentRequestsShareOneExchange() throws Exception {
+            var coalescingInterceptor = coalescingInterceptor();
+            var leaderExecuting = new CountDownLatch(1);
+            var releaseLeader = new CountDownLatch(1);
+            when(clock.millis()).thenReturn(CURRENT_TIME);
+            when(cacheKeyMapper.apply(any(HttpRequest.class))).thenReturn(CACHE_KEY);
+            when(execution.execute(any(), any())).thenAnswer(invocation -> {
+                leaderExecuting.countDown();
+                releaseLeader.await();
+                return createResponse("\"abc123\"", null, null);
+            });
+
+            try (var executor = Executors.newFixedThreadPool(2)) {
+                var first = executor.submit(
+                        () -> coalescingInterceptor.intercept(createGetRequest(), new byte[0], execution));
+                assertThat(leaderExecuting.await(5, TimeUnit.SECONDS)).isTrue();
+                var second = executor.submit(
+                        () -> coalescingInterceptor.intercept(createGetRequest(), new byte[0], execution));
+                assertThat(followerWaiting.await(5, TimeUnit.SECONDS)).isTrue();
+                releaseLeader.countDown();
+
+                for (var result : List.of(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS))) {
+                    assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
+                    assertThat(result.getBody().readAllBytes()).isEqualTo(RESPONSE_BODY);
+                }
+            }
+            verify(execution, times(1)).execute(any(), any());
+            verify(cache, times(1)).put(eq(CACHE_KEY), any(CachedResponse.class));
+            assertThat(coalesced).hasValue(1);
+        }
+
+        @Test
+        @DisplayName("A response too large to share is streamed to the first request, and the rest make their own")
+        void largeResponseIsNotShared() throws Exception {
+            var coalescingInterceptor = coalescingInterceptor(4);
+            var leaderExecuting = new CountDownLatch(1);
+            var releaseLeader = new CountDownLatch(1);
+            var executions = new AtomicInteger();
+            when(cacheKeyMapper.apply(any(HttpRequest.class))).thenReturn(CACHE_KEY);
+            when(execution.execute(any(), any())).thenAnswer(invocation -> {
+                if (executions.getAndIncrement() == 0) {
+                    leaderExecuting.countDown();
+                    releaseLeader.await();
+                }
+                return createResponse(null, null, null);
+            });
+
+            try (var executor = Executors.newFixedThreadPool(2)) {
+                var first = executor.submit(
+                        () -> coalescingInterceptor.intercept(createGetRequest(), new byte[0], execution));
+                assertThat(leaderExecuting.await(5, TimeUnit.SECONDS)).isTrue();
+                var second = executor.submit(
+                        () -> coalescingInterceptor.intercept(createGetRequest(), new byte[0], execution));
+                assertThat(followerWaiting.await(5, TimeUnit.SECONDS)).isTrue();
+                releaseLeader.countDown();
+
+                for (var result : List.of(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS))) {
+                    assertThat(result.getBody().readAllBytes()).isEqualTo(RESPONSE_BODY);
+                }
+            }
+            verify(execution, times(2)).execute(any(), any());
+            assertThat(coalesced).hasValue(1);
+        }
+
+        @Test
+        @DisplayName("Requests are not coalesced once the first one has completed")
+        void sequentialRequestsAreNotCoalesced() throws Exception {
+            var coalescingInterceptor = coalescingInterceptor();
+            when(cacheKeyMapper.apply(any(HttpRequest.class))).thenReturn(CACHE_KEY);
+            when(execution.execute(any(), any())).thenAnswer(invocation -> createResponse(null, null, null));
+
+            coalescingInterceptor.intercept(createGetRequest(), new byte[0], execution);
+            coalescingInterceptor.intercept(createGetRequest(), new byte[0], execution);
+
+            verify(execution, times(2)).execute(any(), any());
+            assertThat(coalesced).hasValue(0);
+        }
+    }
+
     @Nested
     @DisplayName("Observations")
     class Observations {
@@ -741,8 +1153,8 @@ class CachingClientHttpRequestInterceptorTest {
             when(cache.get(CACHE_KEY, CachedResponse.class)).thenReturn(null);
             when(execution.execute(any(), any())).thenReturn(createResponse("\"abc123\"", null, null));
 
-            observedInterceptor(CachingClientHttpRequestInterceptor.DEFAULT_MAX_CACHEABLE_SIZE)
-                    .intercept(createGetRequest(), new byte[0], execution);
+            consume(observedInterceptor(CachingClientHttpRequestInterceptor.DEFAULT_MAX_CACHEABLE_SIZE)
+                    .intercept(createGetRequest(), new byte[0], execution));
 
             TestObservationRegistryAssert.assertThat(observationRegistry)
                     .hasObservationWithNameEqualTo(CACHE_GET)
@@ -813,8 +1225,8 @@ class CachingClientHttpRequestInterceptorTest {
                             RESPONSE_BODY, DEFAULT_HEADERS, "\"abc123\"", null, 60, CURRENT_TIME - 100_000));
             when(execution.execute(any(), any())).thenReturn(createResponse("\"new-etag\"", null, null));
 
-            observedInterceptor(CachingClientHttpRequestInterceptor.DEFAULT_MAX_CACHEABLE_SIZE)
-                    .intercept(createGetRequest(), new byte[0], execution);
+            consume(observedInterceptor(CachingClientHttpRequestInterceptor.DEFAULT_MAX_CACHEABLE_SIZE)
+                    .intercept(createGetRequest(), new byte[0], execution));
 
             TestObservationRegistryAssert.assertThat(observationRegistry)
                     .hasObservationWithNameEqualTo(CACHE_GET)
@@ -839,7 +1251,7 @@ class CachingClientHttpRequestInterceptorTest {
             var response = new TestClientHttpResponse(HttpStatus.OK, headers, largeBody);
             when(execution.execute(any(), any())).thenReturn(response);
 
-            observedInterceptor(1000).intercept(createGetRequest(), new byte[0], execution);
+            consume(observedInterceptor(1000).intercept(createGetRequest(), new byte[0], execution));
 
             TestObservationRegistryAssert.assertThat(observationRegistry)
                     .hasObservationWithNameEqualTo(CACHE_PUT)
@@ -847,4 +1259,50 @@ class CachingClientHttpRequestInterceptorTest {
                     .hasLowCardinalityKeyValue(HttpCacheEngine.CACHE_STATUS, HttpCacheEngine.CACHE_SKIP);
         }
     }
+
+    @Nested
+    @DisplayName("Through RestClient")
+    class ThroughRestClient {
+
+        record Repository(String name, int stars) {}
+
+        @Test
+        @DisplayName("A miss decoded by Jackson is stored although Jackson stops after the JSON value")
+        void jacksonDecodedMissIsStored() throws Exception {
+            var json = "{\"name\":\"pulpogato\",\"stars\":42}\n".getBytes(StandardCharsets.UTF_8);
+            var requests = new AtomicInteger();
+            var server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+            server.createContext("/repos/pulpogato", exchange -> {
+                requests.incrementAndGet();
+                exchange.getResponseHeaders().set("Content-Type", MediaType.APPLICATION_JSON_VALUE);
+                exchange.getResponseHeaders().set("ETag", "\"abc123\"");
+                exchange.getResponseHeaders().set("Cache-Control", "max-age=60");
+                exchange.sendResponseHeaders(200, json.length);
+                try (var os = exchange.getResponseBody()) {
+                    os.write(json);
+                }
+            });
+            server.start();
+            try {
+                var restClient = RestClient.builder()
+                        .baseUrl("http://localhost:" + server.getAddress().getPort())
+                        .requestFactory(new JdkClientHttpRequestFactory())
+                        .requestInterceptor(CachingClientHttpRequestInterceptor.builder()
+                                .cache(new ConcurrentMapCache("github"))
+                                .build())
+                        .build();
+
+                var first = restClient.get().uri("/repos/pulpogato").retrieve().body(Repository.class);
+                var second = restClient.get().uri("/repos/pulpogato").retrieve().toEntity(Repository.class);
+
+                assertThat(first).isEqualTo(new Repository("pulpogato", 42));
+                assertThat(second.getBody()).isEqualTo(first);
+                assertThat(second.getHeaders().getFirst(HttpCacheEngine.CACHE_HEADER_NAME))
+                        .isEqualTo(HttpCacheEngine.CACHE_HIT);
+                assertThat(requests).hasValue(1);
+            } finally {
+                server.stop(0);
+            }
+        }
+    }
 }
@@ -1,19 +1,27 @@
 package io.github.pulpogato.common.cache;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import io.micrometer.observation.tck.TestObservationRegistry;
 import io.micrometer.observation.tck.TestObservationRegistryAssert;
+import java.net.ConnectException;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.time.Clock;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -23,15 +31,20 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
 import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.web.reactive.function.client.ClientRequest;
 import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
 
 @ExtendWith(MockitoExtension.class)
 class CachingExchangeFilterFunctionTest {
@@ -60,9 +73,12 @@ class CachingExchangeFilterFunctionTest {
 
     @BeforeEach
     void setUp() {
+        // Spring's default for a backend without async reads; tests of retrieve stub it themselves
+        lenient().doThrow(new UnsupportedOperationException()).when(cache).retrieve(any());
         filter = CachingExchangeFilterFunction.builder()
                 .cache(cache)
                 .cacheKeyMapper(cacheKeyMapper)
+                .scheduler(Schedulers.immediate())
                 .clock(clock)
                 .build();
         bufferFactory = new DefaultDataBufferFactory();
@@ -494,6 +510,7 @@ class CachingExchangeFilterFunctionTest {
             var revalidatingFilter = CachingExchangeFilterFunction.builder()
                     .cache(cache)
                     .cacheKeyMapper(cacheKeyMapper)
+                    .scheduler(Schedulers.immediate())
                     .clock(clock)
                     .alwaysRevalidate(true)
                     .build();
@@ -587,6 +604,7 @@ class CachingExchangeFilterFunctionTest {
             var smallLimitFilter = CachingExchangeFilterFunction.builder()
                     .cache(cache)
                     .cacheKeyMapper(cacheKeyMapper)
+                    .scheduler(Schedulers.immediate())
                     .maxCacheableSize(1000)
                     .build();
             var largeBody = new byte[2000];
@@ -625,6 +643,7 @@ class CachingExchangeFilterFunctionTest {
             var smallLimitFilter = CachingExchangeFilterFunction.builder()
                     .cache(cache)
                     .cacheKeyMapper(cacheKeyMapper)
+                    .scheduler(Schedulers.immediate())
                     .clock(clock)
                     .maxCacheableSize(1000)
                     .build();
@@ -655,6 +674,7 @@ class CachingExchangeFilterFunctionTest {
             var customFilter = CachingExchangeFilterFunction.builder()
                     .cache(cache)
                     .cacheKeyMapper(cacheKeyMapper)
+                    .scheduler(Schedulers.immediate())
                     .clock(clock)
                     .maxCacheableSize(500)
                     .build();
@@ -699,6 +719,390 @@ class CachingExchangeFilterFunctionTest {
         }
     }
 
+    @Nested
+    @DisplayName("Non-blocking cache access")
+    class NonBlockingCacheAccess {
+
+        @Test
+        @DisplayName("Fresh entry is served through the backend's async retrieve")
+        void hitUsesAsyncRetrieve() {
+            var asyncCache = new ConcurrentMapCache("test");
+            asyncCache.put(
+                    CACHE_KEY,
+                    new CachedResponse(RESPONSE_BODY, DEFAULT_HEADERS, "\"abc123\"", null, 60, CURRENT_TIME));
+            var asyncFilter = CachingExchangeFilterFunction.builder()
+                    .cache(asyncCache)
+                    .cacheKeyMapper(cacheKeyMapper)
+                    .clock(clock)
+                    .build();
+            when(clock.millis()).thenReturn(CURRENT_TIME);
+            when(cacheKeyMapper.apply(any(ClientRequest.class))).thenReturn(CACHE_KEY);
+
+            var result = asyncFilter.filter(createGetRequest(), exchangeFunction).block();
+
+            assertThat(result).isNotNull();
+            assertThat(result.headers().header(HttpCacheEngine.CACHE_HEADER_NAME))
+                    .containsExactly(HttpCacheEngine.CACHE_HIT);
+            verify(exchangeFunction, never()).exchange(any());
+        }
+
+        @Test
+        @DisplayName("Backend without async retrieve falls back to get, and is only asked once")
+        void unsupportedRetrieveFallsBackToGet() {
+            when(clock.millis()).thenReturn(CURRENT_TIME);
+            when(cacheKeyMapper.apply(any(ClientRequest.class))).thenReturn(CACHE_KEY);
+            doThrow(new UnsupportedOperationException()).when(cache).retrieve(CACHE_KEY);
+            when(cache.get(CACHE_KEY, CachedResponse.class))
+                    .thenReturn(
+                            new CachedResponse(RESPONSE_BODY, DEFAULT_HEADERS, "\"abc123\"", null, 60, CURRENT_TIME));
+
+            filter.filter(createGetRequest(), exchangeFunction).block();
+            var result = filter.filter(createGetRequest(), exchangeFunction).block();
+
+            assertThat(result).isNotNull();
+            assertThat(result.headers().header(HttpCacheEngine.CACHE_HEADER_NAME))
+                    .containsExactly(HttpCacheEngine.CACHE_HIT);
+            verify(cache, times(1)).retrieve(CACHE_KEY);
+            verify(cache, times(2)).get(CACHE_KEY, CachedResponse.class);
+        }
+
+        @Test
+        @DisplayName("A null retrieve future is a miss, without a blocking get")
+        void nullRetrieveFutureIsMiss() {
+            when(cacheKeyMapper.apply(any(ClientRequest.class))).thenReturn(CACHE_KEY);
+            doReturn(null).when(cache).retrieve(CACHE_KEY);
+            when(exchangeFunction.exchange(any(ClientRequest.class)))
+                    .thenReturn(Mono.just(createResponse(null, null, null)));
+
+            var result = filter.filter(createGetRequest(), exchangeFunction).block();
+
+            assertThat(result).isNotNull();
+            verify(exchangeFunction).exchange(any(ClientRequest.class));
+            verify(cache, never()).get(any(), eq(CachedResponse.class));
+        }
+
+        @Test
+        @DisplayName("Cache write is handed to the scheduler and not awaited")
+        void writeIsFireAndForget() {
+            var scheduled = new ArrayList<Runnable>();
+            var deferredFilter = CachingExchangeFilterFunction.builder()
+                    .cache(cache)
+                    .cacheKeyMapper(cacheKeyMapper)
+                    .scheduler(Schedulers.fromExecutor(scheduled::add))
+                    .clock(clock)
+                    .build();
+            when(clock.millis()).thenReturn(CURRENT_TIME);
+            when(cacheKeyMapper.apply(any(ClientRequest.class))).thenReturn(CACHE_KEY);
+            doReturn(CompletableFuture.completedFuture(null)).when(cache).retrieve(CACHE_KEY);
+            when(exchangeFunction.exchange(any(ClientRequest.class)))
+                    .thenReturn(Mono.just(createResponse("\"abc123\"", null, null)));
+
+            var result = deferredFilter.filter(createGetRequest(), exchangeFunction).block();
+
+            assertThat(result).isNotNull();
+            assertThat(result.headers().header(HttpCacheEngine.CACHE_HEADER_NAME))
+                    .containsExactly(HttpCacheEngine.CACHE_MISS);
+            verify(cache, never()).put(any(), any());
+
+            scheduled.forEach(Runnable::run);
+
+            verify(cache).put(eq(CACHE_KEY), any(CachedResponse.class));
+        }
+    }
+
+    @Nested
+    @DisplayName("Stale serving")
+    class StaleServing {
+
+        private final List<Runnable> background = new ArrayList<>();
+
+        private CachingExchangeFilterFunction staleFilter(boolean whileRevalidate, boolean ifError) {
+            return CachingExchangeFilterFunction.builder()
+                    .cache(cache)
+                    .cacheKeyMapper(cacheKeyMapper)
+                    .scheduler(Schedulers.fromExecutor(background::add))
+                    .clock(clock)
+                    .staleWhileRevalidate(whileRevalidate)
+                    .staleIfError(ifError)
+                    .build();
+        }
+
+        private CachedResponse staleEntry() {
+            return new CachedResponse(RESPONSE_BODY, DEFAULT_HEADERS, "\"abc123\"", null, 1, CURRENT_TIME - 10000);
+        }
+
+        @Test
+        @DisplayName("Stale entry is served at once and revalidated once in the background")
+        void staleWhileRevalidateServesStaleAndRevalidatesOnce() {
+            var staleFilter = staleFilter(true, false);
+            when(clock.millis()).thenReturn(CURRENT_TIME);
+            when(cacheKeyMapper.apply(any(ClientRequest.class))).thenReturn(CACHE_KEY);
+            doReturn(CompletableFuture.completedFuture(staleEntry())).when(cache).retrieve(CACHE_KEY);
+
+            var first = staleFilter.filter(createGetRequest(), exchangeFunction).block();
+            var second = staleFilter.filter(createGetRequest(), exchangeFunction).block();
+
+            assertThat(first).isNotNull();
+            assertThat(first.headers().header(HttpCacheEngine.CACHE_HEADER_NAME))
+                    .containsExactly(HttpCacheEngine.CACHE_STALE);
+            assertThat(first.bodyToMono(byte[].class).block()).isEqualTo(RESPONSE_BODY);
+            assertThat(second).isNotNull();
+            assertThat(second.headers().header(HttpCacheEngine.CACHE_HEADER_NAME))
+                    .containsExactly(HttpCacheEngine.CACHE_STALE);
+            assertThat(background).hasSize(1);
+            verify(exchangeFunction, never()).exchange(any());
+
+            when(exchangeFunction.exchange(any(ClientRequest.class))).thenReturn(Mono.just(create304Response()));
+            // Runs the revalidation, which in turn schedules the write-back of the refreshed entry.
+            background.getFirst().run();
+            background.get(1).run();
+
+            verify(exchangeFunction, times(1)).exchange(any());
+            verify(cache).put(eq(CACHE_KEY), any(CachedResponse.class));
+        }
+
+        @Test
+        @DisplayName("Stale entry is served when revalidation gets a 5xx")
+        void staleIfErrorServesStaleOnServerError() {
+            when(clock.millis()).thenReturn(CURRENT_TIME);
+            when(cacheKeyMapper.apply(any(ClientRequest.class))).thenReturn(CACHE_KEY);
+            doReturn(CompletableFuture.completedFuture(staleEntry())).when(cache).retrieve(CACHE_KEY);
+            when(exchangeFunction.exchange(any(ClientRequest.class)))
+                    .thenReturn(Mono.just(ClientResponse.create(HttpStatus.BAD_GATEWAY).build()));
+
+            var result = staleFilter(false, true)
+                    .filter(createGetRequest(), exchangeFunction)
+                    .block();
+
+            assertThat(result).isNotNull();
+            assertThat(result.statusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(result.headers().header(HttpCacheEngine.CACHE_HEADER_NAME))
+                    .containsExactly(HttpCacheEngine.CACHE_STALE);
+        }
+
+        @Test
+        @DisplayName("Stale entry is served when the connection fails")
+        void staleIfErrorServesStaleOnConnectionError() {
+            when(clock.millis()).thenReturn(CURRENT_TIME);
+            when(cacheKeyMapper.apply(any(ClientRequest.class))).thenReturn(CACHE_KEY);
+            doReturn(CompletableFuture.completedFuture(staleEntry())).when(cache).retrieve(CACHE_KEY);
+            when(exchangeFunction.exchange(any(ClientRequest.class)))
+                    .thenReturn(Mono.error(new WebClientRequestException(
+                            new ConnectException("Connection refused"),
+                            HttpMethod.GET,
+                            URI.create(TEST_URL),
+                            new HttpHeaders())));
+
+            var result = staleFilter(false, true)
+                    .filter(createGetRequest(), exchangeFunction)
+                    .block();
+
+            assertThat(result).isNotNull();
+            assertThat(result.headers().header(HttpCacheEngine.CACHE_HEADER_NAME))
+                    .containsExactly(HttpCacheEngine.CACHE_STALE);
+        }
+
+        @Test
+        @DisplayName("Failures other than reaching the server are not hidden behind a stale entry")
+        void staleIfErrorSurfacesOtherFailures() {
+            when(cacheKeyMapper.apply(any(ClientRequest.class))).thenReturn(CACHE_KEY);
+            when(clock.millis()).thenReturn(CURRENT_TIME);
+            doReturn(CompletableFuture.completedFuture(staleEntry())).when(cache).retrieve(CACHE_KEY);
+            when(exchangeFunction.exchange(any(ClientRequest.class)))
+                    .thenReturn(Mono.error(new IllegalStateException("bug")));
+
+            var result = staleFilter(false, true).filter(createGetRequest(), exchangeFunction);
+
+            assertThatThrownBy(result::block).isInstanceOf(IllegalStateException.class).hasMessage("bug");
+        }
+
+        @Test
+        @DisplayName("Without stale-if-error a 5xx is passed through")
+        void serverErrorPassesThroughByDefault() {
+            when(clock.millis()).thenReturn(CURRENT_TIME);
+            when(cacheKeyMapper.apply(any(ClientRequest.class))).thenReturn(CACHE_KEY);
+            when(cache.get(CACHE_KEY, CachedResponse.class)).thenReturn(staleEntry());
+            when(exchangeFunction.exchange(any(ClientRequest.class)))
+                    .thenReturn(Mono.just(ClientResponse.create(HttpStatus.BAD_GATEWAY).build()));
+
+            var result = filter.filter(createGetRequest(), exchangeFunction).block();
+
+            assertThat(result).isNotNull();
+            assertThat(result.statusCode()).isEqualTo(HttpStatus.BAD_GATEWAY);
+        }
+    }
+
+    @Nested
+    @DisplayName("Only if cached")
+    class OnlyIfCached {
+
+        private CachingExchangeFilterFunction offlineFilter() {
+            return CachingExchangeFilterFunction.builder()
+                    .cache(cache)
+                    .cacheKeyMapper(cacheKeyMapper)
+                    .scheduler(Schedulers.immediate())
+                    .clock(clock)
+                    .onlyIfCached(true)
+                    .build();
+        }
+
+        @Test
+        @DisplayName("A stale entry is served without contacting the server")
+        void servesStaleEntry() {
+            when(clock.millis()).thenReturn(CURRENT_TIME);
+            when(cacheKeyMapper.apply(any(ClientRequest.class))).thenReturn(CACHE_KEY);
+            doReturn(CompletableFuture.completedFuture(new CachedResponse(
+                            RESPONSE_BODY, DEFAULT_HEADERS, "\"abc123\"", null, 1, CURRENT_TIME - 10000)))
+                    .when(cache)
+                    .retrieve(CACHE_KEY);
+
+            var result = offlineFilter().filter(createGetRequest(), exchangeFunction).block();
+
+            assertThat(result).isNotNull();
+            assertThat(result.headers().header(HttpCacheEngine.CACHE_HEADER_NAME))
+                    .containsExactly(HttpCacheEngine.CACHE_STALE);
+            assertThat(result.bodyToMono(byte[].class).block()).isEqualTo(RESPONSE_BODY);
+            verify(exchangeFunction, never()).exchange(any());
+        }
+
+        @Test
+        @DisplayName("A missing entry is a 504 without contacting the server")
+        void missingEntryIsGatewayTimeout() {
+            when(cacheKeyMapper.apply(any(ClientRequest.class))).thenReturn(CACHE_KEY);
+            doReturn(CompletableFuture.completedFuture(null)).when(cache).retrieve(CACHE_KEY);
+
+            var result = offlineFilter().filter(createGetRequest(), exchangeFunction).block();
+
+            assertThat(result).isNotNull();
+            assertThat(result.statusCode()).isEqualTo(HttpStatus.GATEWAY_TIMEOUT);
+            verify(exchangeFunction, never()).exchange(any());
+        }
+
+        @Test
+        @DisplayName("The only-if-cached request directive is honoured per request")
+        void honoursRequestDirective() {
+            when(cacheKeyMapper.apply(any(ClientRequest.class))).thenReturn(CACHE_KEY);
+            doReturn(CompletableFuture.completedFuture(null)).when(cache).retrieve(CACHE_KEY);
+            var request = ClientRequest.create(HttpMethod.GET, URI.create(TEST_URL))
+                    .header("Cache-Control", "only-if-cached")
+                    .build();
+
+            var result = filter.filter(request, exchangeFunction).block();
+
+            assertThat(result).isNotNull();
+            assertThat(result.statusCode()).isEqualTo(HttpStatus.GATEWAY_TIMEOUT);
+            verify(exchangeFunction, never()).exchange(any());
+        }
+    }
+
+    @Nested
+    @DisplayName("Request coalescing")
+    class RequestCoalescing {
+
+        private final TestObservationRegistry observationRegistry = TestObservationRegistry.create();
+
+        private CachingExchangeFilterFunction coalescingFilter() {
+            return coalescingFilter(CachingExchangeFilterFunction.DEFAULT_MAX_CACHEABLE_SIZE);
+        }
+
+        private CachingExchangeFilterFunction coalescingFilter(int maxCacheableSize) {
+            return CachingExchangeFilterFunction.builder()
+                    .cache(cache)
+                    .cacheKeyMapper(cacheKeyMapper)
+                    .scheduler(Schedulers.immediate())
+                    .clock(clock)
+                    .coalesceRequests(true)
+                    .maxCacheableSize(maxCacheableSize)
+                    .observationRegistry(observationRegistry)
+                    .build();
+        }
+
+        private ClientResponse chunkedResponse() {
+            return ClientResponse.create(HttpStatus.OK)
+                    .body(Flux.just(
+                            bufferFactory.wrap("test ".getBytes(StandardCharsets.UTF_8)),
+                            bufferFactory.wrap("response".getBytes(StandardCharsets.UTF_8))))
+                    .build();
+        }
+
+        @Test
+        @DisplayName("Concurrent identical requests share one exchange and its body")
+        void concurrentRequestsShareOneExchange() throws Exception {
+            var coalescingFilter = coalescingFilter();
+            Sinks.One<ClientResponse> upstream = Sinks.one();
+            when(clock.millis()).thenReturn(CURRENT_TIME);
+            when(cacheKeyMapper.apply(any(ClientRequest.class))).thenReturn(CACHE_KEY);
+            when(exchangeFunction.exchange(any(ClientRequest.class))).thenReturn(upstream.asMono());
+
+            var first = coalescingFilter.filter(createGetRequest(), exchangeFunction).toFuture();
+            var second = coalescingFilter.filter(createGetRequest(), exchangeFunction).toFuture();
+            upstream.tryEmitValue(createResponse("\"abc123\"", null, null));
+
+            for (var result : List.of(first.get(), second.get())) {
+                assertThat(result.statusCode()).isEqualTo(HttpStatus.OK);
+                assertThat(result.bodyToMono(byte[].class).block()).isEqualTo(RESPONSE_BODY);
+            }
+            verify(exchangeFunction, times(1)).exchange(any());
+            verify(cache, times(1)).put(eq(CACHE_KEY), any(CachedResponse.class));
+            TestObservationRegistryAssert.assertThat(observationRegistry)
+                    .hasNumberOfObservationsWithNameEqualTo("pulpogato.cache.coalesce", 1);
+        }
+
+        @Test
+        @DisplayName("A response too large to share is streamed to the first request, and the rest make their own")
+        void largeResponseIsNotShared() throws Exception {
+            var coalescingFilter = coalescingFilter(4);
+            Sinks.One<ClientResponse> upstream = Sinks.one();
+            when(cacheKeyMapper.apply(any(ClientRequest.class))).thenReturn(CACHE_KEY);
+            when(exchangeFunction.exchange(any(ClientRequest.class)))
+                    .thenReturn(upstream.asMono(), Mono.just(chunkedResponse()));
+
+            var first = coalescingFilter.filter(createGetRequest(), exchangeFunction).toFuture();
+            var second = coalescingFilter.filter(createGetRequest(), exchangeFunction).toFuture();
+            upstream.tryEmitValue(chunkedResponse());
+
+            for (var result : List.of(first.get(), second.get())) {
+                assertThat(result.bodyToMono(byte[].class).block()).isEqualTo(RESPONSE_BODY);
+            }
+            verify(exchangeFunction, times(2)).exchange(any());
+            TestObservationRegistryAssert.assertThat(observationRegistry)
+                    .hasNumberOfObservationsWithNameEqualTo("pulpogato.cache.coalesce", 1);
+        }
+
+        @Test
+        @DisplayName("A failed exchange fails every request waiting on it")
+        void failureIsShared() {
+            var coalescingFilter = coalescingFilter();
+            Sinks.One<ClientResponse> upstream = Sinks.one();
+            when(cacheKeyMapper.apply(any(ClientRequest.class))).thenReturn(CACHE_KEY);
+            when(exchangeFunction.exchange(any(ClientRequest.class))).thenReturn(upstream.asMono());
+
+            var first = coalescingFilter.filter(createGetRequest(), exchangeFunction).toFuture();
+            var second = coalescingFilter.filter(createGetRequest(), exchangeFunction).toFuture();
+            upstream.tryEmitError(new IllegalStateException("connection refused"));
+
+            assertThat(first).isCompletedExceptionally();
+            assertThat(second).isCompletedExceptionally();
+            verify(exchangeFunction, times(1)).exchange(any());
+        }
+
+        @Test
+        @DisplayName("Requests are not coalesced once the first one has completed")
+        void sequentialRequestsAreNotCoalesced() {
+            var coalescingFilter = coalescingFilter();
+            when(cacheKeyMapper.apply(any(ClientRequest.class))).thenReturn(CACHE_KEY);
+            when(exchangeFunction.exchange(any(ClientRequest.class)))
+                    .thenAnswer(invocation -> Mono.just(createResponse(null, null, null)));
+
+            coalescingFilter.filter(createGetRequest(), exchangeFunction).block();
+            coalescingFilter.filter(createGetRequest(), exchangeFunction).block();
+
+            verify(exchangeFunction, times(2)).exchange(any());
+            TestObservationRegistryAssert.assertThat(observationRegistry)
+                    .hasNumberOfObservationsWithNameEqualTo("pulpogato.cache.coalesce", 0);
+        }
+    }
+
     @Nested
     @DisplayName("Observations")
     class Observations {
@@ -712,6 +1116,7 @@ class CachingExchangeFilterFunctionTest {
             return CachingExchangeFilterFunction.builder()
                     .cache(cache)
                     .cacheKeyMapper(cacheKeyMapper)
+                    .scheduler(Schedulers.immediate())
                     .clock(clock)
                     .maxCacheableSize(maxCacheableSize)
                     .observationRegistry(observationRegistry)
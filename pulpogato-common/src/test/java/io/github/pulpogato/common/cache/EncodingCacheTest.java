@@ -0,0 +1,63 @@
+package io.github.pulpogato.common.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+class EncodingCacheTest {
+
+    private static final String KEY = "key";
+    private static final byte[] BODY = "{\"id\":1}".getBytes(StandardCharsets.UTF_8);
+
+    private final ConcurrentMapCache backing = new ConcurrentMapCache("test");
+    private final EncodingCache cache =
+            new EncodingCache(backing, CachedResponseCodec.builder().build());
+
+    private static CachedResponse response() {
+        return new CachedResponse(BODY, Map.of("Content-Type", List.of("application/json")), "\"abc\"", null, 60, 1L);
+    }
+
+    @Test
+    @DisplayName("stores cached responses as bytes and reads them back")
+    void storesBytes() {
+        cache.put(KEY, response());
+
+        assertThat(backing.get(KEY, Object.class)).isInstanceOf(byte[].class);
+        var read = cache.get(KEY, CachedResponse.class);
+        assertThat(read).isEqualTo(response());
+        assertThat(read.getBody()).isEqualTo(BODY);
+    }
+
+    @Test
+    @DisplayName("decodes values retrieved asynchronously")
+    void decodesRetrieve() {
+        cache.put(KEY, response());
+
+        var retrieved = cache.retrieve(KEY);
+
+        assertThat(retrieved).isNotNull();
+        assertThat(retrieved.join()).isEqualTo(response());
+    }
+
+    @Test
+    @DisplayName("passes other values through")
+    void passesOtherValuesThrough() {
+        cache.put(KEY, "plain");
+        backing.put("raw", new byte[] {1, 2, 3});
+
+        assertThat(cache.get(KEY, String.class)).isEqualTo("plain");
+        assertThat(cache.get("raw", byte[].class)).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    @DisplayName("returns null for absent keys")
+    void returnsNullWhenAbsent() {
+        assertThat(cache.get(KEY)).isNull();
+        assertThat(cache.get(KEY, CachedResponse.class)).isNull();
+    }
+}
@@ -0,0 +1,208 @@
+package io.github.pulpogato.common.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedFileCacheTest {
+
+    private static final CachedResponseCodec CODEC = CachedResponseCodec.builder().build();
+
+    @TempDir
+    Path directory;
+
+    private static CachedResponse response(String body) {
+        return new CachedResponse(
+                body.getBytes(StandardCharsets.UTF_8),
+                Map.of("Content-Type", List.of("application/json")),
+                "\"abc\"",
+                null,
+                60,
+                1_000_000L);
+    }
+
+    /**
+     * The on-disk size of a record for a one-character key.
+     */
+    private static int recordLength(CachedResponse response) {
+        return 13 + 1 + CODEC.encode(response).length;
+    }
+
+    private MappedFileCache open(long maximumBytes, int segmentSize) {
+        return MappedFileCache.builder()
+                .directory(directory)
+                .maximumBytes(maximumBytes)
+                .segmentSize(segmentSize)
+                .codec(CODEC)
+                .build();
+    }
+
+    private long segmentCount() throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    @DisplayName("stores entries and reads them back after a restart")
+    void survivesRestart() {
+        try (var cache = open(1024 * 1024, 64 * 1024)) {
+            cache.put("a", response("{\"id\":1}"));
+            cache.put("b", response("{\"id\":2}"));
+            cache.put("b", response("{\"id\":3}"));
+            cache.evict("a");
+            assertThat(cache.get("b", CachedResponse.class)).isEqualTo(response("{\"id\":3}"));
+        }
+
+        try (var cache = open(1024 * 1024, 64 * 1024)) {
+            assertThat(cache.get("a")).isNull();
+            var read = cache.get("b", CachedResponse.class);
+            assertThat(read).isEqualTo(response("{\"id\":3}"));
+            assertThat(read.getBody()).isEqualTo("{\"id\":3}".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    @DisplayName("evicts the least recently used entries past the byte bound")
+    void evictsLeastRecentlyUsed() {
+        var length = recordLength(response("{\"id\":1}"));
+        try (var cache = open(2L * length + length / 2, 64 * 1024)) {
+            cache.put("a", response("{\"id\":1}"));
+            cache.put("b", response("{\"id\":2}"));
+            cache.get("a");
+            cache.put("c", response("{\"id\":3}"));
+
+            assertThat(cache.get("a")).isNotNull();
+            assertThat(cache.get("b")).isNull();
+            assertThat(cache.get("c")).isNotNull();
+        }
+    }
+
+    @Test
+    @DisplayName("compacts mostly dead segments away")
+    void compacts() throws IOException {
+        var length = recordLength(response("{\"id\":0}"));
+        try (var cache = open(1024 * 1024, 4 * length)) {
+            cache.put("k", response("{\"id\":0}"));
+            for (int i = 1; i < 10; i++) {
+                cache.put("a", response("{\"id\":" + i + "}"));
+            }
+
+            assertThat(segmentCount()).isLessThanOrEqualTo(2);
+            assertThat(cache.get("k", CachedResponse.class)).isEqualTo(response("{\"id\":0}"));
+        }
+
+        try (var cache = open(1024 * 1024, 4 * length)) {
+            assertThat(cache.get("k", CachedResponse.class)).isEqualTo(response("{\"id\":0}"));
+            assertThat(cache.get("a", CachedResponse.class)).isEqualTo(response("{\"id\":9}"));
+        }
+    }
+
+    @Test
+    @DisplayName("compacts churned segments while the oldest one stays live")
+    void compactsPastLiveOldestSegment() throws IOException {
+        var length = recordLength(response("{\"id\":0}"));
+        try (var cache = open(1024 * 1024, 4 * length)) {
+            for (var key : List.of("k", "x", "y", "z")) {
+                cache.put(key, response("{\"id\":0}"));
+            }
+            for (int i = 1; i < 40; i++) {
+                cache.put("a", response("{\"id\":" + (i % 10) + "}"));
+            }
+
+            assertThat(segmentCount()).isLessThanOrEqualTo(3);
+        }
+
+        try (var cache = open(1024 * 1024, 4 * length)) {
+            for (var key : List.of("k", "x", "y", "z")) {
+                assertThat(cache.get(key, CachedResponse.class)).isEqualTo(response("{\"id\":0}"));
+            }
+            assertThat(cache.get("a", CachedResponse.class)).isEqualTo(response("{\"id\":9}"));
+        }
+    }
+
+    @Test
+    @DisplayName("does not store entries larger than a segment")
+    void skipsOversizedEntries() {
+        try (var cache = open(1024 * 1024, 64)) {
+            cache.put("a", response("{\"id\":1}"));
+
+            assertThat(cache.get("a")).isNull();
+        }
+    }
+
+    @Test
+    @DisplayName("runs loaders without blocking other operations")
+    void loadsOutsideTheLock() {
+        try (var cache = open(1024 * 1024, 64 * 1024)) {
+            var loaded = cache.get("a", () -> {
+                // Would deadlock if the loader held the cache's lock
+                CompletableFuture.runAsync(() -> cache.put("b", response("{\"id\":2}")))
+                        .get(10, TimeUnit.SECONDS);
+                return response("{\"id\":1}");
+            });
+
+            assertThat(loaded).isEqualTo(response("{\"id\":1}"));
+            assertThat(cache.get("a", CachedResponse.class)).isEqualTo(response("{\"id\":1}"));
+            assertThat(cache.get("b", CachedResponse.class)).isEqualTo(response("{\"id\":2}"));
+        }
+    }
+
+    @Test
+    @DisplayName("shares one load between concurrent callers for a key")
+    void loadsOncePerKey() throws Exception {
+        try (var cache = open(1024 * 1024, 64 * 1024)) {
+            var calls = new AtomicInteger();
+            var started = new CountDownLatch(1);
+            var release = new CountDownLatch(1);
+            Callable<CachedResponse> loader = () -> {
+                calls.incrementAndGet();
+                started.countDown();
+                release.await();
+                return response("{\"id\":1}");
+            };
+
+            var first = CompletableFuture.supplyAsync(() -> cache.get("a", loader));
+            started.await();
+            var second = CompletableFuture.supplyAsync(() -> cache.get("a", loader));
+            release.countDown();
+
+            assertThat(first.get(10, TimeUnit.SECONDS)).isEqualTo(response("{\"id\":1}"));
+            assertThat(second.get(10, TimeUnit.SECONDS)).isEqualTo(response("{\"id\":1}"));
+            assertThat(calls).hasValue(1);
+        }
+    }
+
+    @Test
+    @DisplayName("only stores cached responses")
+    void rejectsOtherValues() {
+        try (var cache = open(1024 * 1024, 64 * 1024)) {
+            assertThatThrownBy(() -> cache.put("a", "plain")).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    @DisplayName("clear removes every entry")
+    void clears() {
+        try (var cache = open(1024 * 1024, 64 * 1024)) {
+            cache.put("a", response("{\"id\":1}"));
+
+            assertThat(cache.invalidate()).isTrue();
+            assertThat(cache.get("a")).isNull();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package io.github.pulpogato.common.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.observation.tck.TestObservationRegistry;
+import io.micrometer.observation.tck.TestObservationRegistryAssert;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+class TieredCacheTest {
+
+    private static final String KEY = "key";
+    private static final long NOW = 1_000_000L;
+
+    private final ConcurrentMapCache l2 = new ConcurrentMapCache("test");
+    private final Clock clock = mock(Clock.class);
+    private TieredCache cache;
+
+    @BeforeEach
+    void setUp() {
+        when(clock.millis()).thenReturn(NOW);
+        cache = TieredCache.builder()
+                .l2(l2)
+                .maximumSize(2)
+                .maximumWeight(10)
+                .timeToLive(Duration.ofSeconds(30))
+                .clock(clock)
+                .build();
+    }
+
+    private static CachedResponse response(int bodyLength, long cachedAtMillis) {
+        var headers = Map.of("Content-Type", List.of("application/json"));
+        return new CachedResponse(new byte[bodyLength], headers, "\"abc\"", null, 60, cachedAtMillis);
+    }
+
+    @Test
+    @DisplayName("fills the L1 from the L2 and serves later reads from the L1")
+    void fillsFromL2() {
+        var stored = response(4, NOW);
+        l2.put(KEY, stored);
+
+        assertThat(cache.lookup(KEY)).isEqualTo(new TieredCache.Lookup(stored, HttpCacheEngine.TIER_L2));
+
+        l2.evict(KEY);
+        assertThat(cache.lookup(KEY)).isEqualTo(new TieredCache.Lookup(stored, HttpCacheEngine.TIER_L1));
+    }
+
+    @Test
+    @DisplayName("writes through to the L2")
+    void writesThrough() {
+        var stored = response(4, NOW);
+
+        cache.put(KEY, stored);
+
+        assertThat(l2.get(KEY, CachedResponse.class)).isSameAs(stored);
+        assertThat(cache.lookup(KEY).tier()).isEqualTo(HttpCacheEngine.TIER_L1);
+
+        cache.evict(KEY);
+        assertThat(cache.lookup(KEY)).isEqualTo(new TieredCache.Lookup(null, HttpCacheEngine.TIER_NONE));
+    }
+
+    @Test
+    @DisplayName("re-checks the L2 once the L1 entry outlives its time to live")
+    void rechecksAfterTimeToLive() {
+        cache.put(KEY, response(4, NOW));
+        var newer = response(4, NOW + 1_000);
+        l2.put(KEY, newer);
+
+        when(clock.millis()).thenReturn(NOW + 30_000);
+
+        assertThat(cache.lookup(KEY)).isEqualTo(new TieredCache.Lookup(newer, HttpCacheEngine.TIER_L2));
+    }
+
+    @Test
+    @DisplayName("re-checks the L2 as soon as the cached response expires, and drops entries gone from it")
+    void rechecksExpiredResponses() {
+        cache.put(KEY, new CachedResponse(new byte[4], Map.of(), "\"abc\"", null, 1, NOW));
+        l2.evict(KEY);
+
+        when(clock.millis()).thenReturn(NOW + 2_000);
+
+        assertThat(cache.get(KEY)).isNull();
+        when(clock.millis()).thenReturn(NOW);
+        assertThat(cache.get(KEY)).isNull();
+    }
+
+    @Test
+    @DisplayName("treats a null future from the L2's retrieve as a miss, without a blocking read")
+    void nullRetrieveIsMiss() {
+        var shared = mock(Cache.class);
+        when(shared.retrieve(KEY)).thenReturn(null);
+        var tiered = TieredCache.builder().l2(shared).clock(clock).build();
+        Executor blocking = command -> {
+            throw new AssertionError("The L2 was read on the blocking executor");
+        };
+
+        assertThat(tiered.lookupAsync(KEY, blocking).join())
+                .isEqualTo(new TieredCache.Lookup(null, HttpCacheEngine.TIER_NONE));
+        verify(shared, never()).get(KEY);
+    }
+
+    @Nested
+    @DisplayName("bounds")
+    class Bounds {
+
+        @Test
+        @DisplayName("evicts the least recently used entries past the weight bound")
+        void evictsByWeight() {
+            cache.put("a", response(4, NOW));
+            cache.put("b", response(4, NOW));
+            cache.lookup("a");
+            cache.put("c", response(4, NOW));
+            l2.clear();
+
+            assertThat(cache.lookup("a").tier()).isEqualTo(HttpCacheEngine.TIER_L1);
+            assertThat(cache.lookup("b").tier()).isEqualTo(HttpCacheEngine.TIER_NONE);
+            assertThat(cache.lookup("c").tier()).isEqualTo(HttpCacheEngine.TIER_L1);
+        }
+
+        @Test
+        @DisplayName("evicts past the size bound")
+        void evictsBySize() {
+            cache.put("a", "x");
+            cache.put("b", "y");
+            cache.put("c", "z");
+            l2.clear();
+
+            assertThat(cache.get("a")).isNull();
+            assertThat(cache.get("b", String.class)).isEqualTo("y");
+            assertThat(cache.get("c", String.class)).isEqualTo("z");
+        }
+
+        @Test
+        @DisplayName("keeps entries heavier than the whole L1 only in the L2")
+        void skipsOversizedEntries() {
+            cache.put(KEY, response(11, NOW));
+
+            assertThat(cache.lookup(KEY).tier()).isEqualTo(HttpCacheEngine.TIER_L2);
+            assertThat(cache.lookup(KEY).tier()).isEqualTo(HttpCacheEngine.TIER_L2);
+        }
+    }
+
+    @Test
+    @DisplayName("tags the pulpogato.cache.get observation with the tier that answered")
+    void tagsObservation() {
+        var registry = TestObservationRegistry.create();
+        var engine = new HttpCacheEngine(cache, clock, registry, 1024, false);
+        l2.put(KEY, response(4, NOW));
+
+        engine.lookup(KEY, "https://api.github.com/", null);
+        engine.lookupAsync(KEY, "https://api.github.com/", null, Runnable::run).join();
+
+        TestObservationRegistryAssert.assertThat(registry)
+                .hasNumberOfObservationsWithNameEqualTo("pulpogato.cache.get", 2)
+                .hasAnObservation(observation -> observation
+                        .hasLowCardinalityKeyValue(HttpCacheEngine.CACHE_TIER, HttpCacheEngine.TIER_L2)
+                        .hasLowCardinalityKeyValue(HttpCacheEngine.CACHE_STATUS, HttpCacheEngine.CACHE_HIT))
+                .hasAnObservation(observation -> observation
+                        .hasLowCardinalityKeyValue(HttpCacheEngine.CACHE_TIER, HttpCacheEngine.TIER_L1)
+                        .hasLowCardinalityKeyValue(HttpCacheEngine.CACHE_STATUS, HttpCacheEngine.CACHE_HIT));
+    }
+}
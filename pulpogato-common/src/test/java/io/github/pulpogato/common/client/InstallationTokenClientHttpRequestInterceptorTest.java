@@ -0,0 +1,67 @@
+package io.github.pulpogato.common.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.jspecify.annotations.NullMarked;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+
+class InstallationTokenClientHttpRequestInterceptorTest {
+
+    @RequiredArgsConstructor
+    @Getter
+    @NullMarked
+    private static final class TestHttpRequest implements HttpRequest {
+        private final HttpMethod method;
+        private final HttpHeaders headers = new HttpHeaders();
+        private final Map<String, Object> attributes = new HashMap<>();
+        private final URI uri;
+
+        @Override
+        public URI getURI() {
+            return uri;
+        }
+    }
+
+    @Test
+    void addsInstallationTokenForTheConfiguredInstallation() throws Exception {
+        var source = mock(InstallationTokenSource.class);
+        var execution = mock(ClientHttpRequestExecution.class);
+        var scope = new InstallationTokenScope(42, Set.of("repo"), Map.of("issues", "write"));
+        when(source.createToken(scope))
+                .thenReturn(new InstallationToken("ghs_token", Instant.now().plus(Duration.ofHours(1))));
+        when(execution.execute(any(), any())).thenReturn(mock(ClientHttpResponse.class));
+        var manager = InstallationTokenManager.builder()
+                .source(source)
+                .executor(Runnable::run)
+                .scheduler(mock(ScheduledExecutorService.class))
+                .build();
+        var interceptor = InstallationTokenClientHttpRequestInterceptor.builder()
+                .manager(manager)
+                .installationId(42L)
+                .repositories(Set.of("repo"))
+                .permissions(Map.of("issues", "write"))
+                .build();
+
+        var request = new TestHttpRequest(HttpMethod.GET, URI.create("https://api.github.com/user"));
+        interceptor.intercept(request, new byte[0], execution);
+
+        assertThat(request.getHeaders().getFirst("Authorization")).isEqualTo("Bearer ghs_token");
+        verify(source, never()).findInstallationId(any(), any());
+    }
+}
@@ -0,0 +1,67 @@
+package io.github.pulpogato.common.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ScheduledExecutorService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class InstallationTokenFilterTest {
+
+    private InstallationTokenSource source;
+    private InstallationTokenManager manager;
+    private ExchangeFunction exchangeFunction;
+
+    @BeforeEach
+    void setUp() {
+        source = mock(InstallationTokenSource.class);
+        exchangeFunction = mock(ExchangeFunction.class);
+        manager = InstallationTokenManager.builder()
+                .source(source)
+                .executor(Runnable::run)
+                .scheduler(mock(ScheduledExecutorService.class))
+                .build();
+    }
+
+    @Test
+    void addsInstallationTokenForTheRequestRepository() {
+        when(source.findInstallationId("octo", "repo")).thenReturn(42L);
+        when(source.createToken(InstallationTokenScope.of(42)))
+                .thenReturn(new InstallationToken("ghs_token", Instant.now().plus(Duration.ofHours(1))));
+        when(exchangeFunction.exchange(any(ClientRequest.class))).thenReturn(Mono.just(mock(ClientResponse.class)));
+        var filter = InstallationTokenFilter.builder().manager(manager).build();
+
+        var request = ClientRequest.create(HttpMethod.GET, URI.create("https://api.github.com/repos/octo/repo/pulls"))
+                .build();
+        filter.filter(request, exchangeFunction).block();
+
+        var captor = ArgumentCaptor.forClass(ClientRequest.class);
+        verify(exchangeFunction).exchange(captor.capture());
+        assertThat(captor.getValue().headers().getFirst("Authorization")).isEqualTo("Bearer ghs_token");
+    }
+
+    @Test
+    void failsWithoutAnInstallation() {
+        var filter = InstallationTokenFilter.builder().manager(manager).build();
+
+        var request = ClientRequest.create(HttpMethod.GET, URI.create("https://api.github.com/user"))
+                .build();
+
+        StepVerifier.create(filter.filter(request, exchangeFunction))
+                .expectError(IllegalStateException.class)
+                .verify();
+        verifyNoInteractions(exchangeFunction);
+    }
+}
@@ -0,0 +1,194 @@
+package io.github.pulpogato.common.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+
+class InstallationTokenManagerTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T12:00:00Z");
+    private static final InstallationTokenScope SCOPE = InstallationTokenScope.of(42);
+
+    private InstallationTokenSource source;
+    private Clock clock;
+    private ScheduledExecutorService scheduler;
+    private List<Runnable> pending;
+    private InstallationTokenManager manager;
+
+    @BeforeEach
+    void setUp() {
+        source = mock(InstallationTokenSource.class);
+        clock = mock(Clock.class);
+        scheduler = mock(ScheduledExecutorService.class);
+        pending = new ArrayList<>();
+        when(clock.millis()).thenReturn(NOW.toEpochMilli());
+        manager = InstallationTokenManager.builder()
+                .source(source)
+                .clock(clock)
+                .executor(Runnable::run)
+                .scheduler(scheduler)
+                .build();
+    }
+
+    private static InstallationToken token(String token, Instant issuedAt) {
+        return new InstallationToken(token, issuedAt.plus(Duration.ofHours(1)));
+    }
+
+    private Runnable scheduledRefresh(long expectedDelayMillis) {
+        var captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler, atLeastOnce()).schedule(captor.capture(), eq(expectedDelayMillis), eq(TimeUnit.MILLISECONDS));
+        return captor.getValue();
+    }
+
+    @Test
+    void cachesTokensPerScope() {
+        var readOnly = new InstallationTokenScope(42, Set.of(), Map.of("contents", "read"));
+        when(source.createToken(SCOPE)).thenReturn(token("ghs_all", NOW));
+        when(source.createToken(readOnly)).thenReturn(token("ghs_read", NOW));
+
+        assertThat(manager.getToken(SCOPE)).isEqualTo("ghs_all");
+        assertThat(manager.getToken(SCOPE)).isEqualTo("ghs_all");
+        assertThat(manager.getToken(readOnly)).isEqualTo("ghs_read");
+
+        verify(source, times(1)).createToken(SCOPE);
+        verify(source, times(1)).createToken(readOnly);
+    }
+
+    @Test
+    void refreshesInTheBackgroundBeforeExpiry() {
+        var refreshedAt = NOW.plus(Duration.ofMinutes(50));
+        when(source.createToken(SCOPE)).thenReturn(token("ghs_first", NOW), token("ghs_second", refreshedAt));
+        manager.getToken(SCOPE);
+
+        var refresh = scheduledRefresh(Duration.ofMinutes(50).toMillis());
+        when(clock.millis()).thenReturn(refreshedAt.toEpochMilli());
+        refresh.run();
+
+        assertThat(manager.getToken(SCOPE)).isEqualTo("ghs_second");
+        verify(source, times(2)).createToken(SCOPE);
+    }
+
+    @Test
+    void stopsRefreshingIdleScopes() {
+        when(source.createToken(SCOPE)).thenReturn(token("ghs_first", NOW));
+        manager.getToken(SCOPE);
+
+        var refresh = scheduledRefresh(Duration.ofMinutes(50).toMillis());
+        when(clock.millis()).thenReturn(NOW.plus(Duration.ofMinutes(61)).toEpochMilli());
+        refresh.run();
+
+        verify(source, times(1)).createToken(SCOPE);
+    }
+
+    @Test
+    void refreshesOnRequestWhenTheScheduledRefreshFailed() {
+        when(source.createToken(SCOPE))
+                .thenReturn(token("ghs_first", NOW))
+                .thenThrow(new IllegalStateException("502 Bad Gateway"))
+                .thenReturn(token("ghs_second", NOW));
+        manager.getToken(SCOPE);
+        when(clock.millis()).thenReturn(NOW.plus(Duration.ofMinutes(50)).toEpochMilli());
+        scheduledRefresh(Duration.ofMinutes(50).toMillis()).run();
+
+        assertThat(manager.getToken(SCOPE)).isEqualTo("ghs_first");
+        assertThat(manager.getToken(SCOPE)).isEqualTo("ghs_second");
+    }
+
+    @Test
+    void mintsOnceForConcurrentRequests() {
+        var deferred = InstallationTokenManager.builder()
+                .source(source)
+                .clock(clock)
+                .executor(pending::add)
+                .scheduler(scheduler)
+                .build();
+        when(source.createToken(SCOPE)).thenReturn(token("ghs_token", NOW));
+
+        var first = deferred.getTokenAsync(SCOPE);
+        var second = deferred.getTokenAsync(SCOPE);
+        assertThat(pending).hasSize(1);
+        pending.forEach(Runnable::run);
+
+        assertThat(first).isCompletedWithValue("ghs_token");
+        assertThat(second).isCompletedWithValue("ghs_token");
+    }
+
+    @Test
+    void resolvesAndCachesInstallationIdsFromRequestPaths() {
+        when(source.findInstallationId("octo", "repo")).thenReturn(42L);
+        when(source.createToken(SCOPE)).thenReturn(token("ghs_token", NOW));
+
+        var uri = URI.create("https://api.github.com/repos/octo/repo/issues");
+        assertThat(manager.getTokenAsync(uri, null, Set.of(), Map.of())).isCompletedWithValue("ghs_token");
+        assertThat(manager.getTokenAsync(uri, null, Set.of(), Map.of())).isCompletedWithValue("ghs_token");
+
+        verify(source, times(1)).findInstallationId("octo", "repo");
+    }
+
+    @Test
+    void doesNotCacheFailedInstallationLookups() {
+        when(source.findInstallationId("octo", "repo"))
+                .thenThrow(new IllegalStateException("404 Not Found"))
+                .thenReturn(42L);
+
+        assertThatThrownBy(() -> manager.getInstallationId("octo", "repo")).isInstanceOf(IllegalStateException.class);
+        assertThat(manager.getInstallationId("octo", "repo")).isEqualTo(42L);
+    }
+
+    @Test
+    void looksUpRepositoriesAgainOnceTheirInstallationIsGone() {
+        var reinstalled = InstallationTokenScope.of(43);
+        when(source.findInstallationId("octo", "repo")).thenReturn(42L, 43L);
+        when(source.createToken(SCOPE)).thenThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND));
+        when(source.createToken(reinstalled)).thenReturn(token("ghs_token", NOW));
+
+        var uri = URI.create("https://api.github.com/repos/octo/repo/issues");
+        assertThat(manager.getTokenAsync(uri, null, Set.of(), Map.of())).isCompletedExceptionally();
+        assertThat(manager.getTokenAsync(uri, null, Set.of(), Map.of())).isCompletedWithValue("ghs_token");
+
+        verify(source, times(2)).findInstallationId("octo", "repo");
+    }
+
+    @Test
+    void keepsInstallationsWhenMintingFailsForOtherReasons() {
+        when(source.findInstallationId("octo", "repo")).thenReturn(42L);
+        when(source.createToken(SCOPE))
+                .thenThrow(new IllegalStateException("502 Bad Gateway"))
+                .thenReturn(token("ghs_token", NOW));
+
+        var uri = URI.create("https://api.github.com/repos/octo/repo/issues");
+        assertThat(manager.getTokenAsync(uri, null, Set.of(), Map.of())).isCompletedExceptionally();
+        assertThat(manager.getTokenAsync(uri, null, Set.of(), Map.of())).isCompletedWithValue("ghs_token");
+
+        verify(source, times(1)).findInstallationId("octo", "repo");
+    }
+
+    @Test
+    void failsWithoutAnInstallation() {
+        var uri = URI.create("https://api.github.com/user");
+
+        assertThat(manager.getTokenAsync(uri, null, Set.of(), Map.of())).isCompletedExceptionally();
+        verify(source, never()).createToken(any());
+        verify(source, never()).findInstallationId(any(), any());
+        verify(scheduler, never()).schedule(any(Runnable.class), anyLong(), any());
+    }
+}
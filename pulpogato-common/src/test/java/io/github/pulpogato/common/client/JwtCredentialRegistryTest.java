@@ -0,0 +1,104 @@
+package io.github.pulpogato.common.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.auth0.jwt.JWT;
+import java.io.StringWriter;
+import java.security.KeyPairGenerator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.bouncycastle.openssl.jcajce.JcaPEMWriter;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class JwtCredentialRegistryTest {
+
+    static String pem;
+
+    @BeforeAll
+    static void generateKeyPair() throws Exception {
+        var keyGen = KeyPairGenerator.getInstance("RSA");
+        keyGen.initialize(2048);
+        var writer = new StringWriter();
+        try (var pemWriter = new JcaPEMWriter(writer)) {
+            pemWriter.writeObject(keyGen.generateKeyPair());
+        }
+        pem = writer.toString();
+    }
+
+    static JwtCredentialRegistry registry(List<String> loads, int maximumTenants) {
+        var appIds = Map.of("a", 1L, "b", 2L, "c", 3L);
+        return JwtCredentialRegistry.builder()
+                .credentialsLoader(tenant -> {
+                    loads.add(tenant);
+                    var appId = appIds.get(tenant);
+                    return appId == null ? null : new GitHubAppCredentials(appId, pem);
+                })
+                .maximumTenants(maximumTenants)
+                .build();
+    }
+
+    @Test
+    void signsAsEachTenantsApp() {
+        var loads = new ArrayList<String>();
+        var registry = registry(loads, 10);
+
+        assertThat(JWT.decode(registry.getOrGenerateJwt("a")).getIssuer()).isEqualTo("1");
+        assertThat(JWT.decode(registry.getOrGenerateJwt("b")).getIssuer()).isEqualTo("2");
+        assertThat(registry.getOrGenerateJwt("a")).isEqualTo(registry.getOrGenerateJwt("a"));
+        assertThat(loads).containsExactly("a", "b");
+    }
+
+    @Test
+    void dropsTheLeastRecentlyUsedTenant() {
+        var loads = new ArrayList<String>();
+        var registry = registry(loads, 2);
+
+        registry.getOrGenerateJwt("a");
+        registry.getOrGenerateJwt("b");
+        registry.getOrGenerateJwt("a");
+        registry.getOrGenerateJwt("c");
+        registry.getOrGenerateJwt("a");
+        registry.getOrGenerateJwt("b");
+
+        assertThat(loads).containsExactly("a", "b", "c", "b");
+    }
+
+    @Test
+    void reloadsAnEvictedTenant() {
+        var loads = new ArrayList<String>();
+        var registry = registry(loads, 10);
+
+        registry.getOrGenerateJwt("a");
+        registry.evict("a");
+        registry.getOrGenerateJwt("a");
+
+        assertThat(loads).containsExactly("a", "a");
+    }
+
+    @Test
+    void rejectsUnknownTenants() {
+        var registry = registry(new ArrayList<>(), 10);
+
+        assertThatThrownBy(() -> registry.getOrGenerateJwt("z"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("z");
+    }
+
+    @Test
+    void unknownTenantsDoNotDropKnownOnes() {
+        var loads = new ArrayList<String>();
+        var registry = registry(loads, 2);
+
+        registry.getOrGenerateJwt("a");
+        registry.getOrGenerateJwt("b");
+        assertThatThrownBy(() -> registry.getOrGenerateJwt("z")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> registry.getOrGenerateJwt("z")).isInstanceOf(IllegalArgumentException.class);
+        registry.getOrGenerateJwt("a");
+        registry.getOrGenerateJwt("b");
+
+        assertThat(loads).containsExactly("a", "b", "z", "z");
+    }
+}
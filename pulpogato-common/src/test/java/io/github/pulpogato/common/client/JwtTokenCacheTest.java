@@ -1,15 +1,22 @@
 package io.github.pulpogato.common.client;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.time.Clock;
 import java.time.Instant;
 import java.time.ZoneId;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
 class JwtTokenCacheTest {
 
@@ -98,4 +105,57 @@ class JwtTokenCacheTest {
 
         assertThat(cache.getOrGenerateJwt()).isEqualTo("token-1");
     }
+
+    @Test
+    void preSignsTheNextTokenInTheBackground() {
+        var clock = new MutableClock(FIXED_INSTANT);
+        var presigner = mock(ScheduledExecutorService.class);
+        when(jwtFactory.create(FIXED_INSTANT.minusSeconds(60), FIXED_INSTANT.plusSeconds(540)))
+                .thenReturn("token-1");
+
+        var cache = new JwtTokenCache(jwtFactory, clock, presigner);
+        assertThat(cache.getOrGenerateJwt()).isEqualTo("token-1");
+
+        // Pre-signing is due 60s before the 30s refresh buffer of the 540s expiry.
+        var task = ArgumentCaptor.forClass(Runnable.class);
+        verify(presigner).schedule(task.capture(), eq(450_000L), eq(TimeUnit.MILLISECONDS));
+
+        clock.advanceBy(java.time.Duration.ofSeconds(450));
+        var presignedAt = FIXED_INSTANT.plusSeconds(450);
+        when(jwtFactory.create(presignedAt.minusSeconds(60), presignedAt.plusSeconds(540)))
+                .thenReturn("token-2");
+        task.getValue().run();
+
+        // Inside the old token's refresh buffer, the pre-signed token is served without signing in line.
+        clock.advanceBy(java.time.Duration.ofSeconds(70));
+        assertThat(cache.getOrGenerateJwt()).isEqualTo("token-2");
+        verify(jwtFactory, times(2)).create(any(), any());
+    }
+
+    @Test
+    void doesNotPreSignForAnUnusedToken() {
+        var clock = new MutableClock(FIXED_INSTANT);
+        var presigner = mock(ScheduledExecutorService.class);
+        when(jwtFactory.create(FIXED_INSTANT.minusSeconds(60), FIXED_INSTANT.plusSeconds(540)))
+                .thenReturn("token-1");
+
+        var cache = new JwtTokenCache(jwtFactory, clock, presigner);
+        cache.getOrGenerateJwt();
+        var task = ArgumentCaptor.forClass(Runnable.class);
+        verify(presigner).schedule(task.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
+
+        clock.advanceBy(java.time.Duration.ofSeconds(450));
+        var presignedAt = FIXED_INSTANT.plusSeconds(450);
+        when(jwtFactory.create(presignedAt.minusSeconds(60), presignedAt.plusSeconds(540)))
+                .thenReturn("token-2");
+        task.getValue().run();
+
+        // token-2 was never handed out, so nothing is signed to replace it.
+        verify(presigner, times(2)).schedule(task.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
+        clock.advanceBy(java.time.Duration.ofSeconds(450));
+        task.getValue().run();
+
+        verify(jwtFactory, times(2)).create(any(), any());
+        verify(presigner, times(2)).schedule(any(Runnable.class), anyLong(), eq(TimeUnit.MILLISECONDS));
+    }
 }
@@ -69,7 +69,7 @@ class MetricsClientHttpRequestInterceptorTest {
         var meters = meterRegistry.getMeters();
         assertThat(meters)
                 .isNotEmpty()
-                .hasSize(4)
+                .hasSize(5)
                 .anySatisfy(meter -> {
                     assertThat(meter.getId().getName()).isEqualTo("github.api.rateLimit.limit");
                     assertThat(meter.getId().getTag("resource")).isEqualTo("core");
@@ -97,6 +97,13 @@ class MetricsClientHttpRequestInterceptorTest {
                     assertThat(meter).isInstanceOf(DefaultGauge.class);
                     var gauge = (DefaultGauge) meter;
                     assertThat(gauge.value()).isEqualTo(3600);
+                })
+                .anySatisfy(meter -> {
+                    assertThat(meter.getId().getName()).isEqualTo("github.api.rateLimit.remainingFraction");
+                    assertThat(meter.getId().getTag("resource")).isEqualTo("core");
+                    assertThat(meter).isInstanceOf(DefaultGauge.class);
+                    var gauge = (DefaultGauge) meter;
+                    assertThat(gauge.value()).isEqualTo(0.9998);
                 });
     }
 
@@ -132,7 +139,7 @@ class MetricsClientHttpRequestInterceptorTest {
 
         var meters = meterRegistry.getMeters();
         assertThat(meters)
-                .hasSize(4)
+                .hasSize(5)
                 .anySatisfy(meter -> {
                     assertThat(meter.getId().getName()).isEqualTo("github.api.rateLimit.remaining");
                     var gauge = (DefaultGauge) meter;
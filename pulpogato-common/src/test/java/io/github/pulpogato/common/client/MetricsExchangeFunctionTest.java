@@ -79,7 +79,7 @@ class MetricsExchangeFunctionTest {
         var meters = meterRegistry.getMeters();
         assertThat(meters)
                 .isNotEmpty()
-                .hasSize(4)
+                .hasSize(5)
                 .anySatisfy(meter -> {
                     assertThat(meter.getId().getName()).isEqualTo("github.api.rateLimit.limit");
                     assertThat(meter.getId().getTag("resource")).isEqualTo("core");
@@ -107,6 +107,13 @@ class MetricsExchangeFunctionTest {
                     assertThat(meter).isInstanceOf(DefaultGauge.class);
                     var gauge = (DefaultGauge) meter;
                     assertThat(gauge.value()).isEqualTo(3600);
+                })
+                .anySatisfy(meter -> {
+                    assertThat(meter.getId().getName()).isEqualTo("github.api.rateLimit.remainingFraction");
+                    assertThat(meter.getId().getTag("resource")).isEqualTo("core");
+                    assertThat(meter).isInstanceOf(DefaultGauge.class);
+                    var gauge = (DefaultGauge) meter;
+                    assertThat(gauge.value()).isEqualTo(0.9998);
                 });
     }
 
@@ -147,10 +154,10 @@ class MetricsExchangeFunctionTest {
                 .expectNext(response2)
                 .verifyComplete();
 
-        // THEN - still only 4 meters, values reflect the second response
+        // THEN - still only 5 meters, values reflect the second response
         var meters = meterRegistry.getMeters();
         assertThat(meters)
-                .hasSize(4)
+                .hasSize(5)
                 .anySatisfy(meter -> {
                     assertThat(meter.getId().getName()).isEqualTo("github.api.rateLimit.remaining");
                     var gauge = (DefaultGauge) meter;
@@ -0,0 +1,117 @@
+package io.github.pulpogato.common.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.jspecify.annotations.NullMarked;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+
+class MutationLimiterClientHttpRequestInterceptorTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+    private static final String IDENTITY =
+            RateLimitGovernor.identityOf(Map.of(RateLimitGovernor.IDENTITY_ATTRIBUTE, "installation-1"), null);
+
+    private final MutationLimiter limiter = MutationLimiter.builder()
+            .minInterval(Duration.ZERO)
+            .clock(Clock.fixed(NOW, ZoneId.of("UTC")))
+            .build();
+    private final MutationLimiterClientHttpRequestInterceptor interceptor =
+            MutationLimiterClientHttpRequestInterceptor.builder().limiter(limiter).build();
+
+    private ClientHttpRequestExecution execution;
+
+    @BeforeEach
+    void setUp() {
+        execution = mock(ClientHttpRequestExecution.class);
+    }
+
+    private static TestHttpRequest request(HttpMethod method) {
+        var request = new TestHttpRequest(method, URI.create("https://api.github.com/repos/octo/repo/issues"));
+        request.getAttributes().put(RateLimitGovernor.IDENTITY_ATTRIBUTE, "installation-1");
+        return request;
+    }
+
+    @RequiredArgsConstructor
+    @Getter
+    @NullMarked
+    private static final class TestHttpRequest implements HttpRequest {
+        private final HttpMethod method;
+        private final HttpHeaders headers = new HttpHeaders();
+        private final java.util.Map<String, Object> attributes = new java.util.HashMap<>();
+        private final URI uri;
+
+        @Override
+        public URI getURI() {
+            return uri;
+        }
+    }
+
+    @Test
+    void passesOtherMethodsStraightThrough() throws Exception {
+        var response = mock(ClientHttpResponse.class);
+        when(execution.execute(any(), any())).thenReturn(response);
+        var held = limiter.acquire(IDENTITY).join();
+
+        assertThat(interceptor.intercept(request(HttpMethod.GET), new byte[0], execution))
+                .isSameAs(response);
+        held.close();
+    }
+
+    @Test
+    void releasesThePermitOnError() throws Exception {
+        when(execution.execute(any(), any())).thenThrow(new IOException("Connection reset"));
+
+        assertThatThrownBy(() -> interceptor.intercept(request(HttpMethod.POST), new byte[0], execution))
+                .isInstanceOf(IOException.class);
+
+        assertThat(limiter.acquire(IDENTITY)).isCompleted();
+    }
+
+    @Test
+    void givesUpItsPlaceWhenInterruptedWhileQueued() throws Exception {
+        var held = limiter.acquire(IDENTITY).join();
+        var thrown = new AtomicReference<Throwable>();
+        var reinterrupted = new AtomicBoolean();
+
+        var waiter = Thread.ofPlatform().start(() -> {
+            try {
+                interceptor.intercept(request(HttpMethod.POST), new byte[0], execution);
+            } catch (Throwable e) {
+                thrown.set(e);
+                reinterrupted.set(Thread.currentThread().isInterrupted());
+            }
+        });
+        while (waiter.getState() != Thread.State.WAITING) {
+            Thread.onSpinWait();
+        }
+        waiter.interrupt();
+        waiter.join();
+        held.close();
+
+        assertThat(thrown.get()).isInstanceOf(InterruptedIOException.class);
+        assertThat(reinterrupted).isTrue();
+        verifyNoInteractions(execution);
+        assertThat(limiter.acquire(IDENTITY)).isCompleted();
+    }
+}
@@ -0,0 +1,93 @@
+package io.github.pulpogato.common.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class MutationLimiterFilterTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+    private static final String IDENTITY =
+            RateLimitGovernor.identityOf(Map.of(RateLimitGovernor.IDENTITY_ATTRIBUTE, "installation-1"), null);
+
+    private final MutationLimiter limiter = MutationLimiter.builder()
+            .minInterval(Duration.ZERO)
+            .clock(Clock.fixed(NOW, ZoneId.of("UTC")))
+            .build();
+    private final MutationLimiterFilter filter =
+            MutationLimiterFilter.builder().limiter(limiter).build();
+
+    private ExchangeFunction exchangeFunction;
+
+    @BeforeEach
+    void setUp() {
+        exchangeFunction = mock(ExchangeFunction.class);
+    }
+
+    private static ClientRequest request(HttpMethod method) {
+        return ClientRequest.create(method, URI.create("https://api.github.com/repos/octo/repo/issues"))
+                .attribute(RateLimitGovernor.IDENTITY_ATTRIBUTE, "installation-1")
+                .build();
+    }
+
+    @Test
+    void passesOtherMethodsStraightThrough() {
+        var response = mock(ClientResponse.class);
+        when(exchangeFunction.exchange(any(ClientRequest.class))).thenReturn(Mono.just(response));
+        var held = limiter.acquire(IDENTITY).join();
+
+        StepVerifier.create(filter.filter(request(HttpMethod.GET), exchangeFunction))
+                .expectNext(response)
+                .verifyComplete();
+        held.close();
+    }
+
+    @Test
+    void releasesThePermitWhenCancelledInFlight() {
+        when(exchangeFunction.exchange(any(ClientRequest.class))).thenReturn(Mono.never());
+
+        filter.filter(request(HttpMethod.POST), exchangeFunction).subscribe().dispose();
+
+        verify(exchangeFunction).exchange(any(ClientRequest.class));
+        assertThat(limiter.acquire(IDENTITY)).isCompleted();
+    }
+
+    @Test
+    void givesUpItsPlaceWhenCancelledWhileQueued() {
+        var held = limiter.acquire(IDENTITY).join();
+
+        filter.filter(request(HttpMethod.POST), exchangeFunction).subscribe().dispose();
+        held.close();
+
+        verifyNoInteractions(exchangeFunction);
+        assertThat(limiter.acquire(IDENTITY)).isCompleted();
+    }
+
+    @Test
+    void releasesThePermitOnError() {
+        when(exchangeFunction.exchange(any(ClientRequest.class)))
+                .thenReturn(Mono.error(new IOException("Connection reset")));
+
+        StepVerifier.create(filter.filter(request(HttpMethod.POST), exchangeFunction))
+                .expectError(IOException.class)
+                .verify();
+
+        assertThat(limiter.acquire(IDENTITY)).isCompleted();
+    }
+}
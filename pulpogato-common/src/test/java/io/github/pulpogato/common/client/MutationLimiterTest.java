@@ -0,0 +1,87 @@
+package io.github.pulpogato.common.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+
+class MutationLimiterTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+    private static final Map<String, String> NO_HEADERS = Map.of();
+
+    private final MutationLimiter limiter = MutationLimiter.builder()
+            .minInterval(Duration.ofSeconds(1))
+            .maxInterval(Duration.ofSeconds(8))
+            .decreaseStep(Duration.ofMillis(500))
+            .clock(Clock.fixed(NOW, ZoneId.of("UTC")))
+            .build();
+
+    @Test
+    void onlyLimitsMutatingMethods() {
+        assertThat(MutationLimiter.limits(HttpMethod.POST)).isTrue();
+        assertThat(MutationLimiter.limits(HttpMethod.DELETE)).isTrue();
+        assertThat(MutationLimiter.limits(HttpMethod.GET)).isFalse();
+    }
+
+    @Test
+    void serializesAnIdentitysRequests() {
+        var first = limiter.acquire("a");
+        var second = limiter.acquire("a");
+        var other = limiter.acquire("b");
+
+        assertThat(first).isCompleted();
+        assertThat(second).isNotDone();
+        assertThat(other).isCompleted();
+
+        first.join().close();
+
+        assertThat(second).isCompleted();
+        assertThat(second.join().delayMillis()).isEqualTo(1_000);
+    }
+
+    @Test
+    void skipsAbandonedWaiters() {
+        var first = limiter.acquire("a");
+        var abandoned = limiter.acquire("a");
+        var third = limiter.acquire("a");
+
+        MutationLimiter.abandon(abandoned);
+        first.join().close();
+
+        assertThat(abandoned).isCancelled();
+        assertThat(third).isCompleted();
+    }
+
+    @Test
+    void backsOffOnSecondaryLimitsAndRecoversGradually() {
+        var first = limiter.acquire("a").join();
+        first.record(429, NO_HEADERS::get);
+        first.close();
+        var second = limiter.acquire("a").join();
+        assertThat(second.delayMillis()).isEqualTo(2_000);
+        second.record(403, Map.of("Retry-After", "60")::get);
+        second.close();
+        var third = limiter.acquire("a").join();
+        assertThat(third.delayMillis()).isEqualTo(4_000);
+        third.record(201, NO_HEADERS::get);
+        third.close();
+
+        // The interval shrinks from the next start on
+        var fourth = limiter.acquire("a").join();
+        assertThat(fourth.delayMillis()).isEqualTo(8_000);
+        fourth.close();
+        assertThat(limiter.acquire("a").join().delayMillis()).isEqualTo(8_000 + 3_500);
+    }
+
+    @Test
+    void doesNotTreatPermissionErrorsAsSecondaryLimits() {
+        assertThat(MutationLimiter.isSecondaryLimit(403, NO_HEADERS::get)).isFalse();
+        assertThat(MutationLimiter.isSecondaryLimit(429, NO_HEADERS::get)).isTrue();
+    }
+}
@@ -0,0 +1,39 @@
+package io.github.pulpogato.common.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.pulpogato.common.annotations.OperationId;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.MethodParameter;
+import org.springframework.web.service.invoker.HttpRequestValues;
+
+class OperationIdProcessorTest {
+
+    interface Api {
+        @OperationId("repos/list-for-org")
+        void listForOrg();
+
+        void unannotated();
+    }
+
+    @Test
+    void copiesTheOperationIdIntoTheRequestAttributes() throws Exception {
+        var builder = HttpRequestValues.builder();
+
+        new OperationIdProcessor()
+                .process(Api.class.getMethod("listForOrg"), new MethodParameter[0], new Object[0], builder);
+
+        assertThat(builder.build().getAttributes())
+                .containsEntry(OperationIdProcessor.OPERATION_ID_ATTRIBUTE, "repos/list-for-org");
+    }
+
+    @Test
+    void leavesUnannotatedMethodsAlone() throws Exception {
+        var builder = HttpRequestValues.builder();
+
+        new OperationIdProcessor()
+                .process(Api.class.getMethod("unannotated"), new MethodParameter[0], new Object[0], builder);
+
+        assertThat(builder.build().getAttributes()).doesNotContainKey(OperationIdProcessor.OPERATION_ID_ATTRIBUTE);
+    }
+}
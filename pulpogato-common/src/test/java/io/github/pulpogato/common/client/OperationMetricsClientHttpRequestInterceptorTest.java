@@ -0,0 +1,66 @@
+package io.github.pulpogato.common.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.jspecify.annotations.NullMarked;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+
+class OperationMetricsClientHttpRequestInterceptorTest {
+
+    @RequiredArgsConstructor
+    @Getter
+    @NullMarked
+    private static final class TestHttpRequest implements HttpRequest {
+        private final HttpMethod method;
+        private final HttpHeaders headers = new HttpHeaders();
+        private final Map<String, Object> attributes = new HashMap<>();
+        private final URI uri;
+
+        @Override
+        public URI getURI() {
+            return uri;
+        }
+    }
+
+    @Test
+    void recordsLatencyAndSizePerOperation() throws Exception {
+        var registry = new SimpleMeterRegistry();
+        var interceptor = OperationMetricsClientHttpRequestInterceptor.builder()
+                .registry(registry)
+                .build();
+        var headers = new HttpHeaders();
+        headers.setContentLength(42);
+        var response = mock(ClientHttpResponse.class);
+        when(response.getStatusCode()).thenReturn(HttpStatus.NOT_FOUND);
+        when(response.getHeaders()).thenReturn(headers);
+        var execution = mock(ClientHttpRequestExecution.class);
+        when(execution.execute(any(), any())).thenReturn(response);
+
+        var request = new TestHttpRequest(HttpMethod.GET, URI.create("https://api.github.com/repos/octo/repo"));
+        request.getAttributes().put(OperationIdProcessor.OPERATION_ID_ATTRIBUTE, "repos/get");
+        interceptor.intercept(request, new byte[0], execution);
+
+        var timer = registry.get("github.api.requests")
+                .tag("operation", "repos/get")
+                .tag("status", "4xx")
+                .timer();
+        assertThat(timer.count()).isEqualTo(1);
+        assertThat(registry.get("github.api.responseSize").summary().totalAmount())
+                .isEqualTo(42);
+    }
+}
@@ -0,0 +1,70 @@
+package io.github.pulpogato.common.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.net.URI;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class OperationMetricsExchangeFunctionTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ExchangeFunction exchangeFunction = mock(ExchangeFunction.class);
+    private final OperationMetricsExchangeFunction filter =
+            OperationMetricsExchangeFunction.builder().registry(registry).build();
+
+    @Test
+    void recordsLatencyAndSizePerOperation() {
+        var response = ClientResponse.create(HttpStatus.OK)
+                .header("Content-Length", "1234")
+                .build();
+        when(exchangeFunction.exchange(any(ClientRequest.class))).thenReturn(Mono.just(response));
+
+        var request = ClientRequest.create(HttpMethod.GET, URI.create("https://api.github.com/orgs/octo/repos"))
+                .attribute(OperationIdProcessor.OPERATION_ID_ATTRIBUTE, "repos/list-for-org")
+                .build();
+        StepVerifier.create(filter.filter(request, exchangeFunction))
+                .expectNext(response)
+                .verifyComplete();
+
+        var timer = registry.get("github.api.requests")
+                .tag("operation", "repos/list-for-org")
+                .tag("method", "GET")
+                .tag("status", "2xx")
+                .timer();
+        assertThat(timer.count()).isEqualTo(1);
+        var size = registry.get("github.api.responseSize")
+                .tag("operation", "repos/list-for-org")
+                .summary();
+        assertThat(size.totalAmount()).isEqualTo(1234);
+    }
+
+    @Test
+    void recordsFailuresWithoutAResponse() {
+        when(exchangeFunction.exchange(any(ClientRequest.class))).thenReturn(Mono.error(new IOException("reset")));
+
+        var request = ClientRequest.create(HttpMethod.POST, URI.create("https://api.github.com/user/repos"))
+                .build();
+        StepVerifier.create(filter.filter(request, exchangeFunction))
+                .expectError(IOException.class)
+                .verify();
+
+        var timer = registry.get("github.api.requests")
+                .tag("operation", "unknown")
+                .tag("status", "ERROR")
+                .timer();
+        assertThat(timer.count()).isEqualTo(1);
+        assertThat(registry.get("github.api.responseSize").summary().count()).isZero();
+    }
+}
@@ -0,0 +1,141 @@
+package io.github.pulpogato.common.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.jspecify.annotations.NullMarked;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+
+class RateLimitGovernorClientHttpRequestInterceptorTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    private final MutableClock clock = new MutableClock(NOW);
+    private final RateLimitGovernorClientHttpRequestInterceptor interceptor =
+            RateLimitGovernorClientHttpRequestInterceptor.builder()
+                    .governor(RateLimitGovernor.builder().clock(clock).build())
+                    .build();
+
+    private ClientHttpRequestExecution execution;
+    private ClientHttpResponse response;
+
+    private static class MutableClock extends Clock {
+        private final AtomicReference<Instant> instant;
+
+        MutableClock(Instant initial) {
+            this.instant = new AtomicReference<>(initial);
+        }
+
+        void advanceBy(Duration duration) {
+            instant.updateAndGet(i -> i.plus(duration));
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant.get();
+        }
+    }
+
+    @RequiredArgsConstructor
+    @Getter
+    @NullMarked
+    private static final class TestHttpRequest implements HttpRequest {
+        private final HttpMethod method;
+        private final HttpHeaders headers = new HttpHeaders();
+        private final java.util.Map<String, Object> attributes = new java.util.HashMap<>();
+        private final URI uri;
+
+        @Override
+        public URI getURI() {
+            return uri;
+        }
+    }
+
+    private static TestHttpRequest request(String authorization) {
+        var request = new TestHttpRequest(HttpMethod.GET, URI.create("https://api.github.com/repos/octo/repo"));
+        request.getHeaders().set(HttpHeaders.AUTHORIZATION, authorization);
+        request.getAttributes().put(RateLimitGovernor.IDENTITY_ATTRIBUTE, "installation-1");
+        return request;
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        var headers = new HttpHeaders();
+        headers.add("x-ratelimit-limit", "5000");
+        headers.add("x-ratelimit-remaining", "0");
+        headers.add("x-ratelimit-reset", String.valueOf(NOW.plusSeconds(60).getEpochSecond()));
+        response = mock(ClientHttpResponse.class);
+        when(response.getHeaders()).thenReturn(headers);
+        execution = mock(ClientHttpRequestExecution.class);
+        when(execution.execute(any(), any())).thenReturn(response);
+    }
+
+    /**
+     * Sends a request on another thread, and interrupts it once it sleeps.
+     *
+     * @return what the request threw
+     */
+    private Throwable interruptWhileHeld(HttpRequest request) throws InterruptedException {
+        var thrown = new AtomicReference<Throwable>();
+        var sender = Thread.ofPlatform().start(() -> {
+            try {
+                interceptor.intercept(request, new byte[0], execution);
+            } catch (Throwable e) {
+                thrown.set(e);
+            }
+        });
+        while (sender.getState() != Thread.State.TIMED_WAITING && sender.isAlive()) {
+            Thread.onSpinWait();
+        }
+        sender.interrupt();
+        sender.join();
+        return thrown.get();
+    }
+
+    @Test
+    void holdsRequestsUntilTheResetOnceTheBudgetIsSpent() throws Exception {
+        interceptor.intercept(request("Bearer token"), new byte[0], execution);
+
+        assertThat(interruptWhileHeld(request("Bearer token"))).isInstanceOf(InterruptedIOException.class);
+        verify(execution, times(1)).execute(any(), any());
+
+        clock.advanceBy(Duration.ofSeconds(62));
+        assertThat(interceptor.intercept(request("Bearer token"), new byte[0], execution))
+                .isSameAs(response);
+        verify(execution, times(2)).execute(any(), any());
+    }
+
+    @Test
+    void keepsTheBudgetOfAnIdentityAcrossTokenRotation() throws Exception {
+        interceptor.intercept(request("Bearer old-token"), new byte[0], execution);
+
+        assertThat(interruptWhileHeld(request("Bearer rotated-token"))).isInstanceOf(InterruptedIOException.class);
+        verify(execution, times(1)).execute(any(), any());
+    }
+}
@@ -0,0 +1,90 @@
+package io.github.pulpogato.common.client;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class RateLimitGovernorFilterTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    @Test
+    void holdsRequestsUntilTheResetOnceTheBudgetIsSpent() {
+        var governor = RateLimitGovernor.builder()
+                .clock(Clock.fixed(NOW, ZoneId.of("UTC")))
+                .build();
+        var filter = RateLimitGovernorFilter.builder().governor(governor).build();
+
+        var headers = new HttpHeaders();
+        headers.add("x-ratelimit-limit", "5000");
+        headers.add("x-ratelimit-remaining", "0");
+        headers.add("x-ratelimit-reset", String.valueOf(NOW.plusSeconds(60).getEpochSecond()));
+        var responseHeaders = mock(ClientResponse.Headers.class);
+        when(responseHeaders.asHttpHeaders()).thenReturn(headers);
+        var response = mock(ClientResponse.class);
+        when(response.headers()).thenReturn(responseHeaders);
+        var exchangeFunction = mock(ExchangeFunction.class);
+        when(exchangeFunction.exchange(any(ClientRequest.class))).thenReturn(Mono.just(response));
+
+        var request = ClientRequest.create(HttpMethod.GET, URI.create("https://api.github.com/repos/octo/repo"))
+                .header(HttpHeaders.AUTHORIZATION, "Bearer token")
+                .build();
+        filter.filter(request, exchangeFunction).block();
+
+        StepVerifier.withVirtualTime(() -> filter.filter(request, exchangeFunction))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofSeconds(60))
+                .thenAwait(Duration.ofSeconds(1))
+                .expectNext(response)
+                .verifyComplete();
+        verify(exchangeFunction, times(2)).exchange(any(ClientRequest.class));
+    }
+
+    @Test
+    void keepsTheBudgetOfAnIdentityAcrossTokenRotation() {
+        var governor = RateLimitGovernor.builder()
+                .clock(Clock.fixed(NOW, ZoneId.of("UTC")))
+                .build();
+        var filter = RateLimitGovernorFilter.builder().governor(governor).build();
+
+        var headers = new HttpHeaders();
+        headers.add("x-ratelimit-limit", "5000");
+        headers.add("x-ratelimit-remaining", "0");
+        headers.add("x-ratelimit-reset", String.valueOf(NOW.plusSeconds(60).getEpochSecond()));
+        var responseHeaders = mock(ClientResponse.Headers.class);
+        when(responseHeaders.asHttpHeaders()).thenReturn(headers);
+        var response = mock(ClientResponse.class);
+        when(response.headers()).thenReturn(responseHeaders);
+        var exchangeFunction = mock(ExchangeFunction.class);
+        when(exchangeFunction.exchange(any(ClientRequest.class))).thenReturn(Mono.just(response));
+
+        filter.filter(request("Bearer old-token"), exchangeFunction).block();
+
+        StepVerifier.withVirtualTime(() -> filter.filter(request("Bearer rotated-token"), exchangeFunction))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofSeconds(60))
+                .thenAwait(Duration.ofSeconds(1))
+                .expectNext(response)
+                .verifyComplete();
+    }
+
+    private static ClientRequest request(String authorization) {
+        return ClientRequest.create(HttpMethod.GET, URI.create("https://api.github.com/repos/octo/repo"))
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .attribute(RateLimitGovernor.IDENTITY_ATTRIBUTE, "installation-1")
+                .build();
+    }
+}
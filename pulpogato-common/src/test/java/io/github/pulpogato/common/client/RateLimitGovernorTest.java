@@ -0,0 +1,132 @@
+package io.github.pulpogato.common.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Map;
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+class RateLimitGovernorTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    private final RateLimitGovernor governor = RateLimitGovernor.builder()
+            .clock(Clock.fixed(NOW, ZoneId.of("UTC")))
+            .build();
+
+    private static @Nullable String header(Map<String, String> headers, String name) {
+        return headers.get(name);
+    }
+
+    private void respond(String identity, long limit, long remaining, Duration untilReset) {
+        var headers = Map.of(
+                "x-ratelimit-limit", String.valueOf(limit),
+                "x-ratelimit-remaining", String.valueOf(remaining),
+                "x-ratelimit-reset", String.valueOf(NOW.plus(untilReset).getEpochSecond()),
+                "x-ratelimit-resource", "core");
+        governor.update(identity, "core", name -> header(headers, name));
+    }
+
+    @Test
+    void doesNotHoldRequestsWithoutABudget() {
+        assertThat(governor.acquire("a", "core")).isZero();
+    }
+
+    @Test
+    void doesNotHoldRequestsWhileMostOfTheBudgetRemains() {
+        respond("a", 5000, 4000, Duration.ofMinutes(30));
+
+        assertThat(governor.acquire("a", "core")).isZero();
+        assertThat(governor.acquire("a", "core")).isZero();
+    }
+
+    @Test
+    void spacesRequestsOverTheRestOfTheWindow() {
+        respond("a", 5000, 100, Duration.ofSeconds(100));
+
+        assertThat(governor.acquire("a", "core")).isZero();
+        assertThat(governor.acquire("a", "core")).isEqualTo(Duration.ofSeconds(1));
+        assertThat(governor.acquire("a", "core")).isBetween(Duration.ofSeconds(2), Duration.ofMillis(2_100));
+    }
+
+    @Test
+    void waitsForTheResetOnceTheBudgetIsSpent() {
+        respond("a", 5000, 0, Duration.ofMinutes(10));
+
+        assertThat(governor.acquire("a", "core")).isEqualTo(Duration.ofMinutes(10).plusSeconds(1));
+    }
+
+    @Test
+    void keepsBudgetsPerIdentityAndResource() {
+        respond("a", 5000, 0, Duration.ofMinutes(10));
+
+        assertThat(governor.acquire("b", "core")).isZero();
+        assertThat(governor.acquire("a", "search")).isZero();
+    }
+
+    @Test
+    void countsRequestsNotYetReflectedInResponses() {
+        respond("a", 5000, 1, Duration.ofMinutes(10));
+        governor.acquire("a", "core");
+        respond("a", 5000, 1, Duration.ofMinutes(10));
+
+        assertThat(governor.acquire("a", "core")).isEqualTo(Duration.ofMinutes(10).plusSeconds(1));
+    }
+
+    @Test
+    void drawsOnTheResourceTheServerNamed() {
+        var headers = Map.of(
+                "x-ratelimit-limit", "5000",
+                "x-ratelimit-remaining", "0",
+                "x-ratelimit-reset", String.valueOf(NOW.plus(Duration.ofMinutes(10)).getEpochSecond()),
+                "x-ratelimit-resource", "integration_manifest");
+        governor.update("a", "core", name -> header(headers, name));
+
+        assertThat(governor.acquire("a", "core")).isEqualTo(Duration.ofMinutes(10).plusSeconds(1));
+        assertThat(governor.acquire("a", "integration_manifest")).isEqualTo(Duration.ofMinutes(10).plusSeconds(1));
+        assertThat(governor.acquire("b", "core")).isZero();
+    }
+
+    @Test
+    void startsOverInANewWindow() {
+        respond("a", 5000, 0, Duration.ofMinutes(10));
+        respond("a", 5000, 5000, Duration.ofMinutes(70));
+
+        assertThat(governor.acquire("a", "core")).isZero();
+    }
+
+    @Test
+    void guessesResourcesFromPaths() {
+        assertThat(RateLimitGovernor.resourceOf("/repos/octo/repo")).isEqualTo("core");
+        assertThat(RateLimitGovernor.resourceOf("/api/v3/search/issues")).isEqualTo("search");
+        assertThat(RateLimitGovernor.resourceOf("/search/code")).isEqualTo("code_search");
+        assertThat(RateLimitGovernor.resourceOf("/api/graphql")).isEqualTo("graphql");
+    }
+
+    @Test
+    void keepsCredentialsOutOfIdentities() {
+        assertThat(RateLimitGovernor.identityOf(Map.of(), "Bearer secret")).doesNotContain("secret");
+        assertThat(RateLimitGovernor.identityOf(Map.of(), null)).isEqualTo("anonymous");
+    }
+
+    @Test
+    void tellsApartHeadersWhoseHashCodesCollide() {
+        assertThat("Bearer Aa".hashCode()).isEqualTo("Bearer BB".hashCode());
+
+        assertThat(RateLimitGovernor.identityOf(Map.of(), "Bearer Aa"))
+                .isNotEqualTo(RateLimitGovernor.identityOf(Map.of(), "Bearer BB"));
+    }
+
+    @Test
+    void prefersTheIdentityAttributeOverTheToken() {
+        var attributes = Map.<String, Object>of(RateLimitGovernor.IDENTITY_ATTRIBUTE, "installation-1");
+
+        assertThat(RateLimitGovernor.identityOf(attributes, "Bearer old-token"))
+                .isEqualTo(RateLimitGovernor.identityOf(attributes, "Bearer rotated-token"))
+                .isNotEqualTo(RateLimitGovernor.identityOf(Map.of(), "Bearer old-token"));
+    }
+}
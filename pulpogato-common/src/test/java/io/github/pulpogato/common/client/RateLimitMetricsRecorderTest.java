@@ -1,6 +1,8 @@
 package io.github.pulpogato.common.client;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 import io.github.pulpogato.common.jackson.NullableFunction;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
@@ -96,4 +98,43 @@ class RateLimitMetricsRecorderTest {
                         .value())
                 .isEqualTo(10);
     }
+
+    @Test
+    void recordsTheFractionOfTheLimitRemaining() {
+        recorder()
+                .recordMetrics(lookup(Map.of(
+                        "x-ratelimit-limit", "5000", "x-ratelimit-remaining", "1250", "x-ratelimit-resource", "core")));
+
+        assertThat(registry.get("github.api.rateLimit.remainingFraction").gauge().value())
+                .isEqualTo(0.25);
+    }
+
+    @Test
+    void recordsTheConsumptionRateWithinAWindow() {
+        var steppingClock = mock(Clock.class);
+        when(steppingClock.millis()).thenReturn(0L, 500L, 2_000L, 4_000L);
+        var recorder = new RateLimitMetricsRecorder(registry, steppingClock, "github.api.rateLimit", List.of());
+        var reset = "3600";
+        var nextReset = "7200";
+
+        recorder.recordMetrics(lookup(Map.of("x-ratelimit-remaining", "100", "x-ratelimit-reset", reset)));
+        recorder.recordMetrics(lookup(Map.of("x-ratelimit-remaining", "99", "x-ratelimit-reset", reset)));
+        recorder.recordMetrics(lookup(Map.of("x-ratelimit-remaining", "80", "x-ratelimit-reset", reset)));
+        recorder.recordMetrics(lookup(Map.of("x-ratelimit-remaining", "5000", "x-ratelimit-reset", nextReset)));
+
+        var summary = registry.get("github.api.rateLimit.consumptionRate").summary();
+        assertThat(summary.count()).isEqualTo(1);
+        assertThat(summary.totalAmount()).isEqualTo(10.0);
+    }
+
+    @Test
+    void parsesHeaderNumbersWithoutExceptions() {
+        assertThat(RateLimitMetricsRecorder.parse("5000")).isEqualTo(5000);
+        assertThat(RateLimitMetricsRecorder.parse("0")).isZero();
+        assertThat(RateLimitMetricsRecorder.parse(null)).isEqualTo(-1);
+        assertThat(RateLimitMetricsRecorder.parse("")).isEqualTo(-1);
+        assertThat(RateLimitMetricsRecorder.parse("-1")).isEqualTo(-1);
+        assertThat(RateLimitMetricsRecorder.parse("12a")).isEqualTo(-1);
+        assertThat(RateLimitMetricsRecorder.parse("99999999999999999999")).isEqualTo(-1);
+    }
 }
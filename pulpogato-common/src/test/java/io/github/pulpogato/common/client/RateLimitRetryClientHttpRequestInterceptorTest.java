@@ -0,0 +1,85 @@
+package io.github.pulpogato.common.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+class RateLimitRetryClientHttpRequestInterceptorTest {
+
+    private final List<String> tokensSeen = new CopyOnWriteArrayList<>();
+    private final AtomicInteger tokens = new AtomicInteger();
+    private HttpServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        // Rejects the first request, then accepts the rest
+        server.createContext("/", exchange -> {
+            tokensSeen.add(exchange.getRequestHeaders().getFirst("Authorization"));
+            if (tokensSeen.size() == 1) {
+                exchange.getResponseHeaders().set("Retry-After", "0");
+                exchange.sendResponseHeaders(429, -1);
+            } else {
+                var body = "ok".getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            }
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    private RestClient restClient() {
+        return RestClient.builder()
+                .baseUrl("http://localhost:" + server.getAddress().getPort())
+                .requestFactory(new JdkClientHttpRequestFactory())
+                .requestInterceptor(RateLimitRetryClientHttpRequestInterceptor.builder()
+                        .build())
+                // Stands in for the interceptor that authenticates requests, which must run again on a retry
+                .requestInterceptor((request, body, execution) -> {
+                    request.getHeaders().set("Authorization", "Bearer token-" + tokens.incrementAndGet());
+                    return execution.execute(request, body);
+                })
+                .build();
+    }
+
+    @Test
+    void retriesThroughTheRestOfTheChain() {
+        var response = restClient().get().uri("/user").retrieve().toEntity(String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo("ok");
+        assertThat(tokensSeen).containsExactly("Bearer token-1", "Bearer token-2");
+    }
+
+    @Test
+    void returnsTheRejectionForNonIdempotentRequests() {
+        var response = restClient()
+                .post()
+                .uri("/user/repos")
+                .retrieve()
+                .onStatus(status -> true, (request, rejected) -> {})
+                .toBodilessEntity();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(tokensSeen).containsExactly("Bearer token-1");
+    }
+}
@@ -0,0 +1,60 @@
+package io.github.pulpogato.common.client;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.net.URI;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class RateLimitRetryFilterTest {
+
+    private final ExchangeFunction exchangeFunction = mock(ExchangeFunction.class);
+
+    private static ClientResponse rejected() {
+        return ClientResponse.create(HttpStatus.TOO_MANY_REQUESTS)
+                .header("Retry-After", "10")
+                .build();
+    }
+
+    @Test
+    void retriesAfterTheRequestedWait() {
+        var ok = ClientResponse.create(HttpStatus.OK).build();
+        when(exchangeFunction.exchange(any(ClientRequest.class)))
+                .thenReturn(Mono.fromSupplier(RateLimitRetryFilterTest::rejected), Mono.just(ok));
+        var filter = RateLimitRetryFilter.builder().build();
+
+        var request = ClientRequest.create(HttpMethod.GET, URI.create("https://api.github.com/user"))
+                .build();
+
+        StepVerifier.withVirtualTime(() -> filter.filter(request, exchangeFunction))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofSeconds(9))
+                .thenAwait(Duration.ofSeconds(2))
+                .expectNext(ok)
+                .verifyComplete();
+        verify(exchangeFunction, times(2)).exchange(request);
+    }
+
+    @Test
+    void returnsTheRejectionForNonIdempotentRequests() {
+        var response = rejected();
+        when(exchangeFunction.exchange(any(ClientRequest.class))).thenReturn(Mono.just(response));
+        var filter = RateLimitRetryFilter.builder().build();
+
+        var request = ClientRequest.create(HttpMethod.POST, URI.create("https://api.github.com/user/repos"))
+                .build();
+
+        StepVerifier.create(filter.filter(request, exchangeFunction))
+                .expectNext(response)
+                .verifyComplete();
+        verify(exchangeFunction, times(1)).exchange(request);
+    }
+}
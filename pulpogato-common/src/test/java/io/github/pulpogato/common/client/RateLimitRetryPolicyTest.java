@@ -0,0 +1,92 @@
+package io.github.pulpogato.common.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Map;
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+
+class RateLimitRetryPolicyTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    private final RateLimitRetryPolicy policy = RateLimitRetryPolicy.builder()
+            .baseDelay(Duration.ofSeconds(10))
+            .maxConcurrentRetries(1)
+            .clock(Clock.fixed(NOW, ZoneId.of("UTC")))
+            .build();
+
+    private long delay(int status, Map<String, String> headers) {
+        return delay(1, status, headers, 0);
+    }
+
+    private long delay(int attempt, int status, Map<String, String> headers, long previousDelay) {
+        return policy.delayMillis(attempt, status, name -> header(headers, name), previousDelay);
+    }
+
+    private static @Nullable String header(Map<String, String> headers, String name) {
+        return headers.get(name);
+    }
+
+    @Test
+    void honoursRetryAfter() {
+        assertThat(delay(403, Map.of("Retry-After", "30"))).isBetween(30_000L, 33_000L);
+        assertThat(delay(429, Map.of("Retry-After", "Thu, 01 Jan 2026 00:00:20 GMT")))
+                .isBetween(20_000L, 22_000L);
+    }
+
+    @Test
+    void waitsForTheResetWhenTheRateLimitIsSpent() {
+        var reset = String.valueOf(NOW.plusSeconds(60).getEpochSecond());
+
+        assertThat(delay(403, Map.of("x-ratelimit-remaining", "0", "x-ratelimit-reset", reset)))
+                .isBetween(61_000L, 67_100L);
+    }
+
+    @Test
+    void backsOffWithJitterWithoutHeaders() {
+        var first = delay(1, 429, Map.of(), 0);
+        var second = delay(2, 429, Map.of(), first);
+
+        assertThat(first).isBetween(10_000L, 30_000L);
+        assertThat(second).isBetween(10_000L, first * 3);
+    }
+
+    @Test
+    void doesNotRetryOtherResponses() {
+        assertThat(delay(403, Map.of())).isNegative();
+        assertThat(delay(500, Map.of("Retry-After", "1"))).isNegative();
+        assertThat(delay(403, Map.of("Retry-After", "3600"))).isNegative();
+    }
+
+    @Test
+    void stopsAfterMaxAttempts() {
+        assertThat(delay(3, 429, Map.of("Retry-After", "1"), 1_000)).isNegative();
+    }
+
+    @Test
+    void onlyRetriesIdempotentMethodsUnlessAskedTo() {
+        assertThat(policy.retries(HttpMethod.GET)).isTrue();
+        assertThat(policy.retries(HttpMethod.POST)).isFalse();
+        assertThat(RateLimitRetryPolicy.builder().retryNonIdempotent(true).build().retries(HttpMethod.POST))
+                .isTrue();
+    }
+
+    @Test
+    void capsConcurrentRetries() {
+        var permit = policy.tryAcquire();
+
+        assertThat(permit).isNotNull();
+        assertThat(policy.tryAcquire()).isNull();
+        permit.close();
+        permit.close();
+        var next = policy.tryAcquire();
+        assertThat(next).isNotNull();
+        assertThat(policy.tryAcquire()).isNull();
+    }
+}
@@ -0,0 +1,92 @@
+package io.github.pulpogato.common.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import com.auth0.jwt.JWT;
+import java.net.URI;
+import java.util.ArrayList;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.jspecify.annotations.NullMarked;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+
+class TenantJwtClientHttpRequestInterceptorTest {
+
+    private ClientHttpRequestExecution execution;
+    private TenantJwtClientHttpRequestInterceptor interceptor;
+
+    @BeforeAll
+    static void generateKeyPair() throws Exception {
+        JwtCredentialRegistryTest.generateKeyPair();
+    }
+
+    @BeforeEach
+    void setUp() {
+        execution = mock(ClientHttpRequestExecution.class);
+        interceptor = TenantJwtClientHttpRequestInterceptor.builder()
+                .registry(JwtCredentialRegistryTest.registry(new ArrayList<>(), 10))
+                .build();
+    }
+
+    private static TestHttpRequest request() {
+        return new TestHttpRequest(HttpMethod.GET, URI.create("https://api.github.com/app"));
+    }
+
+    @RequiredArgsConstructor
+    @Getter
+    @NullMarked
+    private static final class TestHttpRequest implements HttpRequest {
+        private final HttpMethod method;
+        private final HttpHeaders headers = new HttpHeaders();
+        private final java.util.Map<String, Object> attributes = new java.util.HashMap<>();
+        private final URI uri;
+
+        @Override
+        public URI getURI() {
+            return uri;
+        }
+    }
+
+    @Test
+    void addsJwtForTheRequestTenant() throws Exception {
+        when(execution.execute(any(), any())).thenReturn(mock(ClientHttpResponse.class));
+
+        var request = request();
+        request.getAttributes().put(JwtCredentialRegistry.TENANT_ATTRIBUTE, "b");
+        interceptor.intercept(request, new byte[0], execution);
+
+        var captor = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(execution).execute(captor.capture(), any());
+        var authorization = captor.getValue().getHeaders().getFirst("Authorization");
+        assertThat(authorization).startsWith("Bearer ");
+        assertThat(JWT.decode(authorization.substring(7)).getIssuer()).isEqualTo("2");
+    }
+
+    @Test
+    void failsWithoutATenant() {
+        assertThatThrownBy(() -> interceptor.intercept(request(), new byte[0], execution))
+                .isInstanceOf(IllegalStateException.class);
+        verifyNoInteractions(execution);
+    }
+
+    @Test
+    void failsForAnUnknownTenant() {
+        var request = request();
+        request.getAttributes().put(JwtCredentialRegistry.TENANT_ATTRIBUTE, "z");
+
+        assertThatThrownBy(() -> interceptor.intercept(request, new byte[0], execution))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(execution);
+    }
+}
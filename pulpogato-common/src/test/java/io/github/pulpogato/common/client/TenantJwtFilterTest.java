@@ -0,0 +1,77 @@
+package io.github.pulpogato.common.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import com.auth0.jwt.JWT;
+import java.net.URI;
+import java.util.ArrayList;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class TenantJwtFilterTest {
+
+    private ExchangeFunction exchangeFunction;
+    private TenantJwtFilter filter;
+
+    @BeforeAll
+    static void generateKeyPair() throws Exception {
+        JwtCredentialRegistryTest.generateKeyPair();
+    }
+
+    @BeforeEach
+    void setUp() {
+        exchangeFunction = mock(ExchangeFunction.class);
+        filter = TenantJwtFilter.builder()
+                .registry(JwtCredentialRegistryTest.registry(new ArrayList<>(), 10))
+                .build();
+    }
+
+    @Test
+    void addsJwtForTheRequestTenant() {
+        when(exchangeFunction.exchange(any(ClientRequest.class))).thenReturn(Mono.just(mock(ClientResponse.class)));
+
+        var request = ClientRequest.create(HttpMethod.GET, URI.create("https://api.github.com/app"))
+                .attribute(JwtCredentialRegistry.TENANT_ATTRIBUTE, "b")
+                .build();
+        filter.filter(request, exchangeFunction).block();
+
+        var captor = ArgumentCaptor.forClass(ClientRequest.class);
+        verify(exchangeFunction).exchange(captor.capture());
+        var authorization = captor.getValue().headers().getFirst("Authorization");
+        assertThat(authorization).startsWith("Bearer ");
+        assertThat(JWT.decode(authorization.substring(7)).getIssuer()).isEqualTo("2");
+    }
+
+    @Test
+    void failsWithoutATenant() {
+        var request = ClientRequest.create(HttpMethod.GET, URI.create("https://api.github.com/app"))
+                .build();
+
+        StepVerifier.create(filter.filter(request, exchangeFunction))
+                .expectError(IllegalStateException.class)
+                .verify();
+        verifyNoInteractions(exchangeFunction);
+    }
+
+    @Test
+    void failsForAnUnknownTenant() {
+        var request = ClientRequest.create(HttpMethod.GET, URI.create("https://api.github.com/app"))
+                .attribute(JwtCredentialRegistry.TENANT_ATTRIBUTE, "z")
+                .build();
+
+        StepVerifier.create(filter.filter(request, exchangeFunction))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+        verifyNoInteractions(exchangeFunction);
+    }
+}
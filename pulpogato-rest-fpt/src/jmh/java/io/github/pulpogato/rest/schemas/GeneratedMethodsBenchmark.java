@@ -0,0 +1,107 @@
+package io.github.pulpogato.rest.schemas;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Generated {@code equals}, {@code hashCode} and {@code toString} against the commons-lang3 reflection
+ * builders they replaced. {@code SimpleUser} has only value-typed fields, so its hash code is cached;
+ * {@code Repository} nests a {@code SimpleUser} and recomputes it on every call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GeneratedMethodsBenchmark {
+
+    private static final String USER = """
+            {"login":"octocat","id":1,"node_id":"MDQ6VXNlcjE=",\
+            "avatar_url":"https://github.com/images/error/octocat_happy.gif","gravatar_id":"",\
+            "url":"https://api.github.com/users/octocat","html_url":"https://github.com/octocat",\
+            "followers_url":"https://api.github.com/users/octocat/followers",\
+            "following_url":"https://api.github.com/users/octocat/following{/other_user}",\
+            "gists_url":"https://api.github.com/users/octocat/gists{/gist_id}",\
+            "starred_url":"https://api.github.com/users/octocat/starred{/owner}{/repo}",\
+            "subscriptions_url":"https://api.github.com/users/octocat/subscriptions",\
+            "organizations_url":"https://api.github.com/users/octocat/orgs",\
+            "repos_url":"https://api.github.com/users/octocat/repos",\
+            "events_url":"https://api.github.com/users/octocat/events{/privacy}",\
+            "received_events_url":"https://api.github.com/users/octocat/received_events",\
+            "type":"User","site_admin":false,"user_view_type":"public"}""";
+
+    private static final String REPOSITORY = """
+            {"id":1296269,"node_id":"MDEwOlJlcG9zaXRvcnkxMjk2MjY5","name":"Hello-World",\
+            "full_name":"octocat/Hello-World","owner":%s,"private":false,\
+            "html_url":"https://github.com/octocat/Hello-World","description":"This your first repo!",\
+            "fork":false,"url":"https://api.github.com/repos/octocat/Hello-World",\
+            "default_branch":"master","forks_count":9,"stargazers_count":80,"watchers_count":80,\
+            "size":108,"open_issues_count":0,"is_template":false,"topics":["octocat","api"],\
+            "has_issues":true,"has_projects":true,"has_wiki":true,"has_pages":false,\
+            "has_downloads":true,"archived":false,"disabled":false,"visibility":"public",\
+            "pushed_at":"2011-01-26T19:06:43Z","created_at":"2011-01-26T19:01:12Z",\
+            "updated_at":"2011-01-26T19:14:43Z"}"""
+            .formatted(USER);
+
+    @Param({"SimpleUser", "Repository"})
+    private String type;
+
+    private Object value;
+    private Object same;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper mapper = JsonMapper.builder().build();
+        var json = type.equals("SimpleUser") ? USER : REPOSITORY;
+        var target = type.equals("SimpleUser") ? SimpleUser.class : Repository.class;
+        // Separate instances, so equals can't short-circuit on identity
+        value = mapper.readValue(json, target);
+        same = mapper.readValue(json, target);
+    }
+
+    @Benchmark
+    public boolean generatedEquals() {
+        return value.equals(same);
+    }
+
+    @Benchmark
+    public boolean reflectionEquals() {
+        return EqualsBuilder.reflectionEquals(value, same);
+    }
+
+    @Benchmark
+    public int generatedHashCode() {
+        return value.hashCode();
+    }
+
+    @Benchmark
+    public int reflectionHashCode() {
+        return HashCodeBuilder.reflectionHashCode(value);
+    }
+
+    @Benchmark
+    public String generatedToString() {
+        return value.toString();
+    }
+
+    @Benchmark
+    public String reflectionToString() {
+        return ToStringBuilder.reflectionToString(value);
+    }
+}
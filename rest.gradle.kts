@@ -8,6 +8,7 @@ import net.ltgt.gradle.nullaway.nullaway
 
 plugins {
     alias(libs.plugins.javaLibrary)
+    alias(libs.plugins.jmh)
     alias(libs.plugins.waenaPublished)
     alias(libs.plugins.testLogger)
     id("io.github.pulpogato.build-support")
@@ -26,8 +27,6 @@ dependencies {
     compileOnly(libs.springBootWebflux)
     compileOnly(libs.springWeb)
 
-    implementation(libs.commonsLang3)
-
     api(project(":${rootProject.name}-common"))
 
     testImplementation(libs.bundles.springBoot)
@@ -39,6 +38,9 @@ dependencies {
     testCompileOnly(libs.lombok)
 
     testAnnotationProcessor(libs.lombok)
+
+    // Only to compare the generated equals/hashCode/toString against the reflection builders they replaced
+    jmh(libs.commonsLang3)
 }
 
 val variant = project.name.replace("${rootProject.name}-rest-", "")
@@ -173,6 +175,16 @@ tasks.named<JavaCompile>("compileTestJava") {
     options.isFork = false
 }
 
+tasks.named<JavaCompile>("compileJmhJava") {
+    options.errorprone.enabled = false
+    options.isFork = false
+}
+
+// Benchmarks live in the fpt variant only; `./gradlew :pulpogato-rest-fpt:jmh` runs them.
+jmh {
+    jmhVersion = libs.versions.jmh
+}
+
 val addSchemaInfoToBroker =
     tasks.register<WriteInfoPropertiesTask>("addSchemaInfoToBroker") {
         description = "Writes schema metadata (checksum, repo, commit, version) to info.properties for the info broker plugin"